@@ -38,6 +38,10 @@ import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
 import java.util.Locale;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -64,6 +68,7 @@ public abstract class BaseConverter {
 	private static final int MINUTE_MULTIPLIER = 60 * 1000;
 	public static final int TIME_TO_WAIT_FOR_FRAME = 5 * MINUTE_MULTIPLIER;
 	public static final double HALF_STEP = 1. / 2;
+	private static final long CHUNK_CHECK_INTERVAL = 5 * 1000L;
 
 	@Autowired
 	protected ConfigurationDao cfgDao;
@@ -73,6 +78,10 @@ public abstract class BaseConverter {
 	protected FileItemLogDao logDao;
 	@Autowired
 	protected RecordingDao recordingDao;
+	@Autowired
+	private RecordingChunkMonitor chunkMonitor;
+	@Autowired
+	private ConversionScheduler scheduler;
 
 	protected static class Dimension {
 		private final int width;
@@ -196,38 +205,39 @@ public abstract class BaseConverter {
 
 	protected RecordingChunk waitForTheStream(long chunkId) {
 		RecordingChunk chunk = chunkDao.get(chunkId);
+		if (chunk.getStreamStatus() == Status.STOPPED) {
+			return chunk;
+		}
+		log.debug("### Chunk Stream not yet written to disk {}", chunkId);
+		long counter = 0;
+		long maxTimestamp = 0;
 		try {
-			if (chunk.getStreamStatus() != Status.STOPPED) {
-				log.debug("### Chunk Stream not yet written to disk {}", chunkId);
-				long counter = 0;
-				long maxTimestamp = 0;
-				while (true) {
-					log.trace("### Stream not yet written Thread Sleep - {}", chunkId);
-
-					chunk = chunkDao.get(chunkId);
-
-					if (chunk.getStreamStatus() == Status.STOPPED) {
-						printChunkInfo(chunk, "Stream now written");
-						log.debug("### Thread continue ... " );
-						break;
-					} else {
-						File chunkFlv = getRecordingChunk(chunk.getRecording().getRoomId(), chunk.getStreamName());
-						if (chunkFlv.exists() && maxTimestamp < chunkFlv.lastModified()) {
-							maxTimestamp = chunkFlv.lastModified();
-						}
-						if (maxTimestamp + TIME_TO_WAIT_FOR_FRAME < System.currentTimeMillis()) {
-							log.debug("### long time without any update, closing ... ");
-							chunk.setStreamStatus(Status.STOPPED);
-							chunkDao.update(chunk);
-							break;
-						}
-					}
-					if (++counter % 1000 == 0) {
-						printChunkInfo(chunk, "Still waiting");
-					}
-
-					Thread.sleep(100L);
+			while (true) {
+				log.trace("### Stream not yet written, waiting - {}", chunkId);
+				CountDownLatch stopped = chunkMonitor.watch(chunkId);
+				chunk = chunkDao.get(chunkId);
+				if (chunk.getStreamStatus() == Status.STOPPED) {
+					chunkMonitor.unwatch(chunkId, stopped);
+					printChunkInfo(chunk, "Stream now written");
+					log.debug("### Thread continue ... " );
+					break;
+				}
+				File chunkFlv = getRecordingChunk(chunk.getRecording().getRoomId(), chunk.getStreamName());
+				if (chunkFlv.exists() && maxTimestamp < chunkFlv.lastModified()) {
+					maxTimestamp = chunkFlv.lastModified();
 				}
+				if (maxTimestamp + TIME_TO_WAIT_FOR_FRAME < System.currentTimeMillis()) {
+					chunkMonitor.unwatch(chunkId, stopped);
+					log.debug("### long time without any update, closing ... ");
+					chunk.setStreamStatus(Status.STOPPED);
+					chunkDao.update(chunk);
+					break;
+				}
+				if (++counter % 20 == 0) {
+					printChunkInfo(chunk, "Still waiting");
+				}
+				// chunk can be stopped by other server, so status is re-checked periodically
+				stopped.await(CHUNK_CHECK_INTERVAL, TimeUnit.MILLISECONDS);
 			}
 		} catch (InterruptedException e) {
 			Thread.currentThread().interrupt();
@@ -235,72 +245,98 @@ public abstract class BaseConverter {
 		return chunk;
 	}
 
+	ConversionScheduler getScheduler() {
+		return scheduler;
+	}
+
 	private void stripAudioFirstPass(Recording recording,
 			ProcessResultList logs,
 			List<File> waveFiles, File streamFolder,
 			List<RecordingChunk> chunks) {
+		// Init variables
+		log.debug("### Chunks count - {}", chunks.size());
+		log.debug("###################################################");
+
+		List<Callable<File>> tasks = new ArrayList<>(chunks.size());
+		List<ProcessResultList> chunkLogs = new ArrayList<>(chunks.size());
+		for (RecordingChunk chunk : chunks) {
+			long chunkId = chunk.getId();
+			log.debug("### processing chunk: {}", chunkId);
+			if (chunk.getStreamStatus() == Status.NONE) {
+				log.debug("Stream has not been started, error in recording {}", chunkId);
+				continue;
+			}
+			final ProcessResultList clogs = new ProcessResultList();
+			chunkLogs.add(clogs);
+			tasks.add(() -> stripAudio(recording, chunkId, streamFolder, clogs));
+		}
+		List<Future<File>> results;
 		try {
-			// Init variables
-			log.debug("### Chunks count - {}", chunks.size());
-			log.debug("###################################################");
-
-			for (RecordingChunk chunk : chunks) {
-				long chunkId = chunk.getId();
-				log.debug("### processing chunk: {}", chunkId);
-				if (chunk.getStreamStatus() == Status.NONE) {
-					log.debug("Stream has not been started, error in recording {}", chunkId);
-					continue;
+			results = getScheduler().fork(tasks).join();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			return;
+		}
+		for (int i = 0; i < results.size(); ++i) {
+			try {
+				File outputFullWav = results.get(i).get();
+				if (outputFullWav != null) {
+					// Finally add it to the row!
+					waveFiles.add(outputFullWav);
 				}
+			} catch (Exception err) {
+				log.error("[stripAudioFirstPass]", err);
+			} finally {
+				for (ProcessResult res : chunkLogs.get(i).getJobs()) {
+					logs.add(res);
+				}
+			}
+		}
+	}
 
-				chunk = waitForTheStream(chunkId);
+	private File stripAudio(Recording recording, long chunkId, File streamFolder, ProcessResultList logs) throws IOException, ConversionException {
+		RecordingChunk chunk = waitForTheStream(chunkId);
 
-				File inputFlvFile = getRecordingChunk(chunk.getRecording().getRoomId(), chunk.getStreamName());
+		File inputFlvFile = getRecordingChunk(chunk.getRecording().getRoomId(), chunk.getStreamName());
 
-				File outputWav = new File(streamFolder, chunk.getStreamName() + "_WAVE.wav");
+		File outputWav = new File(streamFolder, chunk.getStreamName() + "_WAVE.wav");
 
-				log.debug("FLV File Name: {} Length: {} ", inputFlvFile.getName(), inputFlvFile.length());
+		log.debug("FLV File Name: {} Length: {} ", inputFlvFile.getName(), inputFlvFile.length());
 
-				if (inputFlvFile.exists()) {
-					List<String> argv = List.of(
-							getPathToFFMPEG(), "-y"
-							, "-i", inputFlvFile.getCanonicalPath()
-							, "-af", String.format("aresample=%s:min_comp=0.001:min_hard_comp=0.100000", getAudioBitrate())
-							, outputWav.getCanonicalPath());
-					//there might be no audio in the stream
-					logs.add(ProcessHelper.exec("stripAudioFromFLVs", argv, true));
-				}
-
-				if (outputWav.exists() && outputWav.length() != 0) {
-					// Strip Wave to Full Length
-					// Strip Wave to Full Length
-					String hashFileFullName = chunk.getStreamName() + "_FULL_WAVE.wav";
-					File outputFullWav = new File(streamFolder, hashFileFullName);
+		if (inputFlvFile.exists()) {
+			List<String> argv = List.of(
+					getPathToFFMPEG(), "-y"
+					, "-i", inputFlvFile.getCanonicalPath()
+					, "-af", String.format("aresample=%s:min_comp=0.001:min_hard_comp=0.100000", getAudioBitrate())
+					, outputWav.getCanonicalPath());
+			//there might be no audio in the stream
+			logs.add(ProcessHelper.exec("stripAudioFromFLVs", argv, true));
+		}
 
-					// Calculate delta at beginning
-					double startPad = diffSeconds(chunk.getStart(), recording.getRecordStart());
+		File outputFullWav = null;
+		if (outputWav.exists() && outputWav.length() != 0) {
+			// Strip Wave to Full Length
+			outputFullWav = new File(streamFolder, chunk.getStreamName() + "_FULL_WAVE.wav");
 
-					// Calculate delta at ending
-					double endPad = diffSeconds(recording.getRecordEnd(), chunk.getEnd());
+			// Calculate delta at beginning
+			double startPad = diffSeconds(chunk.getStart(), recording.getRecordStart());
 
-					addSoxPad(logs, "addStartEndToAudio", startPad, endPad, outputWav, outputFullWav);
+			// Calculate delta at ending
+			double endPad = diffSeconds(recording.getRecordEnd(), chunk.getEnd());
 
-					// Fix for Audio Length - Invalid Audio Length in Recorded Files
-					// Audio must match 100% the Video
-					log.debug("############################################");
-					log.debug("Trim Audio to Full Length -- Start");
+			addSoxPad(logs, "addStartEndToAudio", startPad, endPad, outputWav, outputFullWav);
 
-					if (!outputFullWav.exists()) {
-						throw new ConversionException("Audio File does not exist , could not extract the Audio correctly");
-					}
+			// Fix for Audio Length - Invalid Audio Length in Recorded Files
+			// Audio must match 100% the Video
+			log.debug("############################################");
+			log.debug("Trim Audio to Full Length -- Start");
 
-					// Finally add it to the row!
-					waveFiles.add(outputFullWav);
-				}
-				chunkDao.update(chunk);
+			if (!outputFullWav.exists()) {
+				throw new ConversionException("Audio File does not exist , could not extract the Audio correctly");
 			}
-		} catch (Exception err) {
-			log.error("[stripAudioFirstPass]", err);
 		}
+		chunkDao.update(chunk);
+		return outputFullWav;
 	}
 
 	protected String getDimensions(Recording r, char delim) {
@@ -386,6 +422,7 @@ public abstract class BaseConverter {
 		convertToPng(r, mp4path, logs);
 
 		updateDuration(r);
+		r.setStorageSize(r.getDiskSize());
 		r.setStatus(Recording.Status.PROCESSED);
 	}
 
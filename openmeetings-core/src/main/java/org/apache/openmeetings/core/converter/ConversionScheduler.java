@@ -0,0 +1,443 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License") +  you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.openmeetings.core.converter;
+
+import static org.apache.openmeetings.util.OpenmeetingsVariables.CONFIG_CONVERSION_THREADS;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Queue;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+import javax.annotation.PreDestroy;
+
+import org.apache.openmeetings.core.util.JobCoordinator;
+import org.apache.openmeetings.db.dao.basic.ConfigurationDao;
+import org.apache.openmeetings.db.dao.record.RecordingDao;
+import org.apache.openmeetings.db.entity.record.Recording;
+import org.apache.openmeetings.util.logging.PrometheusUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import com.hazelcast.cluster.Member;
+import com.hazelcast.cluster.MembershipAdapter;
+import com.hazelcast.cluster.MembershipEvent;
+import com.hazelcast.core.HazelcastInstance;
+import com.hazelcast.map.IMap;
+
+import io.prometheus.client.Gauge;
+
+/**
+ * Runs all conversions (documents, images, videos and recordings) using
+ * dedicated pool of threads, so number of simultaneously running external
+ * processes (ffmpeg, sox, convert) is limited.
+ *
+ * Interactive jobs (uploads) are always taken before background ones
+ * (recordings), background jobs never occupy all the threads if there are
+ * more than one, so uploads are not waiting for long recordings. Parts of
+ * the conversion performed in parallel (pages, audio tracks) are run by the
+ * same threads, see {@link #fork(List)}.
+ *
+ * Recordings waiting for conversion have {@link Recording.Status#CONVERTING}
+ * status, the node converting the recording is stored in the cluster map.
+ * Conversions of the nodes gone (stopped or left the cluster) are re-scheduled
+ * by the leader node on start and when the node leaves.
+ */
+@Component
+public class ConversionScheduler {
+	private static final Logger log = LoggerFactory.getLogger(ConversionScheduler.class);
+	private static final String METRIC_CLASS = ConversionScheduler.class.getSimpleName();
+	private static final String METRIC_QUEUE = "conversion";
+	private static final String OWNERS_KEY = "CONVERSION_OWNERS_KEY";
+	public static final int DEFAULT_THREADS = Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+
+	public enum Priority {
+		INTERACTIVE
+		, BACKGROUND
+	}
+
+	@Autowired
+	private ConfigurationDao cfgDao;
+	@Autowired
+	private RecordingDao recordingDao;
+	@Autowired
+	private RecordingConverter recordingConverter;
+	@Autowired
+	private InterviewConverter interviewConverter;
+	@Autowired
+	private JobCoordinator coordinator;
+
+	private final AtomicLong sequence = new AtomicLong();
+	private ThreadPoolExecutor pool;
+	private int backgroundLimit;
+	private int backgroundRunning;
+	private final Queue<Job<?>> backgroundPending = new PriorityQueue<>();
+	private final ThreadLocal<Job<?>> current = new ThreadLocal<>();
+	private volatile HazelcastInstance hazelcast;
+
+	private class Job<T> extends FutureTask<T> implements Comparable<Job<?>> {
+		private final Priority priority;
+		private final long seq;
+		private final long created = System.nanoTime();
+		private final AtomicBoolean started = new AtomicBoolean();
+		private final BlockingQueue<Future<T>> completed;
+
+		Job(Priority priority, Callable<T> task) {
+			this(priority, sequence.incrementAndGet(), task, null);
+		}
+
+		Job(Priority priority, long seq, Callable<T> task, BlockingQueue<Future<T>> completed) {
+			super(task);
+			this.priority = priority;
+			this.seq = seq;
+			this.completed = completed;
+			gauge(priority, "waiting").inc();
+		}
+
+		@Override
+		public void run() {
+			try {
+				perform();
+			} finally {
+				if (Priority.BACKGROUND == priority) {
+					backgroundDone();
+				}
+			}
+		}
+
+		// job can be performed either by the pool or by the thread waiting for it
+		private void perform() {
+			if (!started.compareAndSet(false, true)) {
+				return;
+			}
+			gauge(priority, "waiting").dec();
+			gauge(priority, "running").inc();
+			PrometheusUtil.getHistogram().labels(METRIC_CLASS, "queue", "application", priority.name())
+					.observe((System.nanoTime() - created) / 1e9);
+			final Job<?> prev = current.get();
+			current.set(this);
+			try {
+				super.run();
+			} finally {
+				if (prev == null) {
+					current.remove();
+				} else {
+					current.set(prev);
+				}
+				gauge(priority, "running").dec();
+			}
+		}
+
+		@Override
+		protected void done() {
+			if (completed != null) {
+				completed.add(this);
+			}
+		}
+
+		@Override
+		public int compareTo(Job<?> o) {
+			int res = priority.compareTo(o.priority);
+			return res == 0 ? Long.compare(seq, o.seq) : res;
+		}
+	}
+
+	private static Gauge.Child gauge(Priority priority, String state) {
+		return PrometheusUtil.getQueueGauge().labels(METRIC_QUEUE, priority.name(), state);
+	}
+
+	private synchronized ThreadPoolExecutor getPool() {
+		if (pool == null) {
+			int threads = cfgDao.getInt(CONFIG_CONVERSION_THREADS, 0);
+			if (threads < 1) {
+				threads = DEFAULT_THREADS;
+			}
+			final AtomicInteger counter = new AtomicInteger();
+			pool = new ThreadPoolExecutor(threads, threads, 60L, TimeUnit.SECONDS
+					, new PriorityBlockingQueue<>()
+					, r -> new Thread(r, "conversion-" + counter.incrementAndGet()));
+			backgroundLimit = threads > 1 ? threads - Math.max(1, threads / 4) : threads;
+			log.info("Conversion scheduler with {} threads is started, {} can be used by background jobs", threads, backgroundLimit);
+		}
+		return pool;
+	}
+
+	private void execute(Job<?> job) {
+		if (Priority.BACKGROUND != job.priority) {
+			getPool().execute(job);
+			return;
+		}
+		synchronized (this) {
+			backgroundPending.add(job);
+			drainBackground();
+		}
+	}
+
+	private synchronized void backgroundDone() {
+		--backgroundRunning;
+		drainBackground();
+	}
+
+	/*
+	 * background jobs are passed to the pool only while they are using less threads
+	 * than allowed, the rest of the threads is reserved for interactive jobs
+	 */
+	private synchronized void drainBackground() {
+		ThreadPoolExecutor p = getPool();
+		while (backgroundRunning < backgroundLimit && !backgroundPending.isEmpty() && !p.isShutdown()) {
+			++backgroundRunning;
+			p.execute(backgroundPending.poll());
+		}
+	}
+
+	/**
+	 * @return maximum number of simultaneously running jobs
+	 */
+	public int getThreads() {
+		return getPool().getMaximumPoolSize();
+	}
+
+	/**
+	 * @param hazelcast - Hazelcast instance of this node
+	 */
+	public void attach(HazelcastInstance hazelcast) {
+		this.hazelcast = hazelcast;
+		hazelcast.getCluster().addMembershipListener(new MembershipAdapter() {
+			@Override
+			public void memberRemoved(MembershipEvent evt) {
+				CompletableFuture.runAsync(ConversionScheduler.this::resume);
+			}
+		});
+	}
+
+	private IMap<Long, UUID> getOwners() {
+		HazelcastInstance h = hazelcast;
+		return h == null ? null : h.getMap(OWNERS_KEY);
+	}
+
+	/**
+	 * Schedule the task, this method returns immediately
+	 *
+	 * @param priority - priority of the task
+	 * @param task - the task
+	 */
+	public void schedule(Priority priority, Runnable task) {
+		execute(new Job<>(priority, () -> {
+			try {
+				task.run();
+			} catch (Exception e) {
+				log.error("Unexpected error while performing conversion", e);
+			}
+			return null;
+		}));
+	}
+
+	/**
+	 * Schedule the task and wait for its completion
+	 *
+	 * @param <T> - type of the result
+	 * @param priority - priority of the task
+	 * @param task - the task
+	 * @return result of the task
+	 * @throws Exception - exception thrown by the task
+	 */
+	public <T> T call(Priority priority, Callable<T> task) throws Exception {
+		Job<T> job = new Job<>(priority, task);
+		execute(job);
+		try {
+			return job.get();
+		} catch (InterruptedException e) {
+			job.cancel(true);
+			throw e;
+		} catch (ExecutionException e) {
+			Throwable cause = e.getCause();
+			if (cause instanceof Exception) {
+				throw (Exception)cause;
+			}
+			throw e;
+		}
+	}
+
+	/**
+	 * Schedule parts of the current conversion to be performed in parallel, this method returns immediately
+	 *
+	 * Parts have the priority of the calling job and are taken before other jobs of the same priority, parts
+	 * not yet taken by the pool are performed by the thread waiting for them, so the conversion never waits
+	 * for a free thread and the number of simultaneous conversions stays within the limit
+	 *
+	 * @param <T> - type of the result
+	 * @param tasks - parts of the conversion
+	 * @return handle to wait for the parts
+	 */
+	public <T> Subtasks<T> fork(List<Callable<T>> tasks) {
+		final Job<?> parent = current.get();
+		final Priority priority = parent == null ? Priority.INTERACTIVE : parent.priority;
+		final long seq = parent == null ? sequence.incrementAndGet() : parent.seq;
+		final Subtasks<T> parts = new Subtasks<>();
+		for (Callable<T> task : tasks) {
+			parts.jobs.add(new Job<>(priority, seq, task, parts.completed));
+		}
+		parts.jobs.forEach(this::execute);
+		return parts;
+	}
+
+	/**
+	 * Parts of the conversion scheduled by {@link ConversionScheduler#fork(List)}
+	 *
+	 * @param <T> - type of the result
+	 */
+	public class Subtasks<T> {
+		private final List<Job<T>> jobs = new ArrayList<>();
+		private final BlockingQueue<Future<T>> completed = new LinkedBlockingQueue<>();
+		private int taken = 0;
+
+		private Subtasks() {}
+
+		public int size() {
+			return jobs.size();
+		}
+
+		/**
+		 * Wait for the next completed part, parts not yet started are performed by the calling thread
+		 *
+		 * @return next completed part
+		 * @throws InterruptedException if the calling thread was interrupted
+		 */
+		public Future<T> take() throws InterruptedException {
+			if (taken >= jobs.size()) {
+				throw new IllegalStateException("All parts are already taken");
+			}
+			Iterator<Job<T>> iter = jobs.iterator();
+			Future<T> f;
+			while ((f = completed.poll()) == null && iter.hasNext()) {
+				iter.next().perform();
+			}
+			if (f == null) {
+				f = completed.take();
+			}
+			++taken;
+			return f;
+		}
+
+		/**
+		 * Wait for all the parts, parts not yet started are performed by the calling thread
+		 *
+		 * @return all parts in the order of scheduling, all of them are done
+		 * @throws InterruptedException if the calling thread was interrupted, all parts are cancelled
+		 */
+		public List<Future<T>> join() throws InterruptedException {
+			try {
+				for (Job<T> job : jobs) {
+					job.perform();
+				}
+				for (Job<T> job : jobs) {
+					try {
+						job.get();
+					} catch (ExecutionException|CancellationException e) {
+						// result is kept by the part
+					}
+				}
+			} catch (InterruptedException e) {
+				cancel();
+				throw e;
+			}
+			return new ArrayList<>(jobs);
+		}
+
+		/**
+		 * Cancel all the parts, running parts are interrupted
+		 */
+		public void cancel() {
+			jobs.forEach(job -> job.cancel(true));
+		}
+	}
+
+	/**
+	 * Mark recording as being converted and schedule its conversion
+	 *
+	 * @param r - recording to convert
+	 */
+	public void convert(Recording r) {
+		r.setStatus(Recording.Status.CONVERTING);
+		final Recording rec = recordingDao.update(r);
+		final IRecordingConverter conv = rec.isInterview() ? interviewConverter : recordingConverter;
+		final IMap<Long, UUID> owners = getOwners();
+		if (owners != null) {
+			owners.set(rec.getId(), hazelcast.getCluster().getLocalMember().getUuid());
+		}
+		schedule(Priority.BACKGROUND, () -> {
+			try {
+				conv.startConversion(rec);
+			} finally {
+				if (owners != null) {
+					owners.delete(rec.getId());
+				}
+			}
+		});
+	}
+
+	/**
+	 * Re-schedule conversion of recordings interrupted by shutdown or failure
+	 * of the node converting them, performed by the leader node only
+	 */
+	public void resume() {
+		coordinator.runSingle("resumeConversions", this::doResume);
+	}
+
+	private void doResume() {
+		final IMap<Long, UUID> owners = getOwners();
+		final Set<UUID> alive = hazelcast == null ? Set.of()
+				: hazelcast.getCluster().getMembers().stream().map(Member::getUuid).collect(Collectors.toSet());
+		for (Recording r : recordingDao.getByStatus(Recording.Status.CONVERTING)) {
+			UUID owner = owners == null ? null : owners.get(r.getId());
+			if (owner != null && alive.contains(owner)) {
+				continue;
+			}
+			log.info("Conversion of recording {} is resumed", r.getId());
+			convert(r);
+		}
+	}
+
+	@PreDestroy
+	public synchronized void destroy() {
+		if (pool != null) {
+			pool.shutdownNow();
+		}
+	}
+}
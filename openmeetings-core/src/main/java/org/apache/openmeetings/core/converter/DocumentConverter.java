@@ -21,14 +21,13 @@ package org.apache.openmeetings.core.converter;
 import static org.apache.commons.io.FileUtils.copyFile;
 import static org.apache.openmeetings.core.converter.BaseConverter.HALF_STEP;
 import static org.apache.openmeetings.util.OmFileHelper.EXTENSION_PDF;
-import static org.apache.openmeetings.util.OpenmeetingsVariables.CONFIG_PATH_OFFICE;
 
 import java.io.File;
 import java.util.Optional;
 import java.util.function.DoubleConsumer;
 import java.util.function.Function;
+import java.util.function.IntConsumer;
 
-import org.apache.openmeetings.db.dao.basic.ConfigurationDao;
 import org.apache.openmeetings.db.entity.file.FileItem;
 import org.apache.openmeetings.util.StoredFile;
 import org.apache.openmeetings.util.process.ProcessResult;
@@ -37,7 +36,6 @@ import org.apache.wicket.util.string.Strings;
 import org.jodconverter.core.job.ConversionJob;
 import org.jodconverter.core.office.OfficeException;
 import org.jodconverter.core.office.OfficeManager;
-import org.jodconverter.local.LocalConverter;
 import org.jodconverter.local.office.LocalOfficeManager;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -49,30 +47,34 @@ public class DocumentConverter {
 	private static final Logger log = LoggerFactory.getLogger(DocumentConverter.class);
 	private static final String JOD_JOD_NAME = "doJodConvert";
 
-	@Autowired
-	protected ConfigurationDao cfgDao;
 	@Autowired
 	private ImageConverter imageConverter;
+	@Autowired
+	private OfficePool officePool;
 
 	public ProcessResultList convertPDF(FileItem f, StoredFile sf) throws Exception {
 		return convertPDF(f, sf, new ProcessResultList(), Optional.empty());
 	}
 
 	public ProcessResultList convertPDF(FileItem f, StoredFile sf, ProcessResultList logs, Optional<DoubleConsumer> progress) throws Exception {
+		return convertPDF(f, sf, logs, progress, Optional.empty());
+	}
+
+	public ProcessResultList convertPDF(FileItem f, StoredFile sf, ProcessResultList logs, Optional<DoubleConsumer> progress, Optional<IntConsumer> pages) throws Exception {
 		boolean fullProcessing = !sf.isPdf();
 		File original = f.getFile(sf.getExt());
 		File pdf = f.getFile(EXTENSION_PDF);
 		log.debug("fullProcessing: {}", fullProcessing);
 		if (fullProcessing) {
 			log.debug("-- running JOD --");
-			logs.add(doJodConvert(original, pdf));
+			logs.add(doJodConvert(f.getOwnerId(), original, pdf));
 		} else if (!EXTENSION_PDF.equals(sf.getExt())) {
 			copyFile(original, pdf);
 		}
 		progress.ifPresent(theProgress -> theProgress.accept(HALF_STEP));
 
 		log.debug("-- generate page images --");
-		return imageConverter.convertDocument(f, pdf, logs, progress);
+		return imageConverter.convertDocument(f, pdf, logs, progress, pages);
 	}
 
 	public static void createOfficeManager(String officePath, Function<OfficeManager, ConversionJob> job) throws OfficeException {
@@ -102,9 +104,24 @@ public class DocumentConverter {
 	 * @return - result of the conversion as {@link ProcessResult}
 	 */
 	public ProcessResult doJodConvert(File in, File out) {
+		return doJodConvert(null, in, out);
+	}
+
+	/**
+	 * Generates PDF using shared pool of office processes
+	 *
+	 * @param owner - id of the owner of the document, used for fair scheduling
+	 * @param in - file to convert
+	 * @param out - file to write result
+	 * @return - result of the conversion as {@link ProcessResult}
+	 */
+	public ProcessResult doJodConvert(Long owner, File in, File out) {
 		try {
-			createOfficeManager(cfgDao.getString(CONFIG_PATH_OFFICE, null)
-					, man -> LocalConverter.make(man).convert(in).to(out));
+			officePool.convert(owner, in, out);
+		} catch (InterruptedException ex) {
+			log.error(JOD_JOD_NAME, ex);
+			Thread.currentThread().interrupt();
+			return new ProcessResult(JOD_JOD_NAME, ex.getMessage(), ex);
 		} catch (Exception ex) {
 			log.error(JOD_JOD_NAME, ex);
 			return new ProcessResult(JOD_JOD_NAME, ex.getMessage(), ex);
@@ -33,11 +33,18 @@ import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
 import java.util.function.DoubleConsumer;
+import java.util.function.IntConsumer;
 
 import org.apache.commons.io.FileUtils;
+import org.apache.openmeetings.core.converter.ConversionScheduler.Subtasks;
 import org.apache.openmeetings.db.dao.user.UserDao;
 import org.apache.openmeetings.db.entity.file.BaseFileItem;
 import org.apache.openmeetings.db.entity.file.FileItem;
@@ -47,6 +54,8 @@ import org.apache.openmeetings.util.StoredFile;
 import org.apache.openmeetings.util.process.ProcessHelper;
 import org.apache.openmeetings.util.process.ProcessResult;
 import org.apache.openmeetings.util.process.ProcessResultList;
+import org.apache.pdfbox.io.MemoryUsageSetting;
+import org.apache.pdfbox.pdmodel.PDDocument;
 import org.apache.tika.metadata.Metadata;
 import org.apache.tika.metadata.TIFF;
 import org.apache.tika.parser.ParseContext;
@@ -62,6 +71,8 @@ import org.xml.sax.helpers.DefaultHandler;
 public class ImageConverter extends BaseConverter {
 	private static final Logger log = LoggerFactory.getLogger(ImageConverter.class);
 	private static final String PAGE_TMPLT = DOC_PAGE_PREFIX + "-%04d." + EXTENSION_PNG;
+	private static final String RANGE_PREFIX = "range-%04d";
+	private static final int MAX_RANGE_SIZE = 10;
 
 	@Autowired
 	private UserDao userDao;
@@ -171,11 +182,120 @@ public class ImageConverter extends BaseConverter {
 	 * @param f - {@link FileItem} object to write number of pages and size
 	 * @param pdf - input PDF document
 	 * @param logs - logs of the conversion
+	 * @param progress - will be notified as pages are ready
 	 * @return - result of conversion
 	 * @throws IOException in case IO exception occurred
 	 */
 	public ProcessResultList convertDocument(FileItem f, File pdf, ProcessResultList logs, Optional<DoubleConsumer> progress) throws IOException {
+		return convertDocument(f, pdf, logs, progress, Optional.empty());
+	}
+
+	/**
+	 * Converts PDF document to the series of images
+	 *
+	 * First page is rendered alone, the rest of the document is split by page
+	 * ranges rendered in parallel. Each page is moved to its final name only
+	 * when it is completely written. If any range fails, the rest of ranges
+	 * is cancelled and the document is rendered as a whole
+	 *
+	 * @param f - {@link FileItem} object to write number of pages and size
+	 * @param pdf - input PDF document
+	 * @param logs - logs of the conversion
+	 * @param progress - will be notified as pages are ready
+	 * @param pages - will be notified with number of pages ready to be displayed,
+	 *   i.e. all pages from first to this number are rendered
+	 * @return - result of conversion
+	 * @throws IOException in case IO exception occurred
+	 */
+	public ProcessResultList convertDocument(FileItem f, File pdf, ProcessResultList logs, Optional<DoubleConsumer> progress, Optional<IntConsumer> pages) throws IOException {
 		log.debug("convertDocument");
+		final int count = getPageCount(pdf);
+		if (count < 1) {
+			return convertWhole(f, pdf, logs, progress, HALF_STEP);
+		}
+		final File dir = pdf.getParentFile();
+		final double step = HALF_STEP / count;
+		f.setCount(0);
+		ProcessResult res = renderRange(pdf, 0, 0);
+		logs.add(res);
+		if (!res.isOk()) {
+			progress.ifPresent(theProgress -> theProgress.accept(HALF_STEP));
+			return logs;
+		}
+		logs.add(initSize(f, getPage(dir, 0), PNG_MIME_TYPE));
+		f.setCount(1);
+		progress.ifPresent(theProgress -> theProgress.accept(step));
+		pages.ifPresent(thePages -> thePages.accept(1));
+		int reported = 1;
+
+		final int threads = getScheduler().getThreads();
+		final int chunk = Math.max(1, Math.min(MAX_RANGE_SIZE, (count - 1 + threads - 1) / threads));
+		final List<Callable<PageRange>> ranges = new ArrayList<>();
+		for (int from = 1; from < count; from += chunk) {
+			final PageRange r = new PageRange(from, Math.min(count, from + chunk) - 1);
+			ranges.add(() -> {
+				r.res = renderRange(pdf, r.from, r.to);
+				return r;
+			});
+		}
+		final Subtasks<PageRange> tasks = getScheduler().fork(ranges);
+		final boolean[] ready = new boolean[count];
+		ready[0] = true;
+		int prefix = 1;
+		boolean failed = false;
+		try {
+			for (int i = 0; i < tasks.size() && !failed; ++i) {
+				PageRange r;
+				try {
+					r = tasks.take().get();
+				} catch (ExecutionException e) {
+					log.error("Unexpected error while rendering pages", e);
+					logs.add(new ProcessResult("convert PDF to images", e.getMessage(), e).setOptional(true));
+					failed = true;
+					continue;
+				}
+				if (!r.res.isOk()) {
+					logs.add(r.res.setOptional(true));
+					failed = true;
+					continue;
+				}
+				logs.add(r.res);
+				for (int j = r.from; j <= r.to; ++j) {
+					ready[j] = true;
+				}
+				final int rendered = r.to - r.from + 1;
+				reported += rendered;
+				progress.ifPresent(theProgress -> theProgress.accept(step * rendered));
+				int cur = prefix;
+				while (cur < count && ready[cur]) {
+					++cur;
+				}
+				if (cur > prefix) {
+					prefix = cur;
+					f.setCount(prefix);
+					final int readyPages = prefix;
+					pages.ifPresent(thePages -> thePages.accept(readyPages));
+				}
+			}
+		} catch (InterruptedException e) {
+			tasks.cancel();
+			Thread.currentThread().interrupt();
+			logs.add(new ProcessResult("convert PDF to images", e.getMessage(), e));
+			return logs;
+		}
+		if (failed) {
+			tasks.cancel();
+			log.warn("Rendering of page ranges has failed, document will be rendered as a whole");
+			// only the share of the pages not reported yet is left
+			return convertWhole(f, pdf, logs, progress, HALF_STEP - step * reported);
+		}
+		return logs;
+	}
+
+	/**
+	 * @param share - part of the progress to be reported by this conversion
+	 */
+	ProcessResultList convertWhole(FileItem f, File pdf, ProcessResultList logs, Optional<DoubleConsumer> progress, double share) throws IOException {
 		List<String> argv = List.of(
 				getPathToConvert()
 				, "-density", getDpi()
@@ -186,7 +306,7 @@ public class ImageConverter extends BaseConverter {
 				, new File(pdf.getParentFile(), PAGE_TMPLT).getCanonicalPath());
 		ProcessResult res = ProcessHelper.exec("convert PDF to images", argv);
 		logs.add(res);
-		progress.ifPresent(theProgress -> theProgress.accept(1. / 4));
+		progress.ifPresent(theProgress -> theProgress.accept(share / 2));
 		if (res.isOk()) {
 			File[] pages = pdf.getParentFile().listFiles(fi -> fi.isFile() && fi.getName().startsWith(DOC_PAGE_PREFIX) && fi.getName().endsWith(EXTENSION_PNG));
 			if (pages == null || pages.length == 0) {
@@ -196,7 +316,66 @@ public class ImageConverter extends BaseConverter {
 				logs.add(initSize(f, pages[0], PNG_MIME_TYPE));
 			}
 		}
-		progress.ifPresent(theProgress -> theProgress.accept(1. / 4));
+		progress.ifPresent(theProgress -> theProgress.accept(share / 2));
 		return logs;
 	}
+
+	private static int getPageCount(File pdf) {
+		try (PDDocument doc = PDDocument.load(pdf, MemoryUsageSetting.setupTempFileOnly())) {
+			return doc.getNumberOfPages();
+		} catch (Exception e) {
+			log.warn("Unable to get number of pages, document will be rendered as a whole", e);
+			return 0;
+		}
+	}
+
+	static File getPage(File dir, int page) {
+		return new File(dir, String.format(PAGE_TMPLT, page));
+	}
+
+	/**
+	 * ImageMagick numbers the pages of {@code pdf[from-to]} from 0, so page
+	 * {@code i} is written as {@code i - from} of the range
+	 */
+	ProcessResult renderRange(File pdf, int from, int to) throws IOException {
+		final File dir = pdf.getParentFile();
+		List<String> argv = List.of(
+				getPathToConvert()
+				, "-density", getDpi()
+				, "-define", "pdf:use-cropbox=true"
+				, getRangeInput(pdf, from, to)
+				, "+profile", "'*'"
+				, "-quality", getQuality()
+				, new File(dir, String.format(RANGE_PREFIX, from) + "-%04d." + EXTENSION_PNG).getCanonicalPath());
+		ProcessResult res = ProcessHelper.exec(String.format("convert PDF pages %d-%d to images", from + 1, to + 1), argv);
+		if (res.isOk()) {
+			movePages(dir, from, to);
+		}
+		return res;
+	}
+
+	static String getRangeInput(File pdf, int from, int to) throws IOException {
+		return String.format("%s[%d-%d]", pdf.getCanonicalPath(), from, to);
+	}
+
+	static File getRangePage(File dir, int from, int idx) {
+		return new File(dir, String.format("%s-%04d.%s", String.format(RANGE_PREFIX, from), idx, EXTENSION_PNG));
+	}
+
+	static void movePages(File dir, int from, int to) throws IOException {
+		for (int i = from; i <= to; ++i) {
+			Files.move(getRangePage(dir, from, i - from).toPath(), getPage(dir, i).toPath(), StandardCopyOption.ATOMIC_MOVE);
+		}
+	}
+
+	private static class PageRange {
+		private final int from;
+		private final int to;
+		private ProcessResult res;
+
+		PageRange(int from, int to) {
+			this.from = from;
+			this.to = to;
+		}
+	}
 }
@@ -0,0 +1,257 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License") +  you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.openmeetings.core.converter;
+
+import static org.apache.openmeetings.util.OpenmeetingsVariables.CONFIG_OFFICE_FIRST_PORT;
+import static org.apache.openmeetings.util.OpenmeetingsVariables.CONFIG_OFFICE_MAX_TASKS;
+import static org.apache.openmeetings.util.OpenmeetingsVariables.CONFIG_OFFICE_POOL_SIZE;
+import static org.apache.openmeetings.util.OpenmeetingsVariables.CONFIG_OFFICE_QUEUE_SIZE;
+import static org.apache.openmeetings.util.OpenmeetingsVariables.CONFIG_PATH_OFFICE;
+import static org.apache.openmeetings.util.OpenmeetingsVariables.getExtProcessTtl;
+
+import java.io.File;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+import javax.annotation.PreDestroy;
+
+import org.apache.openmeetings.db.dao.basic.ConfigurationDao;
+import org.apache.openmeetings.util.logging.PrometheusUtil;
+import org.apache.wicket.util.string.Strings;
+import org.jodconverter.core.office.OfficeException;
+import org.jodconverter.core.office.OfficeManager;
+import org.jodconverter.local.LocalConverter;
+import org.jodconverter.local.office.LocalOfficeManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import io.prometheus.client.Histogram;
+
+/**
+ * Long living pool of office processes shared by all document conversions
+ *
+ * Processes are started on first conversion on consecutive ports starting from
+ * the configured one, and restarted by JODConverter after configured number of
+ * tasks or in case of failure. Waiting conversions are served round-robin by
+ * owner, so bulk upload of one user will not block others
+ */
+@Component
+public class OfficePool {
+	private static final Logger log = LoggerFactory.getLogger(OfficePool.class);
+	private static final String METRIC_CLASS = OfficePool.class.getSimpleName();
+	private static final String METRIC_METHOD = "convert";
+	public static final int DEFAULT_FIRST_PORT = 2002;
+	public static final int DEFAULT_POOL_SIZE = 2;
+	public static final int DEFAULT_MAX_TASKS = 200;
+	public static final int DEFAULT_QUEUE_SIZE = 50;
+
+	@Autowired
+	private ConfigurationDao cfgDao;
+
+	private final ReentrantLock lock = new ReentrantLock(true);
+	private final Condition changed = lock.newCondition();
+	// guarded by lock
+	private final Map<Long, Deque<Ticket>> waiting = new LinkedHashMap<>();
+	private int queued = 0;
+	private int active = 0;
+	private int size = DEFAULT_POOL_SIZE;
+	/*
+	 * processes are started under separate monitor, so conversions already granted
+	 * and queued ones are not blocked by the scheduling lock while office starts
+	 */
+	private final Object managerLock = new Object();
+	// guarded by managerLock
+	private OfficeManager manager;
+
+	private static class Ticket {
+		private boolean granted = false;
+	}
+
+	private OfficeManager getManager() throws OfficeException {
+		synchronized (managerLock) {
+			if (manager == null || !manager.isRunning()) {
+				stopManager();
+				final int n = Math.max(1, cfgDao.getInt(CONFIG_OFFICE_POOL_SIZE, DEFAULT_POOL_SIZE));
+				final int firstPort = cfgDao.getInt(CONFIG_OFFICE_FIRST_PORT, DEFAULT_FIRST_PORT);
+				int[] ports = new int[n];
+				for (int i = 0; i < n; ++i) {
+					ports[i] = firstPort + i;
+				}
+				OfficeManager m = newManager(ports);
+				m.start();
+				manager = m;
+				resize(n);
+				log.info("Office pool of {} processes is started, ports {}-{}", n, firstPort, firstPort + n - 1);
+			}
+			return manager;
+		}
+	}
+
+	OfficeManager newManager(int[] ports) {
+		LocalOfficeManager.Builder builder = LocalOfficeManager.builder()
+				.portNumbers(ports)
+				.maxTasksPerProcess(cfgDao.getInt(CONFIG_OFFICE_MAX_TASKS, DEFAULT_MAX_TASKS))
+				.taskExecutionTimeout(TimeUnit.MINUTES.toMillis(getExtProcessTtl()));
+		String officePath = cfgDao.getString(CONFIG_PATH_OFFICE, null);
+		if (!Strings.isEmpty(officePath)) {
+			builder.officeHome(officePath);
+		}
+		return builder.build();
+	}
+
+	void execute(OfficeManager m, File in, File out) throws OfficeException {
+		LocalConverter.make(m).convert(in).to(out).execute();
+	}
+
+	private void resize(int n) {
+		lock.lock();
+		try {
+			size = n;
+			schedule();
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	// should be called under managerLock
+	private void stopManager() {
+		if (manager != null) {
+			try {
+				manager.stop();
+			} catch (OfficeException e) {
+				log.warn("Unexpected error while stopping office pool", e);
+			}
+			manager = null;
+		}
+	}
+
+	// should be called under lock
+	private void schedule() {
+		while (active < size && !waiting.isEmpty()) {
+			Iterator<Map.Entry<Long, Deque<Ticket>>> iter = waiting.entrySet().iterator();
+			Map.Entry<Long, Deque<Ticket>> e = iter.next();
+			iter.remove();
+			Ticket t = e.getValue().poll();
+			if (!e.getValue().isEmpty()) {
+				// owner goes to the end of the line
+				waiting.put(e.getKey(), e.getValue());
+			}
+			t.granted = true;
+			--queued;
+			++active;
+		}
+		changed.signalAll();
+	}
+
+	// should be called under lock
+	private void cancel(Long owner, Ticket t) {
+		Deque<Ticket> lane = waiting.get(owner);
+		lane.remove(t);
+		if (lane.isEmpty()) {
+			waiting.remove(owner);
+		}
+		--queued;
+	}
+
+	private void acquire(Long owner) throws OfficeException, InterruptedException {
+		final long start = System.nanoTime();
+		lock.lock();
+		try {
+			if (queued >= cfgDao.getInt(CONFIG_OFFICE_QUEUE_SIZE, DEFAULT_QUEUE_SIZE)) {
+				throw new OfficeException("Too many documents are waiting for conversion");
+			}
+			Ticket t = new Ticket();
+			waiting.computeIfAbsent(owner, k -> new ArrayDeque<>()).add(t);
+			++queued;
+			schedule();
+			long nanos = TimeUnit.MINUTES.toNanos(getExtProcessTtl());
+			try {
+				while (!t.granted) {
+					if (nanos <= 0) {
+						cancel(owner, t);
+						throw new OfficeException("Timeout while waiting for office process");
+					}
+					nanos = changed.awaitNanos(nanos);
+				}
+			} catch (InterruptedException e) {
+				if (t.granted) {
+					--active;
+					schedule();
+				} else {
+					cancel(owner, t);
+				}
+				throw e;
+			}
+		} finally {
+			lock.unlock();
+			PrometheusUtil.getHistogram().labels(METRIC_CLASS, METRIC_METHOD, "application", "queue")
+					.observe((System.nanoTime() - start) / 1e9);
+		}
+	}
+
+	private void release() {
+		lock.lock();
+		try {
+			--active;
+			schedule();
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Convert document using the pool, the call blocks until conversion is complete
+	 *
+	 * @param owner - id of the user performing the conversion, used for fair scheduling, can be {@code null}
+	 * @param in - file to convert
+	 * @param out - file to write result
+	 * @throws OfficeException in case of any conversion error or if the queue is full
+	 * @throws InterruptedException if waiting thread was interrupted
+	 */
+	public void convert(Long owner, File in, File out) throws OfficeException, InterruptedException {
+		acquire(owner);
+		try {
+			OfficeManager m = getManager();
+			Histogram.Timer timer = PrometheusUtil.getHistogram()
+					.labels(METRIC_CLASS, METRIC_METHOD, "application", "conversion").startTimer();
+			try {
+				execute(m, in, out);
+			} finally {
+				timer.observeDuration();
+			}
+		} finally {
+			release();
+		}
+	}
+
+	@PreDestroy
+	public void destroy() {
+		synchronized (managerLock) {
+			stopManager();
+		}
+	}
+}
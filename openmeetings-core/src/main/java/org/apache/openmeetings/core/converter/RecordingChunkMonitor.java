@@ -0,0 +1,66 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License") +  you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.openmeetings.core.converter;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+
+import org.springframework.stereotype.Component;
+
+/**
+ * Signals converters waiting for the recording chunk to be completely written
+ *
+ * Only chunks stopped by this server are signalled, waiting side should
+ * re-check the status of the chunk periodically
+ */
+@Component
+public class RecordingChunkMonitor {
+	private final Map<Long, CountDownLatch> waiting = new ConcurrentHashMap<>();
+
+	/**
+	 * Should be called <b>before</b> status of the chunk is checked, so the
+	 * signal will not be lost
+	 *
+	 * @param chunkId - id of the chunk
+	 * @return latch to wait for the chunk to be stopped
+	 */
+	CountDownLatch watch(Long chunkId) {
+		return waiting.computeIfAbsent(chunkId, id -> new CountDownLatch(1));
+	}
+
+	void unwatch(Long chunkId, CountDownLatch latch) {
+		waiting.remove(chunkId, latch);
+	}
+
+	/**
+	 * Should be called after the chunk is stored as stopped
+	 *
+	 * @param chunkId - id of the stopped chunk
+	 */
+	public void stopped(Long chunkId) {
+		if (chunkId == null) {
+			return;
+		}
+		CountDownLatch latch = waiting.remove(chunkId);
+		if (latch != null) {
+			latch.countDown();
+		}
+	}
+}
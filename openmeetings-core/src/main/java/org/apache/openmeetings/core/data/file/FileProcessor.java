@@ -27,7 +27,10 @@ import java.io.File;
 import java.io.InputStream;
 import java.util.Optional;
 import java.util.function.DoubleConsumer;
+import java.util.function.IntConsumer;
 
+import org.apache.openmeetings.core.converter.ConversionScheduler;
+import org.apache.openmeetings.core.converter.ConversionScheduler.Priority;
 import org.apache.openmeetings.core.converter.DocumentConverter;
 import org.apache.openmeetings.core.converter.ImageConverter;
 import org.apache.openmeetings.core.converter.VideoConverter;
@@ -56,8 +59,22 @@ public class FileProcessor {
 	private ImageConverter imageConverter;
 	@Autowired
 	private DocumentConverter docConverter;
+	@Autowired
+	private ConversionScheduler scheduler;
 
 	public ProcessResultList processFile(FileItem f, InputStream is, Optional<DoubleConsumer> progress) throws Exception {
+		return processFile(f, is, progress, Optional.empty());
+	}
+
+	/**
+	 * @param f - file item to process
+	 * @param is - stream with file contents
+	 * @param progress - will be notified with progress of the conversion
+	 * @param pages - will be notified with number of pages of the document ready to be displayed
+	 * @return logs of the conversion
+	 * @throws Exception in case of any error
+	 */
+	public ProcessResultList processFile(FileItem f, InputStream is, Optional<DoubleConsumer> progress, Optional<IntConsumer> pages) throws Exception {
 		ProcessResultList logs = new ProcessResultList();
 		// Generate a random string to prevent any problems with
 		// foreign characters and duplicates
@@ -88,7 +105,7 @@ public class FileProcessor {
 			}
 			f.setHash(hash);
 
-			processFile(f, sf, temp, logs, progress);
+			processFile(f, sf, temp, logs, progress, pages);
 		} catch (Exception e) {
 			log.debug("Error while processing the file", e);
 			throw e;
@@ -100,7 +117,7 @@ public class FileProcessor {
 		return logs;
 	}
 
-	private void processFile(FileItem f, StoredFile sf, File temp, ProcessResultList logs, Optional<DoubleConsumer> progress) throws Exception {
+	private void processFile(FileItem f, StoredFile sf, File temp, ProcessResultList logs, Optional<DoubleConsumer> progress, Optional<IntConsumer> pages) throws Exception {
 		try {
 			File file = f.getFile(sf.getExt());
 			log.debug("writing file to: {}", file);
@@ -108,32 +125,37 @@ public class FileProcessor {
 				logs.add(new ProcessResult("Unable to create parent for file: " + file.getCanonicalPath()));
 				return;
 			}
-			switch(f.getType()) {
-				case PRESENTATION:
-					log.debug("Office document: {}", file);
-					copyFile(temp, file);
-					// convert to pdf, thumbs, swf and xml-description
-					docConverter.convertPDF(f, sf, logs, progress);
-					break;
-				case POLL_CHART:
-					log.debug("uploaded chart file"); // NOT implemented yet
-					break;
-				case IMAGE:
-					// convert it to PNG
-					log.debug("##### convert it to PNG: ");
-					copyFile(temp, file);
-					imageConverter.convertImage(f, sf, progress);
-					break;
-				case VIDEO:
-					copyFile(temp, file);
-					videoConverter.convertVideo(f, sf, logs, progress);
-					break;
-				default:
-					break;
-			}
+			scheduler.call(Priority.INTERACTIVE, () -> convert(f, sf, temp, file, logs, progress, pages));
 		} finally {
-			f = fileDao.update(f);
-			log.debug("fileId: {}", f.getId());
+			f.setStorageSize(f.getDiskSize());
+			log.debug("fileId: {}", fileDao.update(f).getId());
 		}
 	}
+
+	private ProcessResultList convert(FileItem f, StoredFile sf, File temp, File file, ProcessResultList logs, Optional<DoubleConsumer> progress, Optional<IntConsumer> pages) throws Exception {
+		switch(f.getType()) {
+			case PRESENTATION:
+				log.debug("Office document: {}", file);
+				copyFile(temp, file);
+				// convert to pdf, thumbs, swf and xml-description
+				docConverter.convertPDF(f, sf, logs, progress, pages);
+				break;
+			case POLL_CHART:
+				log.debug("uploaded chart file"); // NOT implemented yet
+				break;
+			case IMAGE:
+				// convert it to PNG
+				log.debug("##### convert it to PNG: ");
+				copyFile(temp, file);
+				imageConverter.convertImage(f, sf, progress);
+				break;
+			case VIDEO:
+				copyFile(temp, file);
+				videoConverter.convertVideo(f, sf, logs, progress);
+				break;
+			default:
+				break;
+		}
+		return logs;
+	}
 }
@@ -19,6 +19,9 @@
 package org.apache.openmeetings.core.mail;
 
 import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.apache.openmeetings.util.OpenmeetingsVariables.CONFIG_MAIL_BATCH_SIZE;
+import static org.apache.openmeetings.util.OpenmeetingsVariables.CONFIG_SMTP_POOL_SIZE;
+import static org.apache.openmeetings.util.OpenmeetingsVariables.CONFIG_SMTP_RATE;
 import static org.apache.openmeetings.util.OpenmeetingsVariables.getMailFrom;
 import static org.apache.openmeetings.util.OpenmeetingsVariables.getSmtpConnectionTimeOut;
 import static org.apache.openmeetings.util.OpenmeetingsVariables.getSmtpPass;
@@ -35,12 +38,18 @@ import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.PrintWriter;
 import java.io.StringWriter;
+import java.util.ArrayList;
 import java.util.Calendar;
 import java.util.Date;
 import java.util.List;
 import java.util.Properties;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import javax.activation.DataHandler;
+import javax.annotation.PreDestroy;
 import javax.mail.Authenticator;
 import javax.mail.BodyPart;
 import javax.mail.Message;
@@ -48,13 +57,15 @@ import javax.mail.MessagingException;
 import javax.mail.Multipart;
 import javax.mail.PasswordAuthentication;
 import javax.mail.Session;
-import javax.mail.Transport;
 import javax.mail.internet.InternetAddress;
 import javax.mail.internet.MimeBodyPart;
 import javax.mail.internet.MimeMessage;
 import javax.mail.internet.MimeMultipart;
 import javax.mail.util.ByteArrayDataSource;
 
+import org.apache.openmeetings.core.util.JobCoordinator;
+import org.apache.openmeetings.core.util.JobCoordinator.Partition;
+import org.apache.openmeetings.db.dao.basic.ConfigurationDao;
 import org.apache.openmeetings.db.dao.basic.MailMessageDao;
 import org.apache.openmeetings.db.entity.basic.MailMessage;
 import org.apache.openmeetings.db.entity.basic.MailMessage.Status;
@@ -63,7 +74,6 @@ import org.apache.wicket.util.string.Strings;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.core.task.TaskExecutor;
 import org.springframework.stereotype.Component;
 
 /**
@@ -73,17 +83,27 @@ import org.springframework.stereotype.Component;
  * For a documentation about Javax mail please see for example:
  * http://connector.sourceforge.net/doc-files/Properties.html
  *
+ * Queued messages are claimed in batches and sent by a small pool of threads
+ * using pooled SMTP connections, see {@link SmtpPool}
  */
 @Component("mailHandler")
 public class MailHandler {
 	private static final Logger log = LoggerFactory.getLogger(MailHandler.class);
 	private static final int MAIL_SEND_TIMEOUT = 60 * 60 * 1000; // 1 hour
 	private static final int MAXIMUM_ERROR_COUNT = 5;
+	public static final int DEFAULT_POOL_SIZE = 2;
+	public static final int DEFAULT_BATCH_SIZE = 50;
 
-	@Autowired
-	private TaskExecutor taskExecutor;
 	@Autowired
 	private MailMessageDao mailMessageDao;
+	@Autowired
+	private ConfigurationDao cfgDao;
+	@Autowired
+	private JobCoordinator coordinator;
+
+	private ExecutorService sender;
+	private SmtpPool pool;
+	private String poolKey;
 
 	protected MimeMessage appendIcsBody(MimeMessage msg, MailMessage m) throws Exception {
 		log.debug("setMessageBody for iCal message");
@@ -133,9 +153,7 @@ public class MailHandler {
 		return msg;
 	}
 
-	// this method should be public for tests
-	public MimeMessage getBasicMimeMessage() throws Exception {
-		log.debug("getBasicMimeMessage");
+	private static Session getSession() {
 		if (getSmtpServer() == null) {
 			throw new IllegalStateException("SMTP settings were not provided");
 		}
@@ -169,9 +187,14 @@ public class MailHandler {
 			// not use SMTP Authentication
 			session = Session.getInstance(props, null);
 		}
+		return session;
+	}
 
+	// this method should be public for tests
+	public MimeMessage getBasicMimeMessage() throws Exception {
+		log.debug("getBasicMimeMessage");
 		// Building MimeMessage
-		MimeMessage msg = new MimeMessage(session);
+		MimeMessage msg = new MimeMessage(getSession());
 		msg.setFrom(new InternetAddress(getMailFrom()));
 		return msg;
 	}
@@ -205,34 +228,81 @@ public class MailHandler {
 		send(m, false);
 	}
 
+	/*
+	 * pool is re-created if SMTP settings were changed
+	 */
+	private synchronized SmtpPool getPool() {
+		int size = getPoolSize();
+		int rate = Math.max(0, cfgDao.getInt(CONFIG_SMTP_RATE, 0));
+		String key = String.join("|", getSmtpServer(), String.valueOf(getSmtpPort()), getSmtpUser(), getSmtpPass()
+				, String.valueOf(isSmtpUseTls()), String.valueOf(isSmtpUseSsl()), String.valueOf(size), String.valueOf(rate));
+		if (pool == null || !key.equals(poolKey)) {
+			if (pool != null) {
+				pool.close();
+			}
+			pool = new SmtpPool(getSession(), size, rate, getSmtpUser(), getSmtpPass());
+			poolKey = key;
+		}
+		return pool;
+	}
+
+	private int getPoolSize() {
+		return Math.max(1, cfgDao.getInt(CONFIG_SMTP_POOL_SIZE, DEFAULT_POOL_SIZE));
+	}
+
+	private synchronized ExecutorService getSender() {
+		if (sender == null) {
+			final AtomicInteger counter = new AtomicInteger();
+			sender = Executors.newFixedThreadPool(getPoolSize(), r -> {
+				Thread t = new Thread(r, "mail-sender-" + counter.incrementAndGet());
+				t.setDaemon(true);
+				return t;
+			});
+		}
+		return sender;
+	}
+
+	/*
+	 * pool is obtained here, so missing SMTP settings are recorded
+	 * as error of the message and the caller is never failed
+	 */
+	private void deliver(MailMessage m) {
+		log.debug("Message sending in progress");
+		log.debug("  To: {}", m.getRecipients());
+		log.debug("  Subject: {}", m.getSubject());
+
+		// -- Send the message --
+		try {
+			getPool().send(getMimeMessage(m));
+			m.setLastError("");
+			m.setStatus(Status.DONE);
+		} catch (Exception e) {
+			if (e instanceof InterruptedException) {
+				Thread.currentThread().interrupt();
+			}
+			log.error("Error while sending message", e);
+			m.setErrorCount(m.getErrorCount() + 1);
+			StringWriter sw = new StringWriter();
+			e.printStackTrace(new PrintWriter(sw));
+			m.setLastError(sw.getBuffer().toString());
+			m.setStatus(m.getErrorCount() < MAXIMUM_ERROR_COUNT ? Status.NONE : Status.ERROR);
+		}
+		if (m.getId() != null) {
+			mailMessageDao.update(m, null);
+		}
+	}
+
+	private CompletableFuture<Void> deliverAsync(MailMessage m) {
+		return CompletableFuture.runAsync(() -> deliver(m), getSender());
+	}
+
 	public void send(final MailMessage m, boolean send) {
 		if (send) {
 			if (m.getId() != null) {
 				m.setStatus(Status.SENDING);
 				mailMessageDao.update(m, null);
 			}
-			taskExecutor.execute(() -> {
-				log.debug("Message sending in progress");
-				log.debug("  To: {}", m.getRecipients());
-				log.debug("  Subject: {}", m.getSubject());
-
-				// -- Send the message --
-				try {
-					Transport.send(getMimeMessage(m));
-					m.setLastError("");
-					m.setStatus(Status.DONE);
-				} catch (Exception e) {
-					log.error("Error while sending message", e);
-					m.setErrorCount(m.getErrorCount() + 1);
-					StringWriter sw = new StringWriter();
-					e.printStackTrace(new PrintWriter(sw));
-					m.setLastError(sw.getBuffer().toString());
-					m.setStatus(m.getErrorCount() < MAXIMUM_ERROR_COUNT ? Status.NONE : Status.ERROR);
-				}
-				if (m.getId() != null) {
-					mailMessageDao.update(m, null);
-				}
-			});
+			deliverAsync(m);
 		} else {
 			m.setStatus(Status.NONE);
 			mailMessageDao.update(m, null);
@@ -240,6 +310,10 @@ public class MailHandler {
 	}
 
 	public void resetSendingStatus() {
+		coordinator.runSingle("resetSendingStatus", this::doResetSendingStatus);
+	}
+
+	private void doResetSendingStatus() {
 		log.trace("resetSendingStatus enter ...");
 		if (!isInitComplete()) {
 			return;
@@ -250,16 +324,42 @@ public class MailHandler {
 		log.trace("... resetSendingStatus done.");
 	}
 
+	/**
+	 * Sends queued messages batch by batch, next batch is claimed after
+	 * the previous one is processed
+	 *
+	 * Every node of the cluster sends its own part of the queue
+	 */
 	public void sendMails() {
+		coordinator.run("sendMails", this::doSendMails);
+	}
+
+	private void doSendMails() {
 		log.trace("sendMails enter ...");
-		List<MailMessage> list = mailMessageDao.get(0, 1, MailMessage.Status.NONE);
+		final int batchSize = Math.max(1, cfgDao.getInt(CONFIG_MAIL_BATCH_SIZE, DEFAULT_BATCH_SIZE));
+		final Partition part = coordinator.getPartition();
+		List<MailMessage> list = mailMessageDao.claim(batchSize, part.getIndex(), part.getCount());
 		if (!list.isEmpty()) {
-			log.debug("Number of emails in init queue {}", list.size());
 			while (!list.isEmpty()) {
-				send(list.get(0), true);
-				list = mailMessageDao.get(0, 1, MailMessage.Status.NONE);
+				log.debug("Number of emails in batch {}", list.size());
+				List<CompletableFuture<Void>> sent = new ArrayList<>(list.size());
+				for (MailMessage m : list) {
+					sent.add(deliverAsync(m));
+				}
+				CompletableFuture.allOf(sent.toArray(new CompletableFuture<?>[0])).join();
+				list = mailMessageDao.claim(batchSize, part.getIndex(), part.getCount());
 			}
 			log.debug("... sendMails done.");
 		}
 	}
+
+	@PreDestroy
+	public synchronized void destroy() {
+		if (sender != null) {
+			sender.shutdownNow();
+		}
+		if (pool != null) {
+			pool.close();
+		}
+	}
 }
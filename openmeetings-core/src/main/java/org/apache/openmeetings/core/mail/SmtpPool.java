@@ -0,0 +1,180 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License") +  you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.openmeetings.core.mail;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+import javax.mail.MessagingException;
+import javax.mail.SendFailedException;
+import javax.mail.Session;
+import javax.mail.Transport;
+import javax.mail.internet.MimeMessage;
+
+import org.apache.wicket.util.string.Strings;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Pool of authenticated SMTP connections to one relay
+ *
+ * Connections are opened on demand and reused for next messages, the number of
+ * simultaneous connections is bounded. Connection dropped by the relay is
+ * detected on next send and replaced with the new one. Messages are sent not
+ * faster than configured rate.
+ */
+class SmtpPool implements AutoCloseable {
+	private static final Logger log = LoggerFactory.getLogger(SmtpPool.class);
+	private final Session session;
+	private final String user;
+	private final String pass;
+	private final Semaphore permits;
+	private final Queue<Transport> idle = new ConcurrentLinkedQueue<>();
+	private final long interval;
+	private volatile boolean closed;
+	// guarded by this
+	private long next = System.nanoTime();
+
+	/**
+	 * @param session - mail session with relay settings
+	 * @param size - maximum number of connections
+	 * @param rate - maximum number of messages per minute, {@code 0} means unlimited
+	 * @param user - SMTP user, can be {@code null}
+	 * @param pass - SMTP password, can be {@code null}
+	 */
+	SmtpPool(Session session, int size, int rate, String user, String pass) {
+		this.session = session;
+		this.user = user;
+		this.pass = pass;
+		this.permits = new Semaphore(Math.max(1, size), true);
+		this.interval = rate > 0 ? TimeUnit.MINUTES.toNanos(1) / rate : 0;
+	}
+
+	private void throttle() throws InterruptedException {
+		if (interval == 0) {
+			return;
+		}
+		long wait;
+		synchronized (this) {
+			long now = System.nanoTime();
+			long slot = Math.max(now, next);
+			next = slot + interval;
+			wait = slot - now;
+		}
+		if (wait > 0) {
+			TimeUnit.NANOSECONDS.sleep(wait);
+		}
+	}
+
+	private Transport connect() throws MessagingException {
+		Transport t = session.getTransport("smtp");
+		if (Strings.isEmpty(user) || Strings.isEmpty(pass)) {
+			t.connect();
+		} else {
+			t.connect(user, pass);
+		}
+		log.debug("New SMTP connection is opened");
+		return t;
+	}
+
+	private static void close(Transport t) {
+		try {
+			t.close();
+		} catch (MessagingException e) {
+			log.debug("Error while closing SMTP connection", e);
+		}
+	}
+
+	/**
+	 * Send message using pooled connection, blocks while all connections are busy
+	 *
+	 * @param msg - message to send
+	 * @throws MessagingException in case message can't be sent
+	 * @throws InterruptedException if waiting thread was interrupted
+	 */
+	void send(MimeMessage msg) throws MessagingException, InterruptedException {
+		permits.acquire();
+		try {
+			throttle();
+			msg.saveChanges();
+			Transport t = idle.poll();
+			boolean pooled = t != null;
+			if (!pooled) {
+				t = connect();
+			}
+			try {
+				t.sendMessage(msg, msg.getAllRecipients());
+			} catch (MessagingException e) {
+				if (!pooled || isAlive(t, e)) {
+					throw failed(t, e);
+				}
+				close(t);
+				log.debug("Pooled SMTP connection is broken, reconnecting", e);
+				t = connect();
+				try {
+					t.sendMessage(msg, msg.getAllRecipients());
+				} catch (MessagingException e1) {
+					throw failed(t, e1);
+				}
+			}
+			release(t);
+		} finally {
+			permits.release();
+		}
+	}
+
+	/*
+	 * Message rejected by the relay is reported the same way as broken connection,
+	 * so the connection is checked
+	 */
+	private static boolean isAlive(Transport t, MessagingException e) {
+		return e instanceof SendFailedException && t.isConnected();
+	}
+
+	private MessagingException failed(Transport t, MessagingException e) {
+		if (isAlive(t, e)) {
+			release(t);
+		} else {
+			close(t);
+		}
+		return e;
+	}
+
+	private void release(Transport t) {
+		idle.offer(t);
+		if (closed) {
+			close();
+		}
+	}
+
+	int idle() {
+		return idle.size();
+	}
+
+	@Override
+	public void close() {
+		closed = true;
+		Transport t;
+		while ((t = idle.poll()) != null) {
+			close(t);
+		}
+	}
+}
@@ -45,6 +45,7 @@ import java.util.function.Consumer;
 
 import javax.inject.Inject;
 
+import org.apache.openmeetings.core.converter.RecordingChunkMonitor;
 import org.apache.openmeetings.core.sip.ISipCallbacks;
 import org.apache.openmeetings.core.sip.SipManager;
 import org.apache.openmeetings.core.sip.SipStackProcessor;
@@ -87,6 +88,8 @@ public class KStream extends AbstractStream implements ISipCallbacks {
 	@Inject
 	private RecordingChunkDao chunkDao;
 	@Inject
+	private RecordingChunkMonitor chunkMonitor;
+	@Inject
 	private SipManager sipManager;
 
 	private final KRoom kRoom;
@@ -354,6 +357,7 @@ public class KStream extends AbstractStream implements ISipCallbacks {
 		recorder.addRecordingListener(evt -> chunkId = chunkDao.start(kRoom.getRecordingId(), type, chunkUid, sid));
 		recorder.addStoppedListener(evt -> {
 			chunkDao.stop(chunkId);
+			chunkMonitor.stopped(chunkId);
 			chunkId = null;
 		});
 		switch (profile) {
@@ -33,9 +33,7 @@ import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Stream;
 
-import org.apache.openmeetings.core.converter.IRecordingConverter;
-import org.apache.openmeetings.core.converter.InterviewConverter;
-import org.apache.openmeetings.core.converter.RecordingConverter;
+import org.apache.openmeetings.core.converter.ConversionScheduler;
 import org.apache.openmeetings.core.util.WebSocketHelper;
 import org.apache.openmeetings.db.dao.record.RecordingDao;
 import org.apache.openmeetings.db.entity.basic.Client;
@@ -53,7 +51,6 @@ import org.apache.openmeetings.util.logging.TimedApplication;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.core.task.TaskExecutor;
 import org.springframework.stereotype.Component;
 
 import com.github.openjson.JSONArray;
@@ -74,11 +71,7 @@ public class StreamProcessor implements IStreamProcessor {
 	@Autowired
 	private KurentoHandler kHandler;
 	@Autowired
-	private TaskExecutor taskExecutor;
-	@Autowired
-	private RecordingConverter recordingConverter;
-	@Autowired
-	private InterviewConverter interviewConverter;
+	private ConversionScheduler conversionScheduler;
 	@Autowired
 	private StreamProcessorActions streamProcessorActions;
 
@@ -435,8 +428,7 @@ public class StreamProcessor implements IStreamProcessor {
 	 * @return
 	 */
 	boolean startConvertion(Recording rec) {
-		IRecordingConverter conv = rec.isInterview() ? interviewConverter : recordingConverter;
-		taskExecutor.execute(() -> conv.startConversion(rec));
+		conversionScheduler.convert(rec);
 		return true;
 	}
 
@@ -24,6 +24,7 @@ import static org.apache.openmeetings.core.util.WebSocketHelper.publish;
 
 import java.util.List;
 import java.util.function.BiConsumer;
+import java.util.function.BiFunction;
 
 import org.apache.commons.lang3.time.FastDateFormat;
 import org.apache.openmeetings.IApplication;
@@ -31,6 +32,7 @@ import org.apache.openmeetings.core.util.ws.WsMessageChat;
 import org.apache.openmeetings.core.util.ws.WsMessageChat2All;
 import org.apache.openmeetings.core.util.ws.WsMessageChat2User;
 import org.apache.openmeetings.db.entity.basic.ChatMessage;
+import org.apache.openmeetings.db.entity.basic.Client;
 import org.apache.openmeetings.db.entity.room.Room.Right;
 import org.apache.openmeetings.db.entity.user.User;
 import org.apache.openmeetings.db.manager.IClientManager;
@@ -121,13 +123,21 @@ public class ChatWebSocketHelper {
 		return o;
 	}
 
+	/**
+	 * @param m - chat message
+	 * @return function to put the dates of the message formatted for the recipient
+	 */
+	static BiFunction<JSONObject, Client, JSONObject> withDates(ChatMessage m) {
+		return (o, c) -> setDates(o, m, c.getUser(), false);
+	}
+
 	private static void sendRoom(ChatMessage m, JSONObject msg, boolean publish) {
 		if (publish) {
 			publish(new WsMessageChat(m, msg));
 		}
 		WebSocketHelper.sendRoom(m.getToRoom().getId(), msg
 				, c -> !m.isNeedModeration() || (m.isNeedModeration() && c.hasRight(Right.MODERATOR))
-				, (o, c) -> setDates(o, m, c.getUser(), false));
+				, withDates(m));
 	}
 
 	public static void sendUser(final Long userId, ChatMessage m, JSONObject msg) {
@@ -138,7 +148,7 @@ public class ChatWebSocketHelper {
 		if (publish) {
 			publish(new WsMessageChat2User(userId, m, msg));
 		}
-		WebSocketHelper.sendUser(userId, msg, (o, c) -> setDates(o, m, c.getUser(), false), false);
+		WebSocketHelper.sendUser(userId, msg, withDates(m), false);
 	}
 
 	public static void sendAll(ChatMessage m, JSONObject msg) {
@@ -149,7 +159,8 @@ public class ChatWebSocketHelper {
 		if (publish) {
 			publish(new WsMessageChat2All(m, msg));
 		}
-		WebSocketHelper.send(a -> ((IApplication)a).getBean(IClientManager.class).stream()
-				, (t, c) -> doSend(t, c, msg, (o, cm) -> setDates(o, m, c.getUser(), false), "all"), alwaysTrue());
+		final String frame = WebSocketHelper.toFrame(msg);
+		WebSocketHelper.send(WebSocketHelper.ALL_LANE, a -> ((IApplication)a).getBean(IClientManager.class).stream()
+				, (t, c) -> doSend(t, c, frame, withDates(m), "all"), alwaysTrue());
 	}
 }
@@ -0,0 +1,171 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License") +  you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.openmeetings.core.util;
+
+import java.util.Set;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import com.hazelcast.cluster.Member;
+import com.hazelcast.core.HazelcastInstance;
+import com.hazelcast.map.IMap;
+
+import io.prometheus.client.Histogram;
+
+/**
+ * Coordinates scheduled jobs between the nodes of the cluster
+ *
+ * Quartz scheduler is not clustered, every node fires all the triggers.
+ * Jobs working with shared data are performed by the oldest member of the
+ * cluster only, Hazelcast keeps member list in the same order on all nodes,
+ * so the next oldest member takes over if the leader leaves. Jobs processing
+ * queues can split the work by {@link #getPartition()}. One-time jobs started
+ * by every node can be performed by one node at a time with {@link #runLocked(String, Runnable)}.
+ * Before the node is attached to the cluster it acts as the only node.
+ */
+@Component
+public class JobCoordinator {
+	private static final Logger log = LoggerFactory.getLogger(JobCoordinator.class);
+	private static final Histogram duration = Histogram.build()
+			.help("Duration of scheduled job execution on this node, in seconds")
+			.name("org_openmeetings_job_duration_seconds")
+			.labelNames("job")
+			.register();
+	private static final String LOCKS_KEY = "JOB_LOCKS_KEY";
+	private volatile HazelcastInstance hazelcast;
+
+	/**
+	 * Part of the work to be performed by this node
+	 */
+	public static class Partition {
+		public static final Partition SINGLE = new Partition(0, 1);
+		private final int index;
+		private final int count;
+
+		Partition(int index, int count) {
+			this.index = index;
+			this.count = count;
+		}
+
+		public int getIndex() {
+			return index;
+		}
+
+		public int getCount() {
+			return count;
+		}
+	}
+
+	/**
+	 * @param hazelcast - Hazelcast instance of this node
+	 */
+	public void attach(HazelcastInstance hazelcast) {
+		this.hazelcast = hazelcast;
+		log.debug("Attached to cluster '{}'", hazelcast.getName());
+	}
+
+	/**
+	 * @return {@code true} if this node is the leader of the cluster
+	 */
+	public boolean isLeader() {
+		HazelcastInstance h = hazelcast;
+		if (h == null) {
+			return true;
+		}
+		Set<Member> members = h.getCluster().getMembers();
+		return members.isEmpty() || members.iterator().next().localMember();
+	}
+
+	/**
+	 * @return partition of this node, index of this node in the cluster member list
+	 */
+	public Partition getPartition() {
+		HazelcastInstance h = hazelcast;
+		if (h == null) {
+			return Partition.SINGLE;
+		}
+		int idx = 0;
+		Set<Member> members = h.getCluster().getMembers();
+		for (Member m : members) {
+			if (m.localMember()) {
+				return new Partition(idx, members.size());
+			}
+			++idx;
+		}
+		return Partition.SINGLE;
+	}
+
+	/**
+	 * Performs the job on the leader node only
+	 *
+	 * @param name - name of the job
+	 * @param job - job to perform
+	 */
+	public void runSingle(String name, Runnable job) {
+		if (!isLeader()) {
+			log.trace("Job {} is skipped, this node is not the leader", name);
+			return;
+		}
+		run(name, job);
+	}
+
+	/**
+	 * Performs the job on this node if the same job is not being performed by other
+	 * node, the lock is released if the node performing the job leaves the cluster
+	 *
+	 * @param name - name of the job
+	 * @param job - job to perform, should check itself if the work was already done
+	 * @return {@code true} if the job was performed by this node
+	 */
+	public boolean runLocked(String name, Runnable job) {
+		HazelcastInstance h = hazelcast;
+		if (h == null) {
+			run(name, job);
+			return true;
+		}
+		IMap<String, Boolean> locks = h.getMap(LOCKS_KEY);
+		if (!locks.tryLock(name)) {
+			log.debug("Job {} is skipped, it is performed by other node", name);
+			return false;
+		}
+		try {
+			run(name, job);
+		} finally {
+			locks.unlock(name);
+		}
+		return true;
+	}
+
+	/**
+	 * Performs the job on this node, the duration is measured
+	 *
+	 * @param name - name of the job
+	 * @param job - job to perform
+	 */
+	public void run(String name, Runnable job) {
+		Histogram.Timer timer = duration.labels(name).startTimer();
+		try {
+			job.run();
+		} finally {
+			timer.observeDuration();
+		}
+	}
+}
@@ -0,0 +1,233 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License") +  you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.openmeetings.core.util;
+
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import io.prometheus.client.Counter;
+import io.prometheus.client.Gauge;
+import io.prometheus.client.Histogram;
+
+/**
+ * Fan-out engine for outgoing WebSocket messages
+ *
+ * All work is performed by bounded pool of daemon threads. Messages for one
+ * connection are queued and delivered in FIFO order, the queue of each
+ * connection is bounded: if consumer is too slow the oldest pending message is
+ * dropped. Virtual threads are not used since Java 11 is still supported.
+ *
+ * Recipients of the message are resolved by the same pool in dispatch lanes
+ * (i.e. per room), messages of one lane are resolved in FIFO order, so are
+ * added to connection queues in the original order, while busy lane does not
+ * delay others. Task of the lane is the whole broadcast, so lanes are never
+ * lossy: they grow, and overloaded lane is reported in the log.
+ */
+public class WebSocketFanout {
+	private static final Logger log = LoggerFactory.getLogger(WebSocketFanout.class);
+	public static final int DEFAULT_THREADS = Math.max(2, Runtime.getRuntime().availableProcessors());
+	public static final int DEFAULT_QUEUE_SIZE = 256;
+	public static final int DEFAULT_LANE_WARN_SIZE = 4096;
+	private static final int DRAIN_BATCH = 32;
+	private static final Gauge queueDepth = Gauge.build()
+			.help("Number of WebSocket messages waiting to be sent")
+			.name("org_openmeetings_ws_queue_depth")
+			.register();
+	private static final Counter dropped = Counter.build()
+			.help("Number of WebSocket messages dropped due to slow consumer")
+			.name("org_openmeetings_ws_dropped_total")
+			.register();
+	private static final Histogram latency = Histogram.build()
+			.help("Time between WebSocket message is queued and sent, in seconds")
+			.name("org_openmeetings_ws_send_latency_seconds")
+			.register();
+	private static final WebSocketFanout instance = new WebSocketFanout(DEFAULT_THREADS, DEFAULT_QUEUE_SIZE, DEFAULT_LANE_WARN_SIZE);
+
+	private final ExecutorService pool;
+	private final int maxQueueSize;
+	private final int laneWarnSize;
+	private final Map<Object, ConnectionQueue> queues = new ConcurrentHashMap<>();
+
+	WebSocketFanout(int threads, int maxQueueSize) {
+		this(threads, maxQueueSize, DEFAULT_LANE_WARN_SIZE);
+	}
+
+	WebSocketFanout(int threads, int maxQueueSize, int laneWarnSize) {
+		final AtomicInteger counter = new AtomicInteger();
+		this.maxQueueSize = maxQueueSize;
+		this.laneWarnSize = laneWarnSize;
+		this.pool = new ThreadPoolExecutor(threads, threads, 60L, TimeUnit.SECONDS
+				, new LinkedBlockingQueue<>()
+				, r -> {
+					Thread t = new Thread(r, "ws-fanout-" + counter.incrementAndGet());
+					t.setDaemon(true);
+					return t;
+				});
+	}
+
+	public static WebSocketFanout get() {
+		return instance;
+	}
+
+	/**
+	 * Run task asynchronously, tasks of the same lane are performed one by one
+	 * in the order they were added, tasks are never dropped
+	 *
+	 * This should be used to resolve recipients of the message, so messages
+	 * are being added to connection queues in the original order
+	 *
+	 * @param lane - key of the lane, i.e. the room messages are sent to
+	 * @param task - task to run
+	 */
+	public void dispatch(Object lane, Runnable task) {
+		final Message msg = new Message(task);
+		queues.compute(new Lane(lane), (k, q) -> {
+			ConnectionQueue cq = add(k, q, msg);
+			if (cq.size % laneWarnSize == 0) {
+				log.warn("Dispatch {} is overloaded, {} messages are pending", k, cq.size);
+			}
+			return cq;
+		});
+	}
+
+	/**
+	 * Queue the task to be performed for the connection with given key
+	 * tasks for the same key are performed in the order they were added
+	 *
+	 * @param key - unique key of the connection
+	 * @param task - task to perform
+	 */
+	public void send(Object key, Runnable task) {
+		final Message msg = new Message(task);
+		queues.compute(key, (k, q) -> {
+			if (q != null && q.size >= maxQueueSize) {
+				q.tasks.poll();
+				q.size--;
+				queueDepth.dec();
+				dropped.inc();
+				log.debug("Slow consumer {}, message is dropped", k);
+			}
+			return add(k, q, msg);
+		});
+	}
+
+	// should be called under the bin lock of the queues map
+	private ConnectionQueue add(Object key, ConnectionQueue q, Message msg) {
+		ConnectionQueue cq = q == null ? new ConnectionQueue(key) : q;
+		cq.tasks.offer(msg);
+		cq.size++;
+		queueDepth.inc();
+		if (!cq.scheduled) {
+			cq.scheduled = true;
+			pool.execute(cq);
+		}
+		return cq;
+	}
+
+	int pending() {
+		return queues.values().stream().mapToInt(q -> q.size).sum();
+	}
+
+	private static class Lane {
+		private final Object key;
+
+		Lane(Object key) {
+			this.key = key;
+		}
+
+		@Override
+		public int hashCode() {
+			return key.hashCode();
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			return obj instanceof Lane && key.equals(((Lane)obj).key);
+		}
+
+		@Override
+		public String toString() {
+			return "lane " + key;
+		}
+	}
+
+	private static class Message {
+		private final long created = System.nanoTime();
+		private final Runnable task;
+
+		Message(Runnable task) {
+			this.task = task;
+		}
+	}
+
+	private class ConnectionQueue implements Runnable {
+		private final Object key;
+		private final Queue<Message> tasks = new ConcurrentLinkedQueue<>();
+		// both fields below are guarded by the bin lock of the queues map
+		private int size;
+		private boolean scheduled;
+
+		ConnectionQueue(Object key) {
+			this.key = key;
+		}
+
+		private Message next() {
+			Message[] m = new Message[1];
+			queues.compute(key, (k, q) -> {
+				m[0] = tasks.poll();
+				if (m[0] == null) {
+					scheduled = false;
+					return null;
+				}
+				size--;
+				queueDepth.dec();
+				return this;
+			});
+			return m[0];
+		}
+
+		@Override
+		public void run() {
+			for (int i = 0; i < DRAIN_BATCH; ++i) {
+				Message m = next();
+				if (m == null) {
+					return;
+				}
+				try {
+					m.task.run();
+				} catch (Throwable e) {
+					log.error("Error while sending WebSocket message to {}", key, e);
+				}
+				latency.observe((System.nanoTime() - m.created) / 1e9);
+			}
+			// let other connections to be served
+			pool.execute(this);
+		}
+	}
+}
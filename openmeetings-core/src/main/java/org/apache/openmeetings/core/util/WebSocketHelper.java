@@ -54,6 +54,11 @@ import com.github.openjson.JSONObject;
 
 public class WebSocketHelper {
 	private static final Logger log = LoggerFactory.getLogger(WebSocketHelper.class);
+	// recipients are resolved in separate fan-out lane per room and per user
+	private static final String ROOM_LANE = "room-";
+	private static final String USER_LANE = "user-";
+	private static final String PUBLISH_LANE = "publish";
+	static final String ALL_LANE = "all";
 	public static final <T> Predicate<T> alwaysTrue() {
 		return x -> true;
 	}
@@ -103,16 +108,22 @@ public class WebSocketHelper {
 	}
 
 	private static void sendClient(IWsClient client, Consumer<IWebSocketConnection> wsc) {
-		new Thread(() -> {
-			Application app = (Application)getApp();
-			WebSocketSettings settings = WebSocketSettings.Holder.get(app);
-			IWebSocketConnectionRegistry reg = settings.getConnectionRegistry();
+		Application app = (Application)getApp();
+		WebSocketSettings settings = WebSocketSettings.Holder.get(app);
+		IWebSocketConnectionRegistry reg = settings.getConnectionRegistry();
+		final IWebSocketConnection wc = reg.getConnection(app, client.getSessionId(), new PageIdKey(client.getPageId()));
+		send(settings, wc, wsc);
+	}
+
+	private static void send(WebSocketSettings settings, final IWebSocketConnection wc, Consumer<IWebSocketConnection> wsc) {
+		if (wc != null && wc.isOpen()) {
 			Executor executor = settings.getWebSocketPushMessageExecutor();
-			final IWebSocketConnection wc = reg.getConnection(app, client.getSessionId(), new PageIdKey(client.getPageId()));
-			if (wc != null && wc.isOpen()) {
-				executor.run(() -> wsc.accept(wc));
-			}
-		}).start();
+			WebSocketFanout.get().send(wc, () -> {
+				if (wc.isOpen()) {
+					executor.run(() -> wsc.accept(wc));
+				}
+			});
+		}
 	}
 
 	public static boolean send(IClusterWsMessage msg) {
@@ -186,8 +197,15 @@ public class WebSocketHelper {
 		if (publish) {
 			publish(new WsMessageUser(userId, m));
 		}
-		send(a -> ((IApplication)a).getBean(IClientManager.class).listByUser(userId).stream()
-				, (t, c) -> doSend(t, c, m, func, "user"), alwaysTrue());
+		final String frame = toFrame(m);
+		final BiConsumer<IWebSocketConnection, Client> consumer;
+		if (func == null) {
+			consumer = (t, c) -> doSend(t, frame, "user");
+		} else {
+			consumer = (t, c) -> doSend(t, c, frame, func, "user");
+		}
+		send(USER_LANE + userId, a -> ((IApplication)a).getBean(IClientManager.class).listByUser(userId).stream()
+				, consumer, alwaysTrue());
 	}
 
 	public static void sendAll(final String m) {
@@ -203,34 +221,63 @@ public class WebSocketHelper {
 	}
 
 	private static void sendAll(Consumer<IWebSocketConnection> sender) {
-		new Thread(() -> {
+		WebSocketFanout.get().dispatch(ALL_LANE, () -> {
 			Application app = (Application)getApp();
 			if (app == null) {
 				return; // Application is not ready
 			}
 			WebSocketSettings settings = WebSocketSettings.Holder.get(app);
 			IWebSocketConnectionRegistry reg = settings.getConnectionRegistry();
-			Executor executor = settings.getWebSocketPushMessageExecutor();
 			for (IWebSocketConnection wc : reg.getConnections(app)) {
-				if (wc != null && wc.isOpen()) {
-					executor.run(() -> sender.accept(wc));
-				}
+				send(settings, wc, sender);
 			}
-		}).start();
+		});
 	}
 
 	public static void publish(IClusterWsMessage m) {
 		IApplication app = getApp();
-		new Thread(() -> app.publishWsTopic(m)).start();
+		WebSocketFanout.get().dispatch(PUBLISH_LANE, () -> app.publishWsTopic(m));
 	}
 
+	/**
+	 * Send JSON message to the clients of the room
+	 *
+	 * @param roomId - id of the room
+	 * @param m - message to send
+	 * @param check - filter for recipients
+	 * @param func - optional function to personalize the message, if {@code null}
+	 *  the message will be serialized only once and the same frame will be sent to all recipients,
+	 *  otherwise the function gets its own copy of the message for every recipient
+	 */
 	public static void sendRoom(final Long roomId, final JSONObject m, Predicate<Client> check, BiFunction<JSONObject, Client, JSONObject> func) {
 		log.trace("Sending json WebSocket message to room: {}", m);
-		sendRoom(roomId, (t, c) -> doSend(t, c, m, func, "room"), check);
+		final String frame = toFrame(m);
+		if (func == null) {
+			sendRoom(roomId, (t, c) -> doSend(t, frame, "room"), check);
+		} else {
+			sendRoom(roomId, (t, c) -> doSend(t, c, frame, func, "room"), check);
+		}
+	}
+
+	static String toFrame(JSONObject m) {
+		return m.toString(new NullStringer());
+	}
+
+	/**
+	 * Per-recipient functions are called concurrently, so each call gets the
+	 * message parsed from the shared frame instead of the shared object
+	 *
+	 * @param shared - serialized common part of the message
+	 * @param c - recipient
+	 * @param func - function to personalize the message
+	 * @return serialized message for the recipient
+	 */
+	static String toFrame(String shared, Client c, BiFunction<JSONObject, Client, JSONObject> func) {
+		return toFrame(func.apply(new JSONObject(shared), c));
 	}
 
-	static void doSend(IWebSocketConnection conn, Client c, JSONObject msg, BiFunction<JSONObject, Client, JSONObject> func, String suffix) {
-		doSend(conn, (func == null ? msg : func.apply(msg, c)).toString(new NullStringer()), suffix);
+	static void doSend(IWebSocketConnection conn, Client c, String shared, BiFunction<JSONObject, Client, JSONObject> func, String suffix) {
+		doSend(conn, toFrame(shared, c, func), suffix);
 	}
 
 	private static void doSend(IWebSocketConnection c, String msg, String suffix) {
@@ -242,30 +289,28 @@ public class WebSocketHelper {
 	}
 
 	private static void sendRoom(final Long roomId, BiConsumer<IWebSocketConnection, Client> consumer, Predicate<Client> check) {
-		send(a -> ((IApplication)a).getBean(IClientManager.class).streamByRoom(roomId), consumer, check);
+		send(ROOM_LANE + roomId, a -> ((IApplication)a).getBean(IClientManager.class).streamByRoom(roomId), consumer, check);
 	}
 
 	static void send(
-			final Function<Application, Stream<Client>> func
+			final String lane
+			, final Function<Application, Stream<Client>> func
 			, BiConsumer<IWebSocketConnection, Client> consumer
 			, Predicate<Client> check)
 	{
-		new Thread(() -> {
+		WebSocketFanout.get().dispatch(lane, () -> {
 			Application app = (Application)getApp();
 			if (app == null) {
 				return; // Application is not ready
 			}
 			WebSocketSettings settings = WebSocketSettings.Holder.get(app);
 			IWebSocketConnectionRegistry reg = settings.getConnectionRegistry();
-			Executor executor = settings.getWebSocketPushMessageExecutor();
 			func.apply(app)
 					.filter(check)
 					.forEach(c -> {
 						final IWebSocketConnection wc = reg.getConnection(app, c.getSessionId(), new PageIdKey(c.getPageId()));
-						if (wc != null && wc.isOpen()) {
-							executor.run(() -> consumer.accept(wc, c));
-						}
+						send(settings, wc, conn -> consumer.accept(conn, c));
 					});
-		}).start();
+		});
 	}
 }
@@ -18,11 +18,21 @@
  */
 package org.apache.openmeetings.core.util.ws;
 
+import java.io.IOException;
+
 import org.apache.openmeetings.util.ws.IClusterWsMessage;
 
-public class WsMessageAll implements IClusterWsMessage {
+import com.hazelcast.nio.ObjectDataInput;
+import com.hazelcast.nio.ObjectDataOutput;
+import com.hazelcast.nio.serialization.IdentifiedDataSerializable;
+
+public class WsMessageAll implements IClusterWsMessage, IdentifiedDataSerializable {
 	private static final long serialVersionUID = 1L;
-	private final String msg;
+	private String msg;
+
+	WsMessageAll() {
+		//for cluster deserialization
+	}
 
 	public WsMessageAll(String msg) {
 		this.msg = msg;
@@ -31,4 +41,24 @@ public class WsMessageAll implements IClusterWsMessage {
 	public String getMsg() {
 		return msg;
 	}
+
+	@Override
+	public int getFactoryId() {
+		return WsMessageFactory.FACTORY_ID;
+	}
+
+	@Override
+	public int getClassId() {
+		return WsMessageFactory.ALL;
+	}
+
+	@Override
+	public void writeData(ObjectDataOutput out) throws IOException {
+		out.writeUTF(msg);
+	}
+
+	@Override
+	public void readData(ObjectDataInput in) throws IOException {
+		msg = in.readUTF();
+	}
 }
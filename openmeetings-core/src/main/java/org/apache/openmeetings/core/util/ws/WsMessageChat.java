@@ -18,16 +18,31 @@
  */
 package org.apache.openmeetings.core.util.ws;
 
+import java.io.IOException;
+import java.util.Date;
+
 import org.apache.openmeetings.db.entity.basic.ChatMessage;
+import org.apache.openmeetings.db.entity.room.Room;
 import org.apache.openmeetings.util.NullStringer;
 import org.apache.openmeetings.util.ws.IClusterWsMessage;
 
 import com.github.openjson.JSONObject;
+import com.hazelcast.nio.ObjectDataInput;
+import com.hazelcast.nio.ObjectDataOutput;
+import com.hazelcast.nio.serialization.IdentifiedDataSerializable;
 
-public class WsMessageChat implements IClusterWsMessage {
+/**
+ * Only fields necessary to deliver the message are passed to other cluster nodes:
+ * sent date, target room and moderation flag
+ */
+public class WsMessageChat implements IClusterWsMessage, IdentifiedDataSerializable {
 	private static final long serialVersionUID = 1L;
-	private final ChatMessage m;
-	private final String msg;
+	private ChatMessage m;
+	private String msg;
+
+	WsMessageChat() {
+		//for cluster deserialization
+	}
 
 	public WsMessageChat(ChatMessage m, JSONObject msg) {
 		this.m = m;
@@ -41,4 +56,36 @@ public class WsMessageChat implements IClusterWsMessage {
 	public JSONObject getMsg() {
 		return new JSONObject(msg);
 	}
+
+	@Override
+	public int getFactoryId() {
+		return WsMessageFactory.FACTORY_ID;
+	}
+
+	@Override
+	public int getClassId() {
+		return WsMessageFactory.CHAT;
+	}
+
+	@Override
+	public void writeData(ObjectDataOutput out) throws IOException {
+		out.writeLong(m.getSent().getTime());
+		out.writeObject(m.getToRoom() == null ? null : m.getToRoom().getId());
+		out.writeBoolean(m.isNeedModeration());
+		out.writeUTF(msg);
+	}
+
+	@Override
+	public void readData(ObjectDataInput in) throws IOException {
+		m = new ChatMessage();
+		m.setSent(new Date(in.readLong()));
+		Long roomId = in.readObject();
+		if (roomId != null) {
+			Room r = new Room();
+			r.setId(roomId);
+			m.setToRoom(r);
+		}
+		m.setNeedModeration(in.readBoolean());
+		msg = in.readUTF();
+	}
 }
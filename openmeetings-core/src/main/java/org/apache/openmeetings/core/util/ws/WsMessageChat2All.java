@@ -25,7 +25,16 @@ import com.github.openjson.JSONObject;
 public class WsMessageChat2All extends WsMessageChat {
 	private static final long serialVersionUID = 1L;
 
+	WsMessageChat2All() {
+		//for cluster deserialization
+	}
+
 	public WsMessageChat2All(ChatMessage m, JSONObject msg) {
 		super(m, msg);
 	}
+
+	@Override
+	public int getClassId() {
+		return WsMessageFactory.CHAT_2ALL;
+	}
 }
@@ -18,13 +18,21 @@
  */
 package org.apache.openmeetings.core.util.ws;
 
+import java.io.IOException;
+
 import org.apache.openmeetings.db.entity.basic.ChatMessage;
 
 import com.github.openjson.JSONObject;
+import com.hazelcast.nio.ObjectDataInput;
+import com.hazelcast.nio.ObjectDataOutput;
 
 public class WsMessageChat2User extends WsMessageChat {
 	private static final long serialVersionUID = 1L;
-	private final Long userId;
+	private Long userId;
+
+	WsMessageChat2User() {
+		//for cluster deserialization
+	}
 
 	public WsMessageChat2User(Long userId, ChatMessage m, JSONObject msg) {
 		super(m, msg);
@@ -34,4 +42,21 @@ public class WsMessageChat2User extends WsMessageChat {
 	public Long getUserId() {
 		return userId;
 	}
+
+	@Override
+	public int getClassId() {
+		return WsMessageFactory.CHAT_2USER;
+	}
+
+	@Override
+	public void writeData(ObjectDataOutput out) throws IOException {
+		super.writeData(out);
+		out.writeObject(userId);
+	}
+
+	@Override
+	public void readData(ObjectDataInput in) throws IOException {
+		super.readData(in);
+		userId = in.readObject();
+	}
 }
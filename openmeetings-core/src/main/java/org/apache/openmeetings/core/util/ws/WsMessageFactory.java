@@ -0,0 +1,61 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License") +  you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.openmeetings.core.util.ws;
+
+import com.hazelcast.nio.serialization.DataSerializableFactory;
+import com.hazelcast.nio.serialization.IdentifiedDataSerializable;
+
+/**
+ * Creates messages published to cluster WebSocket topic, registered in hazelcast.xml
+ */
+public class WsMessageFactory implements DataSerializableFactory {
+	public static final int FACTORY_ID = 2;
+	public static final int ALL = 1;
+	public static final int ROOM = 2;
+	public static final int ROOM_OTHERS = 3;
+	public static final int ROOM_MSG = 4;
+	public static final int USER = 5;
+	public static final int CHAT = 6;
+	public static final int CHAT_2ALL = 7;
+	public static final int CHAT_2USER = 8;
+
+	@Override
+	public IdentifiedDataSerializable create(int typeId) {
+		switch (typeId) {
+			case ALL:
+				return new WsMessageAll();
+			case ROOM:
+				return new WsMessageRoom();
+			case ROOM_OTHERS:
+				return new WsMessageRoomOthers();
+			case ROOM_MSG:
+				return new WsMessageRoomMsg();
+			case USER:
+				return new WsMessageUser();
+			case CHAT:
+				return new WsMessageChat();
+			case CHAT_2ALL:
+				return new WsMessageChat2All();
+			case CHAT_2USER:
+				return new WsMessageChat2User();
+			default:
+				return null;
+		}
+	}
+}
@@ -18,15 +18,24 @@
  */
 package org.apache.openmeetings.core.util.ws;
 
+import java.io.IOException;
+
 import org.apache.openmeetings.util.NullStringer;
 import org.apache.openmeetings.util.ws.IClusterWsMessage;
 
 import com.github.openjson.JSONObject;
+import com.hazelcast.nio.ObjectDataInput;
+import com.hazelcast.nio.ObjectDataOutput;
+import com.hazelcast.nio.serialization.IdentifiedDataSerializable;
 
-public class WsMessageRoom implements IClusterWsMessage {
+public class WsMessageRoom implements IClusterWsMessage, IdentifiedDataSerializable {
 	private static final long serialVersionUID = 1L;
-	private final Long roomId;
-	private final String msg;
+	private Long roomId;
+	private String msg;
+
+	WsMessageRoom() {
+		//for cluster deserialization
+	}
 
 	public WsMessageRoom(Long roomId, JSONObject msg) {
 		this.roomId = roomId;
@@ -40,4 +49,26 @@ public class WsMessageRoom implements IClusterWsMessage {
 	public JSONObject getMsg() {
 		return new JSONObject(msg);
 	}
+
+	@Override
+	public int getFactoryId() {
+		return WsMessageFactory.FACTORY_ID;
+	}
+
+	@Override
+	public int getClassId() {
+		return WsMessageFactory.ROOM;
+	}
+
+	@Override
+	public void writeData(ObjectDataOutput out) throws IOException {
+		out.writeObject(roomId);
+		out.writeUTF(msg);
+	}
+
+	@Override
+	public void readData(ObjectDataInput in) throws IOException {
+		roomId = in.readObject();
+		msg = in.readUTF();
+	}
 }
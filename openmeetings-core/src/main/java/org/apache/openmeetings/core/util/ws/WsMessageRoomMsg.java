@@ -18,12 +18,22 @@
  */
 package org.apache.openmeetings.core.util.ws;
 
+import java.io.IOException;
+
 import org.apache.openmeetings.db.util.ws.RoomMessage;
 import org.apache.openmeetings.util.ws.IClusterWsMessage;
 
-public class WsMessageRoomMsg implements IClusterWsMessage {
+import com.hazelcast.nio.ObjectDataInput;
+import com.hazelcast.nio.ObjectDataOutput;
+import com.hazelcast.nio.serialization.IdentifiedDataSerializable;
+
+public class WsMessageRoomMsg implements IClusterWsMessage, IdentifiedDataSerializable {
 	private static final long serialVersionUID = 1L;
-	private final RoomMessage msg;
+	private RoomMessage msg;
+
+	WsMessageRoomMsg() {
+		//for cluster deserialization
+	}
 
 	public WsMessageRoomMsg(RoomMessage msg) {
 		this.msg = msg;
@@ -32,4 +42,25 @@ public class WsMessageRoomMsg implements IClusterWsMessage {
 	public RoomMessage getMsg() {
 		return msg;
 	}
+
+	@Override
+	public int getFactoryId() {
+		return WsMessageFactory.FACTORY_ID;
+	}
+
+	@Override
+	public int getClassId() {
+		return WsMessageFactory.ROOM_MSG;
+	}
+
+	@Override
+	public void writeData(ObjectDataOutput out) throws IOException {
+		// room messages are small and have many subclasses
+		out.writeObject(msg);
+	}
+
+	@Override
+	public void readData(ObjectDataInput in) throws IOException {
+		msg = in.readObject();
+	}
 }
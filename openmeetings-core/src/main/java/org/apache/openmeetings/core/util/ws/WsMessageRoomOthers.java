@@ -18,11 +18,19 @@
  */
 package org.apache.openmeetings.core.util.ws;
 
+import java.io.IOException;
+
 import com.github.openjson.JSONObject;
+import com.hazelcast.nio.ObjectDataInput;
+import com.hazelcast.nio.ObjectDataOutput;
 
 public class WsMessageRoomOthers extends WsMessageRoom {
 	private static final long serialVersionUID = 1L;
-	private final String uid;
+	private String uid;
+
+	WsMessageRoomOthers() {
+		//for cluster deserialization
+	}
 
 	public WsMessageRoomOthers(Long roomId, String uid, JSONObject msg) {
 		super(roomId, msg);
@@ -32,4 +40,21 @@ public class WsMessageRoomOthers extends WsMessageRoom {
 	public String getUid() {
 		return uid;
 	}
+
+	@Override
+	public int getClassId() {
+		return WsMessageFactory.ROOM_OTHERS;
+	}
+
+	@Override
+	public void writeData(ObjectDataOutput out) throws IOException {
+		super.writeData(out);
+		out.writeUTF(uid);
+	}
+
+	@Override
+	public void readData(ObjectDataInput in) throws IOException {
+		super.readData(in);
+		uid = in.readUTF();
+	}
 }
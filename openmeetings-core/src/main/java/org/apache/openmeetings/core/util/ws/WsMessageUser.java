@@ -18,15 +18,24 @@
  */
 package org.apache.openmeetings.core.util.ws;
 
+import java.io.IOException;
+
 import org.apache.openmeetings.util.NullStringer;
 import org.apache.openmeetings.util.ws.IClusterWsMessage;
 
 import com.github.openjson.JSONObject;
+import com.hazelcast.nio.ObjectDataInput;
+import com.hazelcast.nio.ObjectDataOutput;
+import com.hazelcast.nio.serialization.IdentifiedDataSerializable;
 
-public class WsMessageUser implements IClusterWsMessage {
+public class WsMessageUser implements IClusterWsMessage, IdentifiedDataSerializable {
 	private static final long serialVersionUID = 1L;
-	private final Long userId;
-	private final String msg;
+	private Long userId;
+	private String msg;
+
+	WsMessageUser() {
+		//for cluster deserialization
+	}
 
 	public WsMessageUser(Long userId, JSONObject msg) {
 		this.userId = userId;
@@ -40,4 +49,26 @@ public class WsMessageUser implements IClusterWsMessage {
 	public JSONObject getMsg() {
 		return new JSONObject(msg);
 	}
+
+	@Override
+	public int getFactoryId() {
+		return WsMessageFactory.FACTORY_ID;
+	}
+
+	@Override
+	public int getClassId() {
+		return WsMessageFactory.USER;
+	}
+
+	@Override
+	public void writeData(ObjectDataOutput out) throws IOException {
+		out.writeObject(userId);
+		out.writeUTF(msg);
+	}
+
+	@Override
+	public void readData(ObjectDataInput in) throws IOException {
+		userId = in.readObject();
+		msg = in.readUTF();
+	}
 }
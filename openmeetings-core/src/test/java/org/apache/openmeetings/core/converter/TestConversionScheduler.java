@@ -0,0 +1,156 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License") +  you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.openmeetings.core.converter;
+
+import static org.apache.openmeetings.util.OpenmeetingsVariables.CONFIG_CONVERSION_THREADS;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.when;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.openmeetings.core.converter.ConversionScheduler.Priority;
+import org.apache.openmeetings.db.dao.basic.ConfigurationDao;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+@ExtendWith(MockitoExtension.class)
+class TestConversionScheduler {
+	@Mock
+	private ConfigurationDao cfgDao;
+	@InjectMocks
+	private ConversionScheduler scheduler;
+
+	@BeforeEach
+	void setUp() {
+		when(cfgDao.getInt(eq(CONFIG_CONVERSION_THREADS), anyInt())).thenReturn(1);
+	}
+
+	@AfterEach
+	void tearDown() {
+		scheduler.destroy();
+	}
+
+	@Test
+	void testPriority() throws Exception {
+		final CountDownLatch started = new CountDownLatch(1);
+		final CountDownLatch block = new CountDownLatch(1);
+		final CountDownLatch done = new CountDownLatch(3);
+		final List<String> order = new CopyOnWriteArrayList<>();
+		scheduler.schedule(Priority.BACKGROUND, () -> {
+			started.countDown();
+			try {
+				block.await();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		});
+		assertTrue(started.await(1, TimeUnit.MINUTES), "Single thread should be busy");
+		scheduler.schedule(Priority.BACKGROUND, () -> {
+			order.add("recording");
+			done.countDown();
+		});
+		scheduler.schedule(Priority.INTERACTIVE, () -> {
+			order.add("upload1");
+			done.countDown();
+		});
+		scheduler.schedule(Priority.INTERACTIVE, () -> {
+			order.add("upload2");
+			done.countDown();
+		});
+		block.countDown();
+		assertTrue(done.await(1, TimeUnit.MINUTES), "All jobs should be performed");
+		assertEquals(List.of("upload1", "upload2", "recording"), order, "Interactive jobs should go first");
+	}
+
+	@Test
+	void testReserved() throws Exception {
+		when(cfgDao.getInt(eq(CONFIG_CONVERSION_THREADS), anyInt())).thenReturn(2);
+		final CountDownLatch started = new CountDownLatch(1);
+		final CountDownLatch block = new CountDownLatch(1);
+		final CountDownLatch done = new CountDownLatch(1);
+		final List<String> order = new CopyOnWriteArrayList<>();
+		scheduler.schedule(Priority.BACKGROUND, () -> {
+			started.countDown();
+			try {
+				block.await();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		});
+		assertTrue(started.await(1, TimeUnit.MINUTES), "Background job should be started");
+		scheduler.schedule(Priority.BACKGROUND, () -> {
+			order.add("recording");
+			done.countDown();
+		});
+		assertEquals("upload", scheduler.call(Priority.INTERACTIVE, () -> {
+			order.add("upload");
+			return "upload";
+		}), "Interactive job should use reserved thread");
+		assertEquals(List.of("upload"), order, "Second background job should wait for the first one");
+		block.countDown();
+		assertTrue(done.await(1, TimeUnit.MINUTES), "All jobs should be performed");
+		assertEquals(List.of("upload", "recording"), order);
+	}
+
+	@Test
+	void testFork() throws Exception {
+		final List<String> threads = new CopyOnWriteArrayList<>();
+		List<Future<Integer>> parts = scheduler.call(Priority.BACKGROUND, () -> {
+			List<Callable<Integer>> tasks = new ArrayList<>();
+			for (int i = 0; i < 3; ++i) {
+				final int idx = i;
+				tasks.add(() -> {
+					threads.add(Thread.currentThread().getName());
+					return idx;
+				});
+			}
+			return scheduler.fork(tasks).join();
+		});
+		assertEquals(3, parts.size());
+		for (int i = 0; i < parts.size(); ++i) {
+			assertTrue(parts.get(i).isDone());
+			assertEquals(i, parts.get(i).get(), "Parts should be returned in the order of scheduling");
+		}
+		assertEquals(1, threads.stream().distinct().count(), "Parts should be performed by the only thread of the pool");
+	}
+
+	@Test
+	void testCall() throws Exception {
+		assertEquals(42, scheduler.call(Priority.INTERACTIVE, () -> 42));
+		assertThrows(IOException.class, () -> scheduler.call(Priority.INTERACTIVE, () -> {
+			throw new IOException("expected");
+		}));
+	}
+}
@@ -0,0 +1,159 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License") +  you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.openmeetings.core.converter;
+
+import static org.apache.openmeetings.util.OpenmeetingsVariables.CONFIG_CONVERSION_THREADS;
+import static org.apache.openmeetings.util.process.ProcessResult.ZERO;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyDouble;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.intThat;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Optional;
+import java.util.concurrent.atomic.DoubleAdder;
+
+import javax.imageio.ImageIO;
+
+import org.apache.openmeetings.db.dao.basic.ConfigurationDao;
+import org.apache.openmeetings.db.entity.file.FileItem;
+import org.apache.openmeetings.util.process.ProcessResult;
+import org.apache.openmeetings.util.process.ProcessResultList;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+@ExtendWith(MockitoExtension.class)
+class TestImageConverter {
+	private static final int PAGES = 5;
+	@Mock
+	private ConfigurationDao cfgDao;
+	@InjectMocks
+	private ConversionScheduler scheduler;
+	private ImageConverter converter;
+	@TempDir
+	Path dir;
+
+	@BeforeEach
+	void setUp() {
+		converter = spy(new ImageConverter());
+	}
+
+	@AfterEach
+	void tearDown() {
+		scheduler.destroy();
+	}
+
+	private File createPdf() throws IOException {
+		File pdf = dir.resolve("test.pdf").toFile();
+		try (PDDocument doc = new PDDocument()) {
+			for (int i = 0; i < PAGES; ++i) {
+				doc.addPage(new PDPage());
+			}
+			doc.save(pdf);
+		}
+		return pdf;
+	}
+
+	@Test
+	void testRangeNaming() throws IOException {
+		File d = dir.toFile();
+		File pdf = new File(d, "test.pdf");
+		assertTrue(ImageConverter.getRangeInput(pdf, 3, 5).endsWith("test.pdf[3-5]"), "Pages should be numbered from 0");
+		for (int i = 0; i < 3; ++i) {
+			Files.writeString(ImageConverter.getRangePage(d, 3, i).toPath(), "page" + (3 + i));
+		}
+		ImageConverter.movePages(d, 3, 5);
+		for (int i = 3; i <= 5; ++i) {
+			File page = ImageConverter.getPage(d, i);
+			assertTrue(page.exists(), "Page should be moved to its final name");
+			assertEquals("page" + i, Files.readString(page.toPath()), "Pages of the range should be numbered from 0");
+			assertFalse(ImageConverter.getRangePage(d, 3, i - 3).exists());
+		}
+	}
+
+	@Test
+	void testFailedRange() throws Exception {
+		when(cfgDao.getInt(eq(CONFIG_CONVERSION_THREADS), anyInt())).thenReturn(2);
+		doReturn(scheduler).when(converter).getScheduler();
+		final File pdf = createPdf();
+		doAnswer(inv -> {
+			BufferedImage img = new BufferedImage(10, 20, BufferedImage.TYPE_INT_RGB);
+			ImageIO.write(img, "png", ImageConverter.getPage(pdf.getParentFile(), 0));
+			return new ProcessResult().setExitCode(ZERO);
+		}).when(converter).renderRange(pdf, 0, 0);
+		doThrow(new IOException("expected")).when(converter).renderRange(eq(pdf), intThat(from -> from > 0), anyInt());
+		ProcessResultList logs = new ProcessResultList();
+		doReturn(logs).when(converter).convertWhole(any(), eq(pdf), eq(logs), any(), anyDouble());
+
+		FileItem f = new FileItem();
+		converter.convertDocument(f, pdf, logs, Optional.empty());
+		verify(converter).convertWhole(any(), eq(pdf), eq(logs), any(), anyDouble());
+		assertEquals(10, f.getWidth());
+		assertEquals(20, f.getHeight());
+		assertFalse(logs.hasError(), "Failed range should not fail the conversion rendered as a whole");
+	}
+
+	@Test
+	void testFallbackProgress() throws Exception {
+		when(cfgDao.getInt(eq(CONFIG_CONVERSION_THREADS), anyInt())).thenReturn(2);
+		doReturn(scheduler).when(converter).getScheduler();
+		final File pdf = createPdf();
+		final ProcessResult ok = new ProcessResult().setExitCode(ZERO);
+		doAnswer(inv -> {
+			BufferedImage img = new BufferedImage(10, 20, BufferedImage.TYPE_INT_RGB);
+			ImageIO.write(img, "png", ImageConverter.getPage(pdf.getParentFile(), 0));
+			return ok;
+		}).when(converter).renderRange(pdf, 0, 0);
+		// might be cancelled before being started
+		lenient().doReturn(ok).when(converter).renderRange(pdf, 1, 2);
+		doThrow(new IOException("expected")).when(converter).renderRange(pdf, 3, 4);
+		ProcessResultList logs = new ProcessResultList();
+		ArgumentCaptor<Double> share = ArgumentCaptor.forClass(Double.class);
+		doReturn(logs).when(converter).convertWhole(any(), eq(pdf), eq(logs), any(), share.capture());
+
+		DoubleAdder reported = new DoubleAdder();
+		converter.convertDocument(new FileItem(), pdf, logs, Optional.of(reported::add));
+		assertTrue(share.getValue() > 0, "Pages not rendered should be left for the fallback");
+		assertEquals(BaseConverter.HALF_STEP, reported.sum() + share.getValue(), 1e-9, "Progress should not exceed the step of the conversion");
+	}
+}
@@ -0,0 +1,183 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License") +  you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.openmeetings.core.converter;
+
+import static org.apache.openmeetings.util.OpenmeetingsVariables.CONFIG_OFFICE_FIRST_PORT;
+import static org.apache.openmeetings.util.OpenmeetingsVariables.CONFIG_OFFICE_POOL_SIZE;
+import static org.apache.openmeetings.util.OpenmeetingsVariables.CONFIG_OFFICE_QUEUE_SIZE;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doNothing;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.File;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.openmeetings.db.dao.basic.ConfigurationDao;
+import org.jodconverter.core.office.OfficeException;
+import org.jodconverter.core.office.OfficeManager;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+@ExtendWith(MockitoExtension.class)
+class TestOfficePool {
+	private static final long TIMEOUT = TimeUnit.MINUTES.toMillis(1);
+	private final Map<String, Integer> cfg = new ConcurrentHashMap<>();
+	private final Semaphore queueChecks = new Semaphore(0);
+	private final List<Throwable> errors = new CopyOnWriteArrayList<>();
+	private final File in = new File("in.doc");
+	private final File out = new File("out.pdf");
+	@Mock
+	private ConfigurationDao cfgDao;
+	@Spy
+	@InjectMocks
+	private OfficePool pool;
+	private OfficeManager office;
+
+	@BeforeEach
+	void setUp() {
+		when(cfgDao.getInt(anyString(), anyInt())).thenAnswer(inv -> {
+			String key = inv.getArgument(0);
+			if (CONFIG_OFFICE_QUEUE_SIZE.equals(key)) {
+				queueChecks.release();
+			}
+			return cfg.getOrDefault(key, inv.getArgument(1));
+		});
+		office = mock(OfficeManager.class);
+		lenient().when(office.isRunning()).thenReturn(true);
+		doReturn(office).when(pool).newManager(any());
+	}
+
+	@AfterEach
+	void tearDown() {
+		pool.destroy();
+	}
+
+	private Thread convert(Long owner) {
+		Thread t = new Thread(() -> {
+			try {
+				pool.convert(owner, in, out);
+			} catch (Exception e) {
+				errors.add(e);
+			}
+		});
+		t.start();
+		return t;
+	}
+
+	private int[] getPorts() {
+		ArgumentCaptor<int[]> ports = ArgumentCaptor.forClass(int[].class);
+		verify(pool).newManager(ports.capture());
+		return ports.getValue();
+	}
+
+	@Test
+	void testDefaultPorts() throws Exception {
+		doNothing().when(pool).execute(office, in, out);
+		pool.convert(1L, in, out);
+		assertArrayEquals(new int[] {OfficePool.DEFAULT_FIRST_PORT, OfficePool.DEFAULT_FIRST_PORT + 1}, getPorts());
+		verify(office).start();
+	}
+
+	@Test
+	void testFirstPort() throws Exception {
+		cfg.put(CONFIG_OFFICE_POOL_SIZE, 3);
+		cfg.put(CONFIG_OFFICE_FIRST_PORT, 3000);
+		doNothing().when(pool).execute(office, in, out);
+		pool.convert(1L, in, out);
+		pool.convert(2L, in, out);
+		assertArrayEquals(new int[] {3000, 3001, 3002}, getPorts(), "Office should be started once");
+	}
+
+	@Test
+	void testStartOutsideLock() throws Exception {
+		final CountDownLatch starting = new CountDownLatch(1);
+		final CountDownLatch started = new CountDownLatch(1);
+		doAnswer(inv -> {
+			starting.countDown();
+			started.await();
+			return null;
+		}).when(office).start();
+		doNothing().when(pool).execute(office, in, out);
+		Thread first = convert(1L);
+		assertTrue(starting.await(1, TimeUnit.MINUTES), "Office should be starting");
+
+		cfg.put(CONFIG_OFFICE_QUEUE_SIZE, 0);
+		assertTimeoutPreemptively(Duration.ofMillis(TIMEOUT)
+				, () -> assertThrows(OfficeException.class, () -> pool.convert(2L, in, out))
+				, "Queue should not be blocked while office is starting");
+		started.countDown();
+		first.join(TIMEOUT);
+		assertTrue(errors.isEmpty(), "Conversion should complete once office is started");
+		verify(pool).execute(office, in, out);
+	}
+
+	@Test
+	void testQueueFull() throws Exception {
+		cfg.put(CONFIG_OFFICE_POOL_SIZE, 1);
+		cfg.put(CONFIG_OFFICE_QUEUE_SIZE, 1);
+		final CountDownLatch converting = new CountDownLatch(1);
+		final CountDownLatch converted = new CountDownLatch(1);
+		doAnswer(inv -> {
+			converting.countDown();
+			converted.await();
+			return null;
+		}).when(pool).execute(office, in, out);
+		Thread first = convert(1L);
+		assertTrue(converting.await(1, TimeUnit.MINUTES), "Single process should be busy");
+		Thread second = convert(2L);
+		// queue size is checked under the scheduling lock right before the ticket is queued
+		assertTrue(queueChecks.tryAcquire(2, 1, TimeUnit.MINUTES), "Second conversion should be queued");
+
+		assertThrows(OfficeException.class, () -> pool.convert(3L, in, out), "Conversion should be rejected while queue is full");
+		converted.countDown();
+		first.join(TIMEOUT);
+		second.join(TIMEOUT);
+		assertTrue(errors.isEmpty(), "Queued conversion should complete");
+		verify(pool, times(2)).execute(office, in, out);
+
+		pool.convert(3L, in, out);
+		verify(pool, times(3)).execute(office, in, out);
+	}
+}
@@ -0,0 +1,194 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License") +  you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.openmeetings.core.mail;
+
+import static java.nio.charset.StandardCharsets.ISO_8859_1;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.mail.Message;
+import javax.mail.Session;
+import javax.mail.internet.InternetAddress;
+import javax.mail.internet.MimeMessage;
+
+import org.junit.jupiter.api.Test;
+
+class TestSmtpPool {
+	private static final int MESSAGES = 20;
+
+	/**
+	 * Minimal in-process SMTP server, counts connections and received messages
+	 */
+	private static class SmtpStub implements AutoCloseable {
+		private final ServerSocket server = new ServerSocket(0);
+		private final AtomicInteger connections = new AtomicInteger();
+		private final AtomicInteger messages = new AtomicInteger();
+		private final boolean dropAfterMessage;
+
+		SmtpStub(boolean dropAfterMessage) throws IOException {
+			this.dropAfterMessage = dropAfterMessage;
+			Thread t = new Thread(() -> {
+				while (!server.isClosed()) {
+					try {
+						Socket s = server.accept();
+						connections.incrementAndGet();
+						Thread h = new Thread(() -> handle(s));
+						h.setDaemon(true);
+						h.start();
+					} catch (IOException e) {
+						// server is closed
+					}
+				}
+			});
+			t.setDaemon(true);
+			t.start();
+		}
+
+		private static void reply(Writer w, String line) throws IOException {
+			w.write(line + "\r\n");
+			w.flush();
+		}
+
+		private void handle(Socket s) {
+			try (Socket socket = s
+					; BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), ISO_8859_1))
+					; Writer out = new OutputStreamWriter(socket.getOutputStream(), ISO_8859_1))
+			{
+				reply(out, "220 localhost SMTP stub");
+				String line;
+				while ((line = in.readLine()) != null) {
+					String cmd = line.length() < 4 ? line.toUpperCase() : line.substring(0, 4).toUpperCase();
+					switch (cmd) {
+						case "EHLO":
+						case "HELO":
+							reply(out, "250 localhost");
+							break;
+						case "DATA":
+							reply(out, "354 End data with <CR><LF>.<CR><LF>");
+							while ((line = in.readLine()) != null && !".".equals(line)) {
+								// skip message body
+							}
+							messages.incrementAndGet();
+							reply(out, "250 OK");
+							if (dropAfterMessage) {
+								return;
+							}
+							break;
+						case "QUIT":
+							reply(out, "221 Bye");
+							return;
+						default:
+							reply(out, "250 OK");
+					}
+				}
+			} catch (IOException e) {
+				// connection is closed
+			}
+		}
+
+		Session getSession() {
+			Properties props = new Properties();
+			props.put("mail.smtp.host", "localhost");
+			props.put("mail.smtp.port", String.valueOf(server.getLocalPort()));
+			props.put("mail.smtp.connectiontimeout", "5000");
+			props.put("mail.smtp.timeout", "5000");
+			return Session.getInstance(props, null);
+		}
+
+		@Override
+		public void close() throws IOException {
+			server.close();
+		}
+	}
+
+	private static MimeMessage getMessage(Session session, int i) throws Exception {
+		MimeMessage msg = new MimeMessage(session);
+		msg.setFrom(new InternetAddress("test-app@apache.org"));
+		msg.addRecipients(Message.RecipientType.TO, InternetAddress.parse("recipient" + i + "@apache.org", false));
+		msg.setSubject("Subject " + i);
+		msg.setText("Body " + i);
+		return msg;
+	}
+
+	private static void sendAll(SmtpPool pool, Session session, int threads) throws Exception {
+		ExecutorService exec = Executors.newFixedThreadPool(threads);
+		try {
+			List<Future<?>> sent = new ArrayList<>();
+			for (int i = 0; i < MESSAGES; ++i) {
+				final MimeMessage msg = getMessage(session, i);
+				sent.add(exec.submit(() -> {
+					pool.send(msg);
+					return null;
+				}));
+			}
+			for (Future<?> f : sent) {
+				f.get(1, TimeUnit.MINUTES);
+			}
+		} finally {
+			exec.shutdownNow();
+		}
+	}
+
+	@Test
+	void testReuse() throws Exception {
+		try (SmtpStub stub = new SmtpStub(false); SmtpPool pool = new SmtpPool(stub.getSession(), 2, 0, null, null)) {
+			sendAll(pool, stub.getSession(), 4);
+			assertEquals(MESSAGES, stub.messages.get(), "All messages should be received");
+			assertTrue(stub.connections.get() <= 2, "Connections should be reused");
+			assertTrue(pool.idle() <= 2);
+		}
+	}
+
+	@Test
+	void testReconnect() throws Exception {
+		try (SmtpStub stub = new SmtpStub(true); SmtpPool pool = new SmtpPool(stub.getSession(), 1, 0, null, null)) {
+			sendAll(pool, stub.getSession(), 1);
+			assertEquals(MESSAGES, stub.messages.get(), "All messages should be received after reconnect");
+			assertEquals(MESSAGES, stub.connections.get());
+		}
+	}
+
+	@Test
+	void testRate() throws Exception {
+		final int rate = 600; // 10 per second
+		try (SmtpStub stub = new SmtpStub(false); SmtpPool pool = new SmtpPool(stub.getSession(), 2, rate, null, null)) {
+			long start = System.nanoTime();
+			sendAll(pool, stub.getSession(), 2);
+			long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+			assertEquals(MESSAGES, stub.messages.get());
+			assertTrue(elapsed >= (MESSAGES - 1) * 100, "Messages should be throttled, elapsed: " + elapsed);
+		}
+	}
+}
@@ -0,0 +1,157 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License") +  you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.openmeetings.core.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+import org.apache.openmeetings.db.entity.basic.ChatMessage;
+import org.apache.openmeetings.db.entity.basic.Client;
+import org.apache.openmeetings.db.entity.user.User;
+import org.apache.openmeetings.db.util.FormatHelper;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.github.openjson.JSONArray;
+import com.github.openjson.JSONObject;
+
+/**
+ * Compares per-recipient serialization with the shared frame used for broadcasts
+ */
+class TestBroadcastFrame {
+	private static final Logger log = LoggerFactory.getLogger(TestBroadcastFrame.class);
+	private static final int FRAMES = 1000;
+	private static final int RECIPIENTS = 150;
+	private static final int ROUNDS = 200;
+
+	private static Client client(long id, String tz) {
+		User u = new User();
+		u.setId(id);
+		u.setLanguageId(1L);
+		u.setTimeZoneId(tz);
+		return new Client("session" + id, 1, u, null);
+	}
+
+	private static JSONObject getStroke() {
+		JSONArray points = new JSONArray();
+		for (int i = 0; i < 100; ++i) {
+			points.put(i).put(i * 2);
+		}
+		return new JSONObject().put("type", "wb")
+				.put("func", "modifyObj")
+				.put("param", new JSONObject()
+						.put("wbId", 1L)
+						.put("obj", new JSONObject()
+								.put("uid", "0c4b56a8-3bf2-4a5a-8e07-1b8d3fa8b0b1")
+								.put("omType", "path")
+								.put("slide", 0)
+								.put("points", points)));
+	}
+
+	private static long run(JSONObject msg, Function<JSONObject, List<String>> broadcast) {
+		long start = System.nanoTime();
+		for (int i = 0; i < ROUNDS; ++i) {
+			broadcast.apply(msg);
+		}
+		return System.nanoTime() - start;
+	}
+
+	private static List<String> perRecipient(JSONObject msg) {
+		List<String> frames = new ArrayList<>(RECIPIENTS);
+		for (int i = 0; i < RECIPIENTS; ++i) {
+			frames.add(WebSocketHelper.toFrame(msg));
+		}
+		return frames;
+	}
+
+	private static List<String> shared(JSONObject msg) {
+		List<String> frames = new ArrayList<>(RECIPIENTS);
+		final String frame = WebSocketHelper.toFrame(msg);
+		for (int i = 0; i < RECIPIENTS; ++i) {
+			frames.add(frame);
+		}
+		return frames;
+	}
+
+	@Test
+	void testShared() {
+		JSONObject msg = getStroke();
+		List<String> expected = perRecipient(msg);
+		List<String> actual = shared(msg);
+		assertEquals(expected, actual);
+		assertSame(actual.get(0), actual.get(RECIPIENTS - 1), "Same frame should be reused");
+
+		// warm up
+		run(msg, TestBroadcastFrame::perRecipient);
+		run(msg, TestBroadcastFrame::shared);
+		long before = run(msg, TestBroadcastFrame::perRecipient);
+		long after = run(msg, TestBroadcastFrame::shared);
+		log.info("{} recipients, per-recipient serialization: {} us/msg, shared frame: {} us/msg"
+				, RECIPIENTS, before / ROUNDS / 1000, after / ROUNDS / 1000);
+	}
+
+	private static JSONObject getDates(String frame) {
+		return new JSONObject(frame).getJSONArray("msg").getJSONObject(0);
+	}
+
+	@Test
+	void testPersonalized() throws Exception {
+		ChatMessage m = new ChatMessage();
+		m.setSent(new Date(1_600_000_000_000L));
+		JSONObject msg = new JSONObject().put("type", "chat")
+				.put("msg", new JSONArray().put(new JSONObject().put("id", 1L).put("message", "test")));
+		final String shared = WebSocketHelper.toFrame(msg);
+		final Client[] clients = {client(1L, "Europe/Berlin"), client(2L, "America/New_York")};
+		final BiFunction<JSONObject, Client, JSONObject> func = ChatWebSocketHelper.withDates(m);
+
+		ExecutorService pool = Executors.newFixedThreadPool(4);
+		try {
+			List<Future<String>> frames = new ArrayList<>();
+			for (int i = 0; i < FRAMES; ++i) {
+				final Client c = clients[i % clients.length];
+				frames.add(pool.submit(() -> WebSocketHelper.toFrame(shared, c, func)));
+			}
+			for (int i = 0; i < FRAMES; ++i) {
+				User u = clients[i % clients.length].getUser();
+				JSONObject o = getDates(frames.get(i).get());
+				assertEquals(FormatHelper.getDateTimeFormat(u).format(m.getSent()), o.getString("sent"));
+				assertEquals(FormatHelper.getTimeFormat(u).format(m.getSent()), o.getString("time"));
+				assertEquals("test", o.getString("message"));
+			}
+			assertNotEquals(getDates(frames.get(0).get()).getString("time"), getDates(frames.get(1).get()).getString("time")
+					, "Recipients in different timezones should get different frames");
+		} finally {
+			pool.shutdownNow();
+		}
+		assertFalse(msg.getJSONArray("msg").getJSONObject(0).has("sent"), "Shared message should not be modified");
+		assertEquals(shared, WebSocketHelper.toFrame(msg));
+	}
+}
@@ -0,0 +1,128 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License") +  you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.openmeetings.core.util;
+
+import static java.util.UUID.randomUUID;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.openmeetings.core.util.JobCoordinator.Partition;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import com.hazelcast.config.Config;
+import com.hazelcast.config.JoinConfig;
+import com.hazelcast.core.Hazelcast;
+import com.hazelcast.core.HazelcastInstance;
+
+/**
+ * Two cluster members running in the same JVM
+ */
+class TestJobCoordinator {
+	private static HazelcastInstance node1;
+	private static HazelcastInstance node2;
+
+	private static HazelcastInstance start(String cluster) {
+		Config cfg = new Config();
+		cfg.setClusterName(cluster);
+		cfg.setProperty("hazelcast.logging.type", "slf4j");
+		JoinConfig join = cfg.getNetworkConfig().getJoin();
+		join.getMulticastConfig().setEnabled(false);
+		join.getAutoDetectionConfig().setEnabled(false);
+		join.getTcpIpConfig().setEnabled(true).addMember("127.0.0.1");
+		return Hazelcast.newHazelcastInstance(cfg);
+	}
+
+	@BeforeAll
+	static void setUp() {
+		String cluster = randomUUID().toString();
+		node1 = start(cluster);
+		node2 = start(cluster);
+	}
+
+	@AfterAll
+	static void tearDown() {
+		node1.shutdown();
+		node2.shutdown();
+	}
+
+	private static JobCoordinator coordinator(HazelcastInstance hazelcast) {
+		JobCoordinator c = new JobCoordinator();
+		c.attach(hazelcast);
+		return c;
+	}
+
+	@Test
+	void testSingleNode() {
+		JobCoordinator c = new JobCoordinator();
+		AtomicInteger count = new AtomicInteger();
+		c.runSingle("test", count::incrementAndGet);
+		assertEquals(1, count.get(), "Not attached node should run the job");
+		assertEquals(1, c.getPartition().getCount());
+	}
+
+	@Test
+	void testCluster() {
+		assertEquals(2, node1.getCluster().getMembers().size(), "Nodes should form the cluster");
+		JobCoordinator c1 = coordinator(node1);
+		JobCoordinator c2 = coordinator(node2);
+		AtomicInteger count = new AtomicInteger();
+		c1.runSingle("test", count::incrementAndGet);
+		c2.runSingle("test", count::incrementAndGet);
+		assertEquals(1, count.get(), "Job should run on one node only");
+		assertTrue(c1.isLeader(), "Oldest member should be the leader");
+
+		Partition p1 = c1.getPartition();
+		Partition p2 = c2.getPartition();
+		assertEquals(2, p1.getCount());
+		assertEquals(2, p2.getCount());
+		assertNotEquals(p1.getIndex(), p2.getIndex(), "Nodes should process different partitions");
+	}
+
+	@Test
+	void testLocked() throws Exception {
+		JobCoordinator c1 = coordinator(node1);
+		JobCoordinator c2 = coordinator(node2);
+		final CountDownLatch started = new CountDownLatch(1);
+		final CountDownLatch block = new CountDownLatch(1);
+		CompletableFuture<Boolean> first = CompletableFuture.supplyAsync(() -> c1.runLocked("locked", () -> {
+			started.countDown();
+			try {
+				block.await();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}));
+		assertTrue(started.await(1, TimeUnit.MINUTES), "Job should be started");
+		AtomicInteger count = new AtomicInteger();
+		assertFalse(c2.runLocked("locked", count::incrementAndGet), "Job should be skipped while performed by other node");
+		block.countDown();
+		assertTrue(first.get(1, TimeUnit.MINUTES));
+		assertTrue(c2.runLocked("locked", count::incrementAndGet), "Job should be performed after the lock is released");
+		assertEquals(1, count.get());
+	}
+}
@@ -0,0 +1,196 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License") +  you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.openmeetings.core.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+class TestWebSocketFanout {
+	private static final Logger log = LoggerFactory.getLogger(TestWebSocketFanout.class);
+	private static final int CLIENTS = 100;
+	private static final int MESSAGES = 200;
+	// thread per message baseline, kept small: every task starts the thread
+	private static final int BASELINE_MESSAGES = 10;
+
+	private static class Stats {
+		private final long threads;
+		private final long p99;
+
+		Stats(long threads, long p99) {
+			this.threads = threads;
+			this.p99 = p99;
+		}
+	}
+
+	/**
+	 * Emulates sendRoom for CLIENTS synthetic clients
+	 */
+	private static Stats load(BiConsumer<Object, Runnable> sender, int messages) throws InterruptedException {
+		ThreadMXBean mx = ManagementFactory.getThreadMXBean();
+		final Object[] clients = new Object[CLIENTS];
+		for (int i = 0; i < CLIENTS; ++i) {
+			clients[i] = new Object();
+		}
+		final long[] latencies = new long[CLIENTS * messages];
+		final CountDownLatch latch = new CountDownLatch(CLIENTS * messages);
+		long threads = mx.getTotalStartedThreadCount();
+		for (int m = 0; m < messages; ++m) {
+			for (int i = 0; i < CLIENTS; ++i) {
+				final int idx = m * CLIENTS + i;
+				final long start = System.nanoTime();
+				sender.accept(clients[i], () -> {
+					latencies[idx] = System.nanoTime() - start;
+					latch.countDown();
+				});
+			}
+		}
+		assertTrue(latch.await(1, TimeUnit.MINUTES), "All messages should be sent");
+		threads = mx.getTotalStartedThreadCount() - threads;
+		Arrays.sort(latencies);
+		return new Stats(threads, latencies[(int)(latencies.length * .99)]);
+	}
+
+	@Test
+	void testLoad() throws InterruptedException {
+		Stats before = load((c, task) -> new Thread(task).start(), BASELINE_MESSAGES);
+		final WebSocketFanout fanout = new WebSocketFanout(WebSocketFanout.DEFAULT_THREADS, MESSAGES);
+		Stats same = load(fanout::send, BASELINE_MESSAGES);
+		Stats after = load(fanout::send, MESSAGES);
+		log.info("Thread per message, {} messages: threads created {}, p99 latency {} us", BASELINE_MESSAGES, before.threads, before.p99 / 1000);
+		log.info("Fan-out, {} messages: threads created {}, p99 latency {} us", BASELINE_MESSAGES, same.threads, same.p99 / 1000);
+		log.info("Fan-out, {} messages: threads created {}, p99 latency {} us", MESSAGES, after.threads, after.p99 / 1000);
+		assertTrue(same.threads + after.threads <= WebSocketFanout.DEFAULT_THREADS, "Pool should be bounded");
+		assertTrue(same.threads < before.threads, "Pool should create less threads");
+	}
+
+	@Test
+	void testLanes() throws InterruptedException {
+		final WebSocketFanout fanout = new WebSocketFanout(2, MESSAGES, MESSAGES);
+		final CountDownLatch started = new CountDownLatch(1);
+		final CountDownLatch block = new CountDownLatch(1);
+		fanout.dispatch("room-1", () -> {
+			started.countDown();
+			try {
+				block.await();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		});
+		assertTrue(started.await(1, TimeUnit.MINUTES), "Lane of the first room should be blocked");
+		final List<Integer> room1 = new CopyOnWriteArrayList<>();
+		final List<Integer> room2 = new CopyOnWriteArrayList<>();
+		final CountDownLatch done = new CountDownLatch(MESSAGES);
+		for (int m = 0; m < MESSAGES * 2; ++m) {
+			final int msg = m;
+			fanout.dispatch("room-1", () -> room1.add(msg));
+		}
+		for (int m = 0; m < MESSAGES; ++m) {
+			final int msg = m;
+			fanout.dispatch("room-2", () -> {
+				room2.add(msg);
+				done.countDown();
+			});
+		}
+		assertTrue(done.await(1, TimeUnit.MINUTES), "Other lane should not wait for the blocked one");
+		assertTrue(room1.isEmpty());
+		assertEquals(MESSAGES * 2, fanout.pending(), "Lane should grow instead of dropping broadcasts");
+		for (int m = 0; m < MESSAGES; ++m) {
+			assertEquals(m, room2.get(m), "Tasks of the lane should be performed in order");
+		}
+		final CountDownLatch last = new CountDownLatch(1);
+		block.countDown();
+		fanout.dispatch("room-1", last::countDown);
+		assertTrue(last.await(1, TimeUnit.MINUTES), "Last task should be performed");
+		assertEquals(MESSAGES * 2, room1.size(), "Tasks of the lane should never be dropped");
+		for (int m = 0; m < MESSAGES * 2; ++m) {
+			assertEquals(m, room1.get(m), "Tasks of the lane should be performed in order");
+		}
+	}
+
+	@Test
+	void testOrder() throws InterruptedException {
+		final WebSocketFanout fanout = new WebSocketFanout(4, MESSAGES);
+		final List<List<Integer>> received = new ArrayList<>();
+		final CountDownLatch latch = new CountDownLatch(CLIENTS * MESSAGES);
+		for (int i = 0; i < CLIENTS; ++i) {
+			received.add(new ArrayList<>());
+		}
+		for (int m = 0; m < MESSAGES; ++m) {
+			for (int i = 0; i < CLIENTS; ++i) {
+				final List<Integer> list = received.get(i);
+				final int msg = m;
+				fanout.send(list, () -> {
+					list.add(msg);
+					latch.countDown();
+				});
+			}
+		}
+		assertTrue(latch.await(1, TimeUnit.MINUTES), "All messages should be sent");
+		for (List<Integer> list : received) {
+			assertEquals(MESSAGES, list.size());
+			for (int m = 0; m < MESSAGES; ++m) {
+				assertEquals(m, list.get(m), "Messages should be received in order");
+			}
+		}
+	}
+
+	@Test
+	void testSlowConsumer() throws InterruptedException {
+		final int queueSize = 5;
+		final WebSocketFanout fanout = new WebSocketFanout(2, queueSize);
+		final Object client = new Object();
+		final CountDownLatch started = new CountDownLatch(1);
+		final CountDownLatch block = new CountDownLatch(1);
+		final List<Integer> received = new ArrayList<>();
+		fanout.send(client, () -> {
+			started.countDown();
+			try {
+				block.await();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		});
+		assertTrue(started.await(1, TimeUnit.MINUTES), "Consumer should be blocked");
+		for (int m = 0; m < MESSAGES; ++m) {
+			final int msg = m;
+			fanout.send(client, () -> received.add(msg));
+		}
+		assertTrue(fanout.pending() <= queueSize, "Queue should be bounded");
+		final CountDownLatch done = new CountDownLatch(1);
+		block.countDown();
+		fanout.send(client, done::countDown);
+		assertTrue(done.await(1, TimeUnit.MINUTES), "Last message should be sent");
+		assertTrue(received.size() <= queueSize, "Old messages should be dropped");
+		assertEquals(MESSAGES - 1, received.get(received.size() - 1), "Newest messages should be kept");
+	}
+}
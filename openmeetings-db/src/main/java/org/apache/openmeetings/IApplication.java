@@ -46,6 +46,7 @@ public interface IApplication {
 
 	//JPA
 	void updateJpaAddresses();
+	void publishConfigTopic(String key);
 
 	//WS
 	void publishWsTopic(IClusterWsMessage msg);
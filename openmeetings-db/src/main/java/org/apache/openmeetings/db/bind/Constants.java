@@ -21,6 +21,8 @@ package org.apache.openmeetings.db.bind;
 public class Constants {
 	public static final String VERSION_LIST_NODE = "version";
 	public static final String VERSION_NODE = "version";
+	public static final String MARK_LIST_NODE = "mark";
+	public static final String MARK_NODE = "mark";
 	public static final String CFG_LIST_NODE = "configs";
 	public static final String CFG_NODE = "config";
 	public static final String GROUP_LIST_NODE = "organisations";
@@ -26,6 +26,7 @@ import java.util.List;
 
 import javax.persistence.EntityManager;
 import javax.persistence.PersistenceContext;
+import javax.persistence.TypedQuery;
 
 import org.apache.openmeetings.db.entity.basic.ChatMessage;
 import org.springframework.stereotype.Repository;
@@ -49,6 +50,25 @@ public class ChatDao {
 				, start, count).getResultList();
 	}
 
+	//for export, keyset paging
+	public List<ChatMessage> getAfter(long id, int count) {
+		return getAfter(id, null, count);
+	}
+
+	//for export, keyset paging, only changed after given date if not null
+	public List<ChatMessage> getAfter(long id, Date since, int count) {
+		TypedQuery<ChatMessage> q = since == null
+				? em.createNamedQuery("getChatMessagesAfter", ChatMessage.class)
+				: em.createNamedQuery("getChatMessagesChangedAfter", ChatMessage.class).setParameter("since", since);
+		return q.setParameter("id", id)
+				.setMaxResults(count)
+				.getResultList();
+	}
+
+	public long count() {
+		return em.createNamedQuery("countChatMessages", Long.class).getSingleResult();
+	}
+
 	public List<ChatMessage> getGlobal(long start, long count) {
 		return setLimits(em.createNamedQuery("getGlobalChatMessages", ChatMessage.class)
 				, start, count).getResultList();
@@ -27,10 +27,15 @@ import static org.apache.wicket.csp.CSPDirectiveSrcValue.STRICT_DYNAMIC;
 
 import java.net.UnknownHostException;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.TimeZone;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
 
 import javax.persistence.EntityManager;
 import javax.persistence.PersistenceContext;
@@ -47,7 +52,9 @@ import org.apache.openmeetings.db.dao.server.OAuth2Dao;
 import org.apache.openmeetings.db.dao.user.UserDao;
 import org.apache.openmeetings.db.entity.basic.Configuration;
 import org.apache.openmeetings.db.util.DaoHelper;
+import org.apache.openmeetings.db.util.HazelcastRemoteCommitProvider;
 import org.apache.openmeetings.util.crypt.CryptProvider;
+import org.apache.openmeetings.util.logging.PrometheusUtil;
 import org.apache.wicket.Application;
 import org.apache.wicket.csp.CSPDirective;
 import org.apache.wicket.csp.CSPHeaderConfiguration;
@@ -58,8 +65,11 @@ import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Repository;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import com.github.openjson.JSONObject;
+import com.hazelcast.core.HazelcastInstance;
 
 /**
  * Insert/update/Delete on {@link Configuration}
@@ -72,6 +82,10 @@ import com.github.openjson.JSONObject;
  *
  * <b> {@link #get(String)} is deprecated!</b>
  *
+ * Values of non-deleted keys are read from in-memory snapshot, the snapshot is
+ * updated after the transaction of {@link #update(Configuration, Long)} is committed
+ * and invalidated on other cluster nodes
+ *
  * @author swagner
  *
  */
@@ -90,15 +104,106 @@ public class ConfigurationDao implements IDataProviderDao<Configuration> {
 	private OAuth2Dao oauthDao;
 	@Autowired
 	private IApplication app;
+	private final AtomicReference<Snapshot> snapshot = new AtomicReference<>();
+	private final AtomicLong version = new AtomicLong();
 
-	public void updateClusterAddresses(String addresses) throws UnknownHostException {
+	/**
+	 * Immutable key/value view of all non-deleted {@link Configuration} entries
+	 */
+	private static class Snapshot {
+		private final Map<String, String> values;
+		private final Map<String, Long> numbers;
+
+		Snapshot(Map<String, String> values) {
+			this.values = Collections.unmodifiableMap(values);
+			Map<String, Long> n = new HashMap<>();
+			for (Map.Entry<String, String> e : values.entrySet()) {
+				try {
+					n.put(e.getKey(), e.getValue() == null ? null : Long.valueOf(e.getValue()));
+				} catch (NumberFormatException ex) {
+					//no-op, not a number
+				}
+			}
+			this.numbers = Collections.unmodifiableMap(n);
+		}
+
+		Snapshot with(String key, String value, boolean deleted) {
+			Map<String, String> v = new HashMap<>(values);
+			if (deleted) {
+				v.remove(key);
+			} else {
+				v.put(key, value);
+			}
+			return new Snapshot(v);
+		}
+	}
+
+	private Snapshot getSnapshot() {
+		Snapshot s = snapshot.get();
+		if (s == null) {
+			long ver = version.get();
+			Map<String, String> values = new HashMap<>();
+			for (Configuration c : em.createNamedQuery("getNondeletedConfiguration", Configuration.class).getResultList()) {
+				values.put(c.getKey(), c.getValue());
+			}
+			s = new Snapshot(values);
+			// snapshot loaded concurrently with invalidation might be stale
+			if (ver == version.get() && snapshot.compareAndSet(null, s)) {
+				PrometheusUtil.getConfigGauge().labels("reloads").inc();
+				PrometheusUtil.getConfigGauge().labels("loaded").setToCurrentTime();
+			}
+		}
+		return s;
+	}
+
+	/*
+	 * snapshot is changed in place, so concurrent changes of different keys are not lost,
+	 * missing snapshot will be re-read from DB on next access
+	 */
+	private void updateSnapshot(String key, String value, boolean deleted) {
+		version.incrementAndGet();
+		snapshot.updateAndGet(s -> s == null ? null : s.with(key, value, deleted));
+		PrometheusUtil.getConfigGauge().labels("reloads").inc();
+		PrometheusUtil.getConfigGauge().labels("loaded").setToCurrentTime();
+	}
+
+	/**
+	 * Drops the snapshot, so it will be re-read from DB on next access
+	 */
+	public void invalidate() {
+		version.incrementAndGet();
+		snapshot.set(null);
+	}
+
+	/**
+	 * Re-reads configuration changed on other cluster node
+	 *
+	 * @param key - the key of changed {@link Configuration}
+	 */
+	public void reload(String key) {
+		invalidate();
+		onChange(key, getString(key, null));
+	}
+
+	private RemoteCommitProvider getRemoteCommitProvider() {
 		OpenJPAConfiguration cfg = ((OpenJPAEntityManagerSPI)OpenJPAPersistence.cast(em)).getConfiguration();
-		RemoteCommitProvider prov = cfg.getRemoteCommitEventManager().getRemoteCommitProvider();
+		return cfg.getRemoteCommitEventManager().getRemoteCommitProvider();
+	}
+
+	public void updateClusterAddresses(String addresses) throws UnknownHostException {
+		RemoteCommitProvider prov = getRemoteCommitProvider();
 		if (prov instanceof TCPRemoteCommitProvider) {
 			((TCPRemoteCommitProvider)prov).setAddresses(addresses);
 		}
 	}
 
+	public void attachCluster(HazelcastInstance hazelcast) {
+		RemoteCommitProvider prov = getRemoteCommitProvider();
+		if (prov instanceof HazelcastRemoteCommitProvider) {
+			((HazelcastRemoteCommitProvider)prov).attach(hazelcast);
+		}
+	}
+
 	/**
 	 * Retrieves Configuration regardless of its deleted status
 	 *
@@ -120,13 +225,43 @@ public class ConfigurationDao implements IDataProviderDao<Configuration> {
 		return null;
 	}
 
+	/**
+	 * @param key - key of the marker
+	 * @return version of the data built by the application (i.e. search index), {@code 0} if the data is not built yet
+	 */
+	public long getDataVersion(String key) {
+		Configuration c = forceGet(key);
+		return c == null || c.isDeleted() || c.getValueN() == null ? 0 : c.getValueN();
+	}
+
+	/**
+	 * Marks the data built by the application as being up to date
+	 *
+	 * @param key - key of the marker
+	 * @param ver - version of the data
+	 */
+	public void setDataVersion(String key, long ver) {
+		Configuration c = forceGet(key);
+		if (c == null) {
+			c = new Configuration();
+			c.setKey(key);
+			c.setType(Configuration.Type.NUMBER);
+		}
+		c.setValueN(ver);
+		update(c, null);
+	}
+
 	public List<Configuration> get(String... keys) {
-		List<Configuration> result = new ArrayList<>();
+		Map<String, Configuration> byKey = new HashMap<>();
+		for (Configuration c : em.createNamedQuery("getConfigurationsByKeys", Configuration.class)
+				.setParameter("keys", List.of(keys))
+				.getResultList())
+		{
+			byKey.put(c.getKey(), c);
+		}
+		List<Configuration> result = new ArrayList<>(keys.length);
 		for (String key : keys) { //iteration is necessary to fill list with all values
-			List<Configuration> r = em.createNamedQuery("getConfigurationsByKeys", Configuration.class)
-					.setParameter("keys", List.of(key))
-					.getResultList();
-			result.add(r.isEmpty() ? null : r.get(0));
+			result.add(byKey.get(key));
 		}
 		return result;
 	}
@@ -142,48 +277,29 @@ public class ConfigurationDao implements IDataProviderDao<Configuration> {
 	}
 
 	public boolean getBool(String key, boolean def) {
-		Configuration c = get(key);
-
-		if (c != null) {
-			try {
-				return c.getValueB();
-			} catch (Exception e) {
-				//no-op, parsing exception
-			}
+		Snapshot s = getSnapshot();
+		if (s.values.containsKey(key)) {
+			return Boolean.parseBoolean(s.values.get(key));
 		}
 		return def;
 	}
 
 	public Long getLong(String key, Long def) {
-		Configuration c = get(key);
-
-		if (c != null) {
-			try {
-				return c.getValueN();
-			} catch (Exception e) {
-				//no-op, parsing exception
-			}
+		Snapshot s = getSnapshot();
+		if (s.numbers.containsKey(key)) {
+			return s.numbers.get(key);
 		}
 		return def;
 	}
 
 	public int getInt(String key, int def) {
-		Configuration c = get(key);
-
-		if (c != null) {
-			try {
-				Long val = c.getValueN();
-				return val == null ? def : val.intValue();
-			} catch (Exception e) {
-				//no-op, parsing exception
-			}
-		}
-		return def;
+		Long val = getSnapshot().numbers.get(key);
+		return val == null ? def : val.intValue();
 	}
 
 	public String getString(String key, String def) {
-		Configuration c = get(key);
-		return c != null && c.getValue() != null ? c.getValue() : def;
+		String val = getSnapshot().values.get(key);
+		return val != null ? val : def;
 	}
 
 	@Override
@@ -234,6 +350,26 @@ public class ConfigurationDao implements IDataProviderDao<Configuration> {
 			entity.setDeleted(deleted);
 			entity = em.merge(entity);
 		}
+		if (TransactionSynchronizationManager.isSynchronizationActive()) {
+			TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+				@Override
+				public void afterCommit() {
+					committed(key, value, deleted);
+				}
+			});
+		} else {
+			committed(key, value, deleted);
+		}
+		return entity;
+	}
+
+	private void committed(String key, String value, boolean deleted) {
+		updateSnapshot(key, value, deleted);
+		onChange(key, value);
+		app.publishConfigTopic(key);
+	}
+
+	private void onChange(String key, String value) {
 		switch (key) {
 			case CONFIG_CAM_FPS:
 			case CONFIG_MIC_ECHO:
@@ -355,7 +491,6 @@ public class ConfigurationDao implements IDataProviderDao<Configuration> {
 				reloadTheme();
 				break;
 		}
-		return entity;
 	}
 
 	@Override
@@ -502,6 +637,7 @@ public class ConfigurationDao implements IDataProviderDao<Configuration> {
 	}
 
 	public void reinit() {
+		invalidate();
 		reloadMaxUpload();
 		reloadCrypt();
 		setApplicationName(getString(CONFIG_APPLICATION_NAME, DEFAULT_APP_NAME));
@@ -22,7 +22,9 @@ import static org.apache.openmeetings.db.util.DaoHelper.setLimits;
 import static org.apache.openmeetings.util.OpenmeetingsVariables.PARAM_STATUS;
 
 import java.util.Calendar;
+import java.util.Date;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
 
 import javax.persistence.EntityManager;
 import javax.persistence.PersistenceContext;
@@ -32,12 +34,15 @@ import org.apache.openmeetings.db.dao.IDataProviderDao;
 import org.apache.openmeetings.db.entity.basic.MailMessage;
 import org.apache.openmeetings.db.entity.basic.MailMessage.Status;
 import org.apache.wicket.util.string.Strings;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Repository;
 import org.springframework.transaction.annotation.Transactional;
 
 @Repository
 @Transactional
 public class MailMessageDao implements IDataProviderDao<MailMessage> {
+	private static final Logger log = LoggerFactory.getLogger(MailMessageDao.class);
 	@PersistenceContext
 	private EntityManager em;
 
@@ -57,6 +62,65 @@ public class MailMessageDao implements IDataProviderDao<MailMessage> {
 				, start, count).getResultList();
 	}
 
+	/**
+	 * Marks next messages waiting to be sent as {@link Status#SENDING}
+	 *
+	 * @param count - maximum number of messages to claim
+	 * @return claimed messages
+	 */
+	public List<MailMessage> claim(int count) {
+		return claim(count, 0, 1);
+	}
+
+	/**
+	 * Same as {@link #claim(int)}, only messages of the given partition are claimed,
+	 * so the nodes of the cluster normally never compete for the same messages
+	 *
+	 * Messages are claimed with single conditional UPDATE marking them with the
+	 * claim time as token, only messages marked by this call are returned, so the
+	 * message claimed concurrently (i.e. while the cluster membership changes) is
+	 * never sent twice. The token is truncated to seconds, so it is matched
+	 * regardless of the precision of DB timestamps, if concurrent claim of the
+	 * same messages happens within the same second, nothing is returned and
+	 * claimed messages are sent after {@link #resetSendingStatus(Calendar)}
+	 *
+	 * @param count - maximum number of messages to claim
+	 * @param partition - index of the partition
+	 * @param partitions - total number of partitions
+	 * @return claimed messages
+	 */
+	public List<MailMessage> claim(int count, int partition, int partitions) {
+		TypedQuery<Long> q = partitions > 1
+				? em.createNamedQuery("getMailMessageIdsByPartition", Long.class)
+					.setParameter("partition", partition)
+					.setParameter("partitions", partitions)
+				: em.createNamedQuery("getMailMessageIdsByStatus", Long.class);
+		List<Long> ids = setLimits(q.setParameter(PARAM_STATUS, Status.NONE), 0, count).getResultList();
+		if (ids.isEmpty()) {
+			return List.of();
+		}
+		final Date token = new Date(TimeUnit.SECONDS.toMillis(TimeUnit.MILLISECONDS.toSeconds(System.currentTimeMillis())));
+		int claimed = em.createNamedQuery("claimMailMessages")
+				.setParameter("sendingStatus", Status.SENDING)
+				.setParameter("noneStatus", Status.NONE)
+				.setParameter("token", token)
+				.setParameter("ids", ids)
+				.executeUpdate();
+		if (claimed == 0) {
+			return List.of();
+		}
+		List<MailMessage> list = em.createNamedQuery("getMailMessagesByToken", MailMessage.class)
+				.setParameter(PARAM_STATUS, Status.SENDING)
+				.setParameter("token", token)
+				.setParameter("ids", ids)
+				.getResultList();
+		if (list.size() > claimed) {
+			log.warn("Messages were claimed concurrently, {} of {} will be sent after reset", claimed, list.size());
+			return List.of();
+		}
+		return list;
+	}
+
 	private <T> TypedQuery<T> getQuery(boolean isCount, String search, String order, Class<T> clazz) {
 		StringBuilder sb = new StringBuilder("SELECT ");
 		sb.append(isCount ? "COUNT(m)" : "m")
@@ -0,0 +1,181 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License") +  you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.openmeetings.db.dao.basic;
+
+import static org.apache.openmeetings.db.util.DaoHelper.getSearchTokens;
+import static org.apache.openmeetings.util.OpenmeetingsVariables.CONFIG_SEARCH_INDEX_VERSION;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+
+import org.apache.openmeetings.db.entity.IDataProviderEntity;
+import org.apache.openmeetings.db.entity.basic.SearchToken;
+import org.apache.openmeetings.db.entity.basic.SearchToken.Type;
+import org.apache.openmeetings.db.entity.file.BaseFileItem;
+import org.apache.openmeetings.db.entity.room.Room;
+import org.apache.openmeetings.db.entity.user.Address;
+import org.apache.openmeetings.db.entity.user.User;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Search index of users, rooms and files stored in {@link SearchToken} table
+ *
+ * Searchable fields are split to words, every word is stored as separate row,
+ * so the search is the index range scan by word prefix instead of the
+ * {@code LIKE '%word%'} scan of all rows. The index is updated by DAOs on save.
+ */
+@Repository
+@Transactional
+public class SearchIndexDao {
+	private static final Logger log = LoggerFactory.getLogger(SearchIndexDao.class);
+	private static final int MAX_TOKENS = 50;
+	private static final int PAGE_SIZE = 1000;
+	private static final int PROGRESS_PAGES = 10;
+	private static final long INDEX_VERSION = 1;
+	private static final String PARAM_TYPE = "type";
+	private static final String PARAM_ENTITY_ID = "entityId";
+	@PersistenceContext
+	private EntityManager em;
+	@Autowired
+	private ConfigurationDao cfgDao;
+	@Autowired
+	private PlatformTransactionManager transactionManager;
+
+	public void update(User u) {
+		Address a = u.getAddress();
+		update(Type.USER, u, u.getLastname(), u.getFirstname(), u.getLogin()
+				, a == null ? null : a.getEmail(), a == null ? null : a.getTown());
+	}
+
+	public void update(Room r) {
+		update(Type.ROOM, r, r.getName(), r.getComment());
+	}
+
+	public void update(BaseFileItem f) {
+		update(Type.FILE, f, f.getName());
+	}
+
+	private void update(Type type, IDataProviderEntity e, String... values) {
+		if (e.getId() == null) {
+			em.flush(); // id of new entity is generated on flush
+		}
+		List<String> tokens = getSearchTokens(MAX_TOKENS, values);
+		List<String> stored = em.createNamedQuery("getSearchTokens", String.class)
+				.setParameter(PARAM_TYPE, type)
+				.setParameter(PARAM_ENTITY_ID, e.getId())
+				.getResultList();
+		if (stored.size() == tokens.size() && new HashSet<>(stored).containsAll(tokens)) {
+			return;
+		}
+		if (!stored.isEmpty()) {
+			em.createNamedQuery("deleteSearchTokens")
+					.setParameter(PARAM_TYPE, type)
+					.setParameter(PARAM_ENTITY_ID, e.getId())
+					.executeUpdate();
+		}
+		add(type, e.getId(), tokens);
+	}
+
+	private void add(Type type, long id, List<String> tokens) {
+		for (String t : tokens) {
+			em.persist(new SearchToken(type, id, t));
+		}
+	}
+
+	/**
+	 * The index is built unless it is marked as built by {@code search.index.version}
+	 * configuration, i.e. after upgrade, should be performed by one node of the cluster at a time
+	 */
+	@Transactional(propagation = Propagation.NOT_SUPPORTED)
+	public void init() {
+		if (cfgDao.getDataVersion(CONFIG_SEARCH_INDEX_VERSION) < INDEX_VERSION) {
+			log.info("Search index is not built, building");
+			reindex();
+			cfgDao.setDataVersion(CONFIG_SEARCH_INDEX_VERSION, INDEX_VERSION);
+			log.info("Search index is built");
+		}
+	}
+
+	/**
+	 * Re-builds the index for all entities
+	 *
+	 * Every page is re-built in its own transaction, so the index stays searchable
+	 * while being re-built
+	 */
+	@Transactional(propagation = Propagation.NOT_SUPPORTED)
+	public void reindex() {
+		reindex(Type.USER, "getUserSearchFields");
+		reindex(Type.ROOM, "getRoomSearchFields");
+		reindex(Type.FILE, "getFileSearchFields");
+	}
+
+	private void reindex(Type type, String query) {
+		TransactionTemplate tx = new TransactionTemplate(transactionManager);
+		long lastId = 0;
+		long count = 0;
+		int pages = 0;
+		List<Object[]> page;
+		do {
+			final long fromId = lastId;
+			page = tx.execute(status -> reindex(type, query, fromId));
+			if (!page.isEmpty()) {
+				lastId = (Long)page.get(page.size() - 1)[0];
+			}
+			count += page.size();
+			if (++pages % PROGRESS_PAGES == 0) {
+				log.info("Search index: {} {} entities are indexed so far", count, type);
+			}
+		} while (page.size() == PAGE_SIZE);
+		log.info("Search index: {} {} entities are indexed", count, type);
+	}
+
+	/**
+	 * Replaces the tokens of the entities with ids after given one, tokens of
+	 * missing entities of the range are removed
+	 *
+	 * @return the page of indexed entities
+	 */
+	private List<Object[]> reindex(Type type, String query, long fromId) {
+		List<Object[]> page = em.createNamedQuery(query, Object[].class)
+				.setParameter("lastId", fromId)
+				.setMaxResults(PAGE_SIZE)
+				.getResultList();
+		em.createNamedQuery("deleteSearchTokensRange")
+				.setParameter(PARAM_TYPE, type)
+				.setParameter("fromId", fromId)
+				.setParameter("toId", page.size() < PAGE_SIZE ? Long.MAX_VALUE : (Long)page.get(page.size() - 1)[0])
+				.executeUpdate();
+		for (Object[] row : page) {
+			String[] values = Arrays.copyOfRange(row, 1, row.length, String[].class);
+			add(type, (Long)row[0], getSearchTokens(MAX_TOKENS, values));
+		}
+		return page;
+	}
+}
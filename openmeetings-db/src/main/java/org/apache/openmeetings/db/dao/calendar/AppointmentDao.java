@@ -24,9 +24,10 @@ import static org.apache.openmeetings.util.OpenmeetingsVariables.CONFIG_CALENDAR
 import static org.apache.openmeetings.util.OpenmeetingsVariables.PARAM_USER_ID;
 
 import java.util.ArrayList;
-import java.util.Calendar;
 import java.util.Date;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 import javax.persistence.EntityManager;
@@ -45,6 +46,7 @@ import org.apache.openmeetings.db.entity.calendar.MeetingMember;
 import org.apache.openmeetings.db.entity.room.Invitation.MessageType;
 import org.apache.openmeetings.db.entity.room.Room;
 import org.apache.openmeetings.db.manager.IInvitationManager;
+import org.apache.openmeetings.db.manager.IReminderManager;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -56,6 +58,8 @@ import org.springframework.transaction.annotation.Transactional;
 public class AppointmentDao implements IDataProviderDao<Appointment>{
 	private static final Logger log = LoggerFactory.getLogger(AppointmentDao.class);
 	private static final String PARAM_START = "start";
+	private static final String PARAM_END = "end";
+	private static final String PARAM_NONE = "none";
 	private static final String PARAM_CALID = "calId";
 	@PersistenceContext
 	private EntityManager em;
@@ -67,6 +71,8 @@ public class AppointmentDao implements IDataProviderDao<Appointment>{
 	private ConfigurationDao cfgDao;
 	@Autowired
 	private IInvitationManager invitationManager;
+	@Autowired
+	private IReminderManager reminderManager;
 
 	/*
 	 * insert, update, delete, select
@@ -89,6 +95,21 @@ public class AppointmentDao implements IDataProviderDao<Appointment>{
 		return em.createNamedQuery("getAppointments", Appointment.class).getResultList();
 	}
 
+	//for export, keyset paging
+	public List<Appointment> getAfter(long id, int count) {
+		return getAfter(id, null, count);
+	}
+
+	//for export, keyset paging, only changed after given date if not null
+	public List<Appointment> getAfter(long id, Date since, int count) {
+		TypedQuery<Appointment> q = since == null
+				? em.createNamedQuery("getAppointmentsAfter", Appointment.class)
+				: em.createNamedQuery("getAppointmentsChangedAfter", Appointment.class).setParameter("since", since);
+		return q.setParameter("id", id)
+				.setMaxResults(count)
+				.getResultList();
+	}
+
 	@Override
 	public Appointment update(Appointment a, Long userId) {
 		return update(a, userId, true);
@@ -150,6 +171,7 @@ public class AppointmentDao implements IDataProviderDao<Appointment>{
 				invitationManager.processInvitation(a, owner, MessageType.UPDATE, sendMail);
 			}
 		}
+		reminderManager.update(a);
 		return a;
 	}
 
@@ -173,13 +195,13 @@ public class AppointmentDao implements IDataProviderDao<Appointment>{
 
 		TypedQuery<Appointment> query = em.createNamedQuery("appointmentsInRange", Appointment.class);
 		query.setParameter(PARAM_START, start);
-		query.setParameter("end", end);
+		query.setParameter(PARAM_END, end);
 		query.setParameter(PARAM_USER_ID, userId);
 
 		List<Appointment> listAppoints = new ArrayList<>(query.getResultList());
 		TypedQuery<Appointment> q1 = em.createNamedQuery("joinedAppointmentsInRange", Appointment.class);
 		q1.setParameter(PARAM_START, start);
-		q1.setParameter("end", end);
+		q1.setParameter(PARAM_END, end);
 		q1.setParameter(PARAM_USER_ID, userId);
 		for (Appointment a : q1.getResultList()) {
 			a.setConnectedEvent(true);
@@ -189,12 +211,37 @@ public class AppointmentDao implements IDataProviderDao<Appointment>{
 		return listAppoints;
 	}
 
-	public List<Appointment> getInRange(Calendar start, Calendar end) {
-		TypedQuery<Appointment> q = em.createNamedQuery("appointmentsInRangeRemind", Appointment.class);
-		q.setParameter("none", Reminder.NONE);
-		q.setParameter(PARAM_START, start.getTime());
-		q.setParameter("end", end.getTime());
-		return q.getResultList();
+	/**
+	 * @param end - appointments ended before are skipped
+	 * @return start dates of appointments with reminder not yet sent, by id
+	 */
+	public Map<Long, Date> getReminders(Date end) {
+		Map<Long, Date> result = new HashMap<>();
+		for (Object[] row : em.createNamedQuery("getAppointmentReminders", Object[].class)
+				.setParameter(PARAM_NONE, Reminder.NONE)
+				.setParameter(PARAM_END, end)
+				.getResultList())
+		{
+			result.put((Long)row[0], (Date)row[1]);
+		}
+		return result;
+	}
+
+	/**
+	 * Marks the reminder of the appointment as sent, only one caller succeeds
+	 *
+	 * @param id - id of the appointment
+	 * @param start - appointment should start before
+	 * @param end - appointment should end after
+	 * @return {@code true} if reminder should be sent by the caller
+	 */
+	public boolean setReminderSent(Long id, Date start, Date end) {
+		return em.createNamedQuery("setAppointmentReminderSent")
+				.setParameter("id", id)
+				.setParameter(PARAM_NONE, Reminder.NONE)
+				.setParameter(PARAM_START, start)
+				.setParameter(PARAM_END, end)
+				.executeUpdate() == 1;
 	}
 
 	// next appointment to select date
@@ -291,7 +338,7 @@ public class AppointmentDao implements IDataProviderDao<Appointment>{
 
 	@Override
 	public long count() {
-		throw UNSUPPORTED;
+		return em.createNamedQuery("countAppointments", Long.class).getSingleResult();
 	}
 
 	@Override
@@ -18,12 +18,14 @@
  */
 package org.apache.openmeetings.db.dao.calendar;
 
+import java.util.Date;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
 
 import javax.persistence.EntityManager;
 import javax.persistence.PersistenceContext;
+import javax.persistence.TypedQuery;
 
 import org.apache.openmeetings.db.entity.calendar.MeetingMember;
 import org.slf4j.Logger;
@@ -48,6 +50,25 @@ public class MeetingMemberDao {
 		return em.createNamedQuery("getMeetingMembers", MeetingMember.class).getResultList();
 	}
 
+	//for export, keyset paging
+	public List<MeetingMember> getAfter(long id, int count) {
+		return getAfter(id, null, count);
+	}
+
+	//for export, keyset paging, only changed after given date if not null
+	public List<MeetingMember> getAfter(long id, Date since, int count) {
+		TypedQuery<MeetingMember> q = since == null
+				? em.createNamedQuery("getMeetingMembersAfter", MeetingMember.class)
+				: em.createNamedQuery("getMeetingMembersChangedAfter", MeetingMember.class).setParameter("since", since);
+		return q.setParameter("id", id)
+				.setMaxResults(count)
+				.getResultList();
+	}
+
+	public long count() {
+		return em.createNamedQuery("countMeetingMembers", Long.class).getSingleResult();
+	}
+
 	public Set<Long> getMeetingMemberIdsByAppointment(Long appointmentId) {
 		log.debug("getMeetingMemberIdsByAppointment: {}", appointmentId);
 
@@ -26,6 +26,7 @@ import javax.persistence.EntityManager;
 import javax.persistence.PersistenceContext;
 
 import org.apache.openmeetings.db.dao.IDataProviderDao;
+import org.apache.openmeetings.db.dao.basic.SearchIndexDao;
 import org.apache.openmeetings.db.dao.room.RoomDao;
 import org.apache.openmeetings.db.dao.user.GroupDao;
 import org.apache.openmeetings.db.dao.user.UserDao;
@@ -52,6 +53,10 @@ public class BaseFileItemDao implements IDataProviderDao<BaseFileItem> {
 	private GroupDao groupDao;
 	@Autowired
 	private UserDao userDao;
+	@Autowired
+	protected StorageUsageDao usageDao;
+	@Autowired
+	protected SearchIndexDao searchIndex;
 
 	public BaseFileItem get(String hash) {
 		log.debug("getByHash() started");
@@ -90,6 +95,8 @@ public class BaseFileItemDao implements IDataProviderDao<BaseFileItem> {
 	}
 
 	public BaseFileItem updateBase(BaseFileItem f) {
+		// should be read before any query, pending changes of the managed item will be flushed
+		StorageUsageDao.State prev = usageDao.getState(f.getId());
 		f.setExternalType(null);
 		BaseFileItem parent = get(f.getParentId());
 		if (parent != null) {
@@ -124,6 +131,8 @@ public class BaseFileItemDao implements IDataProviderDao<BaseFileItem> {
 		} else {
 			f = em.merge(f);
 		}
+		usageDao.update(f, prev);
+		searchIndex.update(f);
 		return f;
 	}
 
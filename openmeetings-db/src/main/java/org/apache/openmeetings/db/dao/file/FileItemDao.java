@@ -18,20 +18,25 @@
  */
 package org.apache.openmeetings.db.dao.file;
 
+import static org.apache.openmeetings.db.util.DaoHelper.appendIndexClause;
 import static org.apache.openmeetings.db.util.DaoHelper.setLimits;
+import static org.apache.openmeetings.db.util.DaoHelper.setParams;
 
-import java.io.File;
 import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 import javax.persistence.TypedQuery;
 
+import org.apache.openmeetings.db.entity.basic.SearchToken;
 import org.apache.openmeetings.db.entity.file.BaseFileItem;
 import org.apache.openmeetings.db.entity.file.BaseFileItem.Type;
 import org.apache.openmeetings.db.entity.file.FileItem;
+import org.apache.openmeetings.db.entity.file.StorageUsage.Kind;
+import org.apache.openmeetings.db.entity.file.StorageUsage.Scope;
 import org.apache.openmeetings.db.entity.user.Group;
-import org.apache.openmeetings.util.OmFileHelper;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Repository;
@@ -198,18 +203,26 @@ public class FileItemDao extends BaseFileItemDao {
 			f.setParentId(parentId);
 			f.setOwnerId(null);
 		}
+		// should be saved before children are loaded, otherwise the changes are flushed
+		f = update(f);
 		if (Type.FOLDER == f.getType()) {
 			updateChilds(f);
 		}
-		return update(f);
+		return f;
 	}
 
 	public List<BaseFileItem> getAllRoomFiles(String search, long start, long count, Long roomId/*, Long ownerId*/, List<Group> groups) {
-		return setLimits(em.createNamedQuery("getAllFileItemsForRoom", BaseFileItem.class)
+		Map<String, Object> params = new HashMap<>();
+		StringBuilder sb = new StringBuilder("SELECT f FROM BaseFileItem f")
+				.append(" WHERE f.deleted = false AND f.type <> :folder")
+				.append(" AND (f.roomId IS NULL OR f.roomId = :roomId)")
+				.append(" AND (f.groupId IS NULL OR f.groupId IN :groups)")
+				.append(" AND f.ownerId IS NULL "); // not loading personal files
+		appendIndexClause(sb, "f.id", SearchToken.Type.FILE, search, params).append("ORDER BY f.name");
+		return setLimits(setParams(em.createQuery(sb.toString(), BaseFileItem.class), params)
 					.setParameter("folder", Type.FOLDER)
 					.setParameter("roomId", roomId)
 					.setParameter("groups", groups.parallelStream().map(Group::getId).collect(Collectors.toList()))
-					.setParameter("name", String.format("%%%s%%", search == null ? "" : search))
 				, start, count).getResultList();
 	}
 
@@ -220,11 +233,11 @@ public class FileItemDao extends BaseFileItemDao {
 	}
 
 	public long getOwnSize(Long userId) {
-		return getSize(getByOwner(userId));
+		return usageDao.get(Kind.FILE, Scope.OWNER, userId);
 	}
 
 	public long getRoomSize(Long roomId) {
-		return getSize(getByRoom(roomId));
+		return usageDao.get(Kind.FILE, Scope.ROOM, roomId);
 	}
 
 	public long getSize(List<FileItem> list) {
@@ -236,32 +249,6 @@ public class FileItemDao extends BaseFileItemDao {
 	}
 
 	public long getSize(FileItem f) {
-		long size = 0;
-		try {
-			if (f.exists()) {
-				File base = OmFileHelper.getUploadFilesDir();
-				switch (f.getType()) {
-					case IMAGE:
-					case PRESENTATION:
-					case VIDEO:
-						File tFolder = new File(base, f.getHash());
-
-						if (tFolder.exists()) {
-							size += OmFileHelper.getSize(tFolder);
-						}
-						break;
-					default:
-						break;
-				}
-			}
-			if (Type.FOLDER == f.getType()) {
-				for (FileItem child : getByParent(f.getId())) {
-					size += getSize(child);
-				}
-			}
-		} catch (Exception err) {
-			log.error("[getSize] ", err);
-		}
-		return size;
+		return usageDao.get(f);
 	}
 }
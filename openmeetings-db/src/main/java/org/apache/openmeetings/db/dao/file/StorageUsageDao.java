@@ -0,0 +1,361 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License") +  you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.openmeetings.db.dao.file;
+
+import static org.apache.openmeetings.util.OpenmeetingsVariables.CONFIG_STORAGE_USAGE_VERSION;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongFunction;
+
+import javax.persistence.EntityManager;
+import javax.persistence.FlushModeType;
+import javax.persistence.PersistenceContext;
+
+import org.apache.openmeetings.db.dao.basic.ConfigurationDao;
+import org.apache.openmeetings.db.entity.file.BaseFileItem;
+import org.apache.openmeetings.db.entity.file.BaseFileItem.Type;
+import org.apache.openmeetings.db.entity.file.StorageUsage;
+import org.apache.openmeetings.db.entity.file.StorageUsage.Kind;
+import org.apache.openmeetings.db.entity.file.StorageUsage.Scope;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Maintains {@link StorageUsage} counters
+ *
+ * The size of the item is added to every parent folder and to the owner, room
+ * and group of the root item, the same way files are displayed in the tree.
+ * Counters are updated with the difference between stored and new state of the
+ * item on every save, so reads are single query. Items inside deleted folder
+ * are counted in the folders only.
+ */
+@Repository
+@Transactional
+public class StorageUsageDao {
+	private static final Logger log = LoggerFactory.getLogger(StorageUsageDao.class);
+	private static final int PAGE_SIZE = 100;
+	private static final long USAGE_VERSION = 1;
+	private static final String PARAM_KIND = "kind";
+	private static final String PARAM_SCOPE = "scope";
+	private static final String PARAM_SCOPE_ID = "scopeId";
+	@PersistenceContext
+	private EntityManager em;
+	@Autowired
+	private ConfigurationDao cfgDao;
+	@Autowired
+	private PlatformTransactionManager transactionManager;
+
+	/**
+	 * Fields of the item affecting the counters
+	 */
+	public static class State {
+		private final Long parentId;
+		private final Long ownerId;
+		private final Long roomId;
+		private final Long groupId;
+		private final boolean deleted;
+		private final long size;
+
+		State(Object[] row, int offset) {
+			this((Long)row[offset], (Long)row[offset + 1], (Long)row[offset + 2], (Long)row[offset + 3]
+					, Boolean.TRUE.equals(row[offset + 4]), row[offset + 5] == null ? 0 : (Long)row[offset + 5]);
+		}
+
+		State(BaseFileItem f) {
+			this(f.getParentId(), f.getOwnerId(), f.getRoomId(), f.getGroupId(), f.isDeleted(), f.getStorageSize());
+		}
+
+		State(Long parentId, Long ownerId, Long roomId, Long groupId, boolean deleted, long size) {
+			this.parentId = parentId;
+			this.ownerId = ownerId;
+			this.roomId = roomId;
+			this.groupId = groupId;
+			this.deleted = deleted;
+			this.size = size;
+		}
+
+		long size() {
+			return size;
+		}
+
+		boolean isRoot() {
+			return parentId == null || parentId.longValue() <= 0;
+		}
+
+		boolean sameAs(State s) {
+			return deleted == s.deleted && size == s.size && Objects.equals(parentId, s.parentId)
+					&& Objects.equals(ownerId, s.ownerId) && Objects.equals(roomId, s.roomId)
+					&& Objects.equals(groupId, s.groupId);
+		}
+	}
+
+	private static Map<Long, Long> scope(Map<Scope, Map<Long, Long>> delta, Scope scope) {
+		return delta.computeIfAbsent(scope, s -> new HashMap<>());
+	}
+
+	/**
+	 * Adds the weight of the item to all counters it is accounted in
+	 */
+	static void contribute(Map<Scope, Map<Long, Long>> delta, Long id, State s, long weight, LongFunction<State> lookup) {
+		if (s.deleted || weight == 0) {
+			return;
+		}
+		Set<Long> visited = new HashSet<>();
+		if (id != null) {
+			visited.add(id);
+		}
+		State cur = s;
+		while (!cur.isRoot()) {
+			Long parentId = cur.parentId;
+			if (!visited.add(parentId)) {
+				log.warn("Cycle in file tree is detected, parent: {}", parentId);
+				return;
+			}
+			scope(delta, Scope.FOLDER).merge(parentId, weight, Long::sum);
+			cur = lookup.apply(parentId);
+			if (cur == null || cur.deleted) {
+				return;
+			}
+		}
+		if (cur.ownerId != null) {
+			scope(delta, Scope.OWNER).merge(cur.ownerId, weight, Long::sum);
+		} else {
+			if (cur.roomId != null) {
+				scope(delta, Scope.ROOM).merge(cur.roomId, weight, Long::sum);
+			}
+			if (cur.groupId != null) {
+				scope(delta, Scope.GROUP).merge(cur.groupId, weight, Long::sum);
+			}
+		}
+	}
+
+	/**
+	 * @param id - id of the item
+	 * @return state of the item as stored in DB, without flushing pending changes,
+	 *         should be called before the item is saved
+	 */
+	public State getState(Long id) {
+		if (id == null) {
+			return null;
+		}
+		List<Object[]> list = em.createNamedQuery("getFileStorageState", Object[].class)
+				.setParameter("id", id)
+				.setFlushMode(FlushModeType.COMMIT)
+				.getResultList();
+		return list.isEmpty() ? null : new State(list.get(0), 0);
+	}
+
+	/**
+	 * Updates the counters after the item is saved
+	 *
+	 * @param f - saved item
+	 * @param prev - state of the item before save, {@code null} for new item
+	 */
+	public void update(BaseFileItem f, State prev) {
+		State cur = new State(f);
+		if (prev != null && prev.sameAs(cur)) {
+			return;
+		}
+		final Kind kind = Kind.of(f);
+		long folder = Type.FOLDER == f.getType() && f.getId() != null ? get(kind, Scope.FOLDER, f.getId()) : 0;
+		Map<Scope, Map<Long, Long>> delta = new EnumMap<>(Scope.class);
+		LongFunction<State> lookup = this::getState;
+		if (prev != null) {
+			contribute(delta, f.getId(), prev, -(prev.size + folder), lookup);
+		}
+		contribute(delta, f.getId(), cur, cur.size + folder, lookup);
+		delta.forEach((scope, map) -> map.forEach((scopeId, d) -> {
+			if (d != 0) {
+				add(kind, scope, scopeId, d);
+			}
+		}));
+	}
+
+	private void add(Kind kind, Scope scope, long scopeId, long delta) {
+		List<Long> ids = em.createNamedQuery("getStorageUsageIds", Long.class)
+				.setParameter(PARAM_KIND, kind)
+				.setParameter(PARAM_SCOPE, scope)
+				.setParameter(PARAM_SCOPE_ID, scopeId)
+				.setMaxResults(1)
+				.getResultList();
+		if (ids.isEmpty()) {
+			em.persist(new StorageUsage(kind, scope, scopeId, delta));
+		} else {
+			em.createNamedQuery("addStorageUsage")
+					.setParameter("delta", delta)
+					.setParameter("id", ids.get(0))
+					.executeUpdate();
+		}
+	}
+
+	/**
+	 * @param kind - kind of the items
+	 * @param scope - scope of the counter
+	 * @param scopeId - id of folder, user, group or room
+	 * @return size in bytes of all items in the scope
+	 */
+	public long get(Kind kind, Scope scope, Long scopeId) {
+		if (scopeId == null) {
+			return 0;
+		}
+		Long size = em.createNamedQuery("getStorageUsage", Long.class)
+				.setParameter(PARAM_KIND, kind)
+				.setParameter(PARAM_SCOPE, scope)
+				.setParameter(PARAM_SCOPE_ID, scopeId)
+				.getSingleResult();
+		return size == null ? 0 : size;
+	}
+
+	/**
+	 * @param kind - kind of the items
+	 * @param scope - scope of the counters
+	 * @param scopeIds - ids of folders, users, groups or rooms
+	 * @return total size in bytes of all items in all scopes
+	 */
+	public long get(Kind kind, Scope scope, Collection<Long> scopeIds) {
+		if (scopeIds.isEmpty()) {
+			return 0;
+		}
+		Long size = em.createNamedQuery("getStorageUsageSum", Long.class)
+				.setParameter(PARAM_KIND, kind)
+				.setParameter(PARAM_SCOPE, scope)
+				.setParameter("ids", scopeIds)
+				.getSingleResult();
+		return size == null ? 0 : size;
+	}
+
+	/**
+	 * @param f - file item
+	 * @return size of the item including the contents of the folder
+	 */
+	public long get(BaseFileItem f) {
+		long size = f.getStorageSize();
+		if (Type.FOLDER == f.getType()) {
+			size += get(Kind.of(f), Scope.FOLDER, f.getId());
+		}
+		return size;
+	}
+
+	/**
+	 * Counters are calculated unless they are marked as calculated by
+	 * {@code storage.usage.version} configuration, i.e. after upgrade,
+	 * should be performed by one node of the cluster at a time
+	 */
+	@Transactional(propagation = Propagation.NOT_SUPPORTED)
+	public void init() {
+		if (cfgDao.getDataVersion(CONFIG_STORAGE_USAGE_VERSION) < USAGE_VERSION) {
+			log.info("Storage usage counters are not calculated, calculating");
+			reconcile();
+			cfgDao.setDataVersion(CONFIG_STORAGE_USAGE_VERSION, USAGE_VERSION);
+			log.info("Storage usage counters are calculated");
+		}
+	}
+
+	/**
+	 * Re-calculates the sizes of all items from disk and rebuilds all counters
+	 *
+	 * Every page of items and counters is committed in its own transaction.
+	 * Should be run while there is no activity, changes made concurrently might
+	 * be lost till next run
+	 *
+	 * @return number of items with size changed
+	 */
+	@Transactional(propagation = Propagation.NOT_SUPPORTED)
+	public long reconcile() {
+		TransactionTemplate tx = new TransactionTemplate(transactionManager);
+		AtomicLong changed = new AtomicLong();
+		long lastId = 0;
+		List<BaseFileItem> page;
+		do {
+			final long fromId = lastId;
+			page = tx.execute(status -> measure(fromId, changed));
+			if (!page.isEmpty()) {
+				lastId = page.get(page.size() - 1).getId();
+			}
+		} while (page.size() == PAGE_SIZE);
+		rebuild(tx, Kind.FILE, "getFileStorageStates");
+		rebuild(tx, Kind.RECORDING, "getRecordingStorageStates");
+		log.info("Storage usage is reconciled, {} items were changed", changed);
+		return changed.get();
+	}
+
+	/**
+	 * Stores the size on disk of the items with ids after given one
+	 *
+	 * @return the page of measured items
+	 */
+	private List<BaseFileItem> measure(long fromId, AtomicLong changed) {
+		List<BaseFileItem> page = em.createNamedQuery("getFilesToMeasure", BaseFileItem.class)
+				.setParameter("folder", Type.FOLDER)
+				.setParameter("lastId", fromId)
+				.setMaxResults(PAGE_SIZE)
+				.getResultList();
+		for (BaseFileItem f : page) {
+			long size = f.getDiskSize();
+			if (size != f.getStorageSize()) {
+				em.createNamedQuery("setFileStorageSize")
+						.setParameter("size", size)
+						.setParameter("id", f.getId())
+						.executeUpdate();
+				changed.incrementAndGet();
+			}
+		}
+		return page;
+	}
+
+	private void rebuild(TransactionTemplate tx, Kind kind, String query) {
+		Map<Long, State> states = tx.execute(status -> {
+			Map<Long, State> result = new HashMap<>();
+			for (Object[] row : em.createNamedQuery(query, Object[].class).getResultList()) {
+				result.put((Long)row[0], new State(row, 1));
+			}
+			return result;
+		});
+		Map<Scope, Map<Long, Long>> total = new EnumMap<>(Scope.class);
+		states.forEach((id, s) -> contribute(total, id, s, s.size, states::get));
+		List<StorageUsage> counters = new ArrayList<>();
+		total.forEach((scope, map) -> map.forEach((scopeId, size) -> {
+			if (size != 0) {
+				counters.add(new StorageUsage(kind, scope, scopeId, size));
+			}
+		}));
+		tx.executeWithoutResult(status -> em.createNamedQuery("deleteStorageUsage")
+				.setParameter(PARAM_KIND, kind)
+				.executeUpdate());
+		for (int i = 0; i < counters.size(); i += PAGE_SIZE) {
+			List<StorageUsage> page = counters.subList(i, Math.min(counters.size(), i + PAGE_SIZE));
+			tx.executeWithoutResult(status -> page.forEach(em::persist));
+		}
+	}
+}
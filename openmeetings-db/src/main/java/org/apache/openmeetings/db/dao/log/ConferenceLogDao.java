@@ -19,6 +19,7 @@
 package org.apache.openmeetings.db.dao.log;
 
 import java.util.Date;
+import java.util.List;
 
 import javax.persistence.EntityManager;
 import javax.persistence.PersistenceContext;
@@ -53,6 +54,16 @@ public class ConferenceLogDao {
 		return confLog;
 	}
 
+	/**
+	 * Stores all entries in one transaction, used by {@link ConferenceLogWriter}
+	 *
+	 * @param list - entries to store
+	 */
+	public void add(List<ConferenceLog> list) {
+		list.forEach(em::persist);
+		log.debug("[add]: {} entries", list.size());
+	}
+
 	public int clear(long ttl) {
 		return em.createNamedQuery("clearLogUserIp")
 			.setParameter("date", new Date(System.currentTimeMillis() - ttl))
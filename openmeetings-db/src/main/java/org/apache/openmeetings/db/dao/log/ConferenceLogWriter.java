@@ -0,0 +1,224 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License") +  you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.openmeetings.db.dao.log;
+
+import static org.apache.openmeetings.util.OpenmeetingsVariables.CONFIG_CONF_LOG_BATCH_SIZE;
+import static org.apache.openmeetings.util.OpenmeetingsVariables.CONFIG_CONF_LOG_FLUSH_INTERVAL;
+import static org.apache.openmeetings.util.OpenmeetingsVariables.CONFIG_CONF_LOG_QUEUE_SIZE;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import javax.annotation.PreDestroy;
+
+import org.apache.openmeetings.db.dao.basic.ConfigurationDao;
+import org.apache.openmeetings.db.entity.log.ConferenceLog;
+import org.apache.openmeetings.db.entity.log.ConferenceLog.Type;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import io.prometheus.client.Counter;
+import io.prometheus.client.Gauge;
+import io.prometheus.client.Histogram;
+
+/**
+ * Write-behind for {@link ConferenceLogDao}
+ *
+ * Entries are put to the bounded lock-free ring buffer by the calling thread
+ * and stored by single background writer in batches, one transaction per batch.
+ * If buffer is full the new entry is dropped, so connecting clients are never
+ * blocked by the database. Pending entries are stored on shutdown.
+ */
+@Component
+public class ConferenceLogWriter {
+	private static final Logger log = LoggerFactory.getLogger(ConferenceLogWriter.class);
+	public static final int DEFAULT_QUEUE_SIZE = 10_000;
+	public static final int DEFAULT_BATCH_SIZE = 200;
+	public static final int DEFAULT_FLUSH_INTERVAL = 1000;
+	private static final Gauge queueDepth = Gauge.build()
+			.help("Number of conference log entries waiting to be stored")
+			.name("org_openmeetings_conflog_queue_depth")
+			.register();
+	private static final Counter dropped = Counter.build()
+			.help("Number of conference log entries dropped due to full buffer or DB error")
+			.name("org_openmeetings_conflog_dropped_total")
+			.register();
+	private static final Histogram lag = Histogram.build()
+			.help("Time between conference log entry is created and stored, in seconds")
+			.name("org_openmeetings_conflog_lag_seconds")
+			.register();
+
+	@Autowired
+	private ConferenceLogDao dao;
+	@Autowired
+	private ConfigurationDao cfgDao;
+
+	private final AtomicBoolean flushRequested = new AtomicBoolean();
+	private volatile Ring<ConferenceLog> ring;
+	private ScheduledExecutorService writer;
+	private int batchSize = DEFAULT_BATCH_SIZE;
+
+	/**
+	 * Bounded multi-producer single-consumer ring buffer
+	 *
+	 * Producers reserve the slot by moving the tail, the slot is published by
+	 * setting the value, consumer frees the slot before moving the head
+	 */
+	static class Ring<T> {
+		private final AtomicReferenceArray<T> slots;
+		private final AtomicLong tail = new AtomicLong();
+		private volatile long head;
+
+		Ring(int capacity) {
+			slots = new AtomicReferenceArray<>(capacity);
+		}
+
+		boolean offer(T item) {
+			while (true) {
+				long t = tail.get();
+				if (t - head >= slots.length()) {
+					return false;
+				}
+				if (tail.compareAndSet(t, t + 1)) {
+					slots.set((int)(t % slots.length()), item);
+					return true;
+				}
+			}
+		}
+
+		// should be called by single consumer thread
+		T poll() {
+			long h = head;
+			int idx = (int)(h % slots.length());
+			T item = slots.get(idx);
+			if (item != null) {
+				slots.set(idx, null);
+				head = h + 1;
+			}
+			return item;
+		}
+
+		int size() {
+			return (int)(tail.get() - head);
+		}
+	}
+
+	private Ring<ConferenceLog> getRing() {
+		Ring<ConferenceLog> r = ring;
+		if (r == null) {
+			synchronized (this) {
+				r = ring;
+				if (r == null) {
+					batchSize = Math.max(1, cfgDao.getInt(CONFIG_CONF_LOG_BATCH_SIZE, DEFAULT_BATCH_SIZE));
+					int interval = Math.max(10, cfgDao.getInt(CONFIG_CONF_LOG_FLUSH_INTERVAL, DEFAULT_FLUSH_INTERVAL));
+					r = new Ring<>(Math.max(batchSize, cfgDao.getInt(CONFIG_CONF_LOG_QUEUE_SIZE, DEFAULT_QUEUE_SIZE)));
+					writer = Executors.newSingleThreadScheduledExecutor(rr -> {
+						Thread t = new Thread(rr, "conference-log-writer");
+						t.setDaemon(true);
+						return t;
+					});
+					writer.scheduleWithFixedDelay(this::flush, interval, interval, TimeUnit.MILLISECONDS);
+					ring = r;
+				}
+			}
+		}
+		return r;
+	}
+
+	public void add(Type type, Long userId, String streamid, Long roomId, String userip, String scopeName) {
+		ConferenceLog confLog = new ConferenceLog();
+		confLog.setType(type);
+		confLog.setInserted(new Date());
+		confLog.setUserId(userId);
+		confLog.setStreamid(streamid);
+		confLog.setScopeName(scopeName);
+		confLog.setRoomId(roomId);
+		confLog.setUserip(userip);
+
+		Ring<ConferenceLog> r = getRing();
+		if (!r.offer(confLog)) {
+			dropped.inc();
+			log.warn("Conference log buffer is full, entry is dropped: {}", confLog);
+			return;
+		}
+		queueDepth.inc();
+		if (r.size() >= batchSize && !flushRequested.getAndSet(true)) {
+			try {
+				writer.execute(this::flush);
+			} catch (RejectedExecutionException e) {
+				log.debug("Conference log writer is stopped");
+			}
+		}
+	}
+
+	// should be called by writer thread, or after writer is stopped
+	private void flush() {
+		flushRequested.set(false);
+		Ring<ConferenceLog> r = ring;
+		List<ConferenceLog> batch = new ArrayList<>(batchSize);
+		while (true) {
+			ConferenceLog l;
+			while (batch.size() < batchSize && (l = r.poll()) != null) {
+				batch.add(l);
+			}
+			if (batch.isEmpty()) {
+				return;
+			}
+			queueDepth.dec(batch.size());
+			try {
+				dao.add(batch);
+				final long now = System.currentTimeMillis();
+				batch.forEach(cl -> lag.observe((now - cl.getInserted().getTime()) / 1e3));
+			} catch (Exception e) {
+				dropped.inc(batch.size());
+				log.error("Unexpected error while storing {} conference log entries", batch.size(), e);
+			}
+			batch.clear();
+		}
+	}
+
+	@PreDestroy
+	public void destroy() {
+		synchronized (this) {
+			if (ring == null) {
+				return;
+			}
+			writer.shutdown();
+			try {
+				if (writer.awaitTermination(10, TimeUnit.SECONDS)) {
+					flush();
+				} else {
+					log.warn("Conference log writer was not stopped in time, {} entries are lost", ring.size());
+				}
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}
+	}
+}
@@ -20,13 +20,12 @@ package org.apache.openmeetings.db.dao.record;
 
 import static org.apache.openmeetings.db.dao.user.UserDao.FETCH_GROUP_BACKUP;
 import static org.apache.openmeetings.db.util.DaoHelper.fillLazy;
-import static org.apache.openmeetings.util.OmFileHelper.EXTENSION_MP4;
-import static org.apache.openmeetings.util.OmFileHelper.EXTENSION_PNG;
 
 import java.time.Duration;
 import java.time.Instant;
 import java.util.Date;
 import java.util.List;
+import java.util.stream.Collectors;
 
 import javax.persistence.TypedQuery;
 
@@ -34,9 +33,10 @@ import org.apache.openmeetings.db.dao.file.BaseFileItemDao;
 import org.apache.openmeetings.db.dao.user.UserDao;
 import org.apache.openmeetings.db.dto.record.RecordingContainerData;
 import org.apache.openmeetings.db.entity.file.BaseFileItem;
+import org.apache.openmeetings.db.entity.file.StorageUsage.Kind;
+import org.apache.openmeetings.db.entity.file.StorageUsage.Scope;
 import org.apache.openmeetings.db.entity.record.Recording;
 import org.apache.openmeetings.db.entity.record.Recording.Status;
-import org.apache.openmeetings.db.entity.user.GroupUser;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -126,40 +126,32 @@ public class RecordingDao extends BaseFileItemDao {
 		return (Recording)updateBase(f);
 	}
 
+	/**
+	 * Recordings being recorded are marked as errors, recordings being converted
+	 * are left as is to be resumed
+	 */
 	public void resetProcessingStatus() {
 		em.createNamedQuery("resetRecordingProcessingStatus")
 			.setParameter("error", Status.ERROR)
 			.setParameter("recording", Status.RECORDING)
-			.setParameter("converting", Status.CONVERTING)
 			.executeUpdate();
 	}
 
+	public List<Recording> getByStatus(Status status) {
+		return em.createNamedQuery("getRecordingsByStatus", Recording.class)
+				.setParameter("status", status)
+				.getResultList();
+	}
+
 	public RecordingContainerData getContainerData(long userId) {
 		try {
 			RecordingContainerData containerData = new RecordingContainerData();
-
-			// User Home Recordings
-			List<Recording> homes = getRootByOwner(userId);
-			long homeFileSize = 0;
-
-			for (Recording home : homes) {
-				homeFileSize += getSize(home);
-			}
-
-			containerData.setUserHomeSize(homeFileSize);
-
-			// Public Recordings
-			long publicFileSize = 0;
-
+			containerData.setUserHomeSize(usageDao.get(Kind.RECORDING, Scope.OWNER, userId));
 			//get all groups the user can view
-			for (GroupUser ou : userDao.get(userId).getGroupUsers()) {
-				List<Recording> publicRecordings = getRootByPublic(ou.getGroup().getId());
-				//get sizes
-				for (Recording r : publicRecordings) {
-					publicFileSize += getSize(r);
-				}
-			}
-			containerData.setPublicFileSize(publicFileSize);
+			List<Long> groupIds = userDao.get(userId).getGroupUsers().stream()
+					.map(gu -> gu.getGroup().getId())
+					.collect(Collectors.toList());
+			containerData.setPublicFileSize(usageDao.get(Kind.RECORDING, Scope.GROUP, groupIds));
 
 			return containerData;
 		} catch (Exception ex2) {
@@ -167,19 +159,4 @@ public class RecordingDao extends BaseFileItemDao {
 		}
 		return null;
 	}
-
-	private long getSize(Recording r) {
-		long size = 0;
-
-		if (r.exists(EXTENSION_PNG)) {
-			size += r.getFile(EXTENSION_PNG).length();
-		}
-		if (r.exists(EXTENSION_MP4)) {
-			size += r.getFile(EXTENSION_MP4).length();
-		}
-		for (Recording rec : getByParent(r.getId())) {
-			size += getSize(rec);
-		}
-		return size;
-	}
 }
@@ -20,6 +20,7 @@ package org.apache.openmeetings.db.dao.room;
 
 import static org.apache.openmeetings.db.util.DaoHelper.fillLazy;
 import static org.apache.openmeetings.db.util.DaoHelper.setLimits;
+import static org.apache.openmeetings.db.util.DaoHelper.setParams;
 import static org.apache.openmeetings.db.util.DaoHelper.single;
 import static org.apache.openmeetings.db.util.TimezoneUtil.getTimeZone;
 import static org.apache.openmeetings.util.OpenmeetingsVariables.CONFIG_SIP_ROOM_PREFIX;
@@ -29,8 +30,10 @@ import static org.apache.openmeetings.util.OpenmeetingsVariables.isSipEnabled;
 
 import java.util.ArrayList;
 import java.util.Calendar;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.TimeZone;
 
@@ -40,7 +43,9 @@ import javax.persistence.TypedQuery;
 
 import org.apache.openmeetings.db.dao.IGroupAdminDataProviderDao;
 import org.apache.openmeetings.db.dao.basic.ConfigurationDao;
+import org.apache.openmeetings.db.dao.basic.SearchIndexDao;
 import org.apache.openmeetings.db.dao.user.UserDao;
+import org.apache.openmeetings.db.entity.basic.SearchToken;
 import org.apache.openmeetings.db.entity.log.ConferenceLog;
 import org.apache.openmeetings.db.entity.room.Room;
 import org.apache.openmeetings.db.entity.room.Room.RoomElement;
@@ -60,7 +65,6 @@ import org.springframework.transaction.annotation.Transactional;
 @Transactional
 public class RoomDao implements IGroupAdminDataProviderDao<Room> {
 	private static final Logger log = LoggerFactory.getLogger(RoomDao.class);
-	private static final String[] searchFields = {"name", "comment"};
 	public static final String GRP_MODERATORS = "roomModerators";
 	public static final String GRP_GROUPS = "roomGroups";
 	public static final String GRP_FILES = "roomFiles";
@@ -73,6 +77,8 @@ public class RoomDao implements IGroupAdminDataProviderDao<Room> {
 	private ISipManager sipManager;
 	@Autowired
 	private UserDao userDao;
+	@Autowired
+	private SearchIndexDao searchIndex;
 
 	@Override
 	public Room get(Long id) {
@@ -118,14 +124,18 @@ public class RoomDao implements IGroupAdminDataProviderDao<Room> {
 
 	@Override
 	public List<Room> get(String search, long start, long count, String sort) {
-		return setLimits(em.createQuery(DaoHelper.getSearchQuery("Room", "r", search, true, false, sort, searchFields), Room.class)
+		Map<String, Object> params = new HashMap<>();
+		return setLimits(setParams(em.createQuery(DaoHelper.getIndexSearchQuery("Room", "r", null, "r.id", SearchToken.Type.ROOM, search, params
+				, false, true, false, null, sort), Room.class), params)
 				, start, count).getResultList();
 	}
 
 	@Override
 	public List<Room> adminGet(String search, Long adminId, long start, long count, String order) {
-		return setLimits(em.createQuery(DaoHelper.getSearchQuery("RoomGroup rg, IN(rg.room)", "r", null, search, true, true, false
-				, "rg.group.id IN (SELECT gu1.group.id FROM GroupUser gu1 WHERE gu1.moderator = true AND gu1.user.id = :adminId)", order, searchFields), Room.class)
+		Map<String, Object> params = new HashMap<>();
+		return setLimits(setParams(em.createQuery(DaoHelper.getIndexSearchQuery("RoomGroup rg, IN(rg.room)", "r", null, "r.id", SearchToken.Type.ROOM, search, params
+				, true, true, false
+				, "rg.group.id IN (SELECT gu1.group.id FROM GroupUser gu1 WHERE gu1.moderator = true AND gu1.user.id = :adminId)", order), Room.class), params)
 					.setParameter("adminId", adminId)
 				, start, count).getResultList();
 	}
@@ -138,15 +148,19 @@ public class RoomDao implements IGroupAdminDataProviderDao<Room> {
 
 	@Override
 	public long count(String search) {
-		TypedQuery<Long> q = em.createQuery(DaoHelper.getSearchQuery("Room", "r", search, true, true, null, searchFields), Long.class);
-		return q.getSingleResult();
+		Map<String, Object> params = new HashMap<>();
+		TypedQuery<Long> q = em.createQuery(DaoHelper.getIndexSearchQuery("Room", "r", null, "r.id", SearchToken.Type.ROOM, search, params
+				, false, true, true, null, null), Long.class);
+		return setParams(q, params).getSingleResult();
 	}
 
 	@Override
 	public long adminCount(String search, Long adminId) {
-		TypedQuery<Long> q = em.createQuery(DaoHelper.getSearchQuery("RoomGroup rg, IN(rg.room)", "r", null, search, true, true, true
-				, "rg.group.id IN (SELECT gu1.group.id FROM GroupUser gu1 WHERE gu1.moderator = true AND gu1.user.id = :adminId)", null, searchFields), Long.class);
-		q.setParameter("adminId", adminId);
+		Map<String, Object> params = new HashMap<>();
+		TypedQuery<Long> q = em.createQuery(DaoHelper.getIndexSearchQuery("RoomGroup rg, IN(rg.room)", "r", null, "r.id", SearchToken.Type.ROOM, search, params
+				, true, true, true
+				, "rg.group.id IN (SELECT gu1.group.id FROM GroupUser gu1 WHERE gu1.moderator = true AND gu1.user.id = :adminId)", null), Long.class);
+		setParams(q, params).setParameter("adminId", adminId);
 		return q.getSingleResult();
 	}
 
@@ -217,6 +231,7 @@ public class RoomDao implements IGroupAdminDataProviderDao<Room> {
 			entity.setPin(null);
 		}
 		entity = em.merge(entity);
+		searchIndex.update(entity);
 		return entity;
 	}
 
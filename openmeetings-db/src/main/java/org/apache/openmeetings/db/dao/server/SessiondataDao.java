@@ -21,14 +21,20 @@ package org.apache.openmeetings.db.dao.server;
 import static java.util.UUID.randomUUID;
 
 import java.util.Date;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
 
 import javax.persistence.EntityManager;
 import javax.persistence.PersistenceContext;
 
 import org.apache.openmeetings.db.entity.server.Sessiondata;
+import org.apache.openmeetings.db.manager.ISessiondataCache;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Repository;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -41,8 +47,14 @@ import org.springframework.transaction.annotation.Transactional;
 @Transactional
 public class SessiondataDao {
 	private static final Logger log = LoggerFactory.getLogger(SessiondataDao.class);
+	// refresh time of cached session is written to the cache not more often, so checks are local reads
+	static final long CACHE_REFRESH_INTERVAL = TimeUnit.MINUTES.toMillis(1);
 	@PersistenceContext
 	private EntityManager em;
+	@Autowired(required = false)
+	private ISessiondataCache cache;
+	// refresh times of cached sessions not yet written to DB, by session id
+	private final Map<Long, Date> pending = new ConcurrentHashMap<>();
 
 	private static Sessiondata newInstance() {
 		log.debug("startsession :: startsession");
@@ -93,27 +105,47 @@ public class SessiondataDao {
 		if (sid == null) {
 			return null;
 		}
-		//MSSql find nothing in case SID is passed as-is without wildcarting '%SID%'
 		List<Sessiondata> sessions = em.createNamedQuery("getSessionById", Sessiondata.class)
-				.setParameter("sessionId", String.format("%%%s%%", sid)).getResultList();
+				.setParameter("sessionId", sid).getResultList();
 
 		if (sessions.isEmpty()) {
 			return null;
 		}
 		Sessiondata sd = sessions.get(0);
-		if (sd == null || sd.getUserId() == null || sd.getUserId().equals(Long.valueOf(0)) || !sid.equals(sd.getSessionId())) {
+		if (sd == null || !isValid(sd) || !sid.equals(sd.getSessionId())) {
 			return null;
 		}
 		return sd;
 	}
 
+	private static boolean isValid(Sessiondata sd) {
+		return sd.getUserId() != null && !sd.getUserId().equals(Long.valueOf(0));
+	}
+
 	/**
+	 * Checks session, cached sessions are refreshed in memory only, refresh time
+	 * is written to the cache once per {@link #CACHE_REFRESH_INTERVAL} and to DB
+	 * by {@link #flushRefreshed()}
 	 *
 	 * @param sid - sid of {@link Sessiondata} to check
 	 * @return - {@link Sessiondata} for given sid or new {@link Sessiondata}
 	 */
 	public Sessiondata check(String sid) {
-		Sessiondata sd = find(sid);
+		if (sid == null) {
+			return newInstance();
+		}
+		Sessiondata sd = cache == null ? null : cache.get(sid);
+		if (sd != null) {
+			Date now = new Date();
+			boolean stale = sd.getRefreshed() == null || now.getTime() - sd.getRefreshed().getTime() >= CACHE_REFRESH_INTERVAL;
+			sd.setRefreshed(now);
+			pending.put(sd.getId(), now);
+			if (stale) {
+				cache.put(sd);
+			}
+			return sd;
+		}
+		sd = find(sid);
 		// Checks if wether the Session or the User Object of that Session is set yet
 		if (sd == null) {
 			return newInstance();
@@ -121,6 +153,22 @@ public class SessiondataDao {
 		return update(sd);
 	}
 
+	/**
+	 * Writes refresh times of the sessions checked on this node to DB,
+	 * should be called periodically on every node of the cluster
+	 */
+	public void flushRefreshed() {
+		Iterator<Map.Entry<Long, Date>> iter = pending.entrySet().iterator();
+		while (iter.hasNext()) {
+			Map.Entry<Long, Date> e = iter.next();
+			iter.remove();
+			em.createNamedQuery("updateSessionRefreshed")
+					.setParameter("id", e.getKey())
+					.setParameter("refreshed", e.getValue())
+					.executeUpdate();
+		}
+	}
+
 	/**
 	 *
 	 * @param refreshed - date to compare session update time with
@@ -133,16 +181,28 @@ public class SessiondataDao {
 	}
 
 	/**
+	 * Writes pending refresh times of this node to DB and removes expired sessions,
+	 * sessions recently refreshed on other cluster nodes are kept
 	 *
 	 * @param timeout - timeout in millis to check expired sessions
 	 */
 	public void clearSessionTable(long timeout) {
 		try {
 			log.trace("****** clearSessionTable: ");
-			List<Sessiondata> l = getSessionToDelete(new Date(System.currentTimeMillis() - timeout));
+			flushRefreshed();
+			Date expired = new Date(System.currentTimeMillis() - timeout);
+			List<Sessiondata> l = getSessionToDelete(expired);
 			if (!l.isEmpty()) {
 				log.debug("clearSessionTable: {}", l.size());
 				for (Sessiondata sData : l) {
+					Sessiondata cached = cache == null ? null : cache.get(sData.getSessionId());
+					if (cached != null && cached.getRefreshed().after(expired)) {
+						continue;
+					}
+					if (cache != null) {
+						cache.remove(sData.getSessionId());
+					}
+					pending.remove(sData.getId());
 					sData = em.find(Sessiondata.class, sData.getId());
 					em.remove(sData);
 				}
@@ -160,6 +220,14 @@ public class SessiondataDao {
 		} else {
 			sd = em.merge(sd);
 		}
+		if (cache != null) {
+			// new session is cached on next check, when it has id assigned
+			if (isValid(sd) && sd.getId() != null) {
+				cache.put(sd);
+			} else {
+				cache.remove(sd.getSessionId());
+			}
+		}
 		return sd;
 	}
 }
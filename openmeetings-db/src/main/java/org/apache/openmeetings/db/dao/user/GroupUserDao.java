@@ -20,16 +20,20 @@ package org.apache.openmeetings.db.dao.user;
 
 import static org.apache.openmeetings.db.util.DaoHelper.UNSUPPORTED;
 import static org.apache.openmeetings.db.util.DaoHelper.setLimits;
+import static org.apache.openmeetings.db.util.DaoHelper.setParams;
 import static org.apache.openmeetings.db.util.DaoHelper.single;
 import static org.apache.openmeetings.util.OpenmeetingsVariables.PARAM_USER_ID;
 
 import java.util.Date;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 import javax.persistence.EntityManager;
 import javax.persistence.PersistenceContext;
 
 import org.apache.openmeetings.db.dao.IDataProviderDao;
+import org.apache.openmeetings.db.entity.basic.SearchToken;
 import org.apache.openmeetings.db.entity.user.GroupUser;
 import org.apache.openmeetings.db.entity.user.User;
 import org.apache.openmeetings.db.util.DaoHelper;
@@ -39,7 +43,6 @@ import org.springframework.transaction.annotation.Transactional;
 @Repository
 @Transactional
 public class GroupUserDao implements IDataProviderDao<GroupUser> {
-	private static final String[] searchFields = {"user.lastname", "user.firstname", "user.login", "user.address.email"};
 	private static final String PARAM_GROUPID = "groupId";
 	@PersistenceContext
 	private EntityManager em;
@@ -62,8 +65,10 @@ public class GroupUserDao implements IDataProviderDao<GroupUser> {
 	}
 
 	public List<GroupUser> get(long groupId, String search, long start, long count, String sort) {
+		Map<String, Object> params = new HashMap<>();
 		return setLimits(
-				em.createQuery(DaoHelper.getSearchQuery(GroupUser.class.getSimpleName(), "ou", null, search, false, false, "ou.group.id = :groupId", sort, searchFields), GroupUser.class)
+				setParams(em.createQuery(DaoHelper.getIndexSearchQuery(GroupUser.class.getSimpleName(), "ou", null, "ou.user.id", SearchToken.Type.USER, search, params
+						, false, false, false, "ou.group.id = :groupId", sort), GroupUser.class), params)
 					.setParameter(PARAM_GROUPID, groupId)
 				, start, count).getResultList();
 	}
@@ -95,7 +100,9 @@ public class GroupUserDao implements IDataProviderDao<GroupUser> {
 
 	@Override
 	public long count(String search) {
-		return em.createQuery(DaoHelper.getSearchQuery(GroupUser.class.getSimpleName(), "ou", search, false, true, null, searchFields), Long.class)
+		Map<String, Object> params = new HashMap<>();
+		return setParams(em.createQuery(DaoHelper.getIndexSearchQuery(GroupUser.class.getSimpleName(), "ou", null, "ou.user.id", SearchToken.Type.USER, search, params
+				, false, false, true, null, null), Long.class), params)
 				.getSingleResult();
 	}
 
@@ -79,6 +79,21 @@ public class PrivateMessageDao implements IDataProviderDao<PrivateMessage> {
 				, first, count).getResultList();
 	}
 
+	//for export, keyset paging
+	public List<PrivateMessage> getAfter(long id, int count) {
+		return getAfter(id, null, count);
+	}
+
+	//for export, keyset paging, only changed after given date if not null
+	public List<PrivateMessage> getAfter(long id, Date since, int count) {
+		TypedQuery<PrivateMessage> q = since == null
+				? em.createNamedQuery("getPrivateMessagesAfter", PrivateMessage.class)
+				: em.createNamedQuery("getPrivateMessagesChangedAfter", PrivateMessage.class).setParameter("since", since);
+		return q.setParameter("id", id)
+				.setMaxResults(count)
+				.getResultList();
+	}
+
 	@Override
 	public PrivateMessage get(Long id) {
 		List<PrivateMessage> list = em.createNamedQuery("getPrivateMessageById", PrivateMessage.class)
@@ -174,7 +189,7 @@ public class PrivateMessageDao implements IDataProviderDao<PrivateMessage> {
 
 	@Override
 	public long count() {
-		throw UNSUPPORTED;
+		return em.createNamedQuery("countPrivateMessages", Long.class).getSingleResult();
 	}
 
 	@Override
@@ -48,7 +48,9 @@ import javax.persistence.TypedQuery;
 
 import org.apache.commons.lang3.StringUtils;
 import org.apache.openmeetings.db.dao.IGroupAdminDataProviderDao;
+import org.apache.openmeetings.db.dao.basic.SearchIndexDao;
 import org.apache.openmeetings.db.dao.label.LabelDao;
+import org.apache.openmeetings.db.entity.basic.SearchToken;
 import org.apache.openmeetings.db.entity.user.Address;
 import org.apache.openmeetings.db.entity.user.AsteriskSipUser;
 import org.apache.openmeetings.db.entity.user.User;
@@ -64,6 +66,7 @@ import org.apache.openmeetings.util.crypt.ICrypt;
 import org.apache.wicket.util.string.Strings;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Repository;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -78,12 +81,13 @@ import org.springframework.transaction.annotation.Transactional;
 public class UserDao implements IGroupAdminDataProviderDao<User> {
 	private static final Logger log = LoggerFactory.getLogger(UserDao.class);
 	private static final String PARAM_EMAIL = "email";
-	private static final String[] searchFields = {"lastname", "firstname", "login", "address.email", "address.town"};
 	public static final String FETCH_GROUP_GROUP = "groupUsers";
 	public static final String FETCH_GROUP_BACKUP = "backupexport";
 
 	@PersistenceContext
 	private EntityManager em;
+	@Autowired
+	private SearchIndexDao searchIndex;
 
 	public static Set<Right> getDefaultRights() {
 		Set<Right> rights = new HashSet<>();
@@ -153,8 +157,8 @@ public class UserDao implements IGroupAdminDataProviderDao<User> {
 
 	private List<User> get(String search, Long start, Long count, String order, boolean filterContacts, Long currentUserId, boolean filterDeleted) {
 		Map<String, Object> params = new HashMap<>();
-		TypedQuery<User> q = em.createQuery(DaoHelper.getSearchQuery("User", "u", getAdditionalJoin(filterContacts), search, true, filterDeleted, false
-				, getAdditionalWhere(filterContacts, currentUserId, params), order, searchFields), User.class);
+		TypedQuery<User> q = em.createQuery(DaoHelper.getIndexSearchQuery("User", "u", getAdditionalJoin(filterContacts), "u.id", SearchToken.Type.USER, search, params, true, filterDeleted, false
+				, getAdditionalWhere(filterContacts, currentUserId, params), order), User.class);
 		setAdditionalParams(setLimits(q, start, count), params);
 		return q.getResultList();
 	}
@@ -162,8 +166,8 @@ public class UserDao implements IGroupAdminDataProviderDao<User> {
 	// This is AdminDao method
 	public List<User> get(String search, boolean excludeContacts, long first, long count) {
 		Map<String, Object> params = new HashMap<>();
-		TypedQuery<User> q = em.createQuery(DaoHelper.getSearchQuery("User", "u", null, search, true, true, false
-				, getAdditionalWhere(excludeContacts, params), null, searchFields), User.class);
+		TypedQuery<User> q = em.createQuery(DaoHelper.getIndexSearchQuery("User", "u", null, "u.id", SearchToken.Type.USER, search, params, true, true, false
+				, getAdditionalWhere(excludeContacts, params), null), User.class);
 		setAdditionalParams(setLimits(q, first, count), params);
 		return q.getResultList();
 	}
@@ -179,16 +183,18 @@ public class UserDao implements IGroupAdminDataProviderDao<User> {
 
 	@Override
 	public List<User> adminGet(String search, Long adminId, long start, long count, String order) {
-		TypedQuery<User> q = em.createQuery(DaoHelper.getSearchQuery("GroupUser gu, IN(gu.user)", "u", null, search, true, false, false
-				, "gu.group.id IN (SELECT gu1.group.id FROM GroupUser gu1 WHERE gu1.moderator = true AND gu1.user.id = :adminId)", order, searchFields), User.class);
+		Map<String, Object> params = new HashMap<>();
+		TypedQuery<User> q = em.createQuery(DaoHelper.getIndexSearchQuery("GroupUser gu, IN(gu.user)", "u", null, "u.id", SearchToken.Type.USER, search, params, true, false, false
+				, "gu.group.id IN (SELECT gu1.group.id FROM GroupUser gu1 WHERE gu1.moderator = true AND gu1.user.id = :adminId)", order), User.class);
+		setAdditionalParams(q, params);
 		q.setParameter("adminId", adminId);
 		return setLimits(q, start, count).getResultList();
 	}
 
 	private long count(String search, boolean filterContacts, Long currentUserId, boolean filterDeleted) {
 		Map<String, Object> params = new HashMap<>();
-		TypedQuery<Long> q = em.createQuery(DaoHelper.getSearchQuery("User", "u", getAdditionalJoin(filterContacts), search, true, filterDeleted, true
-				, getAdditionalWhere(filterContacts, currentUserId, params), null, searchFields), Long.class);
+		TypedQuery<Long> q = em.createQuery(DaoHelper.getIndexSearchQuery("User", "u", getAdditionalJoin(filterContacts), "u.id", SearchToken.Type.USER, search, params, true, filterDeleted, true
+				, getAdditionalWhere(filterContacts, currentUserId, params), null), Long.class);
 		setAdditionalParams(q, params);
 		return q.getSingleResult();
 	}
@@ -220,8 +226,10 @@ public class UserDao implements IGroupAdminDataProviderDao<User> {
 
 	@Override
 	public long adminCount(String search, Long adminId) {
-		TypedQuery<Long> q = em.createQuery(DaoHelper.getSearchQuery("GroupUser gu, IN(gu.user)", "u", null, search, true, false, true
-				, "gu.group.id IN (SELECT gu1.group.id FROM GroupUser gu1 WHERE gu1.moderator = true AND gu1.user.id = :adminId)", null, searchFields), Long.class);
+		Map<String, Object> params = new HashMap<>();
+		TypedQuery<Long> q = em.createQuery(DaoHelper.getIndexSearchQuery("GroupUser gu, IN(gu.user)", "u", null, "u.id", SearchToken.Type.USER, search, params, true, false, true
+				, "gu.group.id IN (SELECT gu1.group.id FROM GroupUser gu1 WHERE gu1.moderator = true AND gu1.user.id = :adminId)", null), Long.class);
+		setAdditionalParams(q, params);
 		q.setParameter("adminId", adminId);
 		return q.getSingleResult();
 	}
@@ -236,6 +244,7 @@ public class UserDao implements IGroupAdminDataProviderDao<User> {
 		} else {
 			u = em.merge(u);
 		}
+		searchIndex.update(u);
 		return u;
 	}
 
@@ -361,6 +370,30 @@ public class UserDao implements IGroupAdminDataProviderDao<User> {
 				, FETCH_GROUP_BACKUP, FETCH_GROUP_GROUP);
 	}
 
+	public List<User> getBackupUsersAfter(long id, int count) {
+		return getBackupUsersAfter(id, null, count);
+	}
+
+	/**
+	 * @param id - id of the last exported user
+	 * @param since - only users changed after this date are returned, all users if {@code null}
+	 * @param count - page size
+	 * @return next page of users ordered by id
+	 */
+	public List<User> getBackupUsersAfter(long id, Date since, int count) {
+		return fillLazy(em
+				, oem -> (since == null
+						? oem.createNamedQuery("getAllUsersAfter", User.class)
+						: oem.createNamedQuery("getAllUsersChangedAfter", User.class).setParameter("since", since))
+					.setParameter("id", id)
+					.setMaxResults(count)
+				, FETCH_GROUP_BACKUP, FETCH_GROUP_GROUP);
+	}
+
+	public long countAll() {
+		return em.createNamedQuery("countAllUsers", Long.class).getSingleResult();
+	}
+
 	/**
 	 * check for duplicates
 	 *
@@ -23,16 +23,20 @@ import static org.apache.openmeetings.util.OpenmeetingsVariables.PARAM__SRC;
 
 import java.io.BufferedWriter;
 import java.io.IOException;
+import java.io.ObjectInputStream;
 import java.io.Serializable;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.util.Collections;
+import java.util.ArrayList;
 import java.util.Date;
+import java.util.HashMap;
 import java.util.LinkedHashMap;
-import java.util.LinkedList;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.Set;
+import java.util.TreeSet;
 
 import org.apache.openmeetings.db.entity.file.BaseFileItem;
 import org.apache.openmeetings.util.NullStringer;
@@ -67,7 +71,16 @@ public class Whiteboard implements Serializable {
 	private ZoomMode zoomMode = ZoomMode.PAGE_WIDTH;
 	private int width = DEFAULT_WIDTH;
 	private int height = DEFAULT_HEIGHT;
-	private Map<String, String> roomItems = Collections.synchronizedMap(new LinkedHashMap<>());
+	// items are replicated one by one, see WhiteboardManager
+	// all fields below are guarded by roomItems
+	private transient Map<String, JSONObject> roomItems = new LinkedHashMap<>();
+	private transient Map<Integer, Set<String>> bySlide = new HashMap<>();
+	private transient Map<Long, Set<String>> byFile = new HashMap<>();
+	private transient Map<String, Set<String>> byType = new HashMap<>();
+	// serialized non-file objects of the slide, dropped on any change of the slide
+	private transient Map<Integer, String> slideJson = new HashMap<>();
+	// versions of replicated objects, newer local object is not replaced by the older one
+	private transient Map<String, Long> versions = new HashMap<>();
 	private Date created = new Date();
 	private int slide = 0;
 	private String name;
@@ -114,53 +127,305 @@ public class Whiteboard implements Serializable {
 	}
 
 	public void clear() {
-		roomItems.clear();
+		synchronized (roomItems) {
+			roomItems.clear();
+			versions.clear();
+			bySlide.clear();
+			byFile.clear();
+			byType.clear();
+			slideJson.clear();
+		}
 		width = DEFAULT_WIDTH;
 		height = DEFAULT_HEIGHT;
 	}
 
+	private static <K> void index(Map<K, Set<String>> idx, K key, String uid) {
+		idx.computeIfAbsent(key, k -> new LinkedHashSet<>()).add(uid);
+	}
+
+	private static <K> void unindex(Map<K, Set<String>> idx, K key, String uid) {
+		idx.computeIfPresent(key, (k, uids) -> {
+			uids.remove(uid);
+			return uids.isEmpty() ? null : uids;
+		});
+	}
+
+	private static Long getFileId(JSONObject o) {
+		long fileId = o.optLong(ATTR_FILE_ID, -1);
+		return fileId > 0 ? fileId : null;
+	}
+
+	private void index(String uid, JSONObject o) {
+		int slide = o.optInt(ATTR_SLIDE, -1);
+		index(bySlide, slide, uid);
+		slideJson.remove(slide);
+		Long fileId = getFileId(o);
+		if (fileId != null) {
+			index(byFile, fileId, uid);
+		}
+		String omType = o.optString(ATTR_OMTYPE);
+		if (!Strings.isEmpty(omType)) {
+			index(byType, omType, uid);
+		}
+	}
+
+	private void unindex(String uid, JSONObject o) {
+		int slide = o.optInt(ATTR_SLIDE, -1);
+		unindex(bySlide, slide, uid);
+		slideJson.remove(slide);
+		Long fileId = getFileId(o);
+		if (fileId != null) {
+			unindex(byFile, fileId, uid);
+		}
+		String omType = o.optString(ATTR_OMTYPE);
+		if (!Strings.isEmpty(omType)) {
+			unindex(byType, omType, uid);
+		}
+	}
+
+	/**
+	 * Add or replace the object, the object should not be modified after this call
+	 *
+	 * @param uid - uid of the object
+	 * @param obj - the object
+	 * @return this for chaining
+	 */
 	public Whiteboard put(String uid, JSONObject obj) {
-		roomItems.put(uid, obj.toString(new NullStringer()));
+		return put(uid, obj, 0);
+	}
+
+	/**
+	 * Add or replace the object, the object should not be modified after this call
+	 *
+	 * @param uid - uid of the object
+	 * @param obj - the object
+	 * @param version - version of the replicated object
+	 * @return this for chaining
+	 */
+	public Whiteboard put(String uid, JSONObject obj, long version) {
+		synchronized (roomItems) {
+			doPut(uid, obj, version);
+		}
 		return this;
 	}
 
+	/**
+	 * Add the object if it is absent or older version is stored
+	 *
+	 * @param uid - uid of the object
+	 * @param obj - the object
+	 * @param version - version of the replicated object
+	 * @return {@code true} if the object was added or replaced
+	 */
+	public boolean putIfNewer(String uid, JSONObject obj, long version) {
+		synchronized (roomItems) {
+			if (roomItems.containsKey(uid) && versions.getOrDefault(uid, 0L) >= version) {
+				return false;
+			}
+			doPut(uid, obj, version);
+			return true;
+		}
+	}
+
+	// should be called under roomItems
+	private void doPut(String uid, JSONObject obj, long version) {
+		JSONObject prev = roomItems.put(uid, obj);
+		if (prev != null) {
+			unindex(uid, prev);
+		}
+		versions.put(uid, version);
+		index(uid, obj);
+	}
+
+	/**
+	 * @param uid - uid of the object
+	 * @return shallow copy of the object, safe to be modified, or {@code null}
+	 */
 	public JSONObject get(String uid) {
-		String obj = roomItems.get(uid);
-		return obj == null ? null : new JSONObject(obj);
+		JSONObject o;
+		synchronized (roomItems) {
+			o = roomItems.get(uid);
+		}
+		return o == null ? null : copy(o);
+	}
+
+	private static JSONObject copy(JSONObject o) {
+		JSONObject c = new JSONObject();
+		for (String key : o.keySet()) {
+			c.put(key, o.get(key));
+		}
+		return c;
+	}
+
+	/**
+	 * Copy items of given whiteboard to this one, items are copied in order,
+	 * item is copied only if it is absent or older in this whiteboard
+	 *
+	 * @param wb - whiteboard to copy items from
+	 */
+	public void copyItems(Whiteboard wb) {
+		List<Entry<String, JSONObject>> items;
+		Map<String, Long> itemVersions;
+		synchronized (wb.roomItems) {
+			items = new ArrayList<>(wb.roomItems.entrySet());
+			itemVersions = new HashMap<>(wb.versions);
+		}
+		for (Entry<String, JSONObject> e : items) {
+			putIfNewer(e.getKey(), e.getValue(), itemVersions.getOrDefault(e.getKey(), 0L));
+		}
 	}
 
 	public boolean contains(String uid) {
-		return roomItems.containsKey(uid);
+		synchronized (roomItems) {
+			return roomItems.containsKey(uid);
+		}
+	}
+
+	/**
+	 * Checks if object with given uid is the file with given id
+	 *
+	 * @param uid - uid of the object
+	 * @param fileId - id of the file
+	 * @return {@code true} if this object is the file
+	 */
+	public boolean hasFile(String uid, Long fileId) {
+		synchronized (roomItems) {
+			Set<String> uids = byFile.get(fileId);
+			return uids != null && uids.contains(uid);
+		}
 	}
 
 	public JSONArray clearSlide(int slide) {
 		JSONArray arr = new JSONArray();
-		roomItems.entrySet().removeIf(e -> {
-				JSONObject o = new JSONObject(e.getValue());
-				boolean match = !BaseFileItem.Type.PRESENTATION.name().equals(o.optString(ATTR_FILE_TYPE)) && o.optInt(ATTR_SLIDE, -1) == slide;
-				if (match) {
-					arr.put(e);
+		synchronized (roomItems) {
+			for (String uid : new ArrayList<>(bySlide.getOrDefault(slide, Set.of()))) {
+				JSONObject o = roomItems.get(uid);
+				if (!BaseFileItem.Type.PRESENTATION.name().equals(o.optString(ATTR_FILE_TYPE))) {
+					remove(uid);
+					arr.put(o);
 				}
-				return match;
-			});
+			}
+		}
 		return arr;
 	}
 
-	public List<JSONObject> list() {
-		List<JSONObject> items = new LinkedList<>();
-		for (Entry<String, String> e : roomItems.entrySet()) {
-			items.add(new JSONObject(e.getValue()));
+	private List<JSONObject> list(Set<String> uids) {
+		List<JSONObject> items = new ArrayList<>(uids.size());
+		for (String uid : uids) {
+			items.add(roomItems.get(uid));
 		}
 		return items;
 	}
 
+	/**
+	 * @return all objects of this whiteboard, objects should not be modified
+	 */
+	public List<JSONObject> list() {
+		synchronized (roomItems) {
+			return new ArrayList<>(roomItems.values());
+		}
+	}
+
+	/**
+	 * @param slide - slide number
+	 * @return objects of the slide, objects should not be modified
+	 */
+	public List<JSONObject> list(int slide) {
+		synchronized (roomItems) {
+			return list(bySlide.getOrDefault(slide, Set.of()));
+		}
+	}
+
+	/**
+	 * @return numbers of the slides having objects
+	 */
+	public Set<Integer> getSlides() {
+		synchronized (roomItems) {
+			return new TreeSet<>(bySlide.keySet());
+		}
+	}
+
+	/**
+	 * @param slide - slide number
+	 * @return JSON array of the objects of the slide not displaying files,
+	 *         the result is cached till the slide is modified
+	 */
+	public String getSlideJson(int slide) {
+		synchronized (roomItems) {
+			return slideJson.computeIfAbsent(slide, sl -> {
+				JSONArray arr = new JSONArray();
+				for (JSONObject o : list(bySlide.getOrDefault(sl, Set.of()))) {
+					if (getFileId(o) == null) {
+						arr.put(o);
+					}
+				}
+				return arr.toString(new NullStringer());
+			});
+		}
+	}
+
+	/**
+	 * @return objects displaying files, objects should not be modified
+	 */
+	public List<JSONObject> listFiles() {
+		synchronized (roomItems) {
+			Set<String> uids = new LinkedHashSet<>();
+			byFile.values().forEach(uids::addAll);
+			return list(uids);
+		}
+	}
+
+	/**
+	 * @param slide - slide number
+	 * @return objects of the slide displaying files, objects should not be modified
+	 */
+	public List<JSONObject> listFiles(int slide) {
+		synchronized (roomItems) {
+			List<JSONObject> items = new ArrayList<>();
+			for (JSONObject o : list(bySlide.getOrDefault(slide, Set.of()))) {
+				if (getFileId(o) != null) {
+					items.add(o);
+				}
+			}
+			return items;
+		}
+	}
+
+	/**
+	 * @param omType - type of the objects
+	 * @return objects of given type, objects should not be modified
+	 */
+	public List<JSONObject> listByType(String omType) {
+		synchronized (roomItems) {
+			return list(byType.getOrDefault(omType, Set.of()));
+		}
+	}
+
+	/**
+	 * @param fileId - id of the file
+	 * @return objects displaying given file, objects should not be modified
+	 */
+	public List<JSONObject> listByFile(Long fileId) {
+		synchronized (roomItems) {
+			return list(byFile.getOrDefault(fileId, Set.of()));
+		}
+	}
+
 	public JSONObject remove(Object oid) {
-		final String obj = roomItems.remove(oid);
-		return Strings.isEmpty(obj) ? null : new JSONObject(obj);
+		synchronized (roomItems) {
+			final JSONObject obj = roomItems.remove(oid);
+			versions.remove(oid);
+			if (obj != null) {
+				unindex((String)oid, obj);
+			}
+			return obj;
+		}
 	}
 
 	public boolean isEmpty() {
-		return roomItems.isEmpty();
+		synchronized (roomItems) {
+			return roomItems.isEmpty();
+		}
 	}
 
 	public String getName() {
@@ -210,9 +475,14 @@ public class Whiteboard implements Serializable {
 		JSONObject json = new JSONObject(new JSONObject(this).toString(new NullStringer()));
 		json.remove("id"); //filtering
 		json.remove("empty"); //filtering
+		json.remove("slides"); //filtering
 		JSONObject items = new JSONObject();
-		for (Entry<String, String> e : roomItems.entrySet()) {
-			JSONObject o = new JSONObject(e.getValue());
+		List<Entry<String, JSONObject>> entries;
+		synchronized (roomItems) {
+			entries = new ArrayList<>(roomItems.entrySet());
+		}
+		for (Entry<String, JSONObject> e : entries) {
+			JSONObject o = copy(e.getValue());
 			//filtering
 			if ("Clipart".equals(o.opt(ATTR_OMTYPE))) {
 				if (o.has(PARAM__SRC)) {
@@ -228,6 +498,16 @@ public class Whiteboard implements Serializable {
 		return json;
 	}
 
+	private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+		in.defaultReadObject();
+		roomItems = new LinkedHashMap<>();
+		bySlide = new HashMap<>();
+		byFile = new HashMap<>();
+		byType = new HashMap<>();
+		slideJson = new HashMap<>();
+		versions = new HashMap<>();
+	}
+
 	public String save(Path path) {
 		try (BufferedWriter writer = Files.newBufferedWriter(path)) {
 			writer.write(toJson().toString(new NullStringer(2)));
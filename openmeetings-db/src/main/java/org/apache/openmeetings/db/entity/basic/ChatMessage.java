@@ -29,6 +29,7 @@ import javax.persistence.Enumerated;
 import javax.persistence.GeneratedValue;
 import javax.persistence.GenerationType;
 import javax.persistence.Id;
+import javax.persistence.Index;
 import javax.persistence.JoinColumn;
 import javax.persistence.Lob;
 import javax.persistence.ManyToOne;
@@ -53,6 +54,10 @@ import org.apache.openmeetings.db.entity.user.User;
 @Entity
 @NamedQuery(name = "getChatMessageById", query = "SELECT c FROM ChatMessage c WHERE c.id = :id")
 @NamedQuery(name = "getChatMessages", query = "SELECT c FROM ChatMessage c ORDER BY c.id")
+@NamedQuery(name = "getChatMessagesAfter", query = "SELECT c FROM ChatMessage c WHERE c.id > :id ORDER BY c.id")
+@NamedQuery(name = "getChatMessagesChangedAfter", query = "SELECT c FROM ChatMessage c WHERE c.id > :id"
+		+ " AND c.sent >= :since ORDER BY c.id")
+@NamedQuery(name = "countChatMessages", query = "SELECT COUNT(c) FROM ChatMessage c")
 @NamedQuery(name = "getGlobalChatMessages", query = "SELECT c FROM ChatMessage c WHERE c.toUser IS NULL AND c.toRoom IS NULL ORDER BY c.sent DESC")
 @NamedQuery(name = "getChatMessagesByRoom", query = "SELECT c FROM ChatMessage c WHERE c.toUser IS NULL AND c.toRoom.id = :roomId"
 		+ " AND (true = :all OR (false = :all AND c.needModeration = false)) ORDER BY c.sent DESC")
@@ -69,7 +74,9 @@ import org.apache.openmeetings.db.entity.user.User;
 @NamedQuery(name = "deleteChatRoom", query = "DELETE FROM ChatMessage c WHERE c.toUser IS NULL AND c.toRoom.id = :roomId")
 @NamedQuery(name = "deleteChatUser", query = "DELETE FROM ChatMessage c WHERE c.toRoom IS NULL AND c.toUser.id = :userId")
 @NamedQuery(name = "purgeChatUserName", query = "UPDATE ChatMessage c SET c.fromName = :purged WHERE c.fromUser.id = :userId")
-@Table(name = "chat")
+@Table(name = "chat", indexes = {
+		@Index(name = "chat_sent_idx", columnList = "sent")
+})
 @XmlRootElement(name = CHAT_NODE)
 @XmlAccessorType(XmlAccessType.FIELD)
 public class ChatMessage implements IDataProviderEntity {
@@ -19,8 +19,10 @@
 package org.apache.openmeetings.db.entity.basic;
 
 import static java.util.UUID.randomUUID;
+import static org.apache.openmeetings.db.util.ApplicationHelper.ensureApplication;
 import static org.apache.openmeetings.util.OmFileHelper.SIP_USER_ID;
 
+import java.io.IOException;
 import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.Date;
@@ -34,21 +36,31 @@ import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Stream;
 
+import org.apache.openmeetings.db.dao.room.RoomDao;
 import org.apache.openmeetings.db.dao.user.UserDao;
 import org.apache.openmeetings.db.entity.IDataProviderEntity;
 import org.apache.openmeetings.db.entity.room.Room;
 import org.apache.openmeetings.db.entity.room.Room.Right;
 import org.apache.openmeetings.db.entity.user.User;
+import org.apache.openmeetings.db.util.ClusterSerializableFactory;
 import org.apache.wicket.util.string.Strings;
 
 import com.github.openjson.JSONArray;
 import com.github.openjson.JSONObject;
+import com.hazelcast.nio.ObjectDataInput;
+import com.hazelcast.nio.ObjectDataOutput;
+import com.hazelcast.nio.serialization.IdentifiedDataSerializable;
 
 /**
+ * Only ids of {@link User} and {@link Room} are passed between cluster nodes,
+ * entities are resolved locally on first access. Synthetic users not stored
+ * in DB (i.e. SIP user with negative id) are passed with the fields required
+ * to display the client.
+ *
  * @author solomax
  *
  */
-public class Client implements IDataProviderEntity, IWsClient {
+public class Client implements IDataProviderEntity, IWsClient, IdentifiedDataSerializable {
 	private static final long serialVersionUID = 1L;
 
 	public enum Activity {
@@ -62,28 +74,38 @@ public class Client implements IDataProviderEntity, IWsClient {
 		WEBCAM //sends Audio/Video to the room
 		, SCREEN //send screen sharing
 	}
-	private final String sessionId;
-	private final int pageId;
-	private User user;
-	private Room room;
-	private final String uid;
-	private final String sid;
+	private String sessionId;
+	private int pageId;
+	private transient User user;
+	private Long userId;
+	private transient Room room;
+	private Long roomId;
+	private String uid;
+	private String sid;
 	private String remoteAddress;
 	private final Set<Right> rights = ConcurrentHashMap.newKeySet();
 	private final Set<Activity> activities = ConcurrentHashMap.newKeySet();
 	private final Map<String, StreamDesc> streams = new ConcurrentHashMap<>();
-	private final Date connectedSince;
+	private Date connectedSince;
 	private int cam = -1;
 	private int mic = -1;
 	private int width = 0;
 	private int height = 0;
 	private String serverId = null;
-	private final String pictureUri;
+	private String pictureUri;
+
+	/**
+	 * Constructor for cluster deserialization only
+	 */
+	public Client() {
+		//no-op
+	}
 
 	public Client(String sessionId, int pageId, User u, String pictureUri) {
 		this.sessionId = sessionId;
 		this.pageId = pageId;
 		this.user = u;
+		this.userId = u == null ? null : u.getId();
 		this.connectedSince = new Date();
 		this.pictureUri = pictureUri;
 		uid = randomUUID().toString();
@@ -101,16 +123,19 @@ public class Client implements IDataProviderEntity, IWsClient {
 	}
 
 	public User getUser() {
+		if (user == null && userId != null) {
+			user = ensureApplication().getBean(UserDao.class).get(userId);
+		}
 		return user;
 	}
 
 	public Client updateUser(UserDao dao) {
-		user = dao.get(user.getId());
+		user = dao.get(getUserId());
 		return this;
 	}
 
 	public Long getUserId() {
-		return user == null ? null : user.getId();
+		return user == null ? userId : user.getId();
 	}
 
 	public boolean sameUserId(Long userId) {
@@ -280,11 +305,15 @@ public class Client implements IDataProviderEntity, IWsClient {
 	}
 
 	public Room getRoom() {
+		if (room == null && roomId != null) {
+			room = ensureApplication().getBean(RoomDao.class).get(roomId);
+		}
 		return room;
 	}
 
 	public Client setRoom(Room room) {
 		this.room = room;
+		this.roomId = room == null ? null : room.getId();
 		return this;
 	}
 
@@ -350,24 +379,25 @@ public class Client implements IDataProviderEntity, IWsClient {
 	}
 
 	public Long getRoomId() {
-		return room == null ? null : room.getId();
+		return room == null ? roomId : room.getId();
 	}
 
 	private JSONObject addUserJson(JSONObject o) {
 		JSONObject u = new JSONObject();
-		if (user != null) {
+		User usr = getUser();
+		if (usr != null) {
 			JSONObject a = new JSONObject();
-			u.put("id", user.getId())
-				.put("firstName", user.getFirstname())
-				.put("lastName", user.getLastname())
-				.put("displayName", user.getDisplayName())
+			u.put("id", usr.getId())
+				.put("firstName", usr.getFirstname())
+				.put("lastName", usr.getLastname())
+				.put("displayName", usr.getDisplayName())
 				.put("address", a)
 				.put("pictureUri", pictureUri);
-			if (user.getAddress() != null) {
-				if (Strings.isEmpty(user.getFirstname()) && Strings.isEmpty(user.getLastname())) {
-					a.put("email", user.getAddress().getEmail());
+			if (usr.getAddress() != null) {
+				if (Strings.isEmpty(usr.getFirstname()) && Strings.isEmpty(usr.getLastname())) {
+					a.put("email", usr.getAddress().getEmail());
 				}
-				a.put("country", user.getAddress().getCountry());
+				a.put("country", usr.getAddress().getCountry());
 			}
 		}
 		return o.put("user", u)
@@ -396,7 +426,9 @@ public class Client implements IDataProviderEntity, IWsClient {
 
 	public void merge(Client c) {
 		user = c.user;
+		userId = c.getUserId();
 		room = c.room;
+		roomId = c.getRoomId();
 		synchronized (rights) {
 			Set<Right> rr = new HashSet<>(c.rights);
 			rights.clear();
@@ -420,6 +452,117 @@ public class Client implements IDataProviderEntity, IWsClient {
 		height = c.height;
 	}
 
+	@Override
+	public int getFactoryId() {
+		return ClusterSerializableFactory.FACTORY_ID;
+	}
+
+	@Override
+	public int getClassId() {
+		return ClusterSerializableFactory.CLIENT;
+	}
+
+	private static <T extends Enum<T>> void writeEnums(ObjectDataOutput out, Set<T> set) throws IOException {
+		out.writeInt(set.size());
+		for (T e : set) {
+			out.writeUTF(e.name());
+		}
+	}
+
+	private static <T extends Enum<T>> void readEnums(ObjectDataInput in, Class<T> clazz, Set<T> set) throws IOException {
+		int size = in.readInt();
+		for (int i = 0; i < size; ++i) {
+			set.add(Enum.valueOf(clazz, in.readUTF()));
+		}
+	}
+
+	private static boolean isSynthetic(User u) {
+		return u != null && u.getId() != null && u.getId() <= 0;
+	}
+
+	private static void writeUser(ObjectDataOutput out, User u) throws IOException {
+		out.writeUTF(u.getLogin());
+		out.writeUTF(u.getFirstname());
+		out.writeUTF(u.getLastname());
+		out.writeUTF(u.getPictureUri());
+	}
+
+	private static User readUser(ObjectDataInput in, Long id) throws IOException {
+		User u = new User();
+		u.setId(id);
+		u.setLogin(in.readUTF());
+		u.setFirstname(in.readUTF());
+		u.setLastname(in.readUTF());
+		u.setPictureUri(in.readUTF());
+		u.resetDisplayName();
+		return u;
+	}
+
+	@Override
+	public void writeData(ObjectDataOutput out) throws IOException {
+		out.writeUTF(sessionId);
+		out.writeInt(pageId);
+		out.writeObject(getUserId());
+		final boolean synthetic = isSynthetic(user);
+		out.writeBoolean(synthetic);
+		if (synthetic) {
+			writeUser(out, user);
+		}
+		out.writeObject(getRoomId());
+		out.writeUTF(uid);
+		out.writeUTF(sid);
+		out.writeUTF(remoteAddress);
+		out.writeLong(connectedSince.getTime());
+		out.writeUTF(serverId);
+		out.writeUTF(pictureUri);
+		out.writeInt(cam);
+		out.writeInt(mic);
+		out.writeInt(width);
+		out.writeInt(height);
+		writeEnums(out, rights);
+		writeEnums(out, activities);
+		List<StreamDesc> list = getStreams();
+		out.writeInt(list.size());
+		for (StreamDesc sd : list) {
+			out.writeUTF(sd.uuid);
+			out.writeUTF(sd.type.name());
+			out.writeInt(sd.swidth);
+			out.writeInt(sd.sheight);
+			writeEnums(out, sd.sactivities);
+		}
+	}
+
+	@Override
+	public void readData(ObjectDataInput in) throws IOException {
+		sessionId = in.readUTF();
+		pageId = in.readInt();
+		userId = in.readObject();
+		if (in.readBoolean()) {
+			user = readUser(in, userId);
+		}
+		roomId = in.readObject();
+		uid = in.readUTF();
+		sid = in.readUTF();
+		remoteAddress = in.readUTF();
+		connectedSince = new Date(in.readLong());
+		serverId = in.readUTF();
+		pictureUri = in.readUTF();
+		cam = in.readInt();
+		mic = in.readInt();
+		width = in.readInt();
+		height = in.readInt();
+		readEnums(in, Right.class, rights);
+		readEnums(in, Activity.class, activities);
+		int size = in.readInt();
+		for (int i = 0; i < size; ++i) {
+			StreamDesc sd = new StreamDesc(in.readUTF(), StreamType.valueOf(in.readUTF()));
+			sd.swidth = in.readInt();
+			sd.sheight = in.readInt();
+			readEnums(in, Activity.class, sd.sactivities);
+			streams.put(sd.uuid, sd);
+		}
+	}
+
 	@Override
 	public int hashCode() {
 		final int prime = 31;
@@ -464,6 +607,11 @@ public class Client implements IDataProviderEntity, IWsClient {
 		private int swidth;
 		private int sheight;
 
+		private StreamDesc(String uuid, StreamType type) {
+			this.uuid = uuid;
+			this.type = type;
+		}
+
 		public StreamDesc(StreamDesc sd) {
 			this.uuid = sd.uuid;
 			this.type = sd.type;
@@ -484,7 +632,8 @@ public class Client implements IDataProviderEntity, IWsClient {
 				this.swidth = 800;
 				this.sheight = 600;
 			} else if (StreamType.WEBCAM == type) {
-				boolean interview = room != null && Room.Type.INTERVIEW == room.getType();
+				Room r = getRoom();
+				boolean interview = r != null && Room.Type.INTERVIEW == r.getType();
 				this.swidth = interview ? 320 : width;
 				this.sheight = interview ? 260 : height;
 			}
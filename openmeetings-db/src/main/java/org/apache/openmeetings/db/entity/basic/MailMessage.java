@@ -43,6 +43,11 @@ import net.fortuna.ical4j.validate.ValidationException;
 @NamedQuery(name = "getMailMessageById", query = "SELECT m FROM MailMessage m WHERE m.id = :id")
 @NamedQuery(name = "getMailMessages", query = "SELECT m FROM MailMessage m ORDER BY m.updated, m.inserted")
 @NamedQuery(name = "getMailMessagesByStatus", query = "SELECT m FROM MailMessage m WHERE m.status = :status ORDER BY m.updated, m.inserted")
+@NamedQuery(name = "getMailMessageIdsByStatus", query = "SELECT m.id FROM MailMessage m WHERE m.status = :status ORDER BY m.updated, m.inserted")
+@NamedQuery(name = "getMailMessageIdsByPartition", query = "SELECT m.id FROM MailMessage m WHERE m.status = :status"
+		+ " AND MOD(m.id, :partitions) = :partition ORDER BY m.updated, m.inserted")
+@NamedQuery(name = "getMailMessagesByToken", query = "SELECT m FROM MailMessage m WHERE m.status = :status AND m.updated = :token AND m.id IN :ids")
+@NamedQuery(name = "claimMailMessages", query = "UPDATE MailMessage m SET m.status = :sendingStatus, m.updated = :token WHERE m.status = :noneStatus AND m.id IN :ids")
 @NamedQuery(name = "countMailMessages", query = "SELECT COUNT(m) FROM MailMessage m")
 @NamedQuery(name = "resetMailStatusByDate", query = "UPDATE MailMessage m SET m.status = :noneStatus WHERE m.status = :sendingStatus AND m.updated < :date")
 @NamedQuery(name = "resetMailStatusById", query = "UPDATE MailMessage m SET m.errorCount = 0, m.status = :noneStatus WHERE m.id = :id")
@@ -0,0 +1,120 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License") +  you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.openmeetings.db.entity.basic;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.EnumType;
+import javax.persistence.Enumerated;
+import javax.persistence.GeneratedValue;
+import javax.persistence.GenerationType;
+import javax.persistence.Id;
+import javax.persistence.Index;
+import javax.persistence.NamedQuery;
+import javax.persistence.Table;
+
+import org.apache.openmeetings.db.entity.IDataProviderEntity;
+
+/**
+ * Entry of the search index: one word of the searchable field of the entity
+ *
+ * Searched by prefix, see {@link org.apache.openmeetings.db.dao.basic.SearchIndexDao}
+ */
+@Entity
+@NamedQuery(name = "getSearchTokens", query = "SELECT t.token FROM SearchToken t WHERE t.type = :type AND t.entityId = :entityId")
+@NamedQuery(name = "deleteSearchTokens", query = "DELETE FROM SearchToken t WHERE t.type = :type AND t.entityId = :entityId")
+@NamedQuery(name = "deleteSearchTokensRange", query = "DELETE FROM SearchToken t WHERE t.type = :type "
+		+ "AND t.entityId > :fromId AND t.entityId <= :toId")
+@NamedQuery(name = "getUserSearchFields", query = "SELECT u.id, u.lastname, u.firstname, u.login, a.email, a.town "
+		+ "FROM User u LEFT JOIN u.address a WHERE u.id > :lastId ORDER BY u.id")
+@NamedQuery(name = "getRoomSearchFields", query = "SELECT r.id, r.name, r.comment FROM Room r WHERE r.id > :lastId ORDER BY r.id")
+@NamedQuery(name = "getFileSearchFields", query = "SELECT f.id, f.name FROM BaseFileItem f WHERE f.id > :lastId ORDER BY f.id")
+@Table(name = "search_token", indexes = {
+		@Index(name = "search_token_idx", columnList = "type, token"),
+		@Index(name = "search_token_entity_idx", columnList = "type, entity_id")
+})
+public class SearchToken implements IDataProviderEntity {
+	private static final long serialVersionUID = 1L;
+	public static final int MAX_LENGTH = 64;
+
+	public enum Type {
+		USER
+		, ROOM
+		, FILE
+	}
+
+	@Id
+	@GeneratedValue(strategy = GenerationType.IDENTITY)
+	@Column(name = "id")
+	private Long id;
+
+	@Enumerated(EnumType.STRING)
+	@Column(name = "type", nullable = false)
+	private Type type;
+
+	@Column(name = "entity_id", nullable = false)
+	private long entityId;
+
+	@Column(name = "token", length = MAX_LENGTH, nullable = false)
+	private String token;
+
+	public SearchToken() {
+		//def constructor
+	}
+
+	public SearchToken(Type type, long entityId, String token) {
+		this.type = type;
+		this.entityId = entityId;
+		this.token = token;
+	}
+
+	@Override
+	public Long getId() {
+		return id;
+	}
+
+	@Override
+	public void setId(Long id) {
+		this.id = id;
+	}
+
+	public Type getType() {
+		return type;
+	}
+
+	public void setType(Type type) {
+		this.type = type;
+	}
+
+	public long getEntityId() {
+		return entityId;
+	}
+
+	public void setEntityId(long entityId) {
+		this.entityId = entityId;
+	}
+
+	public String getToken() {
+		return token;
+	}
+
+	public void setToken(String token) {
+		this.token = token;
+	}
+}
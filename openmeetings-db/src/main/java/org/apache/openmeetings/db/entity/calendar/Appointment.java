@@ -62,10 +62,16 @@ import org.apache.openmeetings.db.entity.user.User;
 @Entity
 @Table(name = "appointment", indexes = {
 		@Index(name = "title_idx", columnList = "title")
+		, @Index(name = "appointment_inserted_idx", columnList = "inserted")
+		, @Index(name = "appointment_updated_idx", columnList = "updated")
 })
 @NamedQuery(name="getAppointmentById", query="SELECT a FROM Appointment a WHERE a.deleted = false AND a.id = :id")
 @NamedQuery(name="getAppointmentByIdAny", query="SELECT a FROM Appointment a WHERE a.id = :id")
 @NamedQuery(name="getAppointments", query="SELECT a FROM Appointment a WHERE a.deleted = false ORDER BY a.id")
+@NamedQuery(name="getAppointmentsAfter", query="SELECT a FROM Appointment a WHERE a.deleted = false AND a.id > :id ORDER BY a.id")
+@NamedQuery(name="getAppointmentsChangedAfter", query="SELECT a FROM Appointment a WHERE a.deleted = false AND a.id > :id"
+		+ " AND (a.updated >= :since OR a.inserted >= :since) ORDER BY a.id")
+@NamedQuery(name="countAppointments", query="SELECT COUNT(a) FROM Appointment a WHERE a.deleted = false")
 @NamedQuery(name="appointmentsInRange",
 	query="SELECT a FROM Appointment a "
 		+ "WHERE a.deleted = false "
@@ -87,16 +93,15 @@ import org.apache.openmeetings.db.entity.user.User;
 		+ "      OR (a.start < :start AND a.end > :end) "
 		+ "  )"
 	)
-@NamedQuery(name="appointmentsInRangeRemind",
-	query="SELECT a FROM Appointment a "
-		//only ReminderType simple mail is concerned!
+@NamedQuery(name="getAppointmentReminders",
+	query="SELECT a.id, a.start FROM Appointment a "
 		+ "WHERE a.deleted = false AND a.reminderEmailSend = false"
-		+ "  AND (a.reminder <> :none) "
-		+ "  AND ( "
-		+ "    (a.start BETWEEN :start AND :end) "
-		+ "      OR (a.end BETWEEN :start AND :end) "
-		+ "      OR (a.start < :start AND a.end > :end) "
-		+ "  )"
+		+ "  AND a.reminder <> :none AND a.end > :end"
+	)
+@NamedQuery(name="setAppointmentReminderSent",
+	query="UPDATE Appointment a SET a.reminderEmailSend = true "
+		+ "WHERE a.id = :id AND a.deleted = false AND a.reminderEmailSend = false"
+		+ "  AND a.reminder <> :none AND a.start <= :start AND a.end > :end"
 	)
 @NamedQuery(name="getAppointmentByRoomId", query="SELECT a FROM Appointment a WHERE a.room.id = :roomId")
 @NamedQuery(name="getAppointmentByOwnerRoomId", query="SELECT a FROM Appointment a WHERE a.deleted = false AND a.owner.id = :userId AND a.room.id = :roomId")
@@ -27,6 +27,7 @@ import javax.persistence.FetchType;
 import javax.persistence.GeneratedValue;
 import javax.persistence.GenerationType;
 import javax.persistence.Id;
+import javax.persistence.Index;
 import javax.persistence.JoinColumn;
 import javax.persistence.ManyToOne;
 import javax.persistence.NamedQuery;
@@ -46,10 +47,17 @@ import org.apache.openmeetings.db.entity.room.Invitation;
 import org.apache.openmeetings.db.entity.user.User;
 
 @Entity
-@Table(name = "meeting_member")
+@Table(name = "meeting_member", indexes = {
+		@Index(name = "meeting_member_inserted_idx", columnList = "inserted")
+		, @Index(name = "meeting_member_updated_idx", columnList = "updated")
+})
 @NamedQuery(name="getMeetingMemberById"
 		, query="SELECT mm FROM MeetingMember mm WHERE mm.deleted = false AND mm.id = :id")
 @NamedQuery(name="getMeetingMembers", query="SELECT mm FROM MeetingMember mm ORDER BY mm.id")
+@NamedQuery(name="getMeetingMembersAfter", query="SELECT mm FROM MeetingMember mm WHERE mm.id > :id ORDER BY mm.id")
+@NamedQuery(name="getMeetingMembersChangedAfter", query="SELECT mm FROM MeetingMember mm WHERE mm.id > :id"
+		+ " AND (mm.updated >= :since OR mm.inserted >= :since) ORDER BY mm.id")
+@NamedQuery(name="countMeetingMembers", query="SELECT COUNT(mm) FROM MeetingMember mm")
 @NamedQuery(name="getMeetingMemberIdsByAppointment"
 		, query="SELECT mm.id FROM MeetingMember mm WHERE mm.deleted = false AND mm.appointment.id = :id")
 @XmlRootElement(name = MMEMBER_NODE)
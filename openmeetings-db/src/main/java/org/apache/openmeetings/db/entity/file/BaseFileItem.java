@@ -64,13 +64,6 @@ import org.apache.openmeetings.util.OmFileHelper;
 @NamedQuery(name = "getFileById", query = "SELECT f FROM BaseFileItem f WHERE f.deleted = false AND f.id = :id")
 @NamedQuery(name = "getAnyFileById", query = "SELECT f FROM BaseFileItem f WHERE f.id = :id")
 @NamedQuery(name = "getFileByHash", query = "SELECT f FROM BaseFileItem f WHERE f.deleted = false AND f.hash = :hash")
-@NamedQuery(name = "getAllFileItemsForRoom", query = "SELECT f FROM BaseFileItem f"
-		+ " WHERE f.deleted = false AND f.type <> :folder"
-		+ " AND (f.roomId IS NULL OR f.roomId = :roomId)"
-		+ " AND (f.groupId IS NULL OR f.groupId IN :groups)"
-		+ " AND f.ownerId IS NULL" // not loading personal files
-		+ " AND f.name LIKE :name"
-		+ " ORDER BY f.name")
 @NamedQuery(name = "getFileItemsByIds", query = "SELECT f FROM BaseFileItem f"
 		+ " WHERE f.deleted = false AND f.id IN :ids")
 @Table(name = "om_file", indexes = {
@@ -158,6 +151,12 @@ public abstract class BaseFileItem extends HistoricalEntity {
 	@XmlElement(name = "externalType", required = false)
 	private String externalType;
 
+	// size of own files on disk, folder contents are counted in StorageUsage
+	@Column(name = "storage_size")
+	@XmlElement(name = "storageSize", required = false)
+	@XmlJavaTypeAdapter(LongAdapter.class)
+	private Long storageSize;
+
 	// Not Mapped
 	@Transient
 	@XmlTransient
@@ -297,6 +296,43 @@ public abstract class BaseFileItem extends HistoricalEntity {
 		this.externalType = externalType;
 	}
 
+	public long getStorageSize() {
+		return storageSize == null ? 0 : storageSize;
+	}
+
+	public void setStorageSize(long storageSize) {
+		this.storageSize = storageSize;
+	}
+
+	/**
+	 * Calculates the size of the files of this item stored on disk,
+	 * should be called after the item is converted
+	 *
+	 * @return size in bytes, {@code 0} for folders and deleted items
+	 */
+	public final long getDiskSize() {
+		if (isDeleted() || getHash() == null) {
+			return 0;
+		}
+		switch (getType()) {
+			case IMAGE:
+			case PRESENTATION:
+			case VIDEO:
+				return OmFileHelper.getSize(new File(getUploadFilesDir(), getHash()));
+			case RECORDING:
+				long size = 0;
+				for (String ext : List.of(EXTENSION_PNG, EXTENSION_MP4)) {
+					File f = getFile(ext);
+					if (f != null && f.isFile()) {
+						size += f.length();
+					}
+				}
+				return size;
+			default:
+				return 0;
+		}
+	}
+
 	public final File getFile(String ext) {
 		File f = null;
 		if (!isDeleted() && getHash() != null) {
@@ -0,0 +1,154 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License") +  you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.openmeetings.db.entity.file;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.EnumType;
+import javax.persistence.Enumerated;
+import javax.persistence.GeneratedValue;
+import javax.persistence.GenerationType;
+import javax.persistence.Id;
+import javax.persistence.Index;
+import javax.persistence.NamedQuery;
+import javax.persistence.Table;
+
+import org.apache.openmeetings.db.entity.IDataProviderEntity;
+import org.apache.openmeetings.db.entity.record.Recording;
+
+/**
+ * Disk space occupied by the files of one folder, owner, group or room
+ *
+ * Maintained incrementally on every file item change, see
+ * {@link org.apache.openmeetings.db.dao.file.StorageUsageDao}. Concurrent
+ * creation of the counter might result in several rows for the same scope,
+ * the rows are summed on read and merged on reconcile.
+ */
+@Entity
+@NamedQuery(name = "getStorageUsage", query = "SELECT SUM(u.size) FROM StorageUsage u "
+		+ "WHERE u.kind = :kind AND u.scope = :scope AND u.scopeId = :scopeId")
+@NamedQuery(name = "getStorageUsageSum", query = "SELECT SUM(u.size) FROM StorageUsage u "
+		+ "WHERE u.kind = :kind AND u.scope = :scope AND u.scopeId IN :ids")
+@NamedQuery(name = "getStorageUsageIds", query = "SELECT u.id FROM StorageUsage u "
+		+ "WHERE u.kind = :kind AND u.scope = :scope AND u.scopeId = :scopeId ORDER BY u.id")
+@NamedQuery(name = "addStorageUsage", query = "UPDATE StorageUsage u SET u.size = u.size + :delta WHERE u.id = :id")
+@NamedQuery(name = "deleteStorageUsage", query = "DELETE FROM StorageUsage u WHERE u.kind = :kind")
+@NamedQuery(name = "getFileStorageState", query = "SELECT f.parentId, f.ownerId, f.roomId, f.groupId, f.deleted, f.storageSize "
+		+ "FROM BaseFileItem f WHERE f.id = :id")
+@NamedQuery(name = "getFileStorageStates", query = "SELECT f.id, f.parentId, f.ownerId, f.roomId, f.groupId, f.deleted, f.storageSize "
+		+ "FROM FileItem f")
+@NamedQuery(name = "getRecordingStorageStates", query = "SELECT f.id, f.parentId, f.ownerId, f.roomId, f.groupId, f.deleted, f.storageSize "
+		+ "FROM Recording f")
+@NamedQuery(name = "getFilesToMeasure", query = "SELECT f FROM BaseFileItem f WHERE f.deleted = false "
+		+ "AND f.type <> :folder AND f.id > :lastId ORDER BY f.id")
+@NamedQuery(name = "setFileStorageSize", query = "UPDATE BaseFileItem f SET f.storageSize = :size WHERE f.id = :id")
+@Table(name = "storage_usage", indexes = {
+		@Index(name = "storage_usage_scope_idx", columnList = "kind, scope, scope_id")
+})
+public class StorageUsage implements IDataProviderEntity {
+	private static final long serialVersionUID = 1L;
+
+	public enum Kind {
+		FILE
+		, RECORDING;
+
+		public static Kind of(BaseFileItem f) {
+			return f instanceof Recording ? RECORDING : FILE;
+		}
+	}
+
+	public enum Scope {
+		FOLDER
+		, OWNER
+		, GROUP
+		, ROOM
+	}
+
+	@Id
+	@GeneratedValue(strategy = GenerationType.IDENTITY)
+	@Column(name = "id")
+	private Long id;
+
+	@Enumerated(EnumType.STRING)
+	@Column(name = "kind", nullable = false)
+	private Kind kind;
+
+	@Enumerated(EnumType.STRING)
+	@Column(name = "scope", nullable = false)
+	private Scope scope;
+
+	@Column(name = "scope_id", nullable = false)
+	private long scopeId;
+
+	@Column(name = "total_size", nullable = false)
+	private long size;
+
+	public StorageUsage() {
+		//def constructor
+	}
+
+	public StorageUsage(Kind kind, Scope scope, long scopeId, long size) {
+		this.kind = kind;
+		this.scope = scope;
+		this.scopeId = scopeId;
+		this.size = size;
+	}
+
+	@Override
+	public Long getId() {
+		return id;
+	}
+
+	@Override
+	public void setId(Long id) {
+		this.id = id;
+	}
+
+	public Kind getKind() {
+		return kind;
+	}
+
+	public void setKind(Kind kind) {
+		this.kind = kind;
+	}
+
+	public Scope getScope() {
+		return scope;
+	}
+
+	public void setScope(Scope scope) {
+		this.scope = scope;
+	}
+
+	public long getScopeId() {
+		return scopeId;
+	}
+
+	public void setScopeId(long scopeId) {
+		this.scopeId = scopeId;
+	}
+
+	public long getSize() {
+		return size;
+	}
+
+	public void setSize(long size) {
+		this.size = size;
+	}
+}
@@ -83,7 +83,8 @@ import org.apache.openmeetings.db.entity.file.BaseFileItem;
 @NamedQuery(name = "getRecordingsByOwner", query = "SELECT r FROM Recording r WHERE r.deleted = false AND r.ownerId = :ownerId "
 		+ "AND (r.parentId IS NULL OR r.parentId = 0) "
 		+ "ORDER BY r.type ASC, r.inserted")
-@NamedQuery(name = "resetRecordingProcessingStatus", query = "UPDATE Recording r SET r.status = :error WHERE r.status IN (:recording, :converting)")
+@NamedQuery(name = "resetRecordingProcessingStatus", query = "UPDATE Recording r SET r.status = :error WHERE r.status = :recording")
+@NamedQuery(name = "getRecordingsByStatus", query = "SELECT r FROM Recording r WHERE r.deleted = false AND r.status = :status ORDER BY r.id")
 @NamedQuery(name = "getRecordingsAll", query = "SELECT r FROM Recording r ORDER BY r.id")
 @NamedQuery(name = "getRecordingsByRoom", query = "SELECT r FROM Recording r WHERE r.deleted = false AND r.roomId = :roomId "
 		+ "ORDER BY r.type ASC, r.inserted")
@@ -33,7 +33,8 @@ import javax.persistence.Table;
 import javax.xml.bind.annotation.XmlRootElement;
 
 @Entity
-@NamedQuery(name = "getSessionById", query = "SELECT s FROM Sessiondata s WHERE s.sessionId LIKE :sessionId")
+@NamedQuery(name = "getSessionById", query = "SELECT s FROM Sessiondata s WHERE s.sessionId = :sessionId")
+@NamedQuery(name = "updateSessionRefreshed", query = "UPDATE Sessiondata s SET s.refreshed = :refreshed WHERE s.id = :id AND s.refreshed < :refreshed")
 @NamedQuery(name = "getSessionToDelete", query = "SELECT s FROM Sessiondata s WHERE s.refreshed < :refreshed AND s.permanent = false")
 @Table(name = "sessiondata", indexes = {
 		@Index(name = "session_id_idx", columnList = "session_id", unique = true)
@@ -29,6 +29,7 @@ import javax.persistence.FetchType;
 import javax.persistence.GeneratedValue;
 import javax.persistence.GenerationType;
 import javax.persistence.Id;
+import javax.persistence.Index;
 import javax.persistence.JoinColumn;
 import javax.persistence.Lob;
 import javax.persistence.ManyToOne;
@@ -51,12 +52,18 @@ import org.apache.openmeetings.db.entity.room.Room;
 
 @Entity
 @NamedQuery(name = "getPrivateMessages", query = "SELECT c FROM PrivateMessage c ORDER BY c.id")
+@NamedQuery(name = "getPrivateMessagesAfter", query = "SELECT c FROM PrivateMessage c WHERE c.id > :id ORDER BY c.id")
+@NamedQuery(name = "getPrivateMessagesChangedAfter", query = "SELECT c FROM PrivateMessage c WHERE c.id > :id"
+		+ " AND c.inserted >= :since ORDER BY c.id")
+@NamedQuery(name = "countPrivateMessages", query = "SELECT COUNT(c) FROM PrivateMessage c")
 @NamedQuery(name = "getPrivateMessageById", query = "SELECT c FROM PrivateMessage c WHERE c.id = :id ")
 @NamedQuery(name = "updatePrivateMessagesReadStatus", query = "UPDATE PrivateMessage c SET c.isRead = :isRead WHERE c.id IN (:ids) ")
 @NamedQuery(name = "moveMailsToFolder", query = "UPDATE PrivateMessage c SET c.folderId = :folderId WHERE c.id IN (:ids) ")
 @NamedQuery(name = "deletePrivateMessages", query = "DELETE FROM PrivateMessage c WHERE c.id IN (:ids) ")
 @NamedQuery(name = "getPrivateMessagesByRoom", query = "SELECT c FROM PrivateMessage c WHERE c.room.id = :roomId ")
-@Table(name = "private_message")
+@Table(name = "private_message", indexes = {
+		@Index(name = "private_message_inserted_idx", columnList = "inserted")
+})
 @XmlRootElement(name = MSG_NODE)
 @XmlAccessorType(XmlAccessType.FIELD)
 public class PrivateMessage implements IDataProviderEntity {
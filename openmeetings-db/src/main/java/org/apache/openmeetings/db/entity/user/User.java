@@ -110,6 +110,10 @@ import org.apache.wicket.util.string.Strings;
 		+ "OR lower(c.firstname) LIKE :search "
 		+ "OR lower(c.lastname) LIKE :search )")
 @NamedQuery(name = "getAllUsers", query = "SELECT u FROM User u ORDER BY u.id")
+@NamedQuery(name = "getAllUsersAfter", query = "SELECT u FROM User u WHERE u.id > :id ORDER BY u.id")
+@NamedQuery(name = "getAllUsersChangedAfter", query = "SELECT u FROM User u WHERE u.id > :id"
+		+ " AND (u.updated >= :since OR u.inserted >= :since) ORDER BY u.id")
+@NamedQuery(name = "countAllUsers", query = "SELECT COUNT(u) FROM User u")
 @NamedQuery(name = "getPassword", query = "SELECT u.password FROM User u WHERE u.deleted = false AND u.id = :userId ")
 @NamedQuery(name = "updatePassword", query = "UPDATE User u SET u.password = :password WHERE u.id = :userId")
 @NamedQuery(name = "getNondeletedUsers", query = "SELECT u FROM User u WHERE u.deleted = false")
@@ -124,6 +128,8 @@ import org.apache.wicket.util.string.Strings;
 		, @Index(name = "lastname_idx", columnList = "lastname")
 		, @Index(name = "firstname_idx", columnList = "firstname")
 		, @Index(name = "type_idx", columnList = "type")
+		, @Index(name = "user_inserted_idx", columnList = "inserted")
+		, @Index(name = "user_updated_idx", columnList = "updated")
 })
 @XmlRootElement(name = USER_NODE)
 public class User extends HistoricalEntity {
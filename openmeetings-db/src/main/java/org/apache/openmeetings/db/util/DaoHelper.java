@@ -18,13 +18,22 @@
  */
 package org.apache.openmeetings.db.util;
 
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
 import java.util.function.Function;
+import java.util.regex.Pattern;
 
 import javax.persistence.EntityManager;
+import javax.persistence.Query;
 import javax.persistence.TypedQuery;
 
 import org.apache.commons.lang3.StringUtils;
+import org.apache.openmeetings.db.entity.basic.SearchToken;
 import org.apache.openjpa.persistence.OpenJPAEntityManager;
 import org.apache.openjpa.persistence.OpenJPAPersistence;
 import org.apache.openjpa.persistence.OpenJPAQuery;
@@ -32,6 +41,8 @@ import org.apache.wicket.util.string.Strings;
 
 public class DaoHelper {
 	public static final UnsupportedOperationException UNSUPPORTED = new UnsupportedOperationException("Should not be used");
+	public static final int MAX_SEARCH_TERMS = 5;
+	private static final Pattern TOKEN_SEPARATOR = Pattern.compile("[^\\p{L}\\p{N}]+");
 
 	private DaoHelper() {}
 
@@ -48,6 +59,28 @@ public class DaoHelper {
 	}
 
 	public static String getSearchQuery(String table, String alias, String join, String search, boolean distinct, boolean filterDeleted, boolean count, String additionalWhere, String sort, String... fields) {
+		return getQuery(table, alias, join, distinct, filterDeleted, count, additionalWhere, sort
+				, sb -> appendWhereClause(sb, search, alias, fields));
+	}
+
+	/**
+	 * Same as {@link #getSearchQuery(String, String, String, String, boolean, boolean, boolean, String, String, String...)}
+	 * but entities are searched by prefix in search index
+	 *
+	 * @param idPath - path to the id of indexed entity, i.e. {@code u.id}
+	 * @param index - type of the indexed entity
+	 * @param search - search string
+	 * @param params - parameters of the query will be added
+	 * @return JPQL query
+	 */
+	public static String getIndexSearchQuery(String table, String alias, String join, String idPath, SearchToken.Type index, String search, Map<String, Object> params
+			, boolean distinct, boolean filterDeleted, boolean count, String additionalWhere, String sort)
+	{
+		return getQuery(table, alias, join, distinct, filterDeleted, count, additionalWhere, sort
+				, sb -> appendIndexClause(sb, idPath, index, search, params));
+	}
+
+	private static String getQuery(String table, String alias, String join, boolean distinct, boolean filterDeleted, boolean count, String additionalWhere, String sort, Consumer<StringBuilder> where) {
 		StringBuilder sb = new StringBuilder("SELECT ");
 		if (count) {
 			sb.append("COUNT(");
@@ -67,13 +100,63 @@ public class DaoHelper {
 		if (filterDeleted) {
 			sb.append("AND ").append(alias).append(".deleted = false ");
 		}
-		appendWhereClause(sb, search, alias, fields);
+		where.accept(sb);
 		if (!Strings.isEmpty(additionalWhere)) {
 			sb.append("AND ").append(additionalWhere);
 		}
 		return appendSort(sb, alias, sort).toString();
 	}
 
+	/**
+	 * Splits the text to the lower case words, the same way both for indexing and searching
+	 *
+	 * @param max - maximum number of tokens
+	 * @param values - texts to be split
+	 * @return list of unique tokens
+	 */
+	public static List<String> getSearchTokens(int max, String... values) {
+		Set<String> tokens = new LinkedHashSet<>();
+		for (String v : values) {
+			if (Strings.isEmpty(v)) {
+				continue;
+			}
+			for (String t : TOKEN_SEPARATOR.split(v.toLowerCase(Locale.ROOT))) {
+				if (tokens.size() == max) {
+					return new ArrayList<>(tokens);
+				}
+				if (!t.isEmpty()) {
+					tokens.add(t.length() > SearchToken.MAX_LENGTH ? t.substring(0, SearchToken.MAX_LENGTH) : t);
+				}
+			}
+		}
+		return new ArrayList<>(tokens);
+	}
+
+	/**
+	 * Every word of the search should be the prefix of some token of the entity,
+	 * the words are passed as parameters so the statement can be reused
+	 */
+	public static StringBuilder appendIndexClause(StringBuilder sb, String idPath, SearchToken.Type index, String search, Map<String, Object> params) {
+		List<String> terms = getSearchTokens(MAX_SEARCH_TERMS, search);
+		if (!terms.isEmpty()) {
+			params.put("indexType", index);
+		}
+		for (int i = 0; i < terms.size(); ++i) {
+			String param = "term" + i;
+			sb.append("AND ").append(idPath).append(" IN (SELECT st").append(i).append(".entityId FROM SearchToken st").append(i)
+				.append(" WHERE st").append(i).append(".type = :indexType AND st").append(i).append(".token LIKE :").append(param).append(") ");
+			params.put(param, terms.get(i) + "%");
+		}
+		return sb;
+	}
+
+	public static <T extends Query> T setParams(T q, Map<String, Object> params) {
+		for (Map.Entry<String, Object> me: params.entrySet()) {
+			q.setParameter(me.getKey(), me.getValue());
+		}
+		return q;
+	}
+
 	public static StringBuilder appendWhereClause(StringBuilder sb, String search, String alias, String... fields) {
 		if (!Strings.isEmpty(search) && fields != null) {
 			boolean notEmpty = false;
@@ -0,0 +1,92 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License") +  you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.openmeetings.db.util;
+
+import java.util.UUID;
+
+import org.apache.openjpa.event.AbstractRemoteCommitProvider;
+import org.apache.openjpa.event.RemoteCommitEvent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.hazelcast.core.HazelcastInstance;
+import com.hazelcast.topic.ITopic;
+import com.hazelcast.topic.Message;
+import com.hazelcast.topic.MessageListener;
+
+/**
+ * OpenJPA remote commit provider publishing commit events to the Hazelcast
+ * topic, so DataCache and QueryCache of other cluster nodes are kept in sync
+ *
+ * OpenJPA creates single event per transaction, cluster members are managed
+ * by Hazelcast, so no addresses need to be configured. Events committed
+ * before the provider is attached to Hazelcast instance are not published
+ *
+ * Usage: {@code <property name="openjpa.RemoteCommitProvider" value="org.apache.openmeetings.db.util.HazelcastRemoteCommitProvider" />}
+ */
+public class HazelcastRemoteCommitProvider extends AbstractRemoteCommitProvider implements MessageListener<RemoteCommitEvent> {
+	private static final Logger log = LoggerFactory.getLogger(HazelcastRemoteCommitProvider.class);
+	public static final String TOPIC_NAME = "openjpa";
+	private ITopic<RemoteCommitEvent> topic;
+	private UUID listenerId;
+
+	/**
+	 * Starts publishing/receiving commit events using given instance
+	 *
+	 * @param hazelcast - Hazelcast instance of this node
+	 */
+	public synchronized void attach(HazelcastInstance hazelcast) {
+		close();
+		ITopic<RemoteCommitEvent> t = hazelcast.getTopic(TOPIC_NAME);
+		listenerId = t.addMessageListener(this);
+		topic = t;
+		log.debug("Attached to cluster '{}'", hazelcast.getName());
+	}
+
+	@Override
+	public void broadcast(RemoteCommitEvent event) {
+		ITopic<RemoteCommitEvent> t = topic;
+		if (t == null) {
+			log.trace("Not attached, event is skipped");
+			return;
+		}
+		t.publish(event);
+	}
+
+	@Override
+	public void onMessage(Message<RemoteCommitEvent> msg) {
+		if (msg.getPublishingMember() != null && msg.getPublishingMember().localMember()) {
+			return;
+		}
+		fireEvent(msg.getMessageObject());
+	}
+
+	@Override
+	public synchronized void close() {
+		if (topic != null) {
+			try {
+				topic.removeMessageListener(listenerId);
+			} catch (RuntimeException e) {
+				log.warn("Unexpected error while detaching from cluster", e);
+			}
+			topic = null;
+			listenerId = null;
+		}
+	}
+}
@@ -57,6 +57,7 @@ public class RoomMessage implements IWebSocketPushMessage {
 		, WB_RELOAD
 		, MODERATOR_IN_ROOM
 		, WB_PUT_FILE
+		, WB_UPDATE_FILE
 	}
 	private final Date timestamp;
 	private final String uid;
@@ -0,0 +1,107 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License") +  you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.openmeetings.db.dao.file;
+
+import static org.apache.openmeetings.db.dao.file.StorageUsageDao.contribute;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.apache.openmeetings.db.dao.file.StorageUsageDao.State;
+import org.apache.openmeetings.db.entity.file.StorageUsage.Scope;
+import org.junit.jupiter.api.Test;
+
+class TestStorageUsage {
+	private static final long OWNER_ID = 7L;
+	private static final long ROOM_ID = 5L;
+	private static final long GROUP_ID = 9L;
+
+	private final Map<Long, State> tree = new HashMap<>();
+	private final Map<Scope, Map<Long, Long>> delta = new EnumMap<>(Scope.class);
+
+	private void add(long id, State s) {
+		tree.put(id, s);
+	}
+
+	private void contributeAll() {
+		tree.forEach((id, s) -> contribute(delta, id, s, s.size(), tree::get));
+	}
+
+	private Long get(Scope scope, long id) {
+		return delta.getOrDefault(scope, Map.of()).get(id);
+	}
+
+	/*
+	 * home: folder 1 / folder 2 / file 3
+	 * room: file 4
+	 */
+	private void fill(boolean deleted) {
+		add(1L, new State(null, OWNER_ID, null, null, deleted, 0));
+		add(2L, new State(1L, null, null, null, false, 0));
+		add(3L, new State(2L, null, null, null, false, 100));
+		add(4L, new State(null, null, ROOM_ID, GROUP_ID, false, 10));
+	}
+
+	@Test
+	void testTree() {
+		fill(false);
+		contributeAll();
+		assertEquals(100L, get(Scope.FOLDER, 2L));
+		assertEquals(100L, get(Scope.FOLDER, 1L));
+		assertEquals(100L, get(Scope.OWNER, OWNER_ID));
+		assertEquals(10L, get(Scope.ROOM, ROOM_ID));
+		assertEquals(10L, get(Scope.GROUP, GROUP_ID));
+	}
+
+	@Test
+	void testDeletedFolder() {
+		fill(true);
+		contributeAll();
+		assertEquals(100L, get(Scope.FOLDER, 2L), "Deleted folder contents should be counted in folders");
+		assertEquals(100L, get(Scope.FOLDER, 1L));
+		assertNull(get(Scope.OWNER, OWNER_ID), "Deleted folder contents should not be counted for owner");
+	}
+
+	@Test
+	void testMove() {
+		fill(false);
+		State prev = tree.get(2L);
+		State cur = new State(null, null, ROOM_ID, null, false, 0);
+		long folder = 100;
+		contribute(delta, 2L, prev, -(prev.size() + folder), tree::get);
+		contribute(delta, 2L, cur, cur.size() + folder, tree::get);
+		assertEquals(-100L, get(Scope.FOLDER, 1L));
+		assertEquals(-100L, get(Scope.OWNER, OWNER_ID));
+		assertEquals(100L, get(Scope.ROOM, ROOM_ID));
+		assertNull(get(Scope.FOLDER, 2L), "Moved folder should not be counted in itself");
+	}
+
+	@Test
+	void testCycle() {
+		add(1L, new State(2L, null, null, null, false, 0));
+		add(2L, new State(1L, null, null, null, false, 5));
+		contributeAll();
+		assertEquals(5L, get(Scope.FOLDER, 1L));
+		assertTrue(delta.keySet().stream().allMatch(s -> Scope.FOLDER == s));
+	}
+}
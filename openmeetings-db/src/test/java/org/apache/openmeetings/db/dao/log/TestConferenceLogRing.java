@@ -0,0 +1,89 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License") +  you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.openmeetings.db.dao.log;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.openmeetings.db.dao.log.ConferenceLogWriter.Ring;
+import org.junit.jupiter.api.Test;
+
+class TestConferenceLogRing {
+	private static final int PRODUCERS = 4;
+	private static final int ITEMS = 10_000;
+
+	@Test
+	void testOverflow() {
+		Ring<Integer> ring = new Ring<>(3);
+		assertTrue(ring.offer(1));
+		assertTrue(ring.offer(2));
+		assertTrue(ring.offer(3));
+		assertFalse(ring.offer(4), "Full buffer should reject new items");
+		assertEquals(3, ring.size());
+		assertEquals(1, ring.poll());
+		assertTrue(ring.offer(5), "Freed slot should be reused");
+		assertEquals(2, ring.poll());
+		assertEquals(3, ring.poll());
+		assertEquals(5, ring.poll());
+		assertNull(ring.poll());
+		assertEquals(0, ring.size());
+	}
+
+	@Test
+	void testConcurrent() throws InterruptedException {
+		final Ring<Integer> ring = new Ring<>(64);
+		final CountDownLatch done = new CountDownLatch(PRODUCERS);
+		final AtomicInteger rejected = new AtomicInteger();
+		for (int p = 0; p < PRODUCERS; ++p) {
+			final int base = p * ITEMS;
+			Thread t = new Thread(() -> {
+				for (int i = 0; i < ITEMS; ++i) {
+					while (!ring.offer(base + i)) {
+						rejected.incrementAndGet();
+						Thread.yield();
+					}
+				}
+				done.countDown();
+			});
+			t.setDaemon(true);
+			t.start();
+		}
+		Set<Integer> received = new HashSet<>();
+		long deadline = System.nanoTime() + TimeUnit.MINUTES.toNanos(1);
+		while (received.size() < PRODUCERS * ITEMS && System.nanoTime() < deadline) {
+			Integer i = ring.poll();
+			if (i == null) {
+				Thread.yield();
+			} else {
+				assertTrue(received.add(i), "Item should be received only once");
+			}
+		}
+		assertTrue(done.await(1, TimeUnit.MINUTES), "All items should be offered");
+		assertEquals(PRODUCERS * ITEMS, received.size(), "All items should be received");
+		assertNull(ring.poll());
+	}
+}
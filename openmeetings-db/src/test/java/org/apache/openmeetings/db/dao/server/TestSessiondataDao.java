@@ -0,0 +1,97 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License") +  you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.openmeetings.db.dao.server;
+
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+import java.util.Date;
+
+import javax.persistence.EntityManager;
+import javax.persistence.Query;
+
+import org.apache.openmeetings.db.entity.server.Sessiondata;
+import org.apache.openmeetings.db.manager.ISessiondataCache;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+@ExtendWith(MockitoExtension.class)
+class TestSessiondataDao {
+	private static final String SID = "sid";
+	@Mock
+	private EntityManager em;
+	@Mock
+	private ISessiondataCache cache;
+	@Mock
+	private Query query;
+	@InjectMocks
+	private SessiondataDao dao;
+
+	private static Sessiondata session(long refreshedAgo) {
+		Sessiondata sd = new Sessiondata();
+		sd.setId(1L);
+		sd.setSessionId(SID);
+		sd.setUserId(2L);
+		sd.setRefreshed(new Date(System.currentTimeMillis() - refreshedAgo));
+		return sd;
+	}
+
+	@Test
+	void testCheckCached() {
+		Sessiondata sd = session(0);
+		when(cache.get(SID)).thenReturn(sd);
+		for (int i = 0; i < 10; ++i) {
+			assertSame(sd, dao.check(SID));
+		}
+		verify(cache, never()).put(any());
+		verifyNoInteractions(em);
+	}
+
+	@Test
+	void testCheckCachedStale() {
+		Sessiondata sd = session(SessiondataDao.CACHE_REFRESH_INTERVAL + 1000);
+		when(cache.get(SID)).thenReturn(sd);
+		dao.check(SID);
+		verify(cache, times(1)).put(sd);
+		verifyNoInteractions(em);
+	}
+
+	@Test
+	void testFlushRefreshed() {
+		Sessiondata sd = session(0);
+		when(cache.get(SID)).thenReturn(sd);
+		when(em.createNamedQuery("updateSessionRefreshed")).thenReturn(query);
+		when(query.setParameter(anyString(), any())).thenReturn(query);
+		dao.check(SID);
+		dao.check(SID);
+		dao.flushRefreshed();
+		dao.flushRefreshed();
+		verify(query, times(1)).executeUpdate();
+		verify(query).setParameter("refreshed", sd.getRefreshed());
+	}
+}
@@ -0,0 +1,126 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License") +  you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.openmeetings.db.dto.room;
+
+import static org.apache.openmeetings.db.dto.room.Whiteboard.ATTR_FILE_ID;
+import static org.apache.openmeetings.db.dto.room.Whiteboard.ATTR_FILE_TYPE;
+import static org.apache.openmeetings.db.dto.room.Whiteboard.ATTR_OMTYPE;
+import static org.apache.openmeetings.db.dto.room.Whiteboard.ATTR_SLIDE;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Set;
+
+import org.apache.openmeetings.db.entity.file.BaseFileItem;
+import org.junit.jupiter.api.Test;
+
+import com.github.openjson.JSONArray;
+import com.github.openjson.JSONObject;
+
+class TestWhiteboard {
+	private static JSONObject item(String uid, int slide, String omType) {
+		return new JSONObject().put("uid", uid).put(ATTR_SLIDE, slide).put(ATTR_OMTYPE, omType);
+	}
+
+	@Test
+	void testIndexes() {
+		Whiteboard wb = new Whiteboard("test");
+		wb.put("1", item("1", 0, "path"));
+		wb.put("2", item("2", 1, "path"));
+		wb.put("3", item("3", 1, "Video").put(ATTR_FILE_ID, 5L));
+		wb.put("4", item("4", 1, "image").put(ATTR_FILE_ID, 6L)
+				.put(ATTR_FILE_TYPE, BaseFileItem.Type.PRESENTATION.name()));
+
+		assertEquals(1, wb.list(0).size());
+		assertEquals(3, wb.list(1).size());
+		assertEquals(1, wb.listByType("Video").size());
+		assertTrue(wb.hasFile("3", 5L));
+		assertFalse(wb.hasFile("3", 6L));
+		assertEquals(1, wb.listByFile(6L).size());
+
+		// move object to another slide
+		wb.put("2", item("2", 0, "path"));
+		assertEquals(2, wb.list(0).size());
+		assertEquals(2, wb.list(1).size());
+
+		JSONArray arr = wb.clearSlide(1);
+		assertEquals(1, arr.length(), "Presentation should not be removed");
+		assertEquals("3", arr.getJSONObject(0).getString("uid"));
+		assertFalse(wb.hasFile("3", 5L));
+		assertTrue(wb.listByType("Video").isEmpty());
+		assertEquals(3, wb.list().size());
+
+		assertEquals("4", wb.remove("4").getString("uid"));
+		assertNull(wb.get("4"));
+		assertTrue(wb.list(1).isEmpty());
+	}
+
+	@Test
+	void testCopy() {
+		Whiteboard wb = new Whiteboard("test");
+		wb.put("1", item("1", 0, "path"));
+		wb.get("1").put(ATTR_SLIDE, 1);
+		assertEquals(0, wb.get("1").getInt(ATTR_SLIDE), "Stored object should not be modified");
+
+		Whiteboard copy = new Whiteboard("copy");
+		copy.copyItems(wb);
+		assertEquals(1, copy.list(0).size());
+	}
+
+	@Test
+	void testSlideJson() {
+		Whiteboard wb = new Whiteboard("test");
+		wb.put("1", item("1", 0, "path"));
+		wb.put("2", item("2", 1, "path"));
+		wb.put("3", item("3", 1, "Video").put(ATTR_FILE_ID, 5L));
+		assertEquals(Set.of(0, 1), wb.getSlides());
+
+		String json = wb.getSlideJson(1);
+		assertSame(json, wb.getSlideJson(1), "Serialized slide should be cached");
+		JSONArray arr = new JSONArray(json);
+		assertEquals(1, arr.length(), "Files should not be included");
+		assertEquals("2", arr.getJSONObject(0).getString("uid"));
+		assertEquals(1, wb.listFiles(1).size());
+		assertEquals(1, wb.listFiles().size());
+
+		String json0 = wb.getSlideJson(0);
+		wb.put("4", item("4", 1, "path"));
+		assertEquals(2, new JSONArray(wb.getSlideJson(1)).length(), "Cache should be dropped on change");
+		assertSame(json0, wb.getSlideJson(0), "Other slides should stay cached");
+		wb.remove("2");
+		assertEquals(1, new JSONArray(wb.getSlideJson(1)).length());
+		wb.clear();
+		assertEquals(0, new JSONArray(wb.getSlideJson(0)).length());
+	}
+
+	@Test
+	void testToJson() {
+		Whiteboard wb = new Whiteboard("test");
+		wb.put("1", item("1", 2, "path"));
+		JSONObject json = wb.toJson();
+		assertFalse(json.has("id"));
+		assertFalse(json.has("empty"));
+		assertFalse(json.has("slides"), "Slide index should not be exported");
+		assertEquals("test", json.getString("name"));
+		assertEquals(1, json.getJSONObject(Whiteboard.ITEMS_KEY).length());
+	}
+}
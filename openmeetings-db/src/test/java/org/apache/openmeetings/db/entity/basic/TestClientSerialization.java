@@ -0,0 +1,180 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License") +  you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.openmeetings.db.entity.basic;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+
+import org.apache.openmeetings.db.entity.basic.Client.Activity;
+import org.apache.openmeetings.db.entity.basic.Client.StreamDesc;
+import org.apache.openmeetings.db.entity.basic.Client.StreamType;
+import org.apache.openmeetings.db.entity.room.Room;
+import org.apache.openmeetings.db.entity.room.Room.Right;
+import org.apache.openmeetings.db.entity.user.Address;
+import org.apache.openmeetings.db.entity.user.User;
+import org.apache.openmeetings.db.util.ClusterSerializableFactory;
+import org.apache.openmeetings.util.OmFileHelper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.hazelcast.internal.serialization.Data;
+import com.hazelcast.internal.serialization.InternalSerializationService;
+import com.hazelcast.internal.serialization.impl.DefaultSerializationServiceBuilder;
+
+class TestClientSerialization {
+	private static final Logger log = LoggerFactory.getLogger(TestClientSerialization.class);
+	private static final int ROUNDS = 2000;
+	private InternalSerializationService ss;
+
+	@BeforeEach
+	void setUp() {
+		ss = new DefaultSerializationServiceBuilder()
+				.addDataSerializableFactory(ClusterSerializableFactory.FACTORY_ID, new ClusterSerializableFactory())
+				.build();
+	}
+
+	private static Client getClient() {
+		Address a = new Address();
+		a.setEmail("john.doe@openmeetings.apache.org");
+		User u = new User();
+		u.setId(5L);
+		u.setLogin("john.doe");
+		u.setFirstname("John").setLastname("Doe");
+		u.setAddress(a);
+		Room r = new Room();
+		r.setId(7L);
+		r.setName("Conference room");
+		r.setType(Room.Type.CONFERENCE);
+		r.setComment("Public conference room");
+
+		Client c = new Client("sessionId", 1, u, "pictureUri");
+		c.setRoom(r).setCam(0).setMic(1).setWidth(320).setHeight(240);
+		c.setRemoteAddress("127.0.0.1");
+		c.setServerId("server");
+		c.allow(Right.AUDIO, Right.VIDEO, Right.WHITEBOARD);
+		c.set(Activity.AUDIO_VIDEO);
+		c.addStream(StreamType.WEBCAM);
+		return c;
+	}
+
+	private Client roundTrip(Client c) {
+		return ss.toObject(ss.toData(c));
+	}
+
+	private static byte[] toJava(Object o) throws IOException {
+		ByteArrayOutputStream bos = new ByteArrayOutputStream();
+		try (ObjectOutputStream oos = new ObjectOutputStream(bos)) {
+			oos.writeObject(o);
+		}
+		return bos.toByteArray();
+	}
+
+	private static Object fromJava(byte[] bytes) throws IOException, ClassNotFoundException {
+		try (ObjectInputStream ois = new ObjectInputStream(new ByteArrayInputStream(bytes))) {
+			return ois.readObject();
+		}
+	}
+
+	@Test
+	void testRoundTrip() {
+		Client c = getClient();
+		Client copy = roundTrip(c);
+		assertEquals(c.getUid(), copy.getUid());
+		assertEquals(c.getSid(), copy.getSid());
+		assertEquals(c.getSessionId(), copy.getSessionId());
+		assertEquals(c.getPageId(), copy.getPageId());
+		assertEquals(c.getUserId(), copy.getUserId());
+		assertEquals(c.getRoomId(), copy.getRoomId());
+		assertEquals(c.getServerId(), copy.getServerId());
+		assertEquals(c.getRemoteAddress(), copy.getRemoteAddress());
+		assertEquals(c.getPictureUri(), copy.getPictureUri());
+		assertEquals(c.getConnectedSince(), copy.getConnectedSince());
+		assertEquals(c.getCam(), copy.getCam());
+		assertEquals(c.getMic(), copy.getMic());
+		assertEquals(c.getWidth(), copy.getWidth());
+		assertEquals(c.getHeight(), copy.getHeight());
+		assertTrue(copy.hasRight(Right.WHITEBOARD));
+		assertTrue(copy.hasActivity(Activity.AUDIO));
+		StreamDesc sd = c.getStreams().get(0);
+		StreamDesc sdCopy = copy.getStream(sd.getUid());
+		assertEquals(sd.getActivities().size(), sdCopy.getActivities().size());
+		assertEquals(sd.getWidth(), sdCopy.getWidth());
+		assertEquals(copy, sdCopy.getClient());
+	}
+
+	@Test
+	void testSyntheticUser() {
+		User u = new User();
+		u.setId(OmFileHelper.SIP_USER_ID);
+		u.setFirstname("SIP Transport");
+		u.setLogin("sip");
+		u.setPictureUri("sip.png");
+		u.setLastname("(3)");
+		u.resetDisplayName();
+		Client c = new Client("-- unique - sip - session --", 1, u, u.getPictureUri());
+
+		Client copy = roundTrip(c);
+		User uCopy = copy.getUser();
+		assertNotNull(uCopy, "User not stored in DB should be passed with the client");
+		assertEquals(u.getId(), uCopy.getId());
+		assertEquals(u.getFirstname(), uCopy.getFirstname());
+		assertEquals(u.getLastname(), uCopy.getLastname());
+		assertEquals(u.getLogin(), uCopy.getLogin());
+		assertEquals(u.getPictureUri(), uCopy.getPictureUri());
+		assertEquals(u.getDisplayName(), uCopy.getDisplayName());
+	}
+
+	@Test
+	void testBenchmark() throws Exception {
+		Client c = getClient();
+		// previously User and Room were serialized together with the Client
+		Object[] graph = {c, c.getUser(), c.getRoom()};
+
+		// warm up
+		for (int i = 0; i < ROUNDS; ++i) {
+			fromJava(toJava(graph));
+			roundTrip(c);
+		}
+		byte[] java = toJava(graph);
+		Data data = ss.toData(c);
+		long start = System.nanoTime();
+		for (int i = 0; i < ROUNDS; ++i) {
+			fromJava(toJava(graph));
+		}
+		long before = System.nanoTime() - start;
+		start = System.nanoTime();
+		for (int i = 0; i < ROUNDS; ++i) {
+			roundTrip(c);
+		}
+		long after = System.nanoTime() - start;
+		log.info("Java serialization: {} bytes, {} us per ser/de", java.length, before / ROUNDS / 1000);
+		log.info("Cluster serialization: {} bytes, {} us per ser/de", data.totalSize(), after / ROUNDS / 1000);
+		assertTrue(data.totalSize() < java.length, "Cluster representation should be smaller");
+		assertEquals(c.getUid(), roundTrip(c).getUid());
+	}
+}
@@ -0,0 +1,103 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License") +  you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.openmeetings.db.util;
+
+import static java.util.UUID.randomUUID;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.after;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+
+import java.util.List;
+
+import org.apache.openjpa.event.RemoteCommitEvent;
+import org.apache.openjpa.event.RemoteCommitEventManager;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import com.hazelcast.config.Config;
+import com.hazelcast.config.JoinConfig;
+import com.hazelcast.core.Hazelcast;
+import com.hazelcast.core.HazelcastInstance;
+
+/**
+ * Two cluster members running in the same JVM
+ */
+class TestHazelcastRemoteCommitProvider {
+	private static HazelcastInstance node1;
+	private static HazelcastInstance node2;
+
+	private static HazelcastInstance start(String cluster) {
+		Config cfg = new Config();
+		cfg.setClusterName(cluster);
+		cfg.setProperty("hazelcast.logging.type", "slf4j");
+		JoinConfig join = cfg.getNetworkConfig().getJoin();
+		join.getMulticastConfig().setEnabled(false);
+		join.getAutoDetectionConfig().setEnabled(false);
+		join.getTcpIpConfig().setEnabled(true).addMember("127.0.0.1");
+		return Hazelcast.newHazelcastInstance(cfg);
+	}
+
+	@BeforeAll
+	static void setUp() {
+		String cluster = randomUUID().toString();
+		node1 = start(cluster);
+		node2 = start(cluster);
+	}
+
+	@AfterAll
+	static void tearDown() {
+		node1.shutdown();
+		node2.shutdown();
+	}
+
+	private static HazelcastRemoteCommitProvider provider(HazelcastInstance hazelcast, RemoteCommitEventManager mgr) {
+		HazelcastRemoteCommitProvider prov = new HazelcastRemoteCommitProvider();
+		prov.setRemoteCommitEventManager(mgr);
+		prov.attach(hazelcast);
+		return prov;
+	}
+
+	@Test
+	void test() {
+		assertEquals(2, node1.getCluster().getMembers().size(), "Nodes should form the cluster");
+		RemoteCommitEventManager mgr1 = mock(RemoteCommitEventManager.class);
+		RemoteCommitEventManager mgr2 = mock(RemoteCommitEventManager.class);
+		HazelcastRemoteCommitProvider prov1 = provider(node1, mgr1);
+		HazelcastRemoteCommitProvider prov2 = provider(node2, mgr2);
+		try {
+			prov1.broadcast(new RemoteCommitEvent(RemoteCommitEvent.PAYLOAD_OIDS
+					, null, null, List.of("User-1"), List.of("Room-2")));
+
+			ArgumentCaptor<RemoteCommitEvent> captor = ArgumentCaptor.forClass(RemoteCommitEvent.class);
+			verify(mgr2, timeout(10000)).fireEvent(captor.capture());
+			assertEquals(List.of("User-1"), List.copyOf(captor.getValue().getUpdatedObjectIds()));
+			assertEquals(List.of("Room-2"), List.copyOf(captor.getValue().getDeletedObjectIds()));
+			verify(mgr1, after(1000).never()).fireEvent(any());
+		} finally {
+			prov1.close();
+			prov2.close();
+		}
+	}
+}
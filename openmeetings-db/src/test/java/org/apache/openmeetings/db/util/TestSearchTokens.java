@@ -0,0 +1,61 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License") +  you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.openmeetings.db.util;
+
+import static org.apache.openmeetings.db.util.DaoHelper.MAX_SEARCH_TERMS;
+import static org.apache.openmeetings.db.util.DaoHelper.appendIndexClause;
+import static org.apache.openmeetings.db.util.DaoHelper.getSearchTokens;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.openmeetings.db.entity.basic.SearchToken;
+import org.junit.jupiter.api.Test;
+
+class TestSearchTokens {
+	@Test
+	void testTokens() {
+		assertEquals(List.of("john", "smith", "j", "doe", "example", "com")
+				, getSearchTokens(10, "John  Smith", null, "", "j.doe@example.com", "SMITH"));
+		assertEquals(List.of("m\u00fcller", "123"), getSearchTokens(10, "M\u00dcller-123"));
+		assertEquals(List.of("a", "b"), getSearchTokens(2, "a b c"));
+		assertEquals(SearchToken.MAX_LENGTH, getSearchTokens(1, "x".repeat(100)).get(0).length());
+	}
+
+	@Test
+	void testClause() {
+		Map<String, Object> params = new HashMap<>();
+		String clause = appendIndexClause(new StringBuilder(), "u.id", SearchToken.Type.USER, "Jo' OR 1=1", params).toString();
+		assertFalse(clause.contains("Jo"), "Search should not be inlined");
+		assertEquals("jo%", params.get("term0"));
+		assertEquals("or%", params.get("term1"));
+		assertEquals(SearchToken.Type.USER, params.get("indexType"));
+
+		params.clear();
+		assertTrue(appendIndexClause(new StringBuilder(), "u.id", SearchToken.Type.USER, " -- ", params).toString().isEmpty());
+		assertTrue(params.isEmpty());
+
+		appendIndexClause(new StringBuilder(), "u.id", SearchToken.Type.USER, "a b c d e f g", params);
+		assertEquals(MAX_SEARCH_TERMS + 1, params.size());
+	}
+}
@@ -18,6 +18,7 @@
  */
 package org.apache.openmeetings.backup;
 
+import static java.nio.charset.StandardCharsets.UTF_8;
 import static org.apache.openmeetings.db.bind.Constants.APPOINTMENT_LIST_NODE;
 import static org.apache.openmeetings.db.bind.Constants.CALENDAR_LIST_NODE;
 import static org.apache.openmeetings.db.bind.Constants.CFG_LIST_NODE;
@@ -26,6 +27,7 @@ import static org.apache.openmeetings.db.bind.Constants.CONTACT_LIST_NODE;
 import static org.apache.openmeetings.db.bind.Constants.FILE_LIST_NODE;
 import static org.apache.openmeetings.db.bind.Constants.GROUP_LIST_NODE;
 import static org.apache.openmeetings.db.bind.Constants.LDAP_LIST_NODE;
+import static org.apache.openmeetings.db.bind.Constants.MARK_LIST_NODE;
 import static org.apache.openmeetings.db.bind.Constants.MMEMBER_LIST_NODE;
 import static org.apache.openmeetings.db.bind.Constants.MSG_FOLDER_LIST_NODE;
 import static org.apache.openmeetings.db.bind.Constants.MSG_LIST_NODE;
@@ -46,21 +48,28 @@ import static org.apache.openmeetings.util.OmFileHelper.getCustomCss;
 import static org.apache.openmeetings.util.OmFileHelper.getStreamsHibernateDir;
 import static org.apache.openmeetings.util.OmFileHelper.getUploadDir;
 
+import java.io.BufferedWriter;
 import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
 import java.io.OutputStreamWriter;
+import java.io.Writer;
 import java.net.URI;
 import java.nio.file.Files;
 import java.nio.file.Paths;
 import java.nio.file.StandardOpenOption;
+import java.util.Date;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipOutputStream;
 
 import javax.xml.bind.JAXBContext;
+import javax.xml.bind.JAXBException;
 import javax.xml.bind.Marshaller;
 
 import org.apache.commons.io.FileUtils;
@@ -82,7 +91,10 @@ import org.apache.openmeetings.db.dao.user.UserContactDao;
 import org.apache.openmeetings.db.dao.user.UserDao;
 import org.apache.openmeetings.db.entity.basic.ChatMessage;
 import org.apache.openmeetings.db.entity.basic.Configuration;
+import org.apache.openmeetings.db.entity.HistoricalEntity;
+import org.apache.openmeetings.db.entity.IDataProviderEntity;
 import org.apache.openmeetings.db.entity.calendar.Appointment;
+import org.apache.openmeetings.db.entity.calendar.MeetingMember;
 import org.apache.openmeetings.db.entity.calendar.OmCalendar;
 import org.apache.openmeetings.db.entity.file.FileItem;
 import org.apache.openmeetings.db.entity.record.Recording;
@@ -101,6 +113,15 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
 /**
+ * Writes backup zip
+ *
+ * Tables are streamed directly into zip entries, big tables are read by pages
+ * using keyset pagination, so memory consumption does not depend on DB size
+ *
+ * Incremental backup contains only entities inserted, updated or deleted after
+ * given date (usually the end of previous backup, stored in {@link BackupMark}),
+ * big tables are filtered by the date in DB (using indexes on the timestamps),
+ * small link tables are always stored completely
  *
  * @author sebastianwagner
  *
@@ -114,6 +135,8 @@ public class BackupExport {
 			+ "you should use the BackupPanel to modify or change this file\n"
 			+ "see https://openmeetings.apache.org/Upgrade.html for Details\n"
 			+ "###############################################\n";
+	static final int PAGE_SIZE = 1000;
+	private static final Map<Class<?>, JAXBContext> contexts = new ConcurrentHashMap<>();
 
 	@Autowired
 	private AppointmentDao appointmentDao;
@@ -148,7 +171,55 @@ public class BackupExport {
 	@Autowired
 	private RoomDao roomDao;
 
+	@FunctionalInterface
+	private interface Pager<T> {
+		/**
+		 * @param id - id of the last exported entity, {@code 0} for the first page
+		 * @return next page of detached entities ordered by id, only entities changed
+		 *	since the previous backup for incremental backup
+		 */
+		List<T> next(Long id);
+	}
+
+	/**
+	 * Reports progress of the table export within given range
+	 */
+	private static class Step {
+		private final ProgressHolder holder;
+		private final int from;
+		private final int to;
+		private long total;
+		private long exported;
+
+		Step(ProgressHolder holder, int from, int to) {
+			this.holder = holder;
+			this.from = from;
+			this.to = to;
+		}
+
+		void done(int count) {
+			exported += count;
+			if (total > 0) {
+				holder.setProgress(from + (int)((to - from) * Math.min(exported, total) / total));
+			}
+		}
+	}
+
 	public void performExport(File zip, boolean includeFiles, ProgressHolder progressHolder) throws Exception {
+		performExport(zip, includeFiles, null, progressHolder);
+	}
+
+	/**
+	 * Writes backup zip
+	 *
+	 * @param zip - file to write backup to
+	 * @param includeFiles - should uploaded files and recordings be added
+	 * @param since - if not {@code null} only changes made after this date will be stored (incremental backup)
+	 * @param progressHolder - holder to report progress
+	 * @throws Exception in case of any error
+	 */
+	public void performExport(File zip, boolean includeFiles, Date since, ProgressHolder progressHolder) throws Exception {
+		final Date until = new Date();
 		if (zip.getParentFile() != null && !zip.getParentFile().exists()) {
 			zip.getParentFile().mkdirs();
 		}
@@ -158,69 +229,70 @@ public class BackupExport {
 			 * ##################### Backup Groups
 			 */
 			writeList(zos, "version.xml", VERSION_LIST_NODE, List.of(BackupVersion.get()));
+			writeList(zos, BackupMark.MARK_FILE, MARK_LIST_NODE, List.of(new BackupMark(since, until)));
 			progressHolder.setProgress(2);
-			exportGroups(zos);
+			exportGroups(zos, since);
 			progressHolder.setProgress(5);
-			exportUsers(zos);
+			exportUsers(zos, since, new Step(progressHolder, 5, 10));
 			progressHolder.setProgress(10);
-			exportRoom(zos);
+			exportRoom(zos, since);
 			progressHolder.setProgress(15);
-			exportRoomGroup(zos);
+			exportRoomGroup(zos, since);
 			progressHolder.setProgress(17);
-			exportRoomFile(zos);
+			exportRoomFile(zos, since);
 			progressHolder.setProgress(17);
-			exportCalendar(zos);
+			exportCalendar(zos, since);
 			progressHolder.setProgress(22);
-			exportAppointment(zos);
+			exportAppointment(zos, since, new Step(progressHolder, 22, 25));
 			progressHolder.setProgress(25);
-			exportMeetingMember(zos);
+			exportMeetingMember(zos, since, new Step(progressHolder, 25, 30));
 			progressHolder.setProgress(30);
-			exportLdap(zos);
+			exportLdap(zos, since);
 			progressHolder.setProgress(35);
-			exportOauth(zos);
+			exportOauth(zos, since);
 			progressHolder.setProgress(45);
-			exportPrivateMsg(zos);
+			exportPrivateMsg(zos, since, new Step(progressHolder, 45, 50));
 			progressHolder.setProgress(50);
-			exportPrivateMsgFolder(zos);
+			exportPrivateMsgFolder(zos, since);
 			progressHolder.setProgress(55);
-			exportContacts(zos);
+			exportContacts(zos, since);
 			progressHolder.setProgress(60);
-			exportFile(zos);
+			exportFile(zos, since);
 			progressHolder.setProgress(65);
-			exportRecording(zos);
+			exportRecording(zos, since);
 			progressHolder.setProgress(70);
-			exportPoll(zos);
+			exportPoll(zos, since);
 			progressHolder.setProgress(75);
-			exportConfig(zos);
+			exportConfig(zos, since);
 			progressHolder.setProgress(80);
-			exportChat(zos);
+			exportChat(zos, since, new Step(progressHolder, 80, 85));
 			progressHolder.setProgress(85);
 
 			if (includeFiles) {
-				exportFiles(progressHolder, zos);
+				exportFiles(progressHolder, zos, since);
 			}
 		}
 		progressHolder.setProgress(100);
 		log.debug("---Done");
 	}
 
-	private void exportFiles(ProgressHolder progressHolder, ZipOutputStream zos) throws IOException {
+	private void exportFiles(ProgressHolder progressHolder, ZipOutputStream zos, Date since) throws IOException {
 		//##################### Backup Room Files
 		for (File file : getUploadDir().listFiles()) {
 			String fName = file.getName();
 			if (file.isDirectory() && !IMPORT_DIR.equals(fName) && !BACKUP_DIR.equals(fName)) {
 				log.debug("### {}", file.getName());
-				writeZipDir(BCKP_ROOM_FILES, file.getParentFile().toURI(), file, zos);
+				writeZipDir(BCKP_ROOM_FILES, file.getParentFile().toURI(), file, zos, since);
 			}
 		}
 
 		//##################### Backup Recording Files
 		final File recDir = getStreamsHibernateDir();
-		writeZipDir(BCKP_RECORD_FILES, recDir.toURI(), recDir, zos);
+		writeZipDir(BCKP_RECORD_FILES, recDir.toURI(), recDir, zos, since);
 		progressHolder.setProgress(90);
 
 		final File customCss = getCustomCss();
-		if (customCss != null && customCss.exists() && customCss.isFile()) {
+		if (customCss != null && customCss.exists() && customCss.isFile() && modified(customCss, since)) {
 			writeZip(CSS_DIR, customCss.getParentFile().toURI(), customCss, zos);
 		}
 	}
@@ -228,145 +300,150 @@ public class BackupExport {
 	/*
 	 * ##################### Backup  Groups
 	 */
-	private void exportGroups(ZipOutputStream zos) throws Exception {
+	private void exportGroups(ZipOutputStream zos, Date since) throws Exception {
 		List<Group> list = groupDao.get(0, Integer.MAX_VALUE);
-		writeList(zos, "organizations.xml", GROUP_LIST_NODE, list);
+		writeList(zos, since, "organizations.xml", GROUP_LIST_NODE, list);
 	}
 
 	/*
 	 * ##################### Backup Users
 	 */
-	private void exportUsers(ZipOutputStream zos) throws Exception {
-		List<User> list = userDao.getAllBackupUsers();
-		writeList(zos, "users.xml", USER_LIST_NODE, list);
+	private void exportUsers(ZipOutputStream zos, Date since, Step step) throws Exception {
+		step.total = userDao.countAll();
+		writeList(zos, "users.xml", USER_LIST_NODE
+				, (Pager<User>)id -> userDao.getBackupUsersAfter(id, since, PAGE_SIZE), step);
 	}
 
 	/*
 	 * ##################### Backup Room
 	 */
-	private void exportRoom(ZipOutputStream zos) throws Exception {
+	private void exportRoom(ZipOutputStream zos, Date since) throws Exception {
 		List<Room> list = roomDao.get();
-		writeList(zos, "rooms.xml", ROOM_LIST_NODE, list);
+		writeList(zos, since, "rooms.xml", ROOM_LIST_NODE, list);
 	}
 
 	/*
 	 * ##################### Backup Room Groups
 	 */
-	private void exportRoomGroup(ZipOutputStream zos) throws Exception {
-		writeList(zos, "rooms_organisation.xml", ROOM_GRP_LIST_NODE, roomDao.getGroups());
+	private void exportRoomGroup(ZipOutputStream zos, Date since) throws Exception {
+		writeList(zos, since, "rooms_organisation.xml", ROOM_GRP_LIST_NODE, roomDao.getGroups());
 	}
 
 	/*
 	 * ##################### Backup Room Files
 	 */
-	private void exportRoomFile(ZipOutputStream zos) throws Exception {
-		writeList(zos, "roomFiles.xml", ROOM_FILE_LIST_NODE, roomDao.getFiles());
+	private void exportRoomFile(ZipOutputStream zos, Date since) throws Exception {
+		writeList(zos, since, "roomFiles.xml", ROOM_FILE_LIST_NODE, roomDao.getFiles());
 	}
 
 	/*
 	 * ##################### Backup Calendars
 	 */
-	private void exportCalendar(ZipOutputStream zos) throws Exception {
+	private void exportCalendar(ZipOutputStream zos, Date since) throws Exception {
 		List<OmCalendar> list = calendarDao.get();
-		writeList(zos, "calendars.xml", CALENDAR_LIST_NODE, list);
+		writeList(zos, since, "calendars.xml", CALENDAR_LIST_NODE, list);
 	}
 
 	/*
 	 * ##################### Backup Appointments
 	 */
-	private void exportAppointment(ZipOutputStream zos) throws Exception {
-		List<Appointment> list = appointmentDao.get();
-		writeList(zos, "appointements.xml", APPOINTMENT_LIST_NODE, list);
+	private void exportAppointment(ZipOutputStream zos, Date since, Step step) throws Exception {
+		step.total = appointmentDao.count();
+		writeList(zos, "appointements.xml", APPOINTMENT_LIST_NODE
+				, (Pager<Appointment>)id -> appointmentDao.getAfter(id, since, PAGE_SIZE), step);
 	}
 
 	/*
 	 * ##################### Backup Meeting Members
 	 */
-	private void exportMeetingMember(ZipOutputStream zos) throws Exception {
-		writeList(zos, "meetingmembers.xml",
-				MMEMBER_LIST_NODE, meetingMemberDao.get());
+	private void exportMeetingMember(ZipOutputStream zos, Date since, Step step) throws Exception {
+		step.total = meetingMemberDao.count();
+		writeList(zos, "meetingmembers.xml", MMEMBER_LIST_NODE
+				, (Pager<MeetingMember>)id -> meetingMemberDao.getAfter(id, since, PAGE_SIZE), step);
 	}
 
 	/*
 	 * ##################### LDAP Configs
 	 */
-	private void exportLdap(ZipOutputStream zos) throws Exception {
+	private void exportLdap(ZipOutputStream zos, Date since) throws Exception {
 		List<LdapConfig> ldapList = ldapConfigDao.get();
 		if (!ldapList.isEmpty()) {
 			ldapList.remove(0);
 		}
-		writeList(zos, "ldapconfigs.xml", LDAP_LIST_NODE, ldapList);
+		writeList(zos, since, "ldapconfigs.xml", LDAP_LIST_NODE, ldapList);
 	}
 
 	/*
 	 * ##################### OAuth2 servers
 	 */
-	private void exportOauth(ZipOutputStream zos) throws Exception {
+	private void exportOauth(ZipOutputStream zos, Date since) throws Exception {
 		List<OAuthServer> list = auth2Dao.get(0, Integer.MAX_VALUE);
-		writeList(zos, "oauth2servers.xml", OAUTH_LIST_NODE, list);
+		writeList(zos, since, "oauth2servers.xml", OAUTH_LIST_NODE, list);
 	}
 
 	/*
 	 * ##################### Private Messages
 	 */
-	private void exportPrivateMsg(ZipOutputStream zos) throws Exception {
-		List<PrivateMessage> list = privateMessageDao.get(0, Integer.MAX_VALUE);
-		writeList(zos, "privateMessages.xml", MSG_LIST_NODE, list);
+	private void exportPrivateMsg(ZipOutputStream zos, Date since, Step step) throws Exception {
+		step.total = privateMessageDao.count();
+		writeList(zos, "privateMessages.xml", MSG_LIST_NODE
+				, (Pager<PrivateMessage>)id -> privateMessageDao.getAfter(id, since, PAGE_SIZE), step);
 	}
 
 	/*
 	 * ##################### Private Message Folders
 	 */
-	private void exportPrivateMsgFolder(ZipOutputStream zos) throws Exception {
-		writeList(zos, "privateMessageFolder.xml",
+	private void exportPrivateMsgFolder(ZipOutputStream zos, Date since) throws Exception {
+		writeList(zos, since, "privateMessageFolder.xml",
 				MSG_FOLDER_LIST_NODE, privateMessageFolderDao.get(0, Integer.MAX_VALUE));
 	}
 
 	/*
 	 * ##################### User Contacts
 	 */
-	private void exportContacts(ZipOutputStream zos) throws Exception {
-		writeList(zos, "userContacts.xml", CONTACT_LIST_NODE, userContactDao.get());
+	private void exportContacts(ZipOutputStream zos, Date since) throws Exception {
+		writeList(zos, since, "userContacts.xml", CONTACT_LIST_NODE, userContactDao.get());
 	}
 
 	/*
 	 * ##################### File-Explorer
 	 */
-	private void exportFile(ZipOutputStream zos) throws Exception {
+	private void exportFile(ZipOutputStream zos, Date since) throws Exception {
 		List<FileItem> list = fileItemDao.get();
-		writeList(zos, "fileExplorerItems.xml", FILE_LIST_NODE, list);
+		writeList(zos, since, "fileExplorerItems.xml", FILE_LIST_NODE, list);
 	}
 
 	/*
 	 * ##################### Recordings
 	 */
-	private void exportRecording(ZipOutputStream zos) throws Exception {
+	private void exportRecording(ZipOutputStream zos, Date since) throws Exception {
 		List<Recording> list = recordingDao.get();
-		writeList(zos, "flvRecordings.xml", RECORDING_LIST_NODE, list);
+		writeList(zos, since, "flvRecordings.xml", RECORDING_LIST_NODE, list);
 	}
 
 	/*
 	 * ##################### Polls
 	 */
-	private void exportPoll(ZipOutputStream zos) throws Exception {
+	private void exportPoll(ZipOutputStream zos, Date since) throws Exception {
 		List<RoomPoll> list = pollManager.get();
-		writeList(zos, "roompolls.xml", POLL_LIST_NODE, list);
+		writeList(zos, since, "roompolls.xml", POLL_LIST_NODE, list);
 	}
 
 	/*
 	 * ##################### Config
 	 */
-	private void exportConfig(ZipOutputStream zos) throws Exception {
+	private void exportConfig(ZipOutputStream zos, Date since) throws Exception {
 		List<Configuration> list = configurationDao.get(0, Integer.MAX_VALUE);
-		writeList(zos, "configs.xml", CFG_LIST_NODE, list);
+		writeList(zos, since, "configs.xml", CFG_LIST_NODE, list);
 	}
 
 	/*
 	 * ##################### Chat
 	 */
-	private void exportChat(ZipOutputStream zos) throws Exception {
-		List<ChatMessage> list = chatDao.get(0, Integer.MAX_VALUE);
-		writeList(zos, "chat_messages.xml", CHAT_LIST_NODE, list);
+	private void exportChat(ZipOutputStream zos, Date since, Step step) throws Exception {
+		step.total = chatDao.count();
+		writeList(zos, "chat_messages.xml", CHAT_LIST_NODE
+				, (Pager<ChatMessage>)id -> chatDao.getAfter(id, since, PAGE_SIZE), step);
 	}
 
 	/*
@@ -378,38 +455,113 @@ public class BackupExport {
 		return baos;
 	}
 
+	static JAXBContext getContext(Class<?> clazz) throws JAXBException {
+		JAXBContext jc = contexts.get(clazz);
+		if (jc == null) {
+			jc = JAXBContext.newInstance(clazz);
+			contexts.put(clazz, jc);
+		}
+		return jc;
+	}
+
+	/**
+	 * @param o - entity to check
+	 * @param since - date of previous backup, {@code null} for full backup
+	 * @return {@code true} if entity was created or modified after given date,
+	 *	entities without timestamps are always treated as changed
+	 */
+	static boolean changed(Object o, Date since) {
+		if (since == null) {
+			return true;
+		}
+		Date d = null;
+		if (o instanceof HistoricalEntity) {
+			HistoricalEntity he = (HistoricalEntity)o;
+			d = he.getUpdated() == null ? he.getInserted() : he.getUpdated();
+		} else if (o instanceof ChatMessage) {
+			d = ((ChatMessage)o).getSent();
+		} else if (o instanceof PrivateMessage) {
+			d = ((PrivateMessage)o).getInserted();
+		} else if (o instanceof RoomPoll) {
+			d = ((RoomPoll)o).getCreated();
+		} else {
+			return true;
+		}
+		return d == null || !d.before(since);
+	}
+
+	private static boolean modified(File f, Date since) {
+		return since == null || f.lastModified() >= since.getTime();
+	}
+
 	private static <T> void writeList(ZipOutputStream zos, String fileName, String listElement, List<T> list) throws Exception {
-		ZipEntry e = new ZipEntry(fileName);
-		zos.putNextEntry(e);
-		ByteArrayOutputStream baos = stream(listElement, list);
-		zos.write(baos.toByteArray());
+		zos.putNextEntry(new ZipEntry(fileName));
+		writeList(zos, listElement, list);
+		zos.closeEntry();
+	}
+
+	private static <T> void writeList(ZipOutputStream zos, Date since, String fileName, String listElement, List<T> list) throws Exception {
+		writeList(zos, fileName, listElement, since == null ? list
+				: list.stream().filter(o -> changed(o, since)).collect(Collectors.toList()));
+	}
+
+	private static <T extends IDataProviderEntity> void writeList(ZipOutputStream zos, String fileName, String listElement
+			, Pager<T> pager, Step step) throws Exception
+	{
+		zos.putNextEntry(new ZipEntry(fileName));
+		Writer w = writeHeader(zos, listElement);
+		Marshaller marshaller = null;
+		List<T> page = pager.next(0L);
+		while (!page.isEmpty()) {
+			if (marshaller == null) {
+				marshaller = createMarshaller(page.get(0).getClass());
+			}
+			for (T t : page) {
+				marshaller.marshal(t, w);
+				w.write("\n");
+			}
+			step.done(page.size());
+			page = page.size() < PAGE_SIZE ? List.of() : pager.next(page.get(page.size() - 1).getId());
+		}
+		writeFooter(w, listElement);
 		zos.closeEntry();
 	}
 
 	private static <T> void writeList(OutputStream os, String listElement, List<T> list) throws Exception {
-		try (OutputStreamWriter sw = new OutputStreamWriter(os)) {
-			sw.write("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n");
-			sw.write("<!--");
-			sw.write(BACKUP_COMMENT);
-			sw.write("-->\n");
-			sw.write("<root>\n");
-			sw.write("<" + listElement + ">\n");
-
-			if (list != null && !list.isEmpty()) {
-				@SuppressWarnings("unchecked")
-				Class<T> eClazz = (Class<T>)list.get(0).getClass();
-				JAXBContext jc = JAXBContext.newInstance(eClazz);
-				Marshaller marshaller = jc.createMarshaller();
-				marshaller.setProperty(Marshaller.JAXB_FORMATTED_OUTPUT, true);
-				marshaller.setProperty(Marshaller.JAXB_FRAGMENT, true);
-				for (T t : list) {
-					marshaller.marshal(t, sw);
-					sw.write("\n");
-				}
+		Writer w = writeHeader(os, listElement);
+		if (list != null && !list.isEmpty()) {
+			Marshaller marshaller = createMarshaller(list.get(0).getClass());
+			for (T t : list) {
+				marshaller.marshal(t, w);
+				w.write("\n");
 			}
-			sw.write("</" + listElement + ">\n");
-			sw.write("</root>\n");
 		}
+		writeFooter(w, listElement);
+	}
+
+	private static Marshaller createMarshaller(Class<?> clazz) throws JAXBException {
+		Marshaller marshaller = getContext(clazz).createMarshaller();
+		marshaller.setProperty(Marshaller.JAXB_FORMATTED_OUTPUT, true);
+		marshaller.setProperty(Marshaller.JAXB_FRAGMENT, true);
+		return marshaller;
+	}
+
+	private static Writer writeHeader(OutputStream os, String listElement) throws IOException {
+		// writer is not closed, underlying stream (zip) should stay open
+		Writer w = new BufferedWriter(new OutputStreamWriter(os, UTF_8));
+		w.write("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n");
+		w.write("<!--");
+		w.write(BACKUP_COMMENT);
+		w.write("-->\n");
+		w.write("<root>\n");
+		w.write("<" + listElement + ">\n");
+		return w;
+	}
+
+	private static void writeFooter(Writer w, String listElement) throws IOException {
+		w.write("</" + listElement + ">\n");
+		w.write("</root>\n");
+		w.flush();
 	}
 
 	private static void writeZip(String prefix, URI base, File file, ZipOutputStream zos) throws IOException {
@@ -422,11 +574,11 @@ public class BackupExport {
 		zos.closeEntry();
 	}
 
-	private void writeZipDir(String prefix, URI base, File dir, ZipOutputStream zos) throws IOException {
+	private void writeZipDir(String prefix, URI base, File dir, ZipOutputStream zos, Date since) throws IOException {
 		for (File file : dir.listFiles()) {
 			if (file.isDirectory()) {
-				writeZipDir(prefix, base, file, zos);
-			} else {
+				writeZipDir(prefix, base, file, zos, since);
+			} else if (modified(file, since)) {
 				writeZip(prefix, base, file, zos);
 			}
 		}
@@ -34,6 +34,8 @@ import static org.apache.openmeetings.db.bind.Constants.FILE_LIST_NODE;
 import static org.apache.openmeetings.db.bind.Constants.FILE_NODE;
 import static org.apache.openmeetings.db.bind.Constants.GROUP_LIST_NODE;
 import static org.apache.openmeetings.db.bind.Constants.GROUP_NODE;
+import static org.apache.openmeetings.db.bind.Constants.MARK_LIST_NODE;
+import static org.apache.openmeetings.db.bind.Constants.MARK_NODE;
 import static org.apache.openmeetings.db.bind.Constants.MMEMBER_LIST_NODE;
 import static org.apache.openmeetings.db.bind.Constants.MMEMBER_NODE;
 import static org.apache.openmeetings.db.bind.Constants.MSG_FOLDER_LIST_NODE;
@@ -86,6 +88,8 @@ import static org.apache.openmeetings.util.OmFileHelper.getUploadFilesDir;
 import static org.apache.openmeetings.util.OmFileHelper.getUploadProfilesUserDir;
 import static org.apache.openmeetings.util.OmFileHelper.getUploadWmlDir;
 import static org.apache.openmeetings.util.OpenmeetingsVariables.CONFIG_APPOINTMENT_REMINDER_MINUTES;
+import static org.apache.openmeetings.util.OpenmeetingsVariables.CONFIG_BACKUP_BATCH_SIZE;
+import static org.apache.openmeetings.util.OpenmeetingsVariables.CONFIG_BACKUP_THREADS;
 import static org.apache.openmeetings.util.OpenmeetingsVariables.CONFIG_CALENDAR_ROOM_CAPACITY;
 import static org.apache.openmeetings.util.OpenmeetingsVariables.CONFIG_CAM_FPS;
 import static org.apache.openmeetings.util.OpenmeetingsVariables.CONFIG_CRYPT;
@@ -113,6 +117,10 @@ import static org.apache.openmeetings.util.OpenmeetingsVariables.CONFIG_MIC_ECHO
 import static org.apache.openmeetings.util.OpenmeetingsVariables.CONFIG_MIC_NOISE;
 import static org.apache.openmeetings.util.OpenmeetingsVariables.CONFIG_MIC_RATE;
 import static org.apache.openmeetings.util.OpenmeetingsVariables.CONFIG_MYROOMS_ENABLED;
+import static org.apache.openmeetings.util.OpenmeetingsVariables.CONFIG_OFFICE_FIRST_PORT;
+import static org.apache.openmeetings.util.OpenmeetingsVariables.CONFIG_OFFICE_MAX_TASKS;
+import static org.apache.openmeetings.util.OpenmeetingsVariables.CONFIG_OFFICE_POOL_SIZE;
+import static org.apache.openmeetings.util.OpenmeetingsVariables.CONFIG_OFFICE_QUEUE_SIZE;
 import static org.apache.openmeetings.util.OpenmeetingsVariables.CONFIG_PASS_MIN_LENGTH;
 import static org.apache.openmeetings.util.OpenmeetingsVariables.CONFIG_PATH_FFMPEG;
 import static org.apache.openmeetings.util.OpenmeetingsVariables.CONFIG_PATH_IMAGEMAGIC;
@@ -147,11 +155,15 @@ import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
@@ -159,6 +171,12 @@ import java.util.Map.Entry;
 import java.util.Objects;
 import java.util.Set;
 import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.BiConsumer;
 import java.util.function.Consumer;
 import java.util.regex.Pattern;
@@ -235,10 +253,21 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
+/**
+ * Restores backup zip
+ *
+ * Entity types are imported in phases, phases which do not depend on each
+ * other are executed in parallel, copying of uploaded files is performed along
+ * with import of remaining DB entities. Entities which are not referenced by
+ * other entities are stored in batches
+ */
 @Component
 public class BackupImport {
 	private static final Logger log = LoggerFactory.getLogger(BackupImport.class);
+	public static final int DEFAULT_BATCH_SIZE = 100;
 	private static final Map<String, String> outdatedConfigKeys = Map.ofEntries(
 			entry("crypt_ClassName", CONFIG_CRYPT)
 			, entry("system_email_addr", CONFIG_SMTP_SYSTEM_EMAIL)
@@ -311,6 +340,12 @@ public class BackupImport {
 			, entry(CONFIG_MIC_NOISE, Configuration.Type.BOOL)
 			, entry(CONFIG_EXT_PROCESS_TTL, Configuration.Type.NUMBER)
 			, entry(CONFIG_RECORDING_ENABLED, Configuration.Type.BOOL)
+			, entry(CONFIG_OFFICE_POOL_SIZE, Configuration.Type.NUMBER)
+			, entry(CONFIG_OFFICE_MAX_TASKS, Configuration.Type.NUMBER)
+			, entry(CONFIG_OFFICE_QUEUE_SIZE, Configuration.Type.NUMBER)
+			, entry(CONFIG_OFFICE_FIRST_PORT, Configuration.Type.NUMBER)
+			, entry(CONFIG_BACKUP_BATCH_SIZE, Configuration.Type.NUMBER)
+			, entry(CONFIG_BACKUP_THREADS, Configuration.Type.NUMBER)
 			);
 	private static final Pattern UUID_PATTERN = Pattern.compile("^[\\da-f]{8}(?:-[\\da-f]{4}){3}-[\\da-f]{12}$");
 
@@ -348,19 +383,32 @@ public class BackupImport {
 	private GroupDao groupDao;
 	@Autowired
 	private DocumentConverter docConverter;
-
-	private final Map<Long, Long> ldapMap = new HashMap<>();
-	private final Map<Long, Long> oauthMap = new HashMap<>();
-	private final Map<Long, Long> userMap = new HashMap<>();
-	private final Map<Long, Long> groupMap = new HashMap<>();
-	private final Map<Long, Long> calendarMap = new HashMap<>();
-	private final Map<Long, Long> appointmentMap = new HashMap<>();
-	private final Map<Long, Long> roomMap = new HashMap<>();
-	private final Map<Long, Long> fileItemMap = new HashMap<>();
-	private final Map<Long, Long> messageFolderMap = new HashMap<>();
-	private final Map<Long, Long> userContactMap = new HashMap<>();
-	private final Map<String, String> fileMap = new HashMap<>();
-	private final Map<String, String> hashMap = new HashMap<>();
+	@Autowired
+	private PlatformTransactionManager transactionManager;
+
+	// maps are filled by one phase and read by dependent phases, files and recordings are imported simultaneously
+	private final Map<Long, Long> ldapMap = Collections.synchronizedMap(new HashMap<>());
+	private final Map<Long, Long> oauthMap = Collections.synchronizedMap(new HashMap<>());
+	private final Map<Long, Long> userMap = Collections.synchronizedMap(new HashMap<>());
+	private final Map<Long, Long> groupMap = Collections.synchronizedMap(new HashMap<>());
+	private final Map<Long, Long> calendarMap = Collections.synchronizedMap(new HashMap<>());
+	private final Map<Long, Long> appointmentMap = Collections.synchronizedMap(new HashMap<>());
+	private final Map<Long, Long> roomMap = Collections.synchronizedMap(new HashMap<>());
+	private final Map<Long, Long> fileItemMap = Collections.synchronizedMap(new HashMap<>());
+	private final Map<Long, Long> messageFolderMap = Collections.synchronizedMap(new HashMap<>());
+	private final Map<Long, Long> userContactMap = Collections.synchronizedMap(new HashMap<>());
+	private final Map<Long, Long> meetingMemberMap = Collections.synchronizedMap(new HashMap<>());
+	private final Map<String, String> fileMap = Collections.synchronizedMap(new HashMap<>());
+	private final Map<String, String> hashMap = Collections.synchronizedMap(new HashMap<>());
+	/*
+	 * chat, private messages and polls are never updated, they are stored by the increment
+	 * made while they were inserted, and might be stored by the previous archive as well,
+	 * keys of already imported entities are kept to skip such duplicates
+	 */
+	private final Set<Long> chatIds = Collections.synchronizedSet(new HashSet<>());
+	private final Set<Long> privateMsgIds = Collections.synchronizedSet(new HashSet<>());
+	private final Set<String> pollKeys = Collections.synchronizedSet(new HashSet<>());
+	private int batchSize = DEFAULT_BATCH_SIZE;
 
 	private static File validate(String ename, File intended) throws IOException {
 		final String intendedPath = intended.getCanonicalPath();
@@ -400,58 +448,87 @@ public class BackupImport {
 	}
 
 	public void performImport(InputStream is, ProgressHolder progressHolder) throws Exception {
+		performImport(List.of(is), progressHolder);
+	}
+
+	/**
+	 * Imports full backup followed by incremental backups made after it,
+	 * ids of imported entities are kept between archives, so changed entities
+	 * are updated instead of being duplicated
+	 *
+	 * @param archives - full backup followed by incremental backups in order they were made
+	 * @param progressHolder - holder to report progress
+	 * @throws Exception in case of any error
+	 */
+	public void performImport(List<InputStream> archives, ProgressHolder progressHolder) throws Exception {
 		progressHolder.setProgress(0);
 		cleanup();
-		messageFolderMap.put(INBOX_FOLDER_ID, INBOX_FOLDER_ID);
-		messageFolderMap.put(SENT_FOLDER_ID, SENT_FOLDER_ID);
-		messageFolderMap.put(TRASH_FOLDER_ID, TRASH_FOLDER_ID);
+		try {
+			final int count = archives.size();
+			for (int i = 0; i < count; ++i) {
+				importArchive(archives.get(i), i == 0
+						, new ScaledProgress(progressHolder, 100 * i / count, 100 * (i + 1) / count));
+			}
+		} finally {
+			cleanup();
+		}
+		progressHolder.setProgress(100);
+	}
 
+	private void importArchive(InputStream is, boolean first, ProgressHolder progressHolder) throws Exception {
+		progressHolder.setProgress(0);
 		File f = unzip(is);
 
 		BackupVersion ver = getVersion(f);
+		BackupMark mark = getMark(f);
+		log.info("Importing {}", mark);
+		if (first && mark.isIncremental()) {
+			FileUtils.deleteDirectory(f);
+			throw new BackupException("Incremental backup can only be applied after the backup it is based on");
+		}
 		progressHolder.setProgress(2);
 		importConfigs(f);
 		progressHolder.setProgress(7);
-		importGroups(f);
-		progressHolder.setProgress(12);
-		importLdap(f);
-		progressHolder.setProgress(17);
-		importOauth(f);
-		progressHolder.setProgress(22);
-		importUsers(f);
-		progressHolder.setProgress(27);
-		importRooms(f);
-		progressHolder.setProgress(32);
-		importRoomGroups(f);
-		progressHolder.setProgress(37);
-		importChat(f);
-		progressHolder.setProgress(42);
-		importCalendars(f);
-		progressHolder.setProgress(47);
-		importAppointments(f);
-		progressHolder.setProgress(52);
-		importMeetingMembers(f);
-		progressHolder.setProgress(57);
-		importRecordings(f);
-		progressHolder.setProgress(62);
-		importPrivateMsgFolders(f);
-		progressHolder.setProgress(67);
-		importContacts(f);
-		progressHolder.setProgress(72);
-		importPrivateMsgs(f);
-		progressHolder.setProgress(77);
-		List<FileItem> files = importFiles(f);
-		progressHolder.setProgress(82);
-		importPolls(f);
-		progressHolder.setProgress(87);
-		importRoomFiles(f);
-		progressHolder.setProgress(92);
-
-		log.info("Room files import complete, starting copy of files and folders");
-		/*
-		 * ##################### Import real files and folders
-		 */
-		importFolders(f);
+		batchSize = Math.max(1, cfgDao.getInt(CONFIG_BACKUP_BATCH_SIZE, DEFAULT_BATCH_SIZE));
+		int threads = cfgDao.getInt(CONFIG_BACKUP_THREADS, 0);
+		if (threads < 1) {
+			threads = Math.max(2, Runtime.getRuntime().availableProcessors() / 2);
+		}
+		final AtomicInteger counter = new AtomicInteger();
+		ExecutorService pool = Executors.newFixedThreadPool(threads, r -> {
+			Thread t = new Thread(r, "backup-import-" + counter.incrementAndGet());
+			t.setDaemon(true);
+			return t;
+		});
+		final List<FileItem> files = Collections.synchronizedList(new ArrayList<>());
+		try {
+			Phases p = new Phases(pool, progressHolder, 7, 92);
+			CompletableFuture<Void> groups = p.run(() -> importGroups(f));
+			CompletableFuture<Void> ldap = p.run(() -> importLdap(f));
+			CompletableFuture<Void> oauth = p.run(() -> importOauth(f));
+			CompletableFuture<Void> users = p.run(() -> importUsers(f), groups, ldap, oauth);
+			CompletableFuture<Void> rooms = p.run(() -> importRooms(f), users);
+			// phases modifying rooms are executed one by one
+			CompletableFuture<Void> roomGroups = p.run(() -> importRoomGroups(f), rooms, groups);
+			p.run(() -> importChat(f), users, rooms);
+			CompletableFuture<Void> calendars = p.run(() -> importCalendars(f), users);
+			CompletableFuture<Void> appointments = p.run(() -> importAppointments(f), users, roomGroups, calendars);
+			p.run(() -> importMeetingMembers(f), users, appointments);
+			CompletableFuture<Void> recordings = p.run(() -> importRecordings(f), users, rooms, groups);
+			CompletableFuture<Void> msgFolders = p.run(() -> importPrivateMsgFolders(f));
+			CompletableFuture<Void> contacts = p.run(() -> importContacts(f), users);
+			p.run(() -> importPrivateMsgs(f), users, rooms, msgFolders, contacts);
+			CompletableFuture<Void> fileItems = p.run(() -> files.addAll(importFiles(f)), users, rooms, groups);
+			p.run(() -> importPolls(f), users, rooms);
+			p.run(() -> importRoomFiles(f), appointments, fileItems, recordings);
+			p.run(() -> {
+				log.info("Files and recordings import complete, starting copy of files and folders");
+				importFolders(f);
+			}, users, groups, fileItems, recordings);
+			p.await();
+		} finally {
+			pool.shutdownNow();
+		}
 		progressHolder.setProgress(97);
 
 		if (ver.compareTo(BackupVersion.get("4.0.0")) < 0) {
@@ -476,7 +553,6 @@ public class BackupImport {
 		log.info("File explorer item import complete, clearing temp files");
 
 		FileUtils.deleteDirectory(f);
-		cleanup();
 		progressHolder.setProgress(100);
 	}
 
@@ -488,10 +564,15 @@ public class BackupImport {
 		calendarMap.clear();
 		appointmentMap.clear();
 		roomMap.clear();
+		fileItemMap.clear();
 		messageFolderMap.clear();
 		userContactMap.clear();
+		meetingMemberMap.clear();
 		fileMap.clear();
 		hashMap.clear();
+		chatIds.clear();
+		privateMsgIds.clear();
+		pollKeys.clear();
 		messageFolderMap.put(INBOX_FOLDER_ID, INBOX_FOLDER_ID);
 		messageFolderMap.put(SENT_FOLDER_ID, SENT_FOLDER_ID);
 		messageFolderMap.put(TRASH_FOLDER_ID, TRASH_FOLDER_ID);
@@ -503,6 +584,12 @@ public class BackupImport {
 		return list.isEmpty() ? new BackupVersion() : list.get(0);
 	}
 
+	static BackupMark getMark(File base) {
+		List<BackupMark> list = new ArrayList<>(1);
+		readList(base, BackupMark.MARK_FILE, MARK_LIST_NODE, MARK_NODE, BackupMark.class, list::add, true);
+		return list.isEmpty() ? new BackupMark() : list.get(0);
+	}
+
 	/*
 	 * ##################### Import Configs
 	 */
@@ -573,7 +660,7 @@ public class BackupImport {
 		log.info("Configs import complete, starting group import");
 		readList(base, "organizations.xml", GROUP_LIST_NODE, GROUP_NODE, Group.class, g -> {
 			Long oldId = g.getId();
-			g.setId(null);
+			g.setId(groupMap.get(oldId));
 			g = groupDao.update(g, null);
 			groupMap.put(oldId, g.getId());
 		});
@@ -590,7 +677,7 @@ public class BackupImport {
 				return;
 			}
 			Long oldId = c.getId();
-			c.setId(null);
+			c.setId(oldId == null ? null : ldapMap.get(oldId));
 			c = ldapConfigDao.update(c, null);
 			if (defaultLdapId[0] == null) {
 				defaultLdapId[0] = c.getId();
@@ -610,7 +697,7 @@ public class BackupImport {
 		readList(base, "oauth2servers.xml", OAUTH_LIST_NODE, OAUTH_NODE, OAuthServer.class
 				, s -> {
 					Long oldId = s.getId();
-					s.setId(null);
+					s.setId(oldId == null ? null : oauthMap.get(oldId));
 					s = auth2Dao.update(s, null);
 					if (oldId != null) {
 						oauthMap.put(oldId, s.getId());
@@ -641,11 +728,20 @@ public class BackupImport {
 		int minLoginLength = getMinLoginLength();
 
 		readList(unmarshaller, base, "users.xml", USER_LIST_NODE, USER_NODE, eClazz, u -> {
-			if (u.getLogin() == null || u.isDeleted()) {
+			if (u.getLogin() == null) {
+				return;
+			}
+			final Long userId = u.getId();
+			final User stored = userMap.containsKey(userId) ? userDao.get(userMap.get(userId)) : null;
+			if (u.isDeleted()) {
+				if (stored != null) {
+					// user was deleted after previous backup
+					userDao.delete(stored, Long.valueOf(-1));
+				}
 				return;
 			}
 			// check that email is unique
-			if (u.getAddress() != null && u.getAddress().getEmail() != null && User.Type.USER == u.getType()) {
+			if (stored == null && u.getAddress() != null && u.getAddress().getEmail() != null && User.Type.USER == u.getType()) {
 				if (userEmails.contains(u.getAddress().getEmail())) {
 					log.warn("Email is duplicated for user {}", u);
 					String updateEmail = String.format("modified_by_import_<%s>%s", randomUUID(), u.getAddress().getEmail());
@@ -667,7 +763,7 @@ public class BackupImport {
 					log.error("Unable to find Domain for ID: {}", u.getDomainId());
 				}
 			}
-			if (userLogins.contains(new UserKey(u))) {
+			if (stored == null && userLogins.contains(new UserKey(u))) {
 				log.warn("LOGIN is duplicated for USER {}", u);
 				String updateLogin = String.format("modified_by_import_<%s>%s", randomUUID(), u.getLogin());
 				u.setLogin(updateLogin);
@@ -692,10 +788,12 @@ public class BackupImport {
 				u.setTimeZoneId(jNameTimeZone);
 			}
 
-			Long userId = u.getId();
-			u.setId(null);
-			if (u.getSipUser() != null && u.getSipUser().getId() != 0) {
-				u.getSipUser().setId(0);
+			u.setId(stored == null ? null : stored.getId());
+			if (u.getSipUser() != null) {
+				u.getSipUser().setId(stored == null || stored.getSipUser() == null ? 0 : stored.getSipUser().getId());
+			}
+			if (u.getAddress() != null) {
+				u.getAddress().setId(stored == null || stored.getAddress() == null ? null : stored.getAddress().getId());
 			}
 			if (AuthLevelUtil.hasLoginLevel(u.getRights()) && !Strings.isEmpty(u.getActivatehash())) {
 				u.setActivatehash(null);
@@ -730,12 +828,23 @@ public class BackupImport {
 				r.setOwnerId(newOwnerId);
 			}
 			// We need to reset ids as openJPA reject to store them otherwise
-			r.setId(null);
+			final Room stored = roomMap.containsKey(roomId) ? roomDao.get(roomMap.get(roomId)) : null;
+			r.setId(stored == null ? null : stored.getId());
+			if (stored != null) {
+				// groups and files are not stored along with room
+				r.setGroups(stored.getGroups());
+				r.setFiles(stored.getFiles());
+			}
 			if (r.getModerators() != null) {
 				for (Iterator<RoomModerator> i = r.getModerators().iterator(); i.hasNext();) {
 					RoomModerator rm = i.next();
 					if (rm.getUser().getId() == null) {
 						i.remove();
+					} else if (stored != null && stored.getModerators() != null) {
+						stored.getModerators().stream()
+								.filter(srm -> rm.getUser().getId().equals(srm.getUser().getId()))
+								.findFirst()
+								.ifPresent(srm -> rm.setId(srm.getId()));
 					}
 				}
 			}
@@ -766,6 +875,10 @@ public class BackupImport {
 			if (r.getGroups() == null) {
 				r.setGroups(new ArrayList<>());
 			}
+			final Long groupId = rg.getGroup().getId();
+			if (r.getGroups().stream().anyMatch(srg -> groupId.equals(srg.getGroup().getId()))) {
+				return; // already imported from previous backup
+			}
 			rg.setId(null);
 			rg.setRoom(r);
 			r.getGroups().add(rg);
@@ -784,16 +897,22 @@ public class BackupImport {
 		unmarshaller.setAdapter(new UserAdapter(userDao, userMap));
 		unmarshaller.setAdapter(new RoomAdapter(roomDao, roomMap));
 
-		readList(unmarshaller, base, "chat_messages.xml", CHAT_LIST_NODE, CHAT_NODE, eClazz, m -> {
-			m.setId(null);
-			if (m.getFromUser() == null || m.getFromUser().getId() == null
-					|| (m.getToRoom() != null && m.getToRoom().getId() == null)
-					|| (m.getToUser() != null && m.getToUser().getId() == null))
-			{
-				return;
-			}
-			chatDao.update(m, m.getSent());
-		});
+		try (Batch<ChatMessage> batch = new Batch<>(m -> chatDao.update(m, m.getSent()))) {
+			readList(unmarshaller, base, "chat_messages.xml", CHAT_LIST_NODE, CHAT_NODE, eClazz, m -> {
+				Long id = m.getId();
+				m.setId(null);
+				if (m.getFromUser() == null || m.getFromUser().getId() == null
+						|| (m.getToRoom() != null && m.getToRoom().getId() == null)
+						|| (m.getToUser() != null && m.getToUser().getId() == null))
+				{
+					return;
+				}
+				if (id != null && !chatIds.add(id)) {
+					return; // already imported from previous archive
+				}
+				batch.accept(m);
+			});
+		}
 	}
 
 	/*
@@ -808,7 +927,7 @@ public class BackupImport {
 
 		readList(unmarshaller, base, "calendars.xml", CALENDAR_LIST_NODE, CALENDAR_NODE, eClazz, c -> {
 			Long id = c.getId();
-			c.setId(null);
+			c.setId(calendarMap.get(id));
 			c = calendarDao.update(c);
 			calendarMap.put(id, c.getId());
 		}, true);
@@ -830,7 +949,7 @@ public class BackupImport {
 			Long appId = a.getId();
 
 			// We need to reset this as openJPA reject to store them otherwise
-			a.setId(null);
+			a.setId(appointmentMap.get(appId));
 			if (a.getOwner() != null && a.getOwner().getId() == null) {
 				a.setOwner(null);
 			}
@@ -860,18 +979,32 @@ public class BackupImport {
 		unmarshaller.setAdapter(new UserAdapter(userDao, userMap));
 		unmarshaller.setAdapter(new AppointmentAdapter(appointmentDao, appointmentMap));
 
-		readList(unmarshaller, base, "meetingmembers.xml", MMEMBER_LIST_NODE, MMEMBER_NODE, eClazz, ma -> {
-			ma.setId(null);
-			meetingMemberDao.update(ma);
-		});
+		final Map<MeetingMember, Long> oldIds = new IdentityHashMap<>();
+		try (Batch<MeetingMember> batch = new Batch<>(meetingMemberDao::update
+				, ma -> meetingMemberMap.put(oldIds.remove(ma), ma.getId())))
+		{
+			readList(unmarshaller, base, "meetingmembers.xml", MMEMBER_LIST_NODE, MMEMBER_NODE, eClazz, ma -> {
+				oldIds.put(ma, ma.getId());
+				ma.setId(meetingMemberMap.get(ma.getId()));
+				batch.accept(ma);
+			});
+		}
 	}
 
 	private boolean isInvalidFile(BaseFileItem file, final Map<Long, Long> folders) {
 		if (file.isDeleted()) {
+			Long id = fileItemMap.get(file.getId());
+			if (id != null) {
+				// file was deleted after previous backup
+				BaseFileItem stored = file instanceof Recording ? recordingDao.get(id) : fileItemDao.get(id);
+				if (stored != null && !stored.isDeleted()) {
+					fileItemDao.delete(stored);
+				}
+			}
 			return true;
 		}
 		if (file.getParentId() != null && file.getParentId() > 0) {
-			Long newFolder = folders.get(file.getParentId());
+			Long newFolder = folders.getOrDefault(file.getParentId(), fileItemMap.get(file.getParentId()));
 			if (newFolder == null) {
 				//folder was deleted
 				return true;
@@ -929,7 +1062,8 @@ public class BackupImport {
 			if (e == null) {
 				break;
 			} else {
-				if (!tree.add(e.getValue())) {
+				T item = e.getValue();
+				if (!tree.add(item) && !(fileItemMap.containsKey(item.getParentId()) && tree.addRoot(item))) {
 					remain.put(e.getKey(), e.getValue());
 				}
 			}
@@ -950,6 +1084,14 @@ public class BackupImport {
 		final Map<Long, Long> folders = new HashMap<>();
 		saveTree(base, "flvRecordings.xml", RECORDING_LIST_NODE, RECORDING_NODE, Recording.class, folders, r -> {
 			Long recId = r.getId();
+			Recording stored = fileItemMap.containsKey(recId) ? recordingDao.get(fileItemMap.get(recId)) : null;
+			if (stored != null) {
+				// only editable fields are updated, chunks and files are not changed after recording is complete
+				stored.setName(r.getName());
+				stored.setParentId(r.getParentId());
+				recordingDao.update(stored);
+				return;
+			}
 			r.setId(null);
 			if (r.getChunks() != null) {
 				for (RecordingChunk chunk : r.getChunks()) {
@@ -976,7 +1118,9 @@ public class BackupImport {
 		String oldHash = file.getHash();
 		if (Strings.isEmpty(oldHash) || !UUID_PATTERN.matcher(oldHash).matches() || dao.get(oldHash) != null) {
 			file.setHash(randomUUID().toString());
-			hashMap.put(oldHash, file.getHash());
+			if (oldHash != null) {
+				hashMap.put(oldHash, file.getHash());
+			}
 			if (consumer != null) {
 				consumer.accept(oldHash, file.getHash());
 			}
@@ -992,6 +1136,9 @@ public class BackupImport {
 		log.info("Recording import complete, starting private message folder import");
 		readList(base, "privateMessageFolder.xml", MSG_FOLDER_LIST_NODE, MSG_FOLDER_NODE, PrivateMessageFolder.class, p -> {
 			Long folderId = p.getId();
+			if (messageFolderMap.containsKey(folderId)) {
+				return; // already imported from previous backup
+			}
 			PrivateMessageFolder storedFolder = privateMessageFolderDao.get(folderId);
 			if (storedFolder == null) {
 				p.setId(null);
@@ -1013,6 +1160,9 @@ public class BackupImport {
 
 		readList(unmarshaller, base, "userContacts.xml", CONTACT_LIST_NODE, CONTACT_NODE, eClazz, uc -> {
 			Long ucId = uc.getId();
+			if (userContactMap.containsKey(ucId)) {
+				return; // already imported from previous backup
+			}
 			UserContact storedUC = userContactDao.get(ucId);
 
 			if (storedUC == null && uc.getContact() != null && uc.getContact().getId() != null) {
@@ -1037,24 +1187,30 @@ public class BackupImport {
 		unmarshaller.setAdapter(new UserAdapter(userDao, userMap));
 		unmarshaller.setAdapter(new RoomAdapter(roomDao, roomMap));
 
-		readList(unmarshaller, base, "privateMessages.xml", MSG_LIST_NODE, MSG_NODE, eClazz, p -> {
-			p.setId(null);
-			p.setFolderId(messageFolderMap.get(p.getFolderId()));
-			p.setUserContactId(userContactMap.get(p.getUserContactId()));
-			if (p.getRoom() != null && p.getRoom().getId() == null) {
-				p.setRoom(null);
-			}
-			if (p.getTo() != null && p.getTo().getId() == null) {
-				p.setTo(null);
-			}
-			if (p.getFrom() != null && p.getFrom().getId() == null) {
-				p.setFrom(null);
-			}
-			if (p.getOwner() != null && p.getOwner().getId() == null) {
-				p.setOwner(null);
-			}
-			privateMessageDao.update(p, null);
-		});
+		try (Batch<PrivateMessage> batch = new Batch<>(p -> privateMessageDao.update(p, null))) {
+			readList(unmarshaller, base, "privateMessages.xml", MSG_LIST_NODE, MSG_NODE, eClazz, p -> {
+				Long id = p.getId();
+				p.setId(null);
+				if (id != null && !privateMsgIds.add(id)) {
+					return; // already imported from previous archive
+				}
+				p.setFolderId(messageFolderMap.get(p.getFolderId()));
+				p.setUserContactId(userContactMap.get(p.getUserContactId()));
+				if (p.getRoom() != null && p.getRoom().getId() == null) {
+					p.setRoom(null);
+				}
+				if (p.getTo() != null && p.getTo().getId() == null) {
+					p.setTo(null);
+				}
+				if (p.getFrom() != null && p.getFrom().getId() == null) {
+					p.setFrom(null);
+				}
+				if (p.getOwner() != null && p.getOwner().getId() == null) {
+					p.setOwner(null);
+				}
+				batch.accept(p);
+			});
+		}
 	}
 
 	/*
@@ -1067,8 +1223,12 @@ public class BackupImport {
 		saveTree(base, "fileExplorerItems.xml", FILE_LIST_NODE, FILE_NODE, FileItem.class, folders, file -> {
 			Long fId = file.getId();
 			// We need to reset this as openJPA reject to store them otherwise
-			file.setId(null);
-			checkHash(file, fileItemDao, null);
+			file.setId(fileItemMap.get(fId));
+			if (file.getId() == null) {
+				checkHash(file, fileItemDao, null);
+			} else {
+				file.setHash(hashMap.getOrDefault(file.getHash(), file.getHash()));
+			}
 			file = fileItemDao.update(file);
 			if (BaseFileItem.Type.FOLDER == file.getType()) {
 				folders.put(fId, file.getId());
@@ -1090,22 +1250,30 @@ public class BackupImport {
 		unmarshaller.setAdapter(new UserAdapter(userDao, userMap));
 		unmarshaller.setAdapter(new RoomAdapter(roomDao, roomMap));
 
-		readList(unmarshaller, base, "roompolls.xml", POLL_LIST_NODE, POLL_NODE, eClazz, rp -> {
-			rp.setId(null);
-			if (rp.getRoom() == null || rp.getRoom().getId() == null) {
-				//room was deleted
-				return;
-			}
-			if (rp.getCreator() == null || rp.getCreator().getId() == null) {
-				rp.setCreator(null);
-			}
-			for (RoomPollAnswer rpa : rp.getAnswers()) {
-				if (rpa.getVotedUser() == null || rpa.getVotedUser().getId() == null) {
-					rpa.setVotedUser(null);
+		try (Batch<RoomPoll> batch = new Batch<>(pollDao::update)) {
+			readList(unmarshaller, base, "roompolls.xml", POLL_LIST_NODE, POLL_NODE, eClazz, rp -> {
+				rp.setId(null);
+				if (rp.getRoom() == null || rp.getRoom().getId() == null) {
+					//room was deleted
+					return;
 				}
-			}
-			pollDao.update(rp);
-		});
+				// polls have no id in backup
+				if (!pollKeys.add(String.format("%s|%s|%s", rp.getRoom().getId()
+						, rp.getCreated() == null ? null : rp.getCreated().getTime(), rp.getName())))
+				{
+					return; // already imported from previous archive
+				}
+				if (rp.getCreator() == null || rp.getCreator().getId() == null) {
+					rp.setCreator(null);
+				}
+				for (RoomPollAnswer rpa : rp.getAnswers()) {
+					if (rpa.getVotedUser() == null || rpa.getVotedUser().getId() == null) {
+						rpa.setVotedUser(null);
+					}
+				}
+				batch.accept(rp);
+			});
+		}
 	}
 
 	/*
@@ -1126,6 +1294,10 @@ public class BackupImport {
 			if (r.getFiles() == null) {
 				r.setFiles(new ArrayList<>());
 			}
+			final Long fileId = rf.getFile().getId();
+			if (r.getFiles().stream().anyMatch(srf -> fileId.equals(srf.getFile().getId()) && rf.getWbIdx() == srf.getWbIdx())) {
+				return; // already imported from previous backup
+			}
 			rf.setId(null);
 			rf.setRoomId(r.getId());
 			r.getFiles().add(rf);
@@ -1191,6 +1363,15 @@ public class BackupImport {
 		return id == null ? null : map.get(id);
 	}
 
+	/*
+	 * Extracted backup is temporary, so files are moved to their target location
+	 * (this is just rename in case extraction folder is on the same file system)
+	 */
+	private static void move(File src, File dest) throws IOException {
+		Files.createDirectories(dest.getParentFile().toPath());
+		Files.move(src.toPath(), dest.toPath(), StandardCopyOption.REPLACE_EXISTING);
+	}
+
 	private void processGroupFiles(File baseDir) throws IOException {
 		log.debug("Entered group logo folder");
 		for (File f : baseDir.listFiles()) {
@@ -1198,12 +1379,12 @@ public class BackupImport {
 			if (EXTENSION_PNG.equals(ext)) {
 				Long id = getPrefixedId(GROUP_LOGO_PREFIX, f, groupMap);
 				if (id != null) {
-					FileUtils.copyFile(f, getGroupLogo(id, false));
+					move(f, getGroupLogo(id, false));
 				}
 			} else if (EXTENSION_CSS.equals(ext)) {
 				Long id = getPrefixedId(GROUP_CSS_PREFIX, f, groupMap);
 				if (id != null) {
-					FileUtils.copyFile(f, getGroupCss(id, false));
+					move(f, getGroupCss(id, false));
 				}
 			}
 		}
@@ -1211,7 +1392,7 @@ public class BackupImport {
 
 	private static void changeHash(File f, File dir, String hash, String inExt) throws IOException {
 		String ext = inExt == null ? getFileExt(f.getName()) : inExt;
-		FileUtils.copyFile(f, new File(dir, getName(hash, ext)));
+		move(f, new File(dir, getName(hash, ext)));
 	}
 
 	private void processFiles(File baseDir) throws IOException {
@@ -1228,7 +1409,7 @@ public class BackupImport {
 				changeHash(rf, dir, hash, EXTENSION_JPG);
 			} else {
 				for (File f : rf.listFiles()) {
-					FileUtils.copyFile(f, new File(dir
+					move(f, new File(dir
 							, f.getName().startsWith(oldHash) ? getName(hash, getFileExt(f.getName())) : f.getName()));
 				}
 			}
@@ -1293,12 +1474,12 @@ public class BackupImport {
 			for (File r : recDir.listFiles()) {
 				String n = fileMap.get(r.getName());
 				if (n != null) {
-					FileUtils.copyFile(r, new File(hiberDir, n));
+					move(r, new File(hiberDir, n));
 				} else {
 					String oldHash = OmFileHelper.getFileName(r.getName());
 					String hash = hashMap.get(oldHash);
 					if (hash == null) {
-						FileUtils.copyFileToDirectory(r, hiberDir);
+						move(r, new File(hiberDir, r.getName()));
 					} else {
 						changeHash(r, hiberDir, hash, null);
 					}
@@ -1336,6 +1517,133 @@ public class BackupImport {
 		}
 	}
 
+	@FunctionalInterface
+	private interface Phase {
+		void run() throws Exception;
+	}
+
+	/**
+	 * Runs import phases as soon as phases they depend on are complete
+	 */
+	private static class Phases {
+		private final CompletableFuture<Void> start = new CompletableFuture<>();
+		private final List<CompletableFuture<Void>> all = new ArrayList<>();
+		private final AtomicInteger done = new AtomicInteger();
+		private final Executor executor;
+		private final ProgressHolder progress;
+		private final int from;
+		private final int to;
+
+		Phases(Executor executor, ProgressHolder progress, int from, int to) {
+			this.executor = executor;
+			this.progress = progress;
+			this.from = from;
+			this.to = to;
+		}
+
+		CompletableFuture<Void> run(Phase phase, CompletableFuture<?>... deps) {
+			CompletableFuture<?>[] after = Arrays.copyOf(deps, deps.length + 1);
+			after[deps.length] = start;
+			CompletableFuture<Void> f = CompletableFuture.allOf(after).thenRunAsync(() -> {
+				try {
+					phase.run();
+				} catch (BackupException e) {
+					throw e;
+				} catch (Exception e) {
+					throw new BackupException(e);
+				}
+				progress.setProgress(from + (to - from) * done.incrementAndGet() / all.size());
+			}, executor);
+			all.add(f);
+			return f;
+		}
+
+		void await() {
+			start.complete(null);
+			try {
+				CompletableFuture.allOf(all.toArray(new CompletableFuture<?>[0])).join();
+			} catch (CompletionException e) {
+				Throwable cause = e.getCause();
+				if (cause instanceof RuntimeException) {
+					throw (RuntimeException)cause;
+				}
+				if (cause instanceof Error) {
+					throw (Error)cause;
+				}
+				throw e;
+			}
+		}
+	}
+
+	/**
+	 * Stores entities in one transaction per {@link #batchSize} entities,
+	 * so inserts are flushed to DB in batches
+	 */
+	private class Batch<T> implements Consumer<T>, AutoCloseable {
+		private final Consumer<T> save;
+		private final Consumer<T> saved;
+		private final List<T> items = new ArrayList<>();
+
+		Batch(Consumer<T> save) {
+			this(save, null);
+		}
+
+		/**
+		 * @param save - stores entity
+		 * @param saved - called for each entity after transaction is committed, can be {@code null}
+		 */
+		Batch(Consumer<T> save, Consumer<T> saved) {
+			this.save = save;
+			this.saved = saved;
+		}
+
+		@Override
+		public void accept(T item) {
+			items.add(item);
+			if (items.size() >= batchSize) {
+				flush();
+			}
+		}
+
+		private void flush() {
+			if (items.isEmpty()) {
+				return;
+			}
+			new TransactionTemplate(transactionManager).executeWithoutResult(status -> items.forEach(save));
+			if (saved != null) {
+				items.forEach(saved);
+			}
+			items.clear();
+		}
+
+		@Override
+		public void close() {
+			flush();
+		}
+	}
+
+	/**
+	 * Maps progress of one archive to the range of whole import
+	 */
+	private static class ScaledProgress extends ProgressHolder {
+		private static final long serialVersionUID = 1L;
+		private final ProgressHolder holder;
+		private final int from;
+		private final int to;
+
+		ScaledProgress(ProgressHolder holder, int from, int to) {
+			this.holder = holder;
+			this.from = from;
+			this.to = to;
+		}
+
+		@Override
+		public void setProgress(int progress) {
+			super.setProgress(progress);
+			holder.setProgress(from + (to - from) * progress / 100);
+		}
+	}
+
 	private static class UserKey {
 		private final String login;
 		private final User.Type type;
@@ -0,0 +1,125 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License") +  you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.openmeetings.backup;
+
+import static org.apache.openmeetings.db.bind.Constants.MARK_NODE;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Serializable;
+import java.util.Date;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+import javax.xml.bind.JAXBContext;
+import javax.xml.bind.annotation.XmlAccessType;
+import javax.xml.bind.annotation.XmlAccessorType;
+import javax.xml.bind.annotation.XmlElement;
+import javax.xml.bind.annotation.XmlRootElement;
+import javax.xml.bind.annotation.adapters.XmlJavaTypeAdapter;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamReader;
+
+import org.apache.openmeetings.db.bind.adapter.DateAdapter;
+import org.apache.openmeetings.db.util.XmlHelper;
+
+/**
+ * High-water mark of the backup
+ *
+ * Full backup has no {@link #since} date, incremental backup contains only
+ * entities and files changed between {@link #since} and {@link #until}.
+ * {@link #until} of any backup can be used as {@link #since} of the next
+ * incremental one
+ */
+@XmlRootElement(name = MARK_NODE)
+@XmlAccessorType(XmlAccessType.FIELD)
+public class BackupMark implements Serializable {
+	private static final long serialVersionUID = 1L;
+	public static final String MARK_FILE = "mark.xml";
+
+	@XmlElement(name = "since", required = false)
+	@XmlJavaTypeAdapter(DateAdapter.class)
+	private Date since;
+
+	@XmlElement(name = "until", required = false)
+	@XmlJavaTypeAdapter(DateAdapter.class)
+	private Date until;
+
+	public BackupMark() {
+		// default constructor is required by JAXB
+	}
+
+	public BackupMark(Date since, Date until) {
+		this.since = since;
+		this.until = until;
+	}
+
+	public Date getSince() {
+		return since;
+	}
+
+	public Date getUntil() {
+		return until;
+	}
+
+	public boolean isIncremental() {
+		return since != null;
+	}
+
+	/**
+	 * Reads mark of the existing backup
+	 *
+	 * @param zip - backup file
+	 * @return mark of the backup, empty mark is returned for backups created by older versions
+	 * @throws IOException in case backup can't be read
+	 */
+	public static BackupMark read(File zip) throws IOException {
+		try (ZipFile zf = new ZipFile(zip)) {
+			ZipEntry e = zf.getEntry(MARK_FILE);
+			if (e == null) {
+				return new BackupMark();
+			}
+			try (InputStream is = zf.getInputStream(e)) {
+				XMLStreamReader xsr = XmlHelper.createInputFactory().createXMLStreamReader(is);
+				boolean listNodeFound = false;
+				while (xsr.getEventType() != XMLStreamConstants.END_DOCUMENT) {
+					if (xsr.isStartElement() && MARK_NODE.equals(xsr.getLocalName())) {
+						if (listNodeFound) {
+							return JAXBContext.newInstance(BackupMark.class).createUnmarshaller()
+									.unmarshal(xsr, BackupMark.class).getValue();
+						}
+						listNodeFound = true;
+					}
+					xsr.next();
+				}
+			}
+		} catch (IOException e) {
+			throw e;
+		} catch (Exception e) {
+			throw new IOException(e);
+		}
+		return new BackupMark();
+	}
+
+	@Override
+	public String toString() {
+		return "BackupMark[since=" + since + ", until=" + until + "]";
+	}
+}
@@ -54,6 +54,17 @@ class FileTree<T extends BaseFileItem> {
 		return false;
 	}
 
+	/**
+	 * Adds item whose parent was imported before
+	 *
+	 * @param child - item to add
+	 * @return always {@code true}
+	 */
+	boolean addRoot(T child) {
+		children.put(child.getId(), new FileTree<>(child));
+		return true;
+	}
+
 	void process(Predicate<T> invalid, Consumer<T> consumer) {
 		if (item != null) {
 			if (invalid.test(item)) {
@@ -31,7 +31,9 @@ import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.util.ArrayList;
 import java.util.Date;
+import java.util.List;
 import java.util.Map;
 import java.util.TimeZone;
 
@@ -49,10 +51,12 @@ import org.apache.openjpa.lib.log.Log;
 import org.apache.openjpa.lib.log.LogFactoryImpl.LogImpl;
 import org.apache.openmeetings.backup.BackupExport;
 import org.apache.openmeetings.backup.BackupImport;
+import org.apache.openmeetings.backup.BackupMark;
 import org.apache.openmeetings.backup.ProgressHolder;
 import org.apache.openmeetings.core.ldap.LdapLoginManager;
 import org.apache.openmeetings.core.util.StrongPasswordValidator;
 import org.apache.openmeetings.db.dao.file.FileItemDao;
+import org.apache.openmeetings.db.dao.file.StorageUsageDao;
 import org.apache.openmeetings.db.dao.record.RecordingDao;
 import org.apache.openmeetings.db.dao.user.UserDao;
 import org.apache.openmeetings.db.entity.user.User;
@@ -141,6 +145,8 @@ public class Admin {
 		//backup/restore
 		options.addOption(new OmOption("b", null, "exclude-files", false, "should backup exclude files [default: include]", true));
 		options.addOption(new OmOption("b,r,i", "file", null, true, "file used for backup/restore/install", "b"));
+		options.addOption(new OmOption("b", null, "since", true, "previous backup, only changes made after it will be stored (incremental backup)", true));
+		options.addOption(new OmOption("r,i", null, "increments", true, "comma separated list of incremental backups to be applied after 'file' in the order they were made", true));
 		//install
 		options.addOption(new OmOption("i", "user", null, true, "Login name of the default user, minimum " + USER_LOGIN_MINIMUM_LENGTH + " characters (mutually exclusive with 'file')"));
 		options.addOption(new OmOption("i", OPTION_EMAIL, null, true, "Email of the default user (mutually exclusive with 'file')"));
@@ -167,6 +173,7 @@ public class Admin {
 		options.addOption(new OmOption("i", null, "force", false, "Install without checking the existence of old data in the database.", true));
 		//files
 		options.addOption(new OmOption("f", null, "cleanup", false, "Should intermediate files be clean up", true));
+		options.addOption(new OmOption("f", null, "reconcile", false, "Should storage usage counters be re-calculated", true));
 		//ldap
 		options.addOption(new OmOption("l", "d", "domain-id", true, "LDAP domain Id", false));
 		options.addOption(new OmOption("l", null, "print-only", false, "Print users found instead of importing", true));
@@ -361,8 +368,18 @@ public class Admin {
 		File backupDir = new File(OmFileHelper.getUploadBackupDir(), String.valueOf(System.currentTimeMillis()));
 		backupDir.mkdirs();
 
+		Date since = null;
+		if (cmdl.hasOption("since")) {
+			since = BackupMark.read(new File(cmdl.getOptionValue("since"))).getUntil();
+			if (since == null) {
+				doLog("Backup specified by 'since' was created by older version and can't be used as base for incremental backup");
+				throw new ExitException();
+			}
+			doLog("Incremental backup, changes made after '" + since + "' will be stored");
+		}
+
 		BackupExport export = getApplicationContext().getBean(BackupExport.class);
-		export.performExport(f, includeFiles, new ProgressHolder());
+		export.performExport(f, includeFiles, since, new ProgressHolder());
 		FileUtils.deleteDirectory(backupDir);
 		backupDir.delete();
 	}
@@ -375,6 +392,10 @@ public class Admin {
 		StringBuilder report = new StringBuilder();
 		reportUploads(report, cleanup);
 		reportStreams(report, cleanup);
+		if (cmdl.hasOption("reconcile")) {
+			long changed = getApplicationContext().getBean(StorageUsageDao.class).reconcile();
+			report.append("Storage usage is re-calculated, sizes of ").append(changed).append(" items were changed\n");
+		}
 		doLog(report);
 	}
 
@@ -551,9 +572,29 @@ public class Admin {
 	}
 
 	private void processRestore(File backup) throws Exception {
-		try (InputStream is = new FileInputStream(backup)) {
+		List<File> files = new ArrayList<>();
+		files.add(backup);
+		if (cmdl.hasOption("increments")) {
+			for (String inc : cmdl.getOptionValue("increments").split(",")) {
+				File f = new File(inc.trim());
+				if (!f.exists() || !f.isFile()) {
+					doLog("Incremental backup '" + inc + "' should point the existent zip file");
+					throw new ExitException();
+				}
+				files.add(f);
+			}
+		}
+		List<InputStream> archives = new ArrayList<>();
+		try {
+			for (File f : files) {
+				archives.add(new FileInputStream(f));
+			}
 			BackupImport importCtrl = getApplicationContext().getBean(BackupImport.class);
-			importCtrl.performImport(is, new ProgressHolder());
+			importCtrl.performImport(archives, new ProgressHolder());
+		} finally {
+			for (InputStream is : archives) {
+				is.close();
+			}
 		}
 	}
 
@@ -28,9 +28,15 @@ import static org.apache.openmeetings.util.OpenmeetingsVariables.CONFIG_APPLICAT
 import static org.apache.openmeetings.util.OpenmeetingsVariables.CONFIG_APPOINTMENT_PRE_START_MINUTES;
 import static org.apache.openmeetings.util.OpenmeetingsVariables.CONFIG_APPOINTMENT_REMINDER_MINUTES;
 import static org.apache.openmeetings.util.OpenmeetingsVariables.CONFIG_AUTO_OPEN_SHARING;
+import static org.apache.openmeetings.util.OpenmeetingsVariables.CONFIG_BACKUP_BATCH_SIZE;
+import static org.apache.openmeetings.util.OpenmeetingsVariables.CONFIG_BACKUP_THREADS;
 import static org.apache.openmeetings.util.OpenmeetingsVariables.CONFIG_CALENDAR_ROOM_CAPACITY;
 import static org.apache.openmeetings.util.OpenmeetingsVariables.CONFIG_CAM_FPS;
 import static org.apache.openmeetings.util.OpenmeetingsVariables.CONFIG_CHAT_SEND_ON_ENTER;
+import static org.apache.openmeetings.util.OpenmeetingsVariables.CONFIG_CONF_LOG_BATCH_SIZE;
+import static org.apache.openmeetings.util.OpenmeetingsVariables.CONFIG_CONF_LOG_FLUSH_INTERVAL;
+import static org.apache.openmeetings.util.OpenmeetingsVariables.CONFIG_CONF_LOG_QUEUE_SIZE;
+import static org.apache.openmeetings.util.OpenmeetingsVariables.CONFIG_CONVERSION_THREADS;
 import static org.apache.openmeetings.util.OpenmeetingsVariables.CONFIG_CRYPT;
 import static org.apache.openmeetings.util.OpenmeetingsVariables.CONFIG_CSP_ENABLED;
 import static org.apache.openmeetings.util.OpenmeetingsVariables.CONFIG_CSP_FONT;
@@ -65,6 +71,7 @@ import static org.apache.openmeetings.util.OpenmeetingsVariables.CONFIG_KEYCODE_
 import static org.apache.openmeetings.util.OpenmeetingsVariables.CONFIG_KEYCODE_QUICKPOLL;
 import static org.apache.openmeetings.util.OpenmeetingsVariables.CONFIG_LNAME_MIN_LENGTH;
 import static org.apache.openmeetings.util.OpenmeetingsVariables.CONFIG_LOGIN_MIN_LENGTH;
+import static org.apache.openmeetings.util.OpenmeetingsVariables.CONFIG_MAIL_BATCH_SIZE;
 import static org.apache.openmeetings.util.OpenmeetingsVariables.CONFIG_MAX_UPLOAD_SIZE;
 import static org.apache.openmeetings.util.OpenmeetingsVariables.CONFIG_MIC_ECHO;
 import static org.apache.openmeetings.util.OpenmeetingsVariables.CONFIG_MIC_NOISE;
@@ -73,6 +80,10 @@ import static org.apache.openmeetings.util.OpenmeetingsVariables.CONFIG_MP4_AUDI
 import static org.apache.openmeetings.util.OpenmeetingsVariables.CONFIG_MP4_AUDIO_RATE;
 import static org.apache.openmeetings.util.OpenmeetingsVariables.CONFIG_MP4_VIDEO_PRESET;
 import static org.apache.openmeetings.util.OpenmeetingsVariables.CONFIG_MYROOMS_ENABLED;
+import static org.apache.openmeetings.util.OpenmeetingsVariables.CONFIG_OFFICE_FIRST_PORT;
+import static org.apache.openmeetings.util.OpenmeetingsVariables.CONFIG_OFFICE_MAX_TASKS;
+import static org.apache.openmeetings.util.OpenmeetingsVariables.CONFIG_OFFICE_POOL_SIZE;
+import static org.apache.openmeetings.util.OpenmeetingsVariables.CONFIG_OFFICE_QUEUE_SIZE;
 import static org.apache.openmeetings.util.OpenmeetingsVariables.CONFIG_PASS_CHECK_DIGIT;
 import static org.apache.openmeetings.util.OpenmeetingsVariables.CONFIG_PASS_CHECK_SPECIAL;
 import static org.apache.openmeetings.util.OpenmeetingsVariables.CONFIG_PASS_CHECK_UPPER;
@@ -97,7 +108,9 @@ import static org.apache.openmeetings.util.OpenmeetingsVariables.CONFIG_SIP_ENAB
 import static org.apache.openmeetings.util.OpenmeetingsVariables.CONFIG_SIP_EXTEN_CONTEXT;
 import static org.apache.openmeetings.util.OpenmeetingsVariables.CONFIG_SIP_ROOM_PREFIX;
 import static org.apache.openmeetings.util.OpenmeetingsVariables.CONFIG_SMTP_PASS;
+import static org.apache.openmeetings.util.OpenmeetingsVariables.CONFIG_SMTP_POOL_SIZE;
 import static org.apache.openmeetings.util.OpenmeetingsVariables.CONFIG_SMTP_PORT;
+import static org.apache.openmeetings.util.OpenmeetingsVariables.CONFIG_SMTP_RATE;
 import static org.apache.openmeetings.util.OpenmeetingsVariables.CONFIG_SMTP_SERVER;
 import static org.apache.openmeetings.util.OpenmeetingsVariables.CONFIG_SMTP_SSL;
 import static org.apache.openmeetings.util.OpenmeetingsVariables.CONFIG_SMTP_SYSTEM_EMAIL;
@@ -127,9 +140,13 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.function.Consumer;
 
+import org.apache.openmeetings.backup.BackupImport;
+import org.apache.openmeetings.core.converter.OfficePool;
+import org.apache.openmeetings.core.mail.MailHandler;
 import org.apache.openmeetings.core.sip.SipManager;
 import org.apache.openmeetings.db.dao.basic.ConfigurationDao;
 import org.apache.openmeetings.db.dao.label.LabelDao;
+import org.apache.openmeetings.db.dao.log.ConferenceLogWriter;
 import org.apache.openmeetings.db.dao.room.RoomDao;
 import org.apache.openmeetings.db.dao.server.OAuth2Dao;
 import org.apache.openmeetings.db.dao.user.GroupDao;
@@ -161,6 +178,7 @@ public class ImportInitvalues {
 	private static final String VER_3_3_0 = "3.3.0";
 	private static final String VER_5_0_0 = "5.0.0";
 	private static final String VER_5_0_1 = "5.0.1";
+	private static final String VER_6_1_0 = "6.1.0";
 	private static final String CLIENT_PLACEHOLDER = "<put your client_id>";
 	private static final String SECRET_PLACEHOLDER = "<put your client_secret>";
 	private static final String EMAIL_PARAM = "email";
@@ -238,6 +256,12 @@ public class ImportInitvalues {
 
 		addCfg(list, CONFIG_SMTP_TIMEOUT, "30000", Configuration.Type.NUMBER,
 				"Socket I/O timeout value in milliseconds. Default is 30 seconds (30000).", VER_1_9);
+		addCfg(list, CONFIG_SMTP_POOL_SIZE, String.valueOf(MailHandler.DEFAULT_POOL_SIZE), Configuration.Type.NUMBER,
+				"Maximum number of simultaneous connections to SMTP server, connections are reused", VER_6_1_0);
+		addCfg(list, CONFIG_SMTP_RATE, "0", Configuration.Type.NUMBER,
+				"Maximum number of e-mails sent per minute, 0 means unlimited", VER_6_1_0);
+		addCfg(list, CONFIG_MAIL_BATCH_SIZE, String.valueOf(MailHandler.DEFAULT_BATCH_SIZE), Configuration.Type.NUMBER,
+				"Number of queued e-mails taken for sending at once", VER_6_1_0);
 
 		addCfg(list, CONFIG_APPLICATION_NAME, DEFAULT_APP_NAME, Configuration.Type.STRING, "Name of the Browser Title window", VER_3_0);
 
@@ -257,6 +281,26 @@ public class ImportInitvalues {
 		addCfg(list, CONFIG_PATH_FFMPEG, cfg.getFfmpegPath(), Configuration.Type.STRING, "Path To FFMPEG", VER_2_0);
 		addCfg(list, CONFIG_PATH_OFFICE, cfg.getOfficePath(), Configuration.Type.STRING,
 				"The path to OpenOffice/LibreOffice (optional) please set this to the real path in case jodconverter is unable to find OpenOffice/LibreOffice installation automatically", VER_2_0);
+		addCfg(list, CONFIG_OFFICE_POOL_SIZE, String.valueOf(OfficePool.DEFAULT_POOL_SIZE), Configuration.Type.NUMBER,
+				"Number of OpenOffice/LibreOffice processes used for document conversion", VER_6_1_0);
+		addCfg(list, CONFIG_OFFICE_MAX_TASKS, String.valueOf(OfficePool.DEFAULT_MAX_TASKS), Configuration.Type.NUMBER,
+				"Number of documents converted by one OpenOffice/LibreOffice process before restart", VER_6_1_0);
+		addCfg(list, CONFIG_OFFICE_QUEUE_SIZE, String.valueOf(OfficePool.DEFAULT_QUEUE_SIZE), Configuration.Type.NUMBER,
+				"Maximum number of documents waiting for conversion", VER_6_1_0);
+		addCfg(list, CONFIG_OFFICE_FIRST_PORT, String.valueOf(OfficePool.DEFAULT_FIRST_PORT), Configuration.Type.NUMBER,
+				"Port of the first OpenOffice/LibreOffice process, next processes use following ports", VER_6_1_0);
+		addCfg(list, CONFIG_CONVERSION_THREADS, "0", Configuration.Type.NUMBER,
+				"Number of simultaneous conversions of uploaded files and recordings, 0 means half of available processors", VER_6_1_0);
+		addCfg(list, CONFIG_BACKUP_BATCH_SIZE, String.valueOf(BackupImport.DEFAULT_BATCH_SIZE), Configuration.Type.NUMBER,
+				"Number of entities stored in one transaction during backup import", VER_6_1_0);
+		addCfg(list, CONFIG_BACKUP_THREADS, "0", Configuration.Type.NUMBER,
+				"Number of simultaneous backup import phases, 0 means half of available processors", VER_6_1_0);
+		addCfg(list, CONFIG_CONF_LOG_QUEUE_SIZE, String.valueOf(ConferenceLogWriter.DEFAULT_QUEUE_SIZE), Configuration.Type.NUMBER,
+				"Maximum number of conference log entries waiting to be stored, new entries are dropped if exceeded (requires restart)", VER_6_1_0);
+		addCfg(list, CONFIG_CONF_LOG_BATCH_SIZE, String.valueOf(ConferenceLogWriter.DEFAULT_BATCH_SIZE), Configuration.Type.NUMBER,
+				"Number of conference log entries stored in one transaction (requires restart)", VER_6_1_0);
+		addCfg(list, CONFIG_CONF_LOG_FLUSH_INTERVAL, String.valueOf(ConferenceLogWriter.DEFAULT_FLUSH_INTERVAL), Configuration.Type.NUMBER,
+				"Interval in milliseconds between stores of pending conference log entries (requires restart)", VER_6_1_0);
 
 		addCfg(list, CONFIG_DASHBOARD_RSS_FEED1, cfg.getUrlFeed(), Configuration.Type.STRING, "Feed URL 1", VER_1_9);
 
@@ -18,13 +18,11 @@
  */
 package org.apache.openmeetings.service.calendar;
 
-import static org.apache.openmeetings.db.util.TimezoneUtil.getTimeZone;
 import static org.apache.openmeetings.util.OpenmeetingsVariables.getAppointmentReminderMinutes;
 import static org.apache.openmeetings.util.OpenmeetingsVariables.getBaseUrl;
 
-import java.util.Calendar;
+import java.util.Date;
 import java.util.List;
-import java.util.TimeZone;
 
 import org.apache.openmeetings.core.notifier.NotifierService;
 import org.apache.openmeetings.db.dao.calendar.AppointmentDao;
@@ -48,6 +46,8 @@ public class AppointmentLogic {
 	private InvitationDao invitationDao;
 	@Autowired
 	private NotifierService notifierService;
+	@Autowired
+	private ReminderManager reminderManager;
 
 	// --------------------------------------------------------------------------------------------
 
@@ -69,6 +69,9 @@ public class AppointmentLogic {
 
 	/**
 	 * Sending Reminder in Simple mail format 5 minutes before Meeting begins
+	 *
+	 * Appointments to be reminded are taken from {@link ReminderManager},
+	 * so no DB polling is performed
 	 */
 	// ----------------------------------------------------------------------------------------------
 	public void doScheduledMeetingReminder() {
@@ -85,48 +88,44 @@ public class AppointmentLogic {
 		}
 
 		long milliseconds = minutesReminderSend * 60 * 1000L;
-		Calendar start = Calendar.getInstance();
-		if (milliseconds < 0) {
-			start.setTimeInMillis(start.getTimeInMillis() + milliseconds);
-		}
-		Calendar end = Calendar.getInstance();
-		if (milliseconds > 0) {
-			end.setTimeInMillis(end.getTimeInMillis() + milliseconds);
+		for (Long id : reminderManager.advance(milliseconds)) {
+			try {
+				remind(id, milliseconds);
+			} catch (Exception e) {
+				log.error("Unexpected exception while sending reminder for appointment {}", id, e);
+			}
 		}
+	}
 
-		for (Appointment a : appointmentDao.getInRange(start, end)) {
-			// Prevent email from being send twice, even if the cycle takes
-			// very long to send each
-			if (a.isReminderEmailSend()) {
-				continue;
+	private void remind(Long id, long milliseconds) {
+		final long now = System.currentTimeMillis();
+		// Update Appointment to not send invitation twice, even from other node
+		if (!appointmentDao.setReminderSent(id, new Date(now + milliseconds), new Date(now + Math.min(0, milliseconds)))) {
+			Appointment a = appointmentDao.get(id);
+			if (a != null && a.getStart().getTime() > now + milliseconds) {
+				// moved without notification, too early to send reminder
+				reminderManager.update(a);
 			}
-			TimeZone ownerZone = getTimeZone(a.getOwner());
-			Calendar aNow = Calendar.getInstance(ownerZone);
-			Calendar aStart = a.startCalendar(ownerZone);
-			aStart.add(Calendar.MINUTE, -minutesReminderSend);
-			if (aStart.after(aNow)) {
-				// to early to send reminder
-				continue;
-			}
-			// Update Appointment to not send invitation twice
-			a.setReminderEmailSend(true);
-			appointmentDao.update(a, null, false);
-
-			List<MeetingMember> members = a.getMeetingMembers();
+			return;
+		}
+		Appointment a = appointmentDao.get(id);
+		if (a == null) {
+			return;
+		}
+		List<MeetingMember> members = a.getMeetingMembers();
 
-			sendReminder(a.getOwner(), a);
-			if (members == null) {
-				log.debug("doScheduledMeetingReminder : no members in meeting!");
-				continue;
-			}
-			// Iterate through all MeetingMembers
-			for (MeetingMember mm : members) {
-				log.debug("doScheduledMeetingReminder : Member {}", mm.getUser().getAddress().getEmail());
+		sendReminder(a.getOwner(), a);
+		if (members == null) {
+			log.debug("doScheduledMeetingReminder : no members in meeting!");
+			return;
+		}
+		// Iterate through all MeetingMembers
+		for (MeetingMember mm : members) {
+			log.debug("doScheduledMeetingReminder : Member {}", mm.getUser().getAddress().getEmail());
 
-				Invitation inv = mm.getInvitation();
+			Invitation inv = mm.getInvitation();
 
-				sendReminder(mm.getUser(), a, inv);
-			}
+			sendReminder(mm.getUser(), a, inv);
 		}
 	}
 }
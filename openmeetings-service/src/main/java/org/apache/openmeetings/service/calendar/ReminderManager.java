@@ -0,0 +1,134 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License") +  you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.openmeetings.service.calendar;
+
+import java.util.Date;
+import java.util.List;
+
+import org.apache.openmeetings.db.dao.calendar.AppointmentDao;
+import org.apache.openmeetings.db.entity.calendar.Appointment;
+import org.apache.openmeetings.db.entity.calendar.Appointment.Reminder;
+import org.apache.openmeetings.db.manager.IReminderManager;
+import org.apache.openmeetings.util.TimingWheel;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.hazelcast.core.HazelcastInstance;
+import com.hazelcast.topic.ITopic;
+
+/**
+ * Keeps pending appointment reminders in the {@link TimingWheel} turned by
+ * appointment start time: the wheel is turned to the current time plus reminder
+ * interval, so change of the interval is taken into account immediately.
+ * The wheel can't be turned back, so it is re-loaded from DB once the interval
+ * is decreased, otherwise appointments would be due too early.
+ *
+ * The wheel is loaded from DB on first use, changes of appointments are
+ * published to all nodes of the cluster after the transaction is committed,
+ * so any node can take over sending.
+ * Reminders are verified against DB before sending, so stale entries are safe.
+ */
+@Component
+public class ReminderManager implements IReminderManager {
+	private static final Logger log = LoggerFactory.getLogger(ReminderManager.class);
+	private static final long TICK = 1000;
+	private static final long CANCEL = Long.MIN_VALUE;
+	private static final String TOPIC_NAME = "reminder";
+
+	@Autowired
+	private AppointmentDao appointmentDao;
+	private TimingWheel<Long> wheel;
+	private long interval;
+	private ITopic<long[]> topic;
+
+	/**
+	 * @param hazelcast - Hazelcast instance of this node
+	 */
+	public synchronized void attach(HazelcastInstance hazelcast) {
+		topic = hazelcast.getTopic(TOPIC_NAME);
+		topic.addMessageListener(msg -> apply(msg.getMessageObject()));
+	}
+
+	@Override
+	public void update(Appointment a) {
+		if (a.getId() == null) {
+			return;
+		}
+		boolean pending = !a.isDeleted() && !a.isReminderEmailSend()
+				&& Reminder.NONE != a.getReminder() && a.getStart() != null;
+		final long[] evt = {a.getId(), pending ? a.getStart().getTime() : CANCEL};
+		if (TransactionSynchronizationManager.isSynchronizationActive()) {
+			TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+				@Override
+				public void afterCommit() {
+					publish(evt);
+				}
+			});
+		} else {
+			publish(evt);
+		}
+	}
+
+	private void publish(long[] evt) {
+		ITopic<long[]> t;
+		synchronized (this) {
+			t = topic;
+		}
+		if (t == null) {
+			apply(evt);
+		} else {
+			t.publish(evt);
+		}
+	}
+
+	private synchronized void apply(long[] evt) {
+		if (wheel == null) {
+			return; // will be loaded from DB
+		}
+		if (CANCEL == evt[1]) {
+			wheel.cancel(evt[0]);
+		} else {
+			wheel.schedule(evt[0], evt[1]);
+		}
+	}
+
+	/**
+	 * @param interval - reminder interval in milliseconds, negative if reminder should be sent after start
+	 * @return ids of appointments the reminder should be sent for
+	 */
+	public synchronized List<Long> advance(long interval) {
+		final long now = System.currentTimeMillis();
+		if (wheel != null && interval < this.interval) {
+			log.debug("Reminder interval is decreased, reminders will be re-loaded");
+			wheel = null;
+		}
+		this.interval = interval;
+		if (wheel == null) {
+			wheel = new TimingWheel<>(TICK, now + interval);
+			appointmentDao.getReminders(new Date(now + Math.min(0, interval)))
+					.forEach((id, start) -> wheel.schedule(id, start.getTime()));
+			log.debug("{} appointment reminders are loaded", wheel.size());
+		}
+		return wheel.advance(now + interval);
+	}
+}
@@ -24,6 +24,7 @@ import java.time.Instant;
 import java.time.temporal.ChronoUnit;
 import java.util.function.BiConsumer;
 
+import org.apache.openmeetings.core.util.JobCoordinator;
 import org.apache.openmeetings.db.dao.record.RecordingDao;
 import org.apache.openmeetings.db.dao.user.GroupDao;
 import org.apache.openmeetings.db.entity.record.Recording;
@@ -38,6 +39,8 @@ public abstract class AbstractJob {
 	GroupDao groupDao;
 	@Autowired
 	RecordingDao recordingDao;
+	@Autowired
+	JobCoordinator coordinator;
 
 	void processExpiringRecordings(boolean notified, BiConsumer<Recording, Long> consumer) {
 		if (!isInitComplete()) {
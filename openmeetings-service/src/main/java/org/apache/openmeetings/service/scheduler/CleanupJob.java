@@ -56,6 +56,10 @@ public class CleanupJob extends AbstractJob {
 	private ConferenceLogDao confLogDao;
 
 	public void cleanTestSetup() {
+		coordinator.run("cleanTestSetup", this::doCleanTestSetup);
+	}
+
+	private void doCleanTestSetup() {
 		log.trace("CleanupJob.cleanTestSetup");
 		final long now = System.currentTimeMillis();
 		if (!isInitComplete()) {
@@ -83,7 +87,28 @@ public class CleanupJob extends AbstractJob {
 		}
 	}
 
+	/**
+	 * Refresh times of the sessions are written to DB by every node,
+	 * expired sessions are removed by the leader only
+	 */
 	public void cleanSessions() {
+		coordinator.run("flushSessions", this::doFlushSessions);
+		coordinator.runSingle("cleanSessions", this::doCleanSessions);
+	}
+
+	private void doFlushSessions() {
+		log.trace("CleanupJob.flushSessions");
+		if (!isInitComplete()) {
+			return;
+		}
+		try {
+			sessionDao.flushRefreshed();
+		} catch (Exception err) {
+			log.error("flushSessions", err);
+		}
+	}
+
+	private void doCleanSessions() {
 		log.trace("CleanupJob.cleanSessions");
 		if (!isInitComplete()) {
 			return;
@@ -96,6 +121,10 @@ public class CleanupJob extends AbstractJob {
 	}
 
 	public void cleanExpiredRecordings() {
+		coordinator.runSingle("cleanExpiredRecordings", this::doCleanExpiredRecordings);
+	}
+
+	private void doCleanExpiredRecordings() {
 		log.trace("CleanupJob.cleanExpiredRecordings");
 		processExpiringRecordings(true, (rec, days) -> {
 			if (days < 0) {
@@ -110,6 +139,10 @@ public class CleanupJob extends AbstractJob {
 	}
 
 	public void cleanExpiredResetHash() {
+		coordinator.runSingle("cleanExpiredResetHash", this::doCleanExpiredResetHash);
+	}
+
+	private void doCleanExpiredResetHash() {
 		log.trace("CleanupJob.cleanExpiredResetHash");
 		if (!isInitComplete()) {
 			return;
@@ -127,6 +160,10 @@ public class CleanupJob extends AbstractJob {
 	}
 
 	public void cleanPersonalData() {
+		coordinator.runSingle("cleanPersonalData", this::doCleanPersonalData);
+	}
+
+	private void doCleanPersonalData() {
 		log.trace("CleanupJob.cleanPersonalData");
 		if (!isInitComplete()) {
 			return;
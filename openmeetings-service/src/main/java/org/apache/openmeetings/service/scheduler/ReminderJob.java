@@ -69,6 +69,10 @@ public class ReminderJob extends AbstractJob {
 	Map<Long, LocalDateTime> groupNotifications = new HashMap<>();
 
 	public void remindMeetings() {
+		coordinator.runSingle("remindMeetings", this::doRemindMeetings);
+	}
+
+	private void doRemindMeetings() {
 		log.trace("ReminderJob.remindMeetings");
 		if (!isInitComplete()) {
 			return;
@@ -81,6 +85,10 @@ public class ReminderJob extends AbstractJob {
 	}
 
 	public void remindExpiringRecordings() {
+		coordinator.runSingle("remindExpiringRecordings", this::doRemindExpiringRecordings);
+	}
+
+	private void doRemindExpiringRecordings() {
 		log.trace("ReminderJob.remindExpiringRecordings");
 		processExpiringRecordings(false, (rec, days) -> {
 			if (days > 0) {
@@ -100,6 +108,10 @@ public class ReminderJob extends AbstractJob {
 	}
 
 	public void loadRss() {
+		coordinator.run("loadRss", this::doLoadRss);
+	}
+
+	private void doLoadRss() {
 		log.trace("ReminderJob.loadRss");
 		if (!isInitComplete()) {
 			return;
@@ -120,6 +132,10 @@ public class ReminderJob extends AbstractJob {
 	}
 
 	public void checkHealth() {
+		coordinator.run("checkHealth", this::doCheckHealth);
+	}
+
+	private void doCheckHealth() {
 		log.trace("ReminderJob.checkHealth");
 		boolean dbOk = false;
 		try {
@@ -134,6 +150,10 @@ public class ReminderJob extends AbstractJob {
 	}
 
 	public void notifyNewGroupUsers() {
+		coordinator.runSingle("notifyNewGroupUsers", this::doNotifyNewGroupUsers);
+	}
+
+	private void doNotifyNewGroupUsers() {
 		log.trace("ReminderJob.notifyNewGroupUsers");
 		if (!isInitComplete()) {
 			return;
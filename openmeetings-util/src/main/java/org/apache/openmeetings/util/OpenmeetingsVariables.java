@@ -74,10 +74,25 @@ public class OpenmeetingsVariables {
 	public static final String CONFIG_SMTP_SSL = "mail.smtp.ssl.enable";
 	public static final String CONFIG_SMTP_TIMEOUT_CON = "mail.smtp.connection.timeout";
 	public static final String CONFIG_SMTP_TIMEOUT = "mail.smtp.timeout";
+	public static final String CONFIG_SMTP_POOL_SIZE = "mail.smtp.pool.size";
+	public static final String CONFIG_SMTP_RATE = "mail.smtp.rate.limit";
+	public static final String CONFIG_MAIL_BATCH_SIZE = "mail.batch.size";
 	public static final String CONFIG_PATH_IMAGEMAGIC = "path.imagemagick";
 	public static final String CONFIG_PATH_SOX = "path.sox";
 	public static final String CONFIG_PATH_FFMPEG = "path.ffmpeg";
 	public static final String CONFIG_PATH_OFFICE = "path.office";
+	public static final String CONFIG_OFFICE_POOL_SIZE = "office.pool.size";
+	public static final String CONFIG_OFFICE_MAX_TASKS = "office.max.tasks.per.process";
+	public static final String CONFIG_OFFICE_QUEUE_SIZE = "office.queue.size";
+	public static final String CONFIG_OFFICE_FIRST_PORT = "office.first.port";
+	public static final String CONFIG_CONVERSION_THREADS = "conversion.threads";
+	public static final String CONFIG_BACKUP_BATCH_SIZE = "backup.import.batch.size";
+	public static final String CONFIG_BACKUP_THREADS = "backup.import.threads";
+	public static final String CONFIG_SEARCH_INDEX_VERSION = "search.index.version";
+	public static final String CONFIG_STORAGE_USAGE_VERSION = "storage.usage.version";
+	public static final String CONFIG_CONF_LOG_QUEUE_SIZE = "conference.log.queue.size";
+	public static final String CONFIG_CONF_LOG_BATCH_SIZE = "conference.log.batch.size";
+	public static final String CONFIG_CONF_LOG_FLUSH_INTERVAL = "conference.log.flush.interval";
 	public static final String CONFIG_DOCUMENT_DPI = "document.dpi";
 	public static final String CONFIG_DOCUMENT_QUALITY = "document.quality";
 	public static final String CONFIG_CAM_FPS = "cam.fps";
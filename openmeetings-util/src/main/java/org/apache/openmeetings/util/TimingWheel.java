@@ -0,0 +1,202 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License") +  you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.openmeetings.util;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Hierarchical timing wheel
+ *
+ * Keys are placed to the slot of the wheel level covering the time left, the
+ * slots of the upper levels are moved down once the wheel turns to them, keys
+ * scheduled too far in the future are kept aside till the top level wheel
+ * turns over. Scheduling and cancelling cost is constant, the cost of the turn
+ * does not depend on the number of keys waiting, the ticks of empty wheels
+ * are skipped.
+ *
+ * The class is not thread-safe.
+ *
+ * @param <K> type of the key
+ */
+public class TimingWheel<K> {
+	private static final int BITS = 6;
+	private static final int SIZE = 1 << BITS;
+	private static final int MASK = SIZE - 1;
+	private static final int LEVELS = 4;
+
+	private final long tick;
+	private final List<List<Set<K>>> levels = new ArrayList<>(LEVELS);
+	private final Set<K> overflow = new LinkedHashSet<>();
+	private final Set<K> ready = new LinkedHashSet<>();
+	private final Map<K, Entry<K>> entries = new HashMap<>();
+	private final int[] counts = new int[LEVELS + 1];
+	private long current;
+
+	private static class Entry<K> {
+		private final long due;
+		private int level;
+		private Set<K> bucket;
+
+		Entry(long due) {
+			this.due = due;
+		}
+	}
+
+	/**
+	 * @param tick - duration of the tick in milliseconds
+	 * @param now - current time in milliseconds
+	 */
+	public TimingWheel(long tick, long now) {
+		this.tick = tick;
+		this.current = now / tick;
+		for (int i = 0; i < LEVELS; ++i) {
+			List<Set<K>> slots = new ArrayList<>(SIZE);
+			for (int j = 0; j < SIZE; ++j) {
+				slots.add(new LinkedHashSet<>());
+			}
+			levels.add(slots);
+		}
+	}
+
+	/**
+	 * Schedules the key, previous schedule of the same key is cancelled
+	 *
+	 * @param key - key to schedule
+	 * @param time - time in milliseconds the key is due
+	 */
+	public void schedule(K key, long time) {
+		cancel(key);
+		Entry<K> e = new Entry<>(time / tick);
+		entries.put(key, e);
+		place(key, e);
+	}
+
+	/**
+	 * @param key - key to cancel
+	 * @return {@code true} if the key was scheduled
+	 */
+	public boolean cancel(K key) {
+		Entry<K> e = entries.remove(key);
+		if (e == null) {
+			return false;
+		}
+		e.bucket.remove(key);
+		if (e.level >= 0) {
+			--counts[e.level];
+		}
+		return true;
+	}
+
+	public boolean contains(K key) {
+		return entries.containsKey(key);
+	}
+
+	public int size() {
+		return entries.size();
+	}
+
+	/**
+	 * Turns the wheel to the time given, turning back is ignored
+	 *
+	 * @param now - current time in milliseconds
+	 * @return keys being due
+	 */
+	public List<K> advance(long now) {
+		final long target = now / tick;
+		List<K> result = new ArrayList<>();
+		drain(ready, result);
+		if (entries.isEmpty()) {
+			current = Math.max(current, target);
+			return result;
+		}
+		while (current < target) {
+			int empty = 0;
+			while (empty < LEVELS && counts[empty] == 0) {
+				++empty;
+			}
+			// nothing happens till the next turn of the first non-empty level
+			final int shift = BITS * empty;
+			current = Math.min(target, ((current >>> shift) + 1) << shift);
+			if ((current & ((1L << (BITS * LEVELS)) - 1)) == 0) {
+				cascade(overflow);
+			}
+			for (int level = LEVELS - 1; level > 0; --level) {
+				if ((current & ((1L << (BITS * level)) - 1)) == 0) {
+					cascade(slot(level, current));
+				}
+			}
+			drain(ready, result);
+			drain(slot(0, current), result);
+		}
+		return result;
+	}
+
+	private Set<K> slot(int level, long time) {
+		return levels.get(level).get((int)((time >>> (BITS * level)) & MASK));
+	}
+
+	private void place(K key, Entry<K> e) {
+		final long delta = e.due - current;
+		if (delta <= 0) {
+			e.level = -1;
+			e.bucket = ready;
+		} else {
+			e.level = LEVELS;
+			e.bucket = overflow;
+			for (int level = 0; level < LEVELS; ++level) {
+				if (delta < 1L << (BITS * (level + 1))) {
+					e.level = level;
+					e.bucket = slot(level, e.due);
+					break;
+				}
+			}
+			++counts[e.level];
+		}
+		e.bucket.add(key);
+	}
+
+	private void cascade(Set<K> bucket) {
+		if (bucket.isEmpty()) {
+			return;
+		}
+		List<K> keys = new ArrayList<>(bucket);
+		bucket.clear();
+		for (K key : keys) {
+			Entry<K> e = entries.get(key);
+			--counts[e.level];
+			place(key, e);
+		}
+	}
+
+	private void drain(Set<K> bucket, List<K> result) {
+		for (K key : bucket) {
+			Entry<K> e = entries.remove(key);
+			if (e.level >= 0) {
+				--counts[e.level];
+			}
+			result.add(key);
+		}
+		bucket.clear();
+	}
+}
@@ -19,6 +19,7 @@
  */
 package org.apache.openmeetings.util.logging;
 
+import io.prometheus.client.Gauge;
 import io.prometheus.client.Histogram;
 
 public class PrometheusUtil {
@@ -27,6 +28,16 @@ public class PrometheusUtil {
 			.name("org_openmeetings_metrics")
 			.labelNames("class", "method", "type", "message")
 			.register();
+	private static final Gauge queue = Gauge.build()
+			.help("OpenMeetings Queue Metrics")
+			.name("org_openmeetings_queue")
+			.labelNames("queue", "type", "state")
+			.register();
+	private static final Gauge config = Gauge.build()
+			.help("OpenMeetings Configuration Snapshot Metrics")
+			.name("org_openmeetings_config")
+			.labelNames("state")
+			.register();
 
 	private PrometheusUtil() {
 	}
@@ -34,4 +45,12 @@ public class PrometheusUtil {
 	public static Histogram getHistogram() {
 		return histogram;
 	}
+
+	public static Gauge getQueueGauge() {
+		return queue;
+	}
+
+	public static Gauge getConfigGauge() {
+		return config;
+	}
 }
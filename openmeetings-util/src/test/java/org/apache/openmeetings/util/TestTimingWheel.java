@@ -0,0 +1,96 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License") +  you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.openmeetings.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+class TestTimingWheel {
+	private static final long TICK = 1000;
+	private static final long START = 1_600_000_000_000L;
+
+	@Test
+	void testFire() {
+		TimingWheel<String> w = new TimingWheel<>(TICK, START);
+		w.schedule("a", START + 5 * TICK);
+		w.schedule("b", START + 100 * TICK);
+		w.schedule("c", START + 5000 * TICK);
+		w.schedule("past", START - TICK);
+		assertEquals(List.of("past"), w.advance(START));
+		assertEquals(List.of(), w.advance(START + 4 * TICK));
+		assertEquals(List.of("a"), w.advance(START + 5 * TICK));
+		assertEquals(List.of("b"), w.advance(START + 4999 * TICK));
+		assertEquals(List.of("c"), w.advance(START + 5000 * TICK));
+		assertEquals(0, w.size());
+	}
+
+	@Test
+	void testCancel() {
+		TimingWheel<String> w = new TimingWheel<>(TICK, START);
+		w.schedule("a", START + 5 * TICK);
+		w.schedule("b", START + 10 * TICK);
+		assertTrue(w.cancel("a"));
+		assertFalse(w.cancel("a"));
+		w.schedule("b", START + 20 * TICK);
+		assertEquals(List.of(), w.advance(START + 19 * TICK), "Rescheduled key should not fire at previous time");
+		assertEquals(List.of("b"), w.advance(START + 20 * TICK));
+	}
+
+	@Test
+	void testFarFuture() {
+		final long far = START + (1L << 30) * TICK;
+		TimingWheel<String> w = new TimingWheel<>(TICK, START);
+		w.schedule("far", far);
+		assertEquals(List.of(), w.advance(far - TICK));
+		assertTrue(w.contains("far"));
+		assertEquals(List.of("far"), w.advance(far));
+	}
+
+	@Test
+	void testRandom() {
+		Random rnd = new Random(42);
+		TimingWheel<Integer> w = new TimingWheel<>(TICK, START);
+		Map<Integer, Long> due = new HashMap<>();
+		for (int i = 0; i < 2000; ++i) {
+			long time = START + (rnd.nextInt(1 << 20) + 1) * TICK;
+			w.schedule(i, time);
+			due.put(i, time);
+		}
+		List<Integer> fired = new ArrayList<>();
+		long now = START;
+		while (now < START + (1L << 20) * TICK) {
+			now += (rnd.nextInt(600) + 1) * TICK;
+			for (Integer i : w.advance(now)) {
+				long time = due.get(i);
+				assertTrue(time <= now && time > now - 600 * TICK, "Key should fire on time");
+				fired.add(i);
+			}
+		}
+		assertEquals(due.size(), fired.size());
+	}
+}
@@ -65,7 +65,8 @@ module.exports = class DrawWbArea extends WbAreaBase {
 	constructor() {
 		super();
 		const self = this;
-		let scroll, role = Role.NONE, _inited = false;
+		let scroll, role = Role.NONE, _inited = false
+			, pendingSlides = [], slideLoading = false;
 
 		// Fabric overrides (should be kept up-to-date on fabric.js updates)
 		if ('function' !== typeof (window.originalTr)) {
@@ -142,6 +143,19 @@ module.exports = class DrawWbArea extends WbAreaBase {
 				}
 			}
 		}
+		function _loadNextSlide() {
+			if (slideLoading || pendingSlides.length === 0) {
+				return;
+			}
+			slideLoading = true;
+			OmUtil.wbAction({action: 'loadSlide', data: pendingSlides.shift()});
+		}
+		function _ensureSlide(wbId, slide) {
+			const idx = pendingSlides.findIndex(p => p.wbId === 1 * wbId && p.slide === 1 * slide);
+			if (idx > 0) {
+				pendingSlides.unshift(pendingSlides.splice(idx, 1)[0]);
+			}
+		}
 		function _activateTab(wbId) {
 			const link = _getWbTab(wbId);
 			if (link.length > 0) {
@@ -326,6 +340,10 @@ module.exports = class DrawWbArea extends WbAreaBase {
 			if (!_inited) {
 				return;
 			}
+			const wb = _getWb(obj.wbId);
+			if (!!wb) {
+				_ensureSlide(obj.wbId, wb.slide);
+			}
 			_activateTab(obj.wbId);
 		};
 		this.renameWb = (obj) => {
@@ -352,8 +370,22 @@ module.exports = class DrawWbArea extends WbAreaBase {
 			if (!_inited) {
 				return;
 			}
+			_ensureSlide(json.wbId, json.slide);
 			_getWb(json.wbId).setSlide(json.slide);
 		};
+		this.loadSlides = (arr) => {
+			if (!_inited) {
+				return;
+			}
+			pendingSlides = arr;
+			slideLoading = false;
+			_loadNextSlide();
+		};
+		this.slideLoaded = () => {
+			slideLoading = false;
+			_loadNextSlide();
+		};
+		this.ensureSlide = _ensureSlide;
 		this.createObj = (json) => {
 			if (!_inited) {
 				return;
@@ -448,6 +480,7 @@ module.exports = class DrawWbArea extends WbAreaBase {
 			if (!_inited) {
 				return;
 			}
+			pendingSlides = [];
 			$('.room-block .wb-block .tabs li a').each(function() {
 				const wbId = $(this).data('wb-id');
 				_getWbTab(wbId).remove();
@@ -376,6 +376,7 @@ module.exports = class Wb {
 				return;
 			}
 			self.slide = _sld;
+			WbArea.ensureSlide(self.id, sld);
 			OmUtil.wbAction({action: 'setSlide', data: {
 				wbId: self.id
 				, slide: _sld
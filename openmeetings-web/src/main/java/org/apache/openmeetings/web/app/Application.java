@@ -46,11 +46,15 @@ import java.util.stream.Stream;
 import javax.websocket.WebSocketContainer;
 
 import org.apache.openmeetings.IApplication;
+import org.apache.openmeetings.core.converter.ConversionScheduler;
 import org.apache.openmeetings.core.sip.SipManager;
 import org.apache.openmeetings.core.util.ChatWebSocketHelper;
+import org.apache.openmeetings.core.util.JobCoordinator;
 import org.apache.openmeetings.core.util.WebSocketHelper;
 import org.apache.openmeetings.db.dao.basic.ConfigurationDao;
+import org.apache.openmeetings.db.dao.basic.SearchIndexDao;
 import org.apache.openmeetings.db.dao.calendar.AppointmentDao;
+import org.apache.openmeetings.db.dao.file.StorageUsageDao;
 import org.apache.openmeetings.db.dao.label.LabelDao;
 import org.apache.openmeetings.db.dao.record.RecordingDao;
 import org.apache.openmeetings.db.dao.user.UserDao;
@@ -67,6 +71,7 @@ import org.apache.openmeetings.db.entity.user.User.Type;
 import org.apache.openmeetings.db.util.ApplicationHelper;
 import org.apache.openmeetings.db.util.ws.RoomMessage;
 import org.apache.openmeetings.db.util.ws.TextRoomMessage;
+import org.apache.openmeetings.service.calendar.ReminderManager;
 import org.apache.openmeetings.util.OmFileHelper;
 import org.apache.openmeetings.util.Version;
 import org.apache.openmeetings.util.ws.IClusterWsMessage;
@@ -111,6 +116,7 @@ import org.apache.wicket.core.request.handler.ListenerRequestHandler;
 import org.apache.wicket.core.request.mapper.MountedMapper;
 import org.apache.wicket.markup.head.filter.FilteringHeaderResponse;
 import org.apache.wicket.markup.html.WebPage;
+import org.apache.wicket.pageStore.AsynchronousPageStore;
 import org.apache.wicket.pageStore.IPageStore;
 import org.apache.wicket.pageStore.SerializingPageStore;
 import org.apache.wicket.protocol.ws.WebSocketAwareResourceIsolationRequestCycleListener;
@@ -173,6 +179,7 @@ public class Application extends AuthenticatedWebApplication implements IApplica
 	public static final String NOTINIT_MAPPING = "/notinited";
 	HazelcastInstance hazelcast;
 	private ITopic<IClusterWsMessage> hazelWsTopic;
+	private ITopic<String> hazelConfigTopic;
 	private String serverId;
 	private final Set<String> wsUrls = new HashSet<>();
 
@@ -183,6 +190,16 @@ public class Application extends AuthenticatedWebApplication implements IApplica
 	@Autowired
 	private RecordingDao recordingDao;
 	@Autowired
+	private StorageUsageDao usageDao;
+	@Autowired
+	private SearchIndexDao searchIndex;
+	@Autowired
+	private ConversionScheduler conversionScheduler;
+	@Autowired
+	private JobCoordinator jobCoordinator;
+	@Autowired
+	private ReminderManager reminderManager;
+	@Autowired
 	private UserDao userDao;
 	@Autowired
 	private UserManager userManager;
@@ -228,6 +245,23 @@ public class Application extends AuthenticatedWebApplication implements IApplica
 			}
 			WebSocketHelper.send(msg.getMessageObject());
 		});
+		cfgDao.attachCluster(hazelcast);
+		jobCoordinator.attach(hazelcast);
+		conversionScheduler.attach(hazelcast);
+		reminderManager.attach(hazelcast);
+		hazelConfigTopic = hazelcast.getTopic("config");
+		hazelConfigTopic.addMessageListener(msg -> {
+			String mServerId = msg.getPublishingMember().getAttribute(NAME_ATTR_KEY);
+			if (mServerId.equals(serverId)) {
+				return;
+			}
+			ThreadContext.setApplication(this);
+			try {
+				cfgDao.reload(msg.getMessageObject());
+			} finally {
+				ThreadContext.detach();
+			}
+		});
 		hazelcast.getCluster().addMembershipListener(new MembershipListener() {
 			@Override
 			public void memberRemoved(MembershipEvent evt) {
@@ -262,9 +296,15 @@ public class Application extends AuthenticatedWebApplication implements IApplica
 		setPageManagerProvider(new DefaultPageManagerProvider(this) {
 			@Override
 			protected IPageStore newAsynchronousStore(IPageStore pageStore) {
-				return new SerializingPageStore(
-						new HazelcastDataStore(getName(), hazelcast)
-						, getFrameworkSettings().getSerializer());
+				TieredPageStore tiered = new TieredPageStore(
+						new AsynchronousPageStore(new HazelcastDataStore(getName(), hazelcast)
+								, getStoreSettings().getAsynchronousQueueCapacity())
+						, TieredPageStore.DEFAULT_MAX_PAGES
+						, getStoreSettings().getMaxSizePerSession().bytes()
+						, Runtime.getRuntime().maxMemory() / 8);
+				// pages of expired sessions should not wait for eviction
+				getSessionStore().registerUnboundListener(tiered);
+				return new SerializingPageStore(tiered, getFrameworkSettings().getSerializer());
 			}
 		});
 		//Add custom resource loader at the beginning, so it will be checked first in the
@@ -357,7 +397,10 @@ public class Application extends AuthenticatedWebApplication implements IApplica
 			updateJpaAddresses();
 			setExtProcessTtl(cfgDao.getInt(CONFIG_EXT_PROCESS_TTL, getExtProcessTtl()));
 			Version.logOMStarted();
-			recordingDao.resetProcessingStatus(); //we are starting so all processing recordings are now errors
+			recordingDao.resetProcessingStatus(); //we are starting so all recordings being recorded are now errors
+			conversionScheduler.resume();
+			CompletableFuture.runAsync(() -> jobCoordinator.runLocked("initStorageUsage", usageDao::init));
+			CompletableFuture.runAsync(() -> jobCoordinator.runLocked("initSearchIndex", searchIndex::init));
 			userManager.initHttpClient();
 			setInitComplete(true);
 			CompletableFuture.runAsync(() -> {
@@ -646,6 +689,13 @@ public class Application extends AuthenticatedWebApplication implements IApplica
 		}
 	}
 
+	@Override
+	public void publishConfigTopic(String key) {
+		if (hazelConfigTopic != null) {
+			hazelConfigTopic.publish(key);
+		}
+	}
+
 	@Override
 	public void publishWsTopic(IClusterWsMessage msg) {
 		hazelWsTopic.publish(msg);
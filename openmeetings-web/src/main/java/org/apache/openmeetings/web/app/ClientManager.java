@@ -37,7 +37,7 @@ import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 import org.apache.openmeetings.core.remote.KurentoHandler;
-import org.apache.openmeetings.db.dao.log.ConferenceLogDao;
+import org.apache.openmeetings.db.dao.log.ConferenceLogWriter;
 import org.apache.openmeetings.db.entity.basic.Client;
 import org.apache.openmeetings.db.entity.log.ConferenceLog;
 import org.apache.openmeetings.db.entity.room.Room;
@@ -57,7 +57,6 @@ import com.hazelcast.map.IMap;
 import com.hazelcast.map.listener.EntryAddedListener;
 import com.hazelcast.map.listener.EntryRemovedListener;
 import com.hazelcast.map.listener.EntryUpdatedListener;
-import com.hazelcast.query.Predicates;
 
 @Component
 public class ClientManager implements IClientManager {
@@ -70,9 +69,14 @@ public class ClientManager implements IClientManager {
 	private final Map<String, Client> onlineClients = new ConcurrentHashMap<>();
 	private final Map<Long, Set<String>> onlineRooms = new ConcurrentHashMap<>();
 	private final Map<String, ServerInfo> onlineServers = new ConcurrentHashMap<>();
+	// local indexes of onlineClients, session and server of the client are not changed while it is online,
+	// user might be changed by merge
+	private final Map<Long, Set<String>> uidsByUser = new ConcurrentHashMap<>();
+	private final Map<String, Set<String>> uidsBySession = new ConcurrentHashMap<>();
+	private final Map<String, Set<String>> uidsByServer = new ConcurrentHashMap<>();
 
 	@Autowired
-	private ConferenceLogDao confLogDao;
+	private ConferenceLogWriter confLogWriter;
 	@Autowired
 	private Application app;
 	@Autowired
@@ -100,9 +104,58 @@ public class ClientManager implements IClientManager {
 		return app.hazelcast.getMap(INSTANT_TOKENS_KEY);
 	}
 
+	private static <K> void index(Map<K, Set<String>> idx, K key, String uid) {
+		if (key != null) {
+			idx.compute(key, (k, uids) -> {
+				Set<String> result = uids == null ? ConcurrentHashMap.newKeySet() : uids;
+				result.add(uid);
+				return result;
+			});
+		}
+	}
+
+	private static <K> void unindex(Map<K, Set<String>> idx, K key, String uid) {
+		if (key != null) {
+			idx.computeIfPresent(key, (k, uids) -> {
+				uids.remove(uid);
+				return uids.isEmpty() ? null : uids;
+			});
+		}
+	}
+
+	private static <K> Set<String> lookup(Map<K, Set<String>> idx, K key) {
+		return key == null ? Set.of() : idx.getOrDefault(key, Set.of());
+	}
+
+	private void addOnline(Client c) {
+		onlineClients.put(c.getUid(), c);
+		index(uidsByUser, c.getUserId(), c.getUid());
+		index(uidsBySession, c.getSessionId(), c.getUid());
+		index(uidsByServer, c.getServerId(), c.getUid());
+	}
+
+	// should be called under onlineClients monitor
+	private void mergeOnline(Client cur, Client c) {
+		final Long userId = cur.getUserId();
+		cur.merge(c);
+		if (!Objects.equals(userId, cur.getUserId())) {
+			unindex(uidsByUser, userId, cur.getUid());
+			index(uidsByUser, cur.getUserId(), cur.getUid());
+		}
+	}
+
+	private void removeOnline(String uid) {
+		Client c = onlineClients.remove(uid);
+		if (c != null) {
+			unindex(uidsByUser, c.getUserId(), uid);
+			unindex(uidsBySession, c.getSessionId(), uid);
+			unindex(uidsByServer, c.getServerId(), uid);
+		}
+	}
+
 	void init() {
 		log.debug("Cluster:: PostConstruct");
-		onlineClients.putAll(map());
+		map().values().forEach(this::addOnline);
 		onlineRooms.putAll(rooms());
 		onlineServers.putAll(servers());
 		map().addEntryListener(new ClientListener(), true);
@@ -118,7 +171,7 @@ public class ClientManager implements IClientManager {
 	}
 
 	public void add(Client c) {
-		confLogDao.add(
+		confLogWriter.add(
 				ConferenceLog.Type.CLIENT_CONNECT
 				, c.getUserId(), "0", null
 				, c.getRemoteAddress()
@@ -126,7 +179,7 @@ public class ClientManager implements IClientManager {
 		log.debug("Adding online client: {}, room: {}", c.getUid(), c.getRoom());
 		c.setServerId(Application.get().getServerId());
 		map().put(c.getUid(), c);
-		onlineClients.put(c.getUid(), c);
+		addOnline(c);
 		mapBySid().put(c.getSid(), c.getUid());
 	}
 
@@ -134,7 +187,7 @@ public class ClientManager implements IClientManager {
 	public Client update(Client c) {
 		map().put(c.getUid(), c);
 		synchronized (onlineClients) {
-			onlineClients.get(c.getUid()).merge(c);
+			mergeOnline(onlineClients.get(c.getUid()), c);
 		}
 		return c;
 	}
@@ -194,7 +247,7 @@ public class ClientManager implements IClientManager {
 			}
 
 			sendRoom(new TextRoomMessage(roomId, c, RoomMessage.Type.ROOM_EXIT, c.getUid()));
-			confLogDao.add(
+			confLogWriter.add(
 					ConferenceLog.Type.ROOM_LEAVE
 					, c.getUserId(), "0", roomId
 					, c.getRemoteAddress()
@@ -205,7 +258,7 @@ public class ClientManager implements IClientManager {
 	@Override
 	public void exit(Client c) {
 		if (c != null) {
-			confLogDao.add(
+			confLogWriter.add(
 					ConferenceLog.Type.CLIENT_DISCONNECT
 					, c.getUserId(), "0", null
 					, c.getRemoteAddress()
@@ -214,7 +267,7 @@ public class ClientManager implements IClientManager {
 			kHandler.remove(c);
 			log.debug("Removing online client: {}, roomId: {}", c.getUid(), c.getRoomId());
 			map().remove(c.getUid());
-			onlineClients.remove(c.getUid());
+			removeOnline(c.getUid());
 			mapBySid().remove(c.getSid());
 		}
 	}
@@ -229,11 +282,8 @@ public class ClientManager implements IClientManager {
 	}
 
 	public void serverRemoved(String serverId) {
-		Map<String, Client> clients = map();
-		for (Map.Entry<String, Client> e : clients.entrySet()) {
-			if (serverId.equals(e.getValue().getServerId())) {
-				exit(e.getValue());
-			}
+		for (String uid : Set.copyOf(lookup(uidsByServer, serverId))) {
+			exit(get(uid));
 		}
 		log.debug("Cluster:: server with id '{}' was removed", serverId);
 		servers().remove(serverId);
@@ -249,7 +299,7 @@ public class ClientManager implements IClientManager {
 	public int addToRoom(Client c) {
 		Room r = c.getRoom();
 		Long roomId = r.getId();
-		confLogDao.add(
+		confLogWriter.add(
 				ConferenceLog.Type.ROOM_ENTER
 				, c.getUserId(), "0", roomId
 				, c.getRemoteAddress()
@@ -284,14 +334,7 @@ public class ClientManager implements IClientManager {
 	}
 
 	public boolean isOnline(Long userId) {
-		boolean isUserOnline = false;
-		for (Map.Entry<String, Client> e : map().entrySet()) {
-			if (e.getValue().sameUserId(userId)) {
-				isUserOnline = true;
-				break;
-			}
-		}
-		return isUserOnline;
+		return !lookup(uidsByUser, userId).isEmpty();
 	}
 
 	@Override
@@ -301,7 +344,10 @@ public class ClientManager implements IClientManager {
 
 	@Override
 	public Collection<Client> listByUser(Long userId) {
-		return map().values(Predicates.equal("userId", userId));
+		return lookup(uidsByUser, userId).stream()
+				.map(this::get)
+				.filter(Objects::nonNull)
+				.collect(Collectors.toList());
 	}
 
 	@Override
@@ -324,8 +370,9 @@ public class ClientManager implements IClientManager {
 	}
 
 	private List<Client> getByKeys(Long userId, String sessionId) {
-		return map().values().stream()
-				.filter(c -> c.sameUserId(userId) && c.getSessionId().equals(sessionId))
+		return lookup(uidsBySession, sessionId).stream()
+				.map(this::get)
+				.filter(c -> c != null && c.sameUserId(userId))
 				.collect(Collectors.toList());
 	}
 
@@ -385,9 +432,9 @@ public class ClientManager implements IClientManager {
 			final String uid = event.getKey();
 			synchronized (onlineClients) {
 				if (onlineClients.containsKey(uid)) {
-					onlineClients.get(uid).merge(event.getValue());
+					mergeOnline(onlineClients.get(uid), event.getValue());
 				} else if (shouldAdd) {
-					onlineClients.put(uid, event.getValue());
+					addOnline(event.getValue());
 				}
 			}
 		}
@@ -405,7 +452,9 @@ public class ClientManager implements IClientManager {
 		@Override
 		public void entryRemoved(EntryEvent<String, Client> event) {
 			log.trace("ClientListener::Remove");
-			onlineClients.remove(event.getKey());
+			synchronized (onlineClients) {
+				removeOnline(event.getKey());
+			}
 		}
 	}
 
@@ -0,0 +1,58 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License") +  you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.openmeetings.web.app;
+
+import org.apache.openmeetings.db.entity.server.Sessiondata;
+import org.apache.openmeetings.db.manager.ISessiondataCache;
+import org.springframework.stereotype.Component;
+
+import com.hazelcast.map.IMap;
+
+@Component
+public class SessiondataCache implements ISessiondataCache {
+	private static final String SESSIONS_KEY = "SESSIONDATA_KEY";
+
+	private static IMap<String, Sessiondata> map() {
+		Application app = Application.get();
+		// cache is not available until application is started
+		return app == null || app.hazelcast == null ? null : app.hazelcast.getMap(SESSIONS_KEY);
+	}
+
+	@Override
+	public Sessiondata get(String sid) {
+		IMap<String, Sessiondata> map = map();
+		return map == null ? null : map.get(sid);
+	}
+
+	@Override
+	public void put(Sessiondata sd) {
+		IMap<String, Sessiondata> map = map();
+		if (map != null) {
+			map.set(sd.getSessionId(), sd);
+		}
+	}
+
+	@Override
+	public void remove(String sid) {
+		IMap<String, Sessiondata> map = map();
+		if (map != null) {
+			map.delete(sid);
+		}
+	}
+}
@@ -0,0 +1,365 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License") +  you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.openmeetings.web.app;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Serializable;
+import java.nio.ByteBuffer;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+import org.apache.wicket.MetaDataKey;
+import org.apache.wicket.page.IManageablePage;
+import org.apache.wicket.pageStore.IPageContext;
+import org.apache.wicket.pageStore.IPageStore;
+import org.apache.wicket.pageStore.SerializedPage;
+import org.apache.wicket.session.ISessionStore;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import io.prometheus.client.Counter;
+import io.prometheus.client.Gauge;
+import io.prometheus.client.Histogram;
+
+/**
+ * Page store keeping recent serialized pages of each session in local memory
+ * in front of the (distributed) delegate store
+ *
+ * Pages are compressed, stored in direct (off-heap) buffers and always passed
+ * to the delegate as well, the delegate is expected to be asynchronous, so the
+ * request is not waiting for replication. The delegate is only read on local
+ * miss, i.e. after failover to other cluster node or after the page was evicted.
+ * The number of pages and bytes is limited per session, the total number of
+ * bytes is limited per node, least recently used sessions are evicted first.
+ * Pages of the session are removed locally as soon as the session is unbound
+ * (expired or invalidated), so should be registered as
+ * {@link ISessionStore.UnboundListener}.
+ * The node serving the session is recorded in the session attribute, local
+ * pages of the session are dropped as soon as the session comes back from other
+ * node, since its pages might be changed there.
+ *
+ * Should be placed between {@link org.apache.wicket.pageStore.SerializingPageStore}
+ * and the delegate.
+ */
+public class TieredPageStore implements IPageStore, ISessionStore.UnboundListener {
+	private static final Logger log = LoggerFactory.getLogger(TieredPageStore.class);
+	public static final int DEFAULT_MAX_PAGES = 20;
+	private static final MetaDataKey<AtomicLong> REPLICATED_KEY = new MetaDataKey<>() {
+		private static final long serialVersionUID = 1L;
+	};
+	private static final String SERVED_BY_KEY = TieredPageStore.class.getName() + ".servedBy";
+	private static final Counter requests = Counter.build()
+			.help("Number of pages requested from page store, by tier: local, remote or miss")
+			.name("org_openmeetings_page_store_requests_total")
+			.labelNames("tier")
+			.register();
+	private static final Histogram replicated = Histogram.build()
+			.help("Compressed bytes of pages replicated to cluster per request")
+			.name("org_openmeetings_page_store_replicated_bytes")
+			.exponentialBuckets(1024, 4, 8)
+			.register();
+	private static final Gauge localBytes = Gauge.build()
+			.help("Compressed bytes of pages stored locally")
+			.name("org_openmeetings_page_store_local_bytes")
+			.register();
+
+	private final IPageStore delegate;
+	private final int maxPages;
+	private final long maxSessionBytes;
+	private final long maxBytes;
+	private final LinkedHashMap<String, SessionPages> sessions = new LinkedHashMap<>(16, .75f, true);
+	private final String nodeId = UUID.randomUUID().toString();
+	private long bytes;
+
+	private static class Entry {
+		private final String type;
+		private final ByteBuffer data;
+
+		Entry(String type, byte[] data) {
+			this.type = type;
+			this.data = ByteBuffer.allocateDirect(data.length).put(data).flip();
+		}
+
+		int size() {
+			return data.capacity();
+		}
+
+		SerializedPage toPage(int id) {
+			byte[] result = new byte[data.capacity()];
+			data.duplicate().get(result);
+			return new SerializedPage(id, type, result);
+		}
+	}
+
+	private static class SessionPages {
+		private final LinkedHashMap<Integer, Entry> pages = new LinkedHashMap<>(16, .75f, true);
+		private long bytes;
+	}
+
+	private static class ServedBy implements Serializable {
+		private static final long serialVersionUID = 1L;
+		private String nodeId;
+	}
+
+	/**
+	 * @param delegate - store to replicate pages to
+	 * @param maxPages - maximum number of pages stored locally per session
+	 * @param maxSessionBytes - maximum number of compressed bytes stored locally per session
+	 * @param maxBytes - maximum number of compressed bytes stored locally for all sessions
+	 */
+	public TieredPageStore(IPageStore delegate, int maxPages, long maxSessionBytes, long maxBytes) {
+		this.delegate = delegate;
+		this.maxPages = maxPages;
+		this.maxSessionBytes = maxSessionBytes;
+		this.maxBytes = maxBytes;
+	}
+
+	@Override
+	public boolean supportsVersioning() {
+		return delegate.supportsVersioning();
+	}
+
+	@Override
+	public boolean canBeAsynchronous(IPageContext context) {
+		return delegate.canBeAsynchronous(context);
+	}
+
+	@Override
+	public void addPage(IPageContext context, IManageablePage page) {
+		if (!(page instanceof SerializedPage)) {
+			delegate.addPage(context, page);
+			return;
+		}
+		SerializedPage serialized = (SerializedPage)page;
+		byte[] data = compress(serialized.getData());
+		String sessionId = context.getSessionId(true);
+		checkServedBy(context, sessionId);
+		putLocal(sessionId, serialized.getPageId(), new Entry(serialized.getPageType(), data));
+		context.getRequestData(REPLICATED_KEY, AtomicLong::new).addAndGet(data.length);
+		delegate.addPage(context, new SerializedPage(serialized.getPageId(), serialized.getPageType(), data));
+	}
+
+	@Override
+	public void removePage(IPageContext context, IManageablePage page) {
+		String sessionId = context.getSessionId(false);
+		if (sessionId != null) {
+			synchronized (this) {
+				SessionPages s = sessions.get(sessionId);
+				if (s != null) {
+					remove(s, s.pages.remove(page.getPageId()));
+				}
+			}
+		}
+		delegate.removePage(context, page);
+	}
+
+	@Override
+	public void removeAllPages(IPageContext context) {
+		String sessionId = context.getSessionId(false);
+		if (sessionId != null) {
+			synchronized (this) {
+				removeSession(sessionId);
+			}
+		}
+		delegate.removeAllPages(context);
+	}
+
+	@Override
+	public void sessionUnbound(String sessionId) {
+		synchronized (this) {
+			removeSession(sessionId);
+		}
+	}
+
+	@Override
+	public void revertPage(IPageContext context, IManageablePage page) {
+		delegate.revertPage(context, page);
+	}
+
+	@Override
+	public IManageablePage getPage(IPageContext context, int id) {
+		String sessionId = context.getSessionId(false);
+		if (sessionId != null) {
+			checkServedBy(context, sessionId);
+		}
+		SerializedPage local = sessionId == null ? null : getLocal(sessionId, id);
+		if (local != null) {
+			requests.labels("local").inc();
+			return decompress(local);
+		}
+		IManageablePage page = delegate.getPage(context, id);
+		if (page instanceof SerializedPage) {
+			requests.labels("remote").inc();
+			SerializedPage serialized = (SerializedPage)page;
+			if (sessionId != null) {
+				putLocal(sessionId, id, new Entry(serialized.getPageType(), serialized.getData()));
+			}
+			return decompress(serialized);
+		}
+		requests.labels("miss").inc();
+		return page;
+	}
+
+	@Override
+	public void detach(IPageContext context) {
+		AtomicLong size = context.getRequestData(REPLICATED_KEY, AtomicLong::new);
+		if (size.get() > 0) {
+			replicated.observe(size.getAndSet(0));
+		}
+		delegate.detach(context);
+	}
+
+	@Override
+	public void destroy() {
+		synchronized (this) {
+			sessions.clear();
+			setBytes(0);
+		}
+		delegate.destroy();
+	}
+
+	/**
+	 * Drops local pages of the session in case it was served by other node
+	 * since last request to this node, i.e. A-&gt;B-&gt;A failover
+	 */
+	private void checkServedBy(IPageContext context, String sessionId) {
+		ServedBy servedBy = context.getSessionAttribute(SERVED_BY_KEY, ServedBy::new);
+		if (servedBy == null || nodeId.equals(servedBy.nodeId)) {
+			return;
+		}
+		if (servedBy.nodeId != null) {
+			log.debug("Session {} was served by other node, local pages are dropped", sessionId);
+			synchronized (this) {
+				removeSession(sessionId);
+			}
+		}
+		servedBy.nodeId = nodeId;
+	}
+
+	private synchronized SerializedPage getLocal(String sessionId, int id) {
+		SessionPages s = sessions.get(sessionId);
+		Entry e = s == null ? null : s.pages.get(id);
+		return e == null ? null : e.toPage(id);
+	}
+
+	private synchronized void putLocal(String sessionId, int id, Entry e) {
+		SessionPages s = sessions.computeIfAbsent(sessionId, k -> new SessionPages());
+		if (e.size() > maxSessionBytes) {
+			remove(s, s.pages.remove(id)); // previous version should not be served
+			return;
+		}
+		remove(s, s.pages.put(id, e));
+		s.bytes += e.size();
+		setBytes(bytes + e.size());
+		Iterator<Entry> iter = s.pages.values().iterator();
+		while (s.pages.size() > maxPages || s.bytes > maxSessionBytes) {
+			Entry eldest = iter.next();
+			iter.remove();
+			remove(s, eldest);
+		}
+		Iterator<Map.Entry<String, SessionPages>> sessIter = sessions.entrySet().iterator();
+		while (bytes > maxBytes && sessIter.hasNext()) {
+			SessionPages eldest = sessIter.next().getValue();
+			if (eldest == s) {
+				continue;
+			}
+			sessIter.remove();
+			setBytes(bytes - eldest.bytes);
+		}
+	}
+
+	private void remove(SessionPages s, Entry e) {
+		if (e != null) {
+			s.bytes -= e.size();
+			setBytes(bytes - e.size());
+		}
+	}
+
+	private void removeSession(String sessionId) {
+		SessionPages s = sessions.remove(sessionId);
+		if (s != null) {
+			setBytes(bytes - s.bytes);
+		}
+	}
+
+	private void setBytes(long bytes) {
+		this.bytes = bytes;
+		localBytes.set(bytes);
+	}
+
+	synchronized long getBytes() {
+		return bytes;
+	}
+
+	synchronized int getPageCount(String sessionId) {
+		SessionPages s = sessions.get(sessionId);
+		return s == null ? 0 : s.pages.size();
+	}
+
+	static byte[] compress(byte[] data) {
+		Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+		try {
+			deflater.setInput(data);
+			deflater.finish();
+			ByteArrayOutputStream out = new ByteArrayOutputStream(data.length / 4 + 64);
+			byte[] buf = new byte[8192];
+			while (!deflater.finished()) {
+				out.write(buf, 0, deflater.deflate(buf));
+			}
+			return out.toByteArray();
+		} finally {
+			deflater.end();
+		}
+	}
+
+	static byte[] decompress(byte[] data) throws DataFormatException {
+		Inflater inflater = new Inflater();
+		try {
+			inflater.setInput(data);
+			ByteArrayOutputStream out = new ByteArrayOutputStream(data.length * 4);
+			byte[] buf = new byte[8192];
+			while (!inflater.finished()) {
+				int len = inflater.inflate(buf);
+				if (len == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+					throw new DataFormatException("Truncated data");
+				}
+				out.write(buf, 0, len);
+			}
+			return out.toByteArray();
+		} finally {
+			inflater.end();
+		}
+	}
+
+	private static SerializedPage decompress(SerializedPage page) {
+		try {
+			return new SerializedPage(page.getPageId(), page.getPageType(), decompress(page.getData()));
+		} catch (DataFormatException e) {
+			// page was stored uncompressed, i.e. by the node of previous version
+			log.debug("Page {} is not compressed", page.getPageId());
+			return page;
+		}
+	}
+}
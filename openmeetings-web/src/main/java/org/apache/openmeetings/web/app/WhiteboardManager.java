@@ -23,11 +23,14 @@ import static org.apache.openmeetings.db.util.ApplicationHelper.ensureApplicatio
 import static org.apache.openmeetings.util.OpenmeetingsVariables.getDefaultLang;
 import static org.apache.openmeetings.web.room.wb.WbWebSocketHelper.sendWbAll;
 
+import java.io.Serializable;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.Objects;
 import java.util.Set;
 import java.util.TreeMap;
 import java.util.concurrent.ConcurrentHashMap;
@@ -45,7 +48,11 @@ import org.apache.openmeetings.db.entity.room.RoomFile;
 import org.apache.openmeetings.db.entity.user.User;
 import org.apache.openmeetings.db.manager.IWhiteboardManager;
 import org.apache.openmeetings.db.util.ws.RoomMessage;
+import org.apache.openmeetings.util.NullStringer;
+import org.apache.openmeetings.web.room.wb.UndoLog;
+import org.apache.openmeetings.web.room.wb.UndoObject;
 import org.apache.openmeetings.web.room.wb.WbAction;
+import org.apache.openmeetings.web.room.wb.WbItem;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -58,10 +65,23 @@ import com.hazelcast.map.IMap;
 import com.hazelcast.map.listener.EntryAddedListener;
 import com.hazelcast.map.listener.EntryRemovedListener;
 import com.hazelcast.map.listener.EntryUpdatedListener;
+import com.hazelcast.partition.PartitionAware;
+import com.hazelcast.query.Predicate;
+import com.hazelcast.query.Predicates;
 
 /**
  * Hazelcast based Whiteboard manager
  *
+ * Whiteboards (without items) are stored in {@link #WBS_KEY} map, items are
+ * replicated one by one via {@link #WB_ITEMS_KEY} map, so only changed objects
+ * are being sent across the cluster. All items of the same whiteboard are
+ * stored in the same partition, this guarantees the order of events
+ *
+ * Undo log is stored per room, whiteboard and user in {@link #WB_UNDO_KEY} map,
+ * so it is not part of the page and survives page reload and failover. The log
+ * is limited by number of entries and size, it is changed in place by entry
+ * processors on the owning member, idle logs are evicted (see hazelcast.xml).
+ *
  * @author sebawagner
  *
  */
@@ -70,6 +90,10 @@ public class WhiteboardManager implements IWhiteboardManager {
 	private static final Logger log = LoggerFactory.getLogger(WhiteboardManager.class);
 	private final Map<Long, Whiteboards> onlineWbs = new ConcurrentHashMap<>();
 	private static final String WBS_KEY = "WBS_KEY";
+	private static final String WB_ITEMS_KEY = "WB_ITEMS_KEY";
+	private static final String WB_UNDO_KEY = "WB_UNDO_KEY";
+	private static final int UNDO_SIZE = 20;
+	private static final int UNDO_MAX_CHARS = 1024 * 1024;
 
 	@Autowired
 	private Application app;
@@ -78,9 +102,84 @@ public class WhiteboardManager implements IWhiteboardManager {
 		return app.hazelcast.getMap(WBS_KEY);
 	}
 
+	private IMap<WbItemKey, WbItem> items() {
+		return app.hazelcast.getMap(WB_ITEMS_KEY);
+	}
+
+	private long nextVersion() {
+		return app.hazelcast.getFlakeIdGenerator(WB_ITEMS_KEY).newId();
+	}
+
+	private IMap<WbUndoKey, UndoLog> undo() {
+		return app.hazelcast.getMap(WB_UNDO_KEY);
+	}
+
 	void init() {
 		map().addEntryListener(new WbListener(), true);
+		items().addEntryListener(new WbItemListener(), true);
 		map().entrySet().forEach(e -> onlineWbs.put(e.getKey(), e.getValue()));
+		putLocal(items().entrySet());
+	}
+
+	private Whiteboard getLocal(WbItemKey key) {
+		Whiteboards wbs = onlineWbs.get(key.getRoomId());
+		return wbs == null ? null : wbs.get(key.getWbId());
+	}
+
+	private void putLocal(WbItemKey key, WbItem item) {
+		Whiteboard wb = getLocal(key);
+		if (wb != null) {
+			wb.putIfNewer(key.getUid(), new JSONObject(item.getObject()), item.getVersion());
+		}
+	}
+
+	/**
+	 * Map entries are not ordered, items are sorted by z-order before being added
+	 *
+	 * @param entries - items to add
+	 */
+	private void putLocal(Collection<Entry<WbItemKey, WbItem>> entries) {
+		entries.stream()
+				.sorted(Entry.comparingByValue(WbItem.BY_SEQ))
+				.forEach(e -> putLocal(e.getKey(), e.getValue()));
+	}
+
+	private static <K, V> Predicate<K, V> byRoom(Long roomId) {
+		return Predicates.equal("__key.roomId", roomId);
+	}
+
+	private static <K, V> Predicate<K, V> byWb(Long roomId, long wbId) {
+		return Predicates.and(byRoom(roomId), Predicates.equal("__key.wbId", wbId));
+	}
+
+	/**
+	 * Add or replace the object of the whiteboard, only this object is replicated
+	 *
+	 * @param roomId - id of the room
+	 * @param wb - whiteboard
+	 * @param o - object to put
+	 */
+	public void putItem(long roomId, Whiteboard wb, JSONObject o) {
+		final String uid = o.getString("uid");
+		final long version = nextVersion();
+		wb.put(uid, o, version);
+		items().submitToKey(new WbItemKey(roomId, wb.getId(), uid), new WbItem.Put(version, o.toString(new NullStringer())));
+	}
+
+	/**
+	 * Remove the object from the whiteboard, only removal is replicated
+	 *
+	 * @param roomId - id of the room
+	 * @param wb - whiteboard
+	 * @param uid - uid of the object
+	 * @return removed object or {@code null}
+	 */
+	public JSONObject removeItem(long roomId, Whiteboard wb, String uid) {
+		JSONObject o = wb.remove(uid);
+		if (o != null) {
+			items().deleteAsync(new WbItemKey(roomId, wb.getId(), uid));
+		}
+		return o;
 	}
 
 	private static String getDefaultName(Long langId, int num) {
@@ -105,6 +204,8 @@ public class WhiteboardManager implements IWhiteboardManager {
 				try {
 					onlineWbs.remove(roomId);
 					map().delete(roomId);
+					items().removeAll(byRoom(roomId));
+					undo().removeAll(byRoom(roomId));
 				} finally {
 					map().unlock(roomId);
 				}
@@ -208,6 +309,7 @@ public class WhiteboardManager implements IWhiteboardManager {
 		Whiteboard wb = wbs.get(wbId);
 		if (wb != null) {
 			wb.clear();
+			items().removeAll(byWb(roomId, wbId));
 			update(wbs);
 		}
 		return wb;
@@ -232,7 +334,10 @@ public class WhiteboardManager implements IWhiteboardManager {
 		Whiteboard wb = get(roomId).get(wbId);
 		JSONArray arr = wb.clearSlide(slide);
 		if (arr.length() != 0) {
-			update(roomId, wb);
+			IMap<WbItemKey, WbItem> items = items();
+			for (int i = 0; i < arr.length(); ++i) {
+				items.deleteAsync(new WbItemKey(roomId, wbId, arr.getJSONObject(i).getString("uid")));
+			}
 			if (consumer != null) {
 				consumer.accept(wb, arr);
 			}
@@ -245,6 +350,8 @@ public class WhiteboardManager implements IWhiteboardManager {
 	public Whiteboard remove(long roomId, long wbId, long prevWbId) {
 		Whiteboards wbs = get(roomId);
 		Whiteboard wb = wbs.getWhiteboards().remove(wbId);
+		items().removeAll(byWb(roomId, wbId));
+		undo().removeAll(byWb(roomId, wbId));
 		if (prevWbId > -1) {
 			wbs.setActiveWb(prevWbId);
 		}
@@ -252,6 +359,30 @@ public class WhiteboardManager implements IWhiteboardManager {
 		return wb;
 	}
 
+	/**
+	 * Add entry to the undo log of the user
+	 *
+	 * @param roomId - id of the room
+	 * @param wbId - id of the whiteboard
+	 * @param userId - id of the user
+	 * @param u - entry to add
+	 */
+	public void addUndo(long roomId, long wbId, Long userId, UndoObject u) {
+		undo().executeOnKey(new WbUndoKey(roomId, wbId, userId), new UndoLog.Add(u, UNDO_SIZE, UNDO_MAX_CHARS));
+	}
+
+	/**
+	 * Remove last entry from the undo log of the user
+	 *
+	 * @param roomId - id of the room
+	 * @param wbId - id of the whiteboard
+	 * @param userId - id of the user
+	 * @return removed entry or {@code null} if log is empty
+	 */
+	public UndoObject popUndo(long roomId, long wbId, Long userId) {
+		return undo().executeOnKey(new WbUndoKey(roomId, wbId, userId), new UndoLog.Pop());
+	}
+
 	public void activate(long roomId, Long wbId) {
 		Whiteboards wbs = get(roomId);
 		wbs.setActiveWb(wbId);
@@ -264,9 +395,34 @@ public class WhiteboardManager implements IWhiteboardManager {
 		update(wbs);
 	}
 
+	/**
+	 * Replicates whiteboards properties, items are NOT replicated
+	 *
+	 * @param wbs - whiteboards to replicate
+	 */
 	private void update(Whiteboards wbs) {
 		onlineWbs.put(wbs.getRoomId(), wbs);
-		new Thread(() -> map().put(wbs.getRoomId(), wbs)).start();
+		map().setAsync(wbs.getRoomId(), wbs);
+	}
+
+	/**
+	 * Items are not part of replicated whiteboards, local items should be preserved
+	 *
+	 * Items and whiteboards are replicated via different maps, so item events
+	 * might arrive before the whiteboard is known to this node, such events are
+	 * dropped by {@link #putLocal(WbItemKey, WbItem)}, items of whiteboards
+	 * seen for the first time are re-read from the map
+	 */
+	private void merge(Long roomId, Whiteboards wbs) {
+		Whiteboards prev = onlineWbs.put(roomId, wbs);
+		for (Whiteboard wb : wbs.getWhiteboards().values()) {
+			Whiteboard prevWb = prev == null ? null : prev.get(wb.getId());
+			if (prevWb != null) {
+				wb.copyItems(prevWb);
+			} else {
+				putLocal(items().entrySet(byWb(roomId, wb.getId())));
+			}
+		}
 	}
 
 	public class WbListener implements
@@ -277,13 +433,17 @@ public class WhiteboardManager implements IWhiteboardManager {
 		@Override
 		public void entryAdded(EntryEvent<Long, Whiteboards> event) {
 			log.trace("WbListener::Add");
-			onlineWbs.put(event.getKey(), event.getValue());
+			if (!event.getMember().localMember()) {
+				merge(event.getKey(), event.getValue());
+			}
 		}
 
 		@Override
 		public void entryUpdated(EntryEvent<Long, Whiteboards> event) {
 			log.trace("WbListener::Update");
-			onlineWbs.put(event.getKey(), event.getValue());
+			if (!event.getMember().localMember()) {
+				merge(event.getKey(), event.getValue());
+			}
 		}
 
 		@Override
@@ -292,4 +452,143 @@ public class WhiteboardManager implements IWhiteboardManager {
 			onlineWbs.remove(event.getKey());
 		}
 	}
+
+	public class WbItemListener implements
+			EntryAddedListener<WbItemKey, WbItem>
+			, EntryUpdatedListener<WbItemKey, WbItem>
+			, EntryRemovedListener<WbItemKey, WbItem>
+	{
+		@Override
+		public void entryAdded(EntryEvent<WbItemKey, WbItem> event) {
+			log.trace("WbItemListener::Add");
+			if (!event.getMember().localMember()) {
+				putLocal(event.getKey(), event.getValue());
+			}
+		}
+
+		@Override
+		public void entryUpdated(EntryEvent<WbItemKey, WbItem> event) {
+			log.trace("WbItemListener::Update");
+			if (!event.getMember().localMember()) {
+				putLocal(event.getKey(), event.getValue());
+			}
+		}
+
+		@Override
+		public void entryRemoved(EntryEvent<WbItemKey, WbItem> event) {
+			log.trace("WbItemListener::Remove");
+			if (!event.getMember().localMember()) {
+				Whiteboard wb = getLocal(event.getKey());
+				if (wb != null) {
+					wb.remove(event.getKey().getUid());
+				}
+			}
+		}
+	}
+
+	/**
+	 * Key of the whiteboard item, all items of the same whiteboard are placed
+	 * to the same partition
+	 */
+	public static class WbItemKey implements PartitionAware<String>, Serializable {
+		private static final long serialVersionUID = 1L;
+		private final long roomId;
+		private final long wbId;
+		private final String uid;
+
+		public WbItemKey(long roomId, long wbId, String uid) {
+			this.roomId = roomId;
+			this.wbId = wbId;
+			this.uid = uid;
+		}
+
+		public long getRoomId() {
+			return roomId;
+		}
+
+		public long getWbId() {
+			return wbId;
+		}
+
+		public String getUid() {
+			return uid;
+		}
+
+		@Override
+		public String getPartitionKey() {
+			return roomId + "/" + wbId;
+		}
+
+		@Override
+		public int hashCode() {
+			return Objects.hash(roomId, wbId, uid);
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (this == obj) {
+				return true;
+			}
+			if (!(obj instanceof WbItemKey)) {
+				return false;
+			}
+			WbItemKey other = (WbItemKey) obj;
+			return roomId == other.roomId && wbId == other.wbId && Objects.equals(uid, other.uid);
+		}
+
+		@Override
+		public String toString() {
+			return "WbItemKey[roomId=" + roomId + ", wbId=" + wbId + ", uid=" + uid + "]";
+		}
+	}
+
+	/**
+	 * Key of the undo log of the user
+	 */
+	public static class WbUndoKey implements Serializable {
+		private static final long serialVersionUID = 1L;
+		private final long roomId;
+		private final long wbId;
+		private final Long userId;
+
+		public WbUndoKey(long roomId, long wbId, Long userId) {
+			this.roomId = roomId;
+			this.wbId = wbId;
+			this.userId = userId;
+		}
+
+		public long getRoomId() {
+			return roomId;
+		}
+
+		public long getWbId() {
+			return wbId;
+		}
+
+		public Long getUserId() {
+			return userId;
+		}
+
+		@Override
+		public int hashCode() {
+			return Objects.hash(roomId, wbId, userId);
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (this == obj) {
+				return true;
+			}
+			if (!(obj instanceof WbUndoKey)) {
+				return false;
+			}
+			WbUndoKey other = (WbUndoKey) obj;
+			return roomId == other.roomId && wbId == other.wbId && Objects.equals(userId, other.userId);
+		}
+
+		@Override
+		public String toString() {
+			return "WbUndoKey[roomId=" + roomId + ", wbId=" + wbId + ", userId=" + userId + "]";
+		}
+	}
 }
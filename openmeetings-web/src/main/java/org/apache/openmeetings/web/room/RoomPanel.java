@@ -550,6 +550,9 @@ public class RoomPanel extends BasePanel {
 					case WB_PUT_FILE:
 						onWbPutFile((TextRoomMessage)m);
 						break;
+					case WB_UPDATE_FILE:
+						onWbUpdateFile((TextRoomMessage)m);
+						break;
 				}
 			}
 		}
@@ -636,6 +639,11 @@ public class RoomPanel extends BasePanel {
 		getWb().sendFileToWb(fileDao.getAny(obj.getLong("fileId")), obj.getBoolean("clean"));
 	}
 
+	private void onWbUpdateFile(TextRoomMessage m) {
+		JSONObject obj = new JSONObject(m.getText());
+		getWb().updateFile(fileDao.getAny(obj.getLong("fileId")));
+	}
+
 	private String getQuickPollJs() {
 		return String.format("Room.quickPoll(%s);", qpollManager.toJson(r.getId()));
 	}
@@ -29,6 +29,7 @@ import java.util.Map;
 import java.util.Optional;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.DoubleConsumer;
+import java.util.function.IntConsumer;
 
 import javax.ws.rs.core.MediaType;
 
@@ -181,22 +182,24 @@ public class RoomFileUploadResourceReference extends ResourceReference {
 				}
 				f.setInsertedBy(getUserId());
 
+				final long offset = currentSize;
+				final double[] filePart = {0};
+				final WbPublisher wbPublisher = toWb ? new WbPublisher(c, f, clean) : null;
 				ProcessResultList logs = processor.processFile(f, curItem.getInputStream()
-						, Optional.<DoubleConsumer>of(part -> sendProgress(c, uuid, progress, progress.get() + (int)(100 * part * size / totalSize))));
+						, Optional.<DoubleConsumer>of(part -> {
+							filePart[0] += part;
+							sendProgress(c, uuid, progress, (int)(100 * (offset + filePart[0] * size) / totalSize));
+						})
+						, Optional.ofNullable(wbPublisher));
 				for (ProcessResult res : logs.getJobs()) {
 					fileLogDao.add(res.getProcess(), f, res);
 				}
 				if (logs.hasError()) {
 					sendError(c, uuid, Application.getString("convert.errors.file", langId));
-				} else {
-					if (toWb) {
-						WebSocketHelper.sendClient(c, new TextRoomMessage(c.getRoomId(), c, RoomMessage.Type.WB_PUT_FILE
-								, new JSONObject()
-										.put("fileId", f.getId())
-										.put("clean", clean)
-										.toString()));
-						clean = false;
-					}
+				}
+				if (wbPublisher != null && (!logs.hasError() || wbPublisher.published)) {
+					wbPublisher.complete();
+					clean = false;
 				}
 			} catch (Exception e) {
 				log.error("Unexpected error while processing uploaded file", e);
@@ -210,6 +213,55 @@ public class RoomFileUploadResourceReference extends ResourceReference {
 		sendProgress(c, uuid, progress, 100);
 	}
 
+	/**
+	 * Puts the document to the WB as soon as first page is ready,
+	 * the rest of the pages are added as they are rendered
+	 */
+	private class WbPublisher implements IntConsumer {
+		private final Client c;
+		private final org.apache.openmeetings.db.entity.file.FileItem f;
+		private final boolean clean;
+		private boolean published = false;
+		private int count = 0;
+
+		WbPublisher(Client c, org.apache.openmeetings.db.entity.file.FileItem f, boolean clean) {
+			this.c = c;
+			this.f = f;
+			this.clean = clean;
+		}
+
+		@Override
+		public void accept(int pages) {
+			f.setCount(pages);
+			fileDao.update(f);
+			send();
+		}
+
+		private void send() {
+			if (published) {
+				if (f.getCount() > count) {
+					send(RoomMessage.Type.WB_UPDATE_FILE);
+				}
+			} else {
+				send(RoomMessage.Type.WB_PUT_FILE);
+				published = true;
+			}
+			count = f.getCount();
+		}
+
+		private void send(RoomMessage.Type type) {
+			WebSocketHelper.sendClient(c, new TextRoomMessage(c.getRoomId(), c, type
+					, new JSONObject()
+							.put("fileId", f.getId())
+							.put("clean", clean && !published)
+							.toString()));
+		}
+
+		void complete() {
+			send();
+		}
+	}
+
 	private JSONObject getBaseMessage(String uuid) {
 		return new JSONObject()
 				.put("uuid", uuid)
@@ -80,5 +80,7 @@ public abstract class AbstractWbPanel extends Panel {
 	 */
 	public void sendFileToWb(final BaseFileItem fi, boolean clean) {}
 
+	public void updateFile(final BaseFileItem fi) {}
+
 	public abstract void processWbAction(WbAction a, JSONObject obj, IPartialPageRequestHandler handler) throws IOException;
 }
@@ -0,0 +1,205 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License") +  you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.openmeetings.web.room.wb;
+
+import java.io.IOException;
+import java.util.LinkedList;
+import java.util.Map;
+
+import com.hazelcast.map.EntryProcessor;
+import com.hazelcast.nio.ObjectDataInput;
+import com.hazelcast.nio.ObjectDataOutput;
+import com.hazelcast.nio.serialization.IdentifiedDataSerializable;
+
+/**
+ * Undo log of the user, newest entry first
+ *
+ * The log is changed in place on the member owning it by {@link Add} and
+ * {@link Pop} entry processors, so only the entry is sent across the cluster
+ */
+public class UndoLog implements IdentifiedDataSerializable {
+	private final LinkedList<UndoObject> entries = new LinkedList<>();
+	private int chars;
+
+	public int size() {
+		return entries.size();
+	}
+
+	public int getChars() {
+		return chars;
+	}
+
+	/**
+	 * Adds the entry, the eldest entries are removed while the log exceeds the limits,
+	 * the newest entry is always kept
+	 *
+	 * @param u - entry to add
+	 * @param maxSize - maximum number of entries
+	 * @param maxChars - maximum number of chars of all entries
+	 */
+	public void push(UndoObject u, int maxSize, int maxChars) {
+		entries.push(u);
+		chars += u.size();
+		while (entries.size() > maxSize || (entries.size() > 1 && chars > maxChars)) {
+			chars -= entries.removeLast().size();
+		}
+	}
+
+	/**
+	 * @return the newest entry or {@code null} if the log is empty
+	 */
+	public UndoObject pop() {
+		if (entries.isEmpty()) {
+			return null;
+		}
+		UndoObject u = entries.pop();
+		chars -= u.size();
+		return u;
+	}
+
+	@Override
+	public int getFactoryId() {
+		return WbSerializableFactory.FACTORY_ID;
+	}
+
+	@Override
+	public int getClassId() {
+		return WbSerializableFactory.UNDO_LOG;
+	}
+
+	@Override
+	public void writeData(ObjectDataOutput out) throws IOException {
+		out.writeInt(entries.size());
+		for (UndoObject u : entries) {
+			write(out, u);
+		}
+	}
+
+	@Override
+	public void readData(ObjectDataInput in) throws IOException {
+		int count = in.readInt();
+		for (int i = 0; i < count; ++i) {
+			UndoObject u = read(in);
+			entries.add(u);
+			chars += u.size();
+		}
+	}
+
+	private static void write(ObjectDataOutput out, UndoObject u) throws IOException {
+		out.writeInt(u.getType().ordinal());
+		out.writeUTF(u.getObject());
+	}
+
+	private static UndoObject read(ObjectDataInput in) throws IOException {
+		return new UndoObject(UndoObject.Type.values()[in.readInt()], in.readUTF());
+	}
+
+	/**
+	 * Adds the entry to the log, the log is created if missing
+	 */
+	public static class Add implements EntryProcessor<Object, UndoLog, Void>, IdentifiedDataSerializable {
+		private static final long serialVersionUID = 1L;
+		private UndoObject undo;
+		private int maxSize;
+		private int maxChars;
+
+		public Add() {
+			//for deserialization
+		}
+
+		public Add(UndoObject undo, int maxSize, int maxChars) {
+			this.undo = undo;
+			this.maxSize = maxSize;
+			this.maxChars = maxChars;
+		}
+
+		@Override
+		public Void process(Map.Entry<Object, UndoLog> entry) {
+			UndoLog log = entry.getValue();
+			if (log == null) {
+				log = new UndoLog();
+			}
+			log.push(undo, maxSize, maxChars);
+			entry.setValue(log);
+			return null;
+		}
+
+		@Override
+		public int getFactoryId() {
+			return WbSerializableFactory.FACTORY_ID;
+		}
+
+		@Override
+		public int getClassId() {
+			return WbSerializableFactory.UNDO_ADD;
+		}
+
+		@Override
+		public void writeData(ObjectDataOutput out) throws IOException {
+			write(out, undo);
+			out.writeInt(maxSize);
+			out.writeInt(maxChars);
+		}
+
+		@Override
+		public void readData(ObjectDataInput in) throws IOException {
+			undo = read(in);
+			maxSize = in.readInt();
+			maxChars = in.readInt();
+		}
+	}
+
+	/**
+	 * Removes the newest entry from the log, empty log is removed
+	 */
+	public static class Pop implements EntryProcessor<Object, UndoLog, UndoObject>, IdentifiedDataSerializable {
+		private static final long serialVersionUID = 1L;
+
+		@Override
+		public UndoObject process(Map.Entry<Object, UndoLog> entry) {
+			UndoLog log = entry.getValue();
+			if (log == null) {
+				return null;
+			}
+			UndoObject u = log.pop();
+			entry.setValue(log.size() == 0 ? null : log);
+			return u;
+		}
+
+		@Override
+		public int getFactoryId() {
+			return WbSerializableFactory.FACTORY_ID;
+		}
+
+		@Override
+		public int getClassId() {
+			return WbSerializableFactory.UNDO_POP;
+		}
+
+		@Override
+		public void writeData(ObjectDataOutput out) throws IOException {
+			//no-op
+		}
+
+		@Override
+		public void readData(ObjectDataInput in) throws IOException {
+			//no-op
+		}
+	}
+}
@@ -25,8 +25,19 @@ import org.apache.openmeetings.util.NullStringer;
 import com.github.openjson.JSONArray;
 import com.github.openjson.JSONObject;
 
+/**
+ * Entry of the whiteboard undo log, the object is
+ * <ul>
+ * <li>{@link Type#add} - array of uids of added items</li>
+ * <li>{@link Type#remove} - array of removed items</li>
+ * <li>{@link Type#modify} - array of {@link #delta(JSONObject, JSONObject)} of modified items</li>
+ * </ul>
+ */
 public class UndoObject implements Serializable {
 	private static final long serialVersionUID = 1L;
+	private static final String KEY_UID = "uid";
+	private static final String KEY_SET = "set";
+	private static final String KEY_UNSET = "unset";
 
 	public enum Type {
 		add
@@ -46,6 +57,11 @@ public class UndoObject implements Serializable {
 		this.object = arr.toString(new NullStringer());
 	}
 
+	UndoObject(Type type, String object) {
+		this.type = type;
+		this.object = object;
+	}
+
 	public Type getType() {
 		return type;
 	}
@@ -54,6 +70,53 @@ public class UndoObject implements Serializable {
 		return object;
 	}
 
+	public int size() {
+		return object.length();
+	}
+
+	/**
+	 * @param prev - item before modification
+	 * @param cur - item after modification
+	 * @return previous values of the changed properties of the item
+	 */
+	public static JSONObject delta(JSONObject prev, JSONObject cur) {
+		JSONObject set = new JSONObject();
+		JSONArray unset = new JSONArray();
+		for (String key : prev.keySet()) {
+			Object v = prev.opt(key);
+			if (!cur.has(key) || !String.valueOf(v).equals(String.valueOf(cur.opt(key)))) {
+				set.put(key, v);
+			}
+		}
+		for (String key : cur.keySet()) {
+			if (!prev.has(key)) {
+				unset.put(key);
+			}
+		}
+		return new JSONObject()
+				.put(KEY_UID, cur.getString(KEY_UID))
+				.put(KEY_SET, set)
+				.put(KEY_UNSET, unset);
+	}
+
+	/**
+	 * @param cur - current state of the item
+	 * @param delta - delta created by {@link #delta(JSONObject, JSONObject)}
+	 * @return copy of the item with previous values restored
+	 */
+	public static JSONObject revert(JSONObject cur, JSONObject delta) {
+		JSONObject o = new JSONObject(cur.toString(new NullStringer()));
+		JSONObject set = delta.getJSONObject(KEY_SET);
+		JSONArray unset = delta.getJSONArray(KEY_UNSET);
+		for (String key : set.keySet()) {
+			o.put(key, set.opt(key));
+		}
+		for (int i = 0; i < unset.length(); ++i) {
+			o.remove(unset.getString(i));
+		}
+		return o;
+	}
+
 	@Override
 	public String toString() {
 		return "UndoObject [type=" + type + "]";
@@ -33,6 +33,7 @@ public enum WbAction {
 	, CLEAR_SLIDE("clearSlide")
 	, SAVE("save")
 	, LOAD("load")
+	, LOAD_SLIDE("loadSlide")
 	, UNDO("undo")
 	, SET_SIZE("setSize")
 	, DOWNLOAD("download")
@@ -0,0 +1,138 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License") +  you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.openmeetings.web.room.wb;
+
+import java.io.IOException;
+import java.util.Comparator;
+import java.util.Map;
+
+import com.hazelcast.map.EntryProcessor;
+import com.hazelcast.nio.ObjectDataInput;
+import com.hazelcast.nio.ObjectDataOutput;
+import com.hazelcast.nio.serialization.IdentifiedDataSerializable;
+
+/**
+ * Replicated whiteboard item
+ *
+ * {@link #getSeq()} is the z-order of the item: it is assigned when the item
+ * is added and kept on updates, {@link #getVersion()} is changed on every
+ * update, both are taken from the cluster wide id generator
+ */
+public class WbItem implements IdentifiedDataSerializable {
+	public static final Comparator<WbItem> BY_SEQ = Comparator.comparingLong(WbItem::getSeq);
+	private long seq;
+	private long version;
+	private String object;
+
+	public WbItem() {
+		//for deserialization
+	}
+
+	public WbItem(long seq, long version, String object) {
+		this.seq = seq;
+		this.version = version;
+		this.object = object;
+	}
+
+	public long getSeq() {
+		return seq;
+	}
+
+	public long getVersion() {
+		return version;
+	}
+
+	public String getObject() {
+		return object;
+	}
+
+	@Override
+	public int getFactoryId() {
+		return WbSerializableFactory.FACTORY_ID;
+	}
+
+	@Override
+	public int getClassId() {
+		return WbSerializableFactory.ITEM;
+	}
+
+	@Override
+	public void writeData(ObjectDataOutput out) throws IOException {
+		out.writeLong(seq);
+		out.writeLong(version);
+		out.writeUTF(object);
+	}
+
+	@Override
+	public void readData(ObjectDataInput in) throws IOException {
+		seq = in.readLong();
+		version = in.readLong();
+		object = in.readUTF();
+	}
+
+	/**
+	 * Adds or replaces the item, z-order of existing item is kept
+	 */
+	public static class Put implements EntryProcessor<Object, WbItem, Void>, IdentifiedDataSerializable {
+		private static final long serialVersionUID = 1L;
+		private long version;
+		private String object;
+
+		public Put() {
+			//for deserialization
+		}
+
+		public Put(long version, String object) {
+			this.version = version;
+			this.object = object;
+		}
+
+		@Override
+		public Void process(Map.Entry<Object, WbItem> entry) {
+			WbItem prev = entry.getValue();
+			if (prev != null && prev.version > version) {
+				return null; // newer version is already stored
+			}
+			entry.setValue(new WbItem(prev == null ? version : prev.seq, version, object));
+			return null;
+		}
+
+		@Override
+		public int getFactoryId() {
+			return WbSerializableFactory.FACTORY_ID;
+		}
+
+		@Override
+		public int getClassId() {
+			return WbSerializableFactory.ITEM_PUT;
+		}
+
+		@Override
+		public void writeData(ObjectDataOutput out) throws IOException {
+			out.writeLong(version);
+			out.writeUTF(object);
+		}
+
+		@Override
+		public void readData(ObjectDataInput in) throws IOException {
+			version = in.readLong();
+			object = in.readUTF();
+		}
+	}
+}
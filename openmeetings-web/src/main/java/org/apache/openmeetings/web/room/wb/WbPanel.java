@@ -38,9 +38,6 @@ import java.io.BufferedReader;
 import java.io.File;
 import java.io.IOException;
 import java.nio.file.Files;
-import java.util.Deque;
-import java.util.HashMap;
-import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
@@ -90,11 +87,9 @@ public class WbPanel extends AbstractWbPanel {
 	private static final int UPLOAD_WB_TOP = 0;
 	private static final int DEFAULT_WIDTH = 640;
 	private static final int DEFAULT_HEIGHT = 480;
-	private static final int UNDO_SIZE = 20;
 	public static final ResourceReference WB_JS_REFERENCE = new JavaScriptResourceReference(WbPanel.class, "wb.js");
 	private final Long roomId;
 	private long wb2save = -1;
-	private final Map<Long, Deque<UndoObject>> undoList = new HashMap<>();
 	private final NameDialog fileName = new NameDialog("filename") {
 		private static final long serialVersionUID = 1L;
 
@@ -218,7 +213,7 @@ public class WbPanel extends AbstractWbPanel {
 				JSONArray arr = new JSONArray();
 				for (Entry<Long, Whiteboard> entry : wbm.list(roomId)) {
 					Whiteboard wb = entry.getValue();
-					for (JSONObject o : wb.list()) {
+					for (JSONObject o : wb.listByType("Video")) {
 						String ft = o.optString(ATTR_FILE_TYPE);
 						if (BaseFileItem.Type.RECORDING.name().equals(ft) || BaseFileItem.Type.VIDEO.name().equals(ft)) {
 							JSONObject status = o.optJSONObject(PARAM_STATUS);
@@ -239,6 +234,22 @@ public class WbPanel extends AbstractWbPanel {
 				handler.appendJavaScript(sb);
 				return;
 			}
+			case LOAD_SLIDE:
+			{
+				Whiteboards wbs = wbm.get(roomId);
+				Whiteboard wb = wbs.get(obj.getLong("wbId"));
+				StringBuilder sb = new StringBuilder();
+				if (wb != null) {
+					int slide = obj.getInt(ATTR_SLIDE);
+					loadSlide(sb, c, wbs.getUid(), wb, slide);
+					if (wb.list(slide).stream().anyMatch(o -> "Video".equals(o.optString(ATTR_OMTYPE)))) {
+						sb.append("WbArea.loadVideos();");
+					}
+				}
+				sb.append("WbArea.slideLoaded(").append(obj).append(");");
+				handler.appendJavaScript(sb);
+				return;
+			}
 			default:
 				break;
 		}
@@ -317,9 +328,8 @@ public class WbPanel extends AbstractWbPanel {
 				{
 					Whiteboard wb = wbm.get(roomId).get(obj.getLong("wbId"));
 					JSONObject o = obj.getJSONObject("obj");
-					wb.put(o.getString("uid"), o);
-					wbm.update(roomId, wb);
-					addUndo(wb.getId(), new UndoObject(UndoObject.Type.add, o));
+					wbm.putItem(roomId, wb, o);
+					addUndo(wb.getId(), new UndoObject(UndoObject.Type.add, new JSONArray().put(o.getString("uid"))));
 					sendWbOthers(WbAction.CREATE_OBJ, obj);
 				}
 					break;
@@ -333,12 +343,11 @@ public class WbPanel extends AbstractWbPanel {
 						String uid = oi.getString("uid");
 						JSONObject po = wb.get(uid);
 						if (po != null) {
-							undo.put(po);
-							wb.put(uid, oi);
+							undo.put(UndoObject.delta(po, oi));
+							wbm.putItem(roomId, wb, oi);
 						}
 					}
-					if (arr.length() != 0) {
-						wbm.update(roomId, wb);
+					if (undo.length() != 0) {
 						addUndo(wb.getId(), new UndoObject(UndoObject.Type.modify, undo));
 					}
 					sendWbOthers(WbAction.MODIFY_OBJ, obj);
@@ -351,13 +360,12 @@ public class WbPanel extends AbstractWbPanel {
 					JSONArray undo = new JSONArray();
 					for (int i = 0; i < arr.length(); ++i) {
 						JSONObject oi = arr.getJSONObject(i);
-						JSONObject u = wb.remove(oi.getString("uid"));
+						JSONObject u = wbm.removeItem(roomId, wb, oi.getString("uid"));
 						if (u != null) {
 							undo.put(u);
 						}
 					}
 					if (undo.length() != 0) {
-						wbm.update(roomId, wb);
 						addUndo(wb.getId(), new UndoObject(UndoObject.Type.remove, undo));
 					}
 					sendWbAll(WbAction.DELETE_OBJ, obj);
@@ -382,32 +390,44 @@ public class WbPanel extends AbstractWbPanel {
 						switch (uo.getType()) {
 							case add:
 							{
-								JSONObject o = new JSONObject(uo.getObject());
-								wb.remove(o.getString("uid"));
-								wbm.update(roomId, wb);
-								sendWbAll(WbAction.DELETE_OBJ, obj.put("obj", new JSONArray().put(o)));
+								JSONArray uids = new JSONArray(uo.getObject());
+								JSONArray arr = new JSONArray();
+								for (int i  = 0; i < uids.length(); ++i) {
+									JSONObject o = wbm.removeItem(roomId, wb, uids.getString(i));
+									if (o != null) {
+										arr.put(o);
+									}
+								}
+								if (arr.length() != 0) {
+									sendWbAll(WbAction.DELETE_OBJ, obj.put("obj", arr));
+								}
 							}
 								break;
 							case remove:
 							{
 								JSONArray arr = new JSONArray(uo.getObject());
 								for (int i  = 0; i < arr.length(); ++i) {
-									JSONObject o = arr.getJSONObject(i);
-									wb.put(o.getString("uid"), o);
+									wbm.putItem(roomId, wb, arr.getJSONObject(i));
 								}
-								wbm.update(roomId, wb);
 								sendWbAll(WbAction.CREATE_OBJ, obj.put("obj", new JSONArray(uo.getObject())));
 							}
 								break;
 							case modify:
 							{
-								JSONArray arr = new JSONArray(uo.getObject());
-								for (int i  = 0; i < arr.length(); ++i) {
-									JSONObject o = arr.getJSONObject(i);
-									wb.put(o.getString("uid"), o);
+								JSONArray deltas = new JSONArray(uo.getObject());
+								JSONArray arr = new JSONArray();
+								for (int i  = 0; i < deltas.length(); ++i) {
+									JSONObject delta = deltas.getJSONObject(i);
+									JSONObject cur = wb.get(delta.getString("uid"));
+									if (cur != null) {
+										JSONObject o = UndoObject.revert(cur, delta);
+										wbm.putItem(roomId, wb, o);
+										arr.put(o);
+									}
+								}
+								if (arr.length() != 0) {
+									sendWbAll(WbAction.MODIFY_OBJ, obj.put("obj", arr));
 								}
-								wbm.update(roomId, wb);
-								sendWbAll(WbAction.MODIFY_OBJ, obj.put("obj", arr));
 							}
 								break;
 						}
@@ -422,7 +442,7 @@ public class WbPanel extends AbstractWbPanel {
 					if (po != null && "Video".equals(po.getString(ATTR_OMTYPE))) {
 						JSONObject ns = obj.getJSONObject(PARAM_STATUS);
 						po.put(PARAM_STATUS, ns.put(PARAM_UPDATED, System.currentTimeMillis()));
-						wbm.update(roomId, wb.put(uid, po));
+						wbm.putItem(roomId, wb, po);
 						obj.put(ATTR_SLIDE, po.getInt(ATTR_SLIDE));
 						sendWbAll(WbAction.VIDEO_STATUS, obj);
 					}
@@ -508,7 +528,7 @@ public class WbPanel extends AbstractWbPanel {
 						try (BufferedReader br = Files.newBufferedReader(f.toPath())) {
 							final boolean[] updated = {false};
 							JSONArray arr = getArray(new JSONObject(new JSONTokener(br)), o -> {
-									wb.put(o.getString("uid"), o);
+									wbm.putItem(roomId, wb, o);
 									updated[0] = true;
 									return addFileUrl(rp.getClient(), wbs.getUid(), o, bf -> updateWbSize(wb, bf));
 								});
@@ -550,7 +570,7 @@ public class WbPanel extends AbstractWbPanel {
 					if (clean) {
 						wbm.clearAll(roomId, wb.getId(), addUndo);
 					}
-					wb.put(wuid, file);
+					wbm.putItem(roomId, wb, file);
 					updateWbSize(wb, fi);
 					wbm.update(roomId, wb);
 					sendWbAll(WbAction.SET_SIZE, wb.getAddJson());
@@ -566,6 +586,30 @@ public class WbPanel extends AbstractWbPanel {
 		sendFileToWb(null, fi, clean);
 	}
 
+	/**
+	 * Re-send all objects displaying the file, used to show pages of the
+	 * document as soon as they are rendered
+	 *
+	 * @param fi - updated file
+	 */
+	@Override
+	public void updateFile(final BaseFileItem fi) {
+		if (isVisible() && fi.getId() != null) {
+			Whiteboards wbs = wbm.get(roomId);
+			for (Whiteboard wb : wbs.getWhiteboards().values()) {
+				for (JSONObject o : wb.listByFile(fi.getId())) {
+					JSONObject file = wb.get(o.getString("uid"));
+					if (file == null) {
+						continue;
+					}
+					file.put("count", fi.getCount());
+					wbm.putItem(roomId, wb, file);
+					WbWebSocketHelper.sendWbFile(roomId, wb.getId(), wbs.getUid(), file, fi);
+				}
+			}
+		}
+	}
+
 	private void sendWbOthers(WbAction a, JSONObject obj) {
 		WbWebSocketHelper.sendWbOthers(roomId, a, obj, rp.getClient().getUid());
 	}
@@ -578,30 +622,14 @@ public class WbPanel extends AbstractWbPanel {
 		if (wbId == null) {
 			return;
 		}
-		if (!undoList.containsKey(wbId)) {
-			undoList.put(wbId, new LimitedLinkedList<>());
-		}
-		undoList.get(wbId).push(u);
+		wbm.addUndo(roomId, wbId, rp.getClient().getUserId(), u);
 	}
 
 	private UndoObject getUndo(Long wbId) {
-		if (wbId == null || !undoList.containsKey(wbId)) {
+		if (wbId == null) {
 			return null;
 		}
-		Deque<UndoObject> deq = undoList.get(wbId);
-		return deq.isEmpty() ? null : deq.pop();
-	}
-
-	private static class LimitedLinkedList<T> extends LinkedList<T> {
-		private static final long serialVersionUID = 1L;
-
-		@Override
-		public void push(T e) {
-			super.push(e);
-			while (size() > UNDO_SIZE) {
-				removeLast();
-			}
-		}
+		return wbm.popUndo(roomId, wbId, rp.getClient().getUserId());
 	}
 
 	public String saveWb(Long roomId, Long wbId, String name) {
@@ -615,16 +643,57 @@ public class WbPanel extends AbstractWbPanel {
 		return wb.save(f.getFile().toPath());
 	}
 
+	private static boolean isPresentation(JSONObject o) {
+		return BaseFileItem.Type.PRESENTATION.name().equals(o.optString(ATTR_FILE_TYPE));
+	}
+
+	/**
+	 * Only presentations (they define the slides) and the current slide of the
+	 * active whiteboard are loaded, all other slides are requested by client
+	 * with {@link WbAction#LOAD_SLIDE} in background or as soon as displayed
+	 */
 	private StringBuilder loadWhiteboards(StringBuilder sb, Client cl, Whiteboards wbs, Set<Entry<Long, Whiteboard>> boardSet) {
+		JSONArray pending = new JSONArray();
+		JSONArray activePending = new JSONArray();
 		for (Entry<Long, Whiteboard> entry : boardSet) {
 			Whiteboard wb = entry.getValue();
+			final boolean active = wb.getId() == wbs.getActiveWb();
 			sb.append(new StringBuilder("WbArea.create(").append(wb.getAddJson()).append(");"));
 			JSONArray arr = new JSONArray();
-			for (JSONObject o : wb.list()) {
-				arr.put(addFileUrl(cl, wbs.getUid(), o));
+			for (JSONObject o : wb.listFiles()) {
+				if (isPresentation(o)) {
+					arr.put(addFileUrl(cl, wbs.getUid(), o));
+				}
+			}
+			if (arr.length() != 0) {
+				sb.append("WbArea.load(").append(getObjWbJson(entry.getKey(), arr).toString(new NullStringer())).append(");");
+			}
+			for (int slide : wb.getSlides()) {
+				if (active && slide == wb.getSlide()) {
+					loadSlide(sb, cl, wbs.getUid(), wb, slide);
+				} else {
+					(active ? activePending : pending).put(getWbJson(wb.getId()).put(ATTR_SLIDE, slide));
+				}
 			}
-			sb.append("WbArea.load(").append(getObjWbJson(entry.getKey(), arr).toString(new NullStringer())).append(");");
 		}
-		return sb;
+		for (int i = 0; i < pending.length(); ++i) {
+			activePending.put(pending.get(i));
+		}
+		return sb.append("WbArea.loadSlides(").append(activePending).append(");");
+	}
+
+	private void loadSlide(StringBuilder sb, Client cl, String ruid, Whiteboard wb, int slide) {
+		JSONArray files = new JSONArray();
+		for (JSONObject o : wb.listFiles(slide)) {
+			if (!isPresentation(o)) {
+				files.put(addFileUrl(cl, ruid, o));
+			}
+		}
+		if (files.length() != 0) {
+			sb.append("WbArea.load(").append(getObjWbJson(wb.getId(), files).toString(new NullStringer())).append(");");
+		}
+		// pre-serialized objects of the slide are shared by all clients
+		sb.append("WbArea.load({\"wbId\":").append(wb.getId())
+				.append(",\"obj\":").append(wb.getSlideJson(slide)).append("});");
 	}
 }
@@ -0,0 +1,52 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License") +  you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.openmeetings.web.room.wb;
+
+import com.hazelcast.nio.serialization.DataSerializableFactory;
+import com.hazelcast.nio.serialization.IdentifiedDataSerializable;
+
+/**
+ * Creates whiteboard objects stored in cluster maps, registered in hazelcast.xml
+ */
+public class WbSerializableFactory implements DataSerializableFactory {
+	public static final int FACTORY_ID = 3;
+	public static final int UNDO_LOG = 1;
+	public static final int UNDO_ADD = 2;
+	public static final int UNDO_POP = 3;
+	public static final int ITEM = 4;
+	public static final int ITEM_PUT = 5;
+
+	@Override
+	public IdentifiedDataSerializable create(int typeId) {
+		switch (typeId) {
+			case UNDO_LOG:
+				return new UndoLog();
+			case UNDO_ADD:
+				return new UndoLog.Add();
+			case UNDO_POP:
+				return new UndoLog.Pop();
+			case ITEM:
+				return new WbItem();
+			case ITEM_PUT:
+				return new WbItem.Put();
+			default:
+				return null;
+		}
+	}
+}
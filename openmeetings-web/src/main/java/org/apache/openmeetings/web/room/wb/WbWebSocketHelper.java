@@ -181,9 +181,10 @@ public class WbWebSocketHelper {
 		sendRoom(
 				roomId
 				, new JSONObject().put("type", "wb")
+					.put("func", meth.jsName())
+					.put("param", obj)
 				, check
-				, (o, c) -> o.put("func", meth.jsName())
-							.put("param", obj)
+				, null
 			);
 	}
 }
@@ -24,9 +24,7 @@ import static org.apache.openmeetings.web.app.WebSession.getUserId;
 
 import java.util.List;
 
-import org.apache.openmeetings.core.converter.IRecordingConverter;
-import org.apache.openmeetings.core.converter.InterviewConverter;
-import org.apache.openmeetings.core.converter.RecordingConverter;
+import org.apache.openmeetings.core.converter.ConversionScheduler;
 import org.apache.openmeetings.db.dao.record.RecordingChunkDao;
 import org.apache.openmeetings.db.dao.record.RecordingDao;
 import org.apache.openmeetings.db.dto.record.RecordingContainerData;
@@ -57,9 +55,7 @@ public class RecordingsPanel extends UserBasePanel {
 	@SpringBean
 	private RecordingDao recDao;
 	@SpringBean
-	private InterviewConverter interviewConverter;
-	@SpringBean
-	private RecordingConverter recordingConverter;
+	private ConversionScheduler conversionScheduler;
 	@SpringBean
 	private RecordingChunkDao chunkDao;
 
@@ -100,16 +96,13 @@ public class RecordingsPanel extends UserBasePanel {
 			protected List<AbstractLink> newOtherButtons(String markupId) {
 				return List.of(new BootstrapAjaxLink<>(markupId, Model.of(""), Buttons.Type.Outline_Warning, new ResourceModel("1600")) {
 					private static final long serialVersionUID = 1L;
-					private boolean isInterview = false;
 
 					@Override
 					protected void onConfigure() {
 						super.onConfigure();
 						boolean enabled = false;
-						isInterview = false;
 						if (getSelected().size() == 1 && BaseFileItem.Type.RECORDING == getLastSelected().getType()) {
 							Recording r = (Recording)getLastSelected();
-							isInterview = r.isInterview();
 
 							if (r.getRoomId() != null && r.getOwnerId() != null && r.getOwnerId().equals(getUserId()) && r.getStatus() != Status.RECORDING && r.getStatus() != Status.CONVERTING) {
 								// will enable re-conversion if at least some of the chunks are OK
@@ -123,8 +116,7 @@ public class RecordingsPanel extends UserBasePanel {
 
 					@Override
 					public void onClick(AjaxRequestTarget target) {
-						final IRecordingConverter converter = isInterview ? interviewConverter : recordingConverter;
-						new Thread(() -> converter.startConversion((Recording)getLastSelected())).start();
+						conversionScheduler.convert((Recording)getLastSelected());
 					}
 				}, new BootstrapAjaxLink<>(markupId, Model.of(""), Buttons.Type.Outline_Success, new ResourceModel("button.label.share")) {
 					private static final long serialVersionUID = 1L;
@@ -18,11 +18,8 @@
  */
 package org.apache.openmeetings.web.util;
 
-import static org.apache.openmeetings.db.dto.room.Whiteboard.ATTR_FILE_ID;
-
 import java.io.File;
 import java.io.IOException;
-import java.util.Map.Entry;
 
 import javax.servlet.http.HttpServletResponse;
 
@@ -40,8 +37,6 @@ import org.apache.wicket.util.string.Strings;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import com.github.openjson.JSONObject;
-
 public abstract class FileItemResourceReference<T extends BaseFileItem> extends FileSystemResourceReference {
 	private static final long serialVersionUID = 1L;
 	protected static final Logger log = LoggerFactory.getLogger(FileItemResourceReference.class);
@@ -93,9 +88,8 @@ public abstract class FileItemResourceReference<T extends BaseFileItem> extends
 		if (c != null && c.getRoom() != null) {
 			Whiteboards wbs = wbm.get(c.getRoomId());
 			if (!Strings.isEmpty(wbItemId) && !Strings.isEmpty(wbId) && wbId.equals(wbs.getUid())) {
-				for (Entry<Long, Whiteboard> e : wbs.getWhiteboards().entrySet()) {
-					JSONObject file = e.getValue().get(wbItemId);
-					if (file != null && fileId.equals(file.optLong(ATTR_FILE_ID))) {
+				for (Whiteboard wb : wbs.getWhiteboards().values()) {
+					if (wb.hasFile(wbItemId, fileId)) {
 						return true; // item IS on WB
 					}
 				}
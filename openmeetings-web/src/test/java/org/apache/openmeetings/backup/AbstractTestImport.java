@@ -43,6 +43,7 @@ public class AbstractTestImport extends AbstractJUnitDefaults {
 		super.setUp();
 		// Crypt class need to be preserved here to avoid overriding by backup import
 		cryptClass = getCryptClassName();
+		backupImport.cleanup();
 	}
 
 	@AfterEach
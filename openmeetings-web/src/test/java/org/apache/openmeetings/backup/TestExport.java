@@ -22,6 +22,9 @@ import static java.util.UUID.randomUUID;
 import static org.apache.openmeetings.db.bind.Constants.FILE_LIST_NODE;
 import static org.apache.openmeetings.db.bind.Constants.USER_LIST_NODE;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import java.io.ByteArrayOutputStream;
 import java.io.File;
@@ -29,6 +32,13 @@ import java.io.IOException;
 import java.io.StringWriter;
 import java.io.Writer;
 import java.time.LocalDate;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
 
 import javax.xml.bind.JAXBContext;
 import javax.xml.bind.Marshaller;
@@ -48,6 +58,8 @@ import com.sun.xml.bind.marshaller.CharacterEscapeHandler;
 class TestExport extends AbstractJUnitDefaults {
 	@Autowired
 	private FileItemDao fileItemDao;
+	@Autowired
+	private BackupExport backupExport;
 
 	@Test
 	void exportMain() throws Exception {
@@ -81,6 +93,66 @@ class TestExport extends AbstractJUnitDefaults {
 		assertNotNull(baos);
 	}
 
+	@Test
+	void exportUsersByPages() throws Exception {
+		List<User> all = userDao.getAllBackupUsers();
+		List<User> paged = userDao.getBackupUsersAfter(0, all.size());
+		assertEquals(all.size(), paged.size());
+		if (all.size() > 1) {
+			Long mid = all.get(all.size() / 2 - 1).getId();
+			List<User> tail = userDao.getBackupUsersAfter(mid, all.size());
+			assertEquals(all.size() - all.size() / 2, tail.size(), "Users after given id should be returned");
+			assertTrue(tail.get(0).getId() > mid);
+		}
+	}
+
+	@Test
+	void exportChangedUsersByPages() throws Exception {
+		List<User> all = userDao.getAllBackupUsers();
+		assertEquals(all.size(), userDao.getBackupUsersAfter(0, new Date(0), all.size() + 1).size());
+
+		Date since = new Date();
+		User u = createUser();
+		List<User> changed = userDao.getBackupUsersAfter(0, since, all.size() + 1);
+		assertTrue(changed.stream().allMatch(c -> BackupExport.changed(c, since)), "Only changed users should be returned");
+		assertTrue(changed.stream().anyMatch(c -> c.getId().equals(u.getId())), "New user should be returned");
+	}
+
+	@Test
+	void performExport() throws Exception {
+		File zip = File.createTempFile("export", ".zip");
+		ProgressHolder progress = new ProgressHolder();
+		backupExport.performExport(zip, false, progress);
+		assertEquals(100, progress.getProgress());
+		Set<String> entries = new HashSet<>();
+		try (ZipFile zf = new ZipFile(zip)) {
+			for (ZipEntry e : Collections.list(zf.entries())) {
+				entries.add(e.getName());
+			}
+		}
+		assertTrue(entries.contains("users.xml"));
+		assertTrue(entries.contains("chat_messages.xml"));
+		assertTrue(entries.contains("privateMessages.xml"));
+	}
+
+	@Test
+	void performIncrementalExport() throws Exception {
+		File full = File.createTempFile("export", ".zip");
+		backupExport.performExport(full, false, new ProgressHolder());
+		BackupMark fullMark = BackupMark.read(full);
+		assertFalse(fullMark.isIncremental());
+		assertNotNull(fullMark.getUntil());
+
+		User u = createUser();
+		File inc = File.createTempFile("export", ".zip");
+		backupExport.performExport(inc, false, fullMark.getUntil(), new ProgressHolder());
+		BackupMark incMark = BackupMark.read(inc);
+		assertTrue(incMark.isIncremental());
+		assertEquals(fullMark.getUntil(), incMark.getSince());
+		assertTrue(BackupExport.changed(u, incMark.getSince()), "New user should be stored");
+		assertFalse(BackupExport.changed(u, new Date(System.currentTimeMillis() + 60_000)), "Unchanged user should be skipped");
+	}
+
 	@Test
 	void exportFiles() throws Exception {
 		FileItem fld = new FileItem();
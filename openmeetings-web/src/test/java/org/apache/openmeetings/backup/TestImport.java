@@ -22,12 +22,18 @@ import static org.apache.openmeetings.util.OpenmeetingsVariables.CONFIG_DEFAULT_
 import static org.junit.jupiter.api.Assertions.assertEquals;
 
 import java.io.File;
+import java.io.FileInputStream;
+import java.io.InputStream;
+import java.util.Date;
+import java.util.List;
+import java.util.UUID;
 
 import org.apache.openmeetings.db.dao.basic.ChatDao;
 import org.apache.openmeetings.db.dao.record.RecordingDao;
 import org.apache.openmeetings.db.dao.server.LdapConfigDao;
 import org.apache.openmeetings.db.dao.server.OAuth2Dao;
 import org.apache.openmeetings.db.dao.user.PrivateMessageFolderDao;
+import org.apache.openmeetings.db.entity.basic.ChatMessage;
 import org.apache.openmeetings.db.entity.basic.Configuration;
 import org.apache.openmeetings.db.entity.server.LdapConfig;
 import org.junit.jupiter.api.Test;
@@ -44,6 +50,8 @@ class TestImport extends AbstractTestImport {
 	private RecordingDao recDao;
 	@Autowired
 	private PrivateMessageFolderDao msgFolderDao;
+	@Autowired
+	private BackupExport backupExport;
 
 	@Test
 	void importVersionNE() throws Exception {
@@ -107,6 +115,44 @@ class TestImport extends AbstractTestImport {
 		assertEquals(chatCount + 3, chatDao.get(0, Integer.MAX_VALUE).size(), "Chat messages should be added");
 	}
 
+	private ChatMessage createChat(String text, Date sent) throws Exception {
+		ChatMessage m = new ChatMessage();
+		m.setFromUser(createUser());
+		m.setMessage(text);
+		return chatDao.update(m, sent);
+	}
+
+	private long countChat(String text) {
+		return chatDao.get(0, Integer.MAX_VALUE).stream().filter(m -> text.equals(m.getMessage())).count();
+	}
+
+	@Test
+	void importIncremental() throws Exception {
+		// written while full backup is in progress, stored by both archives
+		final String during = "during-" + UUID.randomUUID();
+		createChat(during, new Date(System.currentTimeMillis() + 60_000));
+		File full = File.createTempFile("export", ".zip");
+		backupExport.performExport(full, false, new ProgressHolder());
+
+		final String after = "after-" + UUID.randomUUID();
+		createChat(after, null);
+		File inc = File.createTempFile("export", ".zip");
+		backupExport.performExport(inc, false, BackupMark.read(full).getUntil(), new ProgressHolder());
+
+		long chatCount = chatDao.count();
+		long fullCount;
+		try (InputStream is = new FileInputStream(full)) {
+			backupImport.performImport(is, new ProgressHolder());
+			fullCount = chatDao.count() - chatCount;
+		}
+		try (InputStream fis = new FileInputStream(full); InputStream iis = new FileInputStream(inc)) {
+			backupImport.performImport(List.of(fis, iis), new ProgressHolder());
+		}
+		assertEquals(chatCount + 2 * fullCount + 1, chatDao.count(), "Only new chat message should be added by increment");
+		assertEquals(3, countChat(during), "Chat message stored by both archives should be imported once per chain");
+		assertEquals(2, countChat(after), "Chat message stored by increment should be imported");
+	}
+
 	@Test
 	void importRecordings() throws Exception {
 		long recCount = recDao.get().size();
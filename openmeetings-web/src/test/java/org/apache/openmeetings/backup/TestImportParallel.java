@@ -0,0 +1,132 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License") +  you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.openmeetings.backup;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.UUID.randomUUID;
+import static org.apache.openmeetings.util.OpenmeetingsVariables.CONFIG_BACKUP_BATCH_SIZE;
+import static org.apache.openmeetings.util.OpenmeetingsVariables.CONFIG_BACKUP_THREADS;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+import java.util.zip.ZipOutputStream;
+
+import org.apache.openmeetings.db.dao.file.FileItemDao;
+import org.apache.openmeetings.db.dao.room.RoomDao;
+import org.apache.openmeetings.db.entity.basic.Configuration;
+import org.apache.openmeetings.db.entity.file.FileItem;
+import org.apache.openmeetings.db.entity.room.Room;
+import org.apache.openmeetings.db.entity.user.Group;
+import org.apache.openmeetings.db.entity.user.User;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+/**
+ * Import performed by several threads, each entity stored in its own transaction
+ */
+class TestImportParallel extends AbstractTestImport {
+	private static final String BACKUP = "org/apache/openmeetings/backup/jira2423/backup_2423.zip";
+	private static final String SUFFIX = "jira_2423";
+	private static final String HASH1 = "820b356c-2c96-4634-90c4-3e490432987f";
+	private static final String HASH2 = "7af3f90d-2a8d-44fa-9e0f-79fd87511cc6";
+	@Autowired
+	private RoomDao roomDao;
+	@Autowired
+	private FileItemDao fileDao;
+
+	private void setCfg(String key, String value) {
+		Configuration c = cfgDao.get(key);
+		c.setValue(value);
+		cfgDao.update(c, null);
+	}
+
+	/**
+	 * @return copy of the backup with names and hashes replaced, so it doesn't clash with the backup imported by other tests
+	 */
+	private InputStream getBackup(Map<String, String> replace) throws IOException {
+		ByteArrayOutputStream bos = new ByteArrayOutputStream();
+		try (InputStream is = getClass().getClassLoader().getResourceAsStream(BACKUP);
+				ZipInputStream zis = new ZipInputStream(is);
+				ZipOutputStream zos = new ZipOutputStream(bos))
+		{
+			ZipEntry e;
+			while ((e = zis.getNextEntry()) != null) {
+				String name = e.getName();
+				byte[] data = zis.readAllBytes();
+				if (name.endsWith(".xml")) {
+					String xml = new String(data, UTF_8);
+					for (Map.Entry<String, String> r : replace.entrySet()) {
+						xml = xml.replace(r.getKey(), r.getValue());
+					}
+					data = xml.getBytes(UTF_8);
+				}
+				for (Map.Entry<String, String> r : replace.entrySet()) {
+					name = name.replace(r.getKey(), r.getValue());
+				}
+				zos.putNextEntry(new ZipEntry(name));
+				zos.write(data);
+				zos.closeEntry();
+			}
+		}
+		return new ByteArrayInputStream(bos.toByteArray());
+	}
+
+	@Test
+	void importParallel() throws Exception {
+		final String suffix = randomUUID().toString();
+		final String hash1 = randomUUID().toString();
+		final String hash2 = randomUUID().toString();
+		long groupCount = groupDao.count();
+		long userCount = userDao.count();
+		setCfg(CONFIG_BACKUP_THREADS, "4");
+		setCfg(CONFIG_BACKUP_BATCH_SIZE, "1");
+		try (InputStream is = getBackup(Map.of(SUFFIX, suffix, HASH1, hash1, HASH2, hash2))) {
+			backupImport.performImport(is, new ProgressHolder());
+		} finally {
+			setCfg(CONFIG_BACKUP_THREADS, "0");
+			setCfg(CONFIG_BACKUP_BATCH_SIZE, String.valueOf(BackupImport.DEFAULT_BATCH_SIZE));
+		}
+		assertEquals(groupCount + 2, groupDao.count(), "All groups should be imported");
+		assertEquals(userCount + 3, userDao.count(), "All users should be imported");
+
+		Group grp2 = groupDao.get("group2_" + suffix);
+		assertNotNull(grp2);
+		User usr2 = userDao.getByLogin("testUser2_" + suffix, User.Type.USER, null);
+		assertNotNull(usr2);
+		assertTrue(usr2.getGroupUsers().stream().anyMatch(gu -> gu.getGroup().getId().equals(grp2.getId())), "User2 should belong to group2");
+		List<Room> rooms = roomDao.getMyRooms(usr2.getId(), "bla", "bla1");
+		assertFalse(rooms.isEmpty(), "Personal rooms should be imported");
+		rooms.forEach(r -> assertTrue(r.getComment().contains("user2_" + suffix)));
+		FileItem f1 = fileDao.getByHash(hash1);
+		assertEquals(usr2.getId(), f1.getInsertedBy(), "Inserted by is wrong");
+		assertEquals(usr2.getId(), f1.getOwnerId(), "Owner is wrong");
+		FileItem f2 = fileDao.getByHash(hash2);
+		assertEquals(grp2.getId(), f2.getGroupId(), "Group is wrong");
+	}
+}
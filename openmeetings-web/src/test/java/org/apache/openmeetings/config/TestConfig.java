@@ -18,6 +18,7 @@
  */
 package org.apache.openmeetings.config;
 
+import static org.apache.openmeetings.util.OpenmeetingsVariables.CONFIG_SMTP_PORT;
 import static org.apache.openmeetings.util.OpenmeetingsVariables.CONFIG_SMTP_SERVER;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNull;
@@ -63,4 +64,31 @@ class TestConfig extends AbstractJUnitDefaults {
 		}
 
 	}
+
+	@Test
+	void getByKeys() {
+		List<Configuration> list = cfgDao.get(CONFIG_SMTP_PORT, "non.existent.key", CONFIG_SMTP_SERVER);
+		assertEquals(3, list.size());
+		assertEquals(CONFIG_SMTP_PORT, list.get(0).getKey());
+		assertNull(list.get(1));
+		assertEquals(CONFIG_SMTP_SERVER, list.get(2).getKey());
+	}
+
+	@Test
+	void snapshot() {
+		Configuration cfg = cfgDao.get(CONFIG_SMTP_PORT);
+		final String orig = cfg.getValue();
+		try {
+			cfg.setValueN(2525L);
+			cfgDao.update(cfg, null);
+			assertEquals(2525, cfgDao.getInt(CONFIG_SMTP_PORT, 25), "Updated value should be returned");
+			cfgDao.invalidate();
+			assertEquals("2525", cfgDao.getString(CONFIG_SMTP_PORT, null), "Value should be re-read");
+			assertEquals(25, cfgDao.getInt("non.existent.key", 25));
+		} finally {
+			cfg = cfgDao.get(CONFIG_SMTP_PORT);
+			cfg.setValue(orig);
+			cfgDao.update(cfg, null);
+		}
+	}
 }
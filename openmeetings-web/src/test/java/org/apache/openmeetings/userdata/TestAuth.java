@@ -19,6 +19,7 @@
 package org.apache.openmeetings.userdata;
 
 import static java.util.UUID.randomUUID;
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertNull;
 
@@ -39,6 +40,15 @@ class TestAuth extends AbstractJUnitDefaults {
 		sessionDao.clearSessionTable(-1L);
 	}
 
+	@Test
+	void testCheck() {
+		Sessiondata sd = sessionDao.create(1L, 1L);
+		Sessiondata checked = sessionDao.check(sd.getSessionId());
+		assertEquals(sd.getId(), checked.getId(), "Existing session should be found");
+		sessionDao.clearSessionTable(60 * 60 * 1000L);
+		assertEquals(sd.getId(), sessionDao.check(sd.getSessionId()).getId(), "Active session should not be removed");
+	}
+
 	@Test
 	void testNotExistent() {
 		Sessiondata sd = sessionDao.check(randomUUID().toString());
@@ -0,0 +1,104 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License") +  you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.openmeetings.web.app;
+
+import static java.util.UUID.randomUUID;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import org.apache.openmeetings.AbstractJUnitDefaults;
+import org.apache.openmeetings.db.entity.basic.Client;
+import org.apache.openmeetings.db.entity.user.User;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import com.hazelcast.cluster.Member;
+import com.hazelcast.core.EntryEvent;
+
+class TestClientManager extends AbstractJUnitDefaults {
+	@Autowired
+	private ClientManager cm;
+
+	private Set<String> uids(User u) {
+		return cm.listByUser(u.getId()).stream().map(Client::getUid).collect(Collectors.toSet());
+	}
+
+	@SuppressWarnings("unchecked")
+	private static EntryEvent<String, Client> remote(Client c) {
+		Member member = mock(Member.class);
+		when(member.localMember()).thenReturn(false);
+		EntryEvent<String, Client> event = mock(EntryEvent.class);
+		when(event.getMember()).thenReturn(member);
+		when(event.getKey()).thenReturn(c.getUid());
+		when(event.getValue()).thenReturn(c);
+		return event;
+	}
+
+	@Test
+	void testIndexes() throws Exception {
+		User u1 = createUser();
+		User u2 = createUser();
+		final String sid1 = randomUUID().toString();
+		final String sid2 = randomUUID().toString();
+		Client c1 = new Client(sid1, 0, u1, null);
+		Client c2 = new Client(sid2, 0, u1, null);
+		Client c3 = new Client(sid1, 1, u2, null);
+		cm.add(c1);
+		cm.add(c2);
+		cm.add(c3);
+		assertEquals(Set.of(c1.getUid(), c2.getUid()), uids(u1));
+		assertEquals(Set.of(c3.getUid()), uids(u2));
+
+		cm.update(c1);
+		assertEquals(Set.of(c1.getUid(), c2.getUid()), uids(u1), "Update should not change the indexes");
+
+		// client of the other node, the user is changed by merge
+		Client remote = new Client(randomUUID().toString(), 0, u1, null);
+		remote.setServerId("other");
+		ClientManager.ClientListener listener = cm.new ClientListener();
+		listener.entryAdded(remote(remote));
+		assertEquals(Set.of(c1.getUid(), c2.getUid(), remote.getUid()), uids(u1));
+		EntryEvent<String, Client> changed = remote(new Client(sid1, 0, u2, null));
+		when(changed.getKey()).thenReturn(remote.getUid());
+		listener.entryUpdated(changed);
+		assertEquals(Set.of(c1.getUid(), c2.getUid()), uids(u1), "Client should be removed from previous user");
+		assertEquals(Set.of(c3.getUid(), remote.getUid()), uids(u2), "Client should be added to the new user");
+
+		cm.serverRemoved("other");
+		assertNull(cm.get(remote.getUid()));
+		assertEquals(Set.of(c3.getUid()), uids(u2), "Clients of removed server should be removed");
+
+		cm.exit(c2);
+		assertEquals(Set.of(c1.getUid()), uids(u1));
+		cm.invalidate(u1.getId(), sid1);
+		assertFalse(cm.isOnline(u1.getId()));
+		assertTrue(cm.isOnline(u2.getId()), "Other user of the same session should stay online");
+		cm.invalidate(u2.getId(), sid1);
+		assertFalse(cm.isOnline(u2.getId()));
+		assertNull(cm.getBySid(c3.getSid()));
+		Application.removeInvalidSession(sid1);
+	}
+}
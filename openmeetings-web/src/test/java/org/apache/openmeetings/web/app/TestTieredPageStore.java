@@ -0,0 +1,189 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License") +  you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.openmeetings.web.app;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.io.Serializable;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import org.apache.wicket.page.IManageablePage;
+import org.apache.wicket.pageStore.IPageContext;
+import org.apache.wicket.pageStore.IPageStore;
+import org.apache.wicket.pageStore.SerializedPage;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class TestTieredPageStore {
+	private static final String PAGE_TYPE = "TestPage";
+	private final Map<Integer, IManageablePage> remote = new HashMap<>();
+	private final IPageStore delegate = new IPageStore() {
+		@Override
+		public void addPage(IPageContext context, IManageablePage page) {
+			remote.put(page.getPageId(), page);
+		}
+
+		@Override
+		public void removePage(IPageContext context, IManageablePage page) {
+			remote.remove(page.getPageId());
+		}
+
+		@Override
+		public void removeAllPages(IPageContext context) {
+			remote.clear();
+		}
+
+		@Override
+		public IManageablePage getPage(IPageContext context, int id) {
+			return remote.get(id);
+		}
+	};
+	private final Map<String, Serializable> attributes = new HashMap<>();
+	private IPageContext context;
+
+	@BeforeEach
+	void setUp() {
+		context = mock(IPageContext.class);
+		when(context.getSessionId(anyBoolean())).thenReturn("session");
+		when(context.getRequestData(any(), any())).thenReturn(new AtomicLong());
+		when(context.getSessionAttribute(anyString(), any())).thenAnswer(inv -> {
+			Supplier<Serializable> defaultValue = inv.getArgument(1);
+			return attributes.computeIfAbsent(inv.getArgument(0), k -> defaultValue.get());
+		});
+	}
+
+	private static byte[] data(int id) {
+		byte[] data = new byte[1000];
+		for (int i = 0; i < data.length; ++i) {
+			data[i] = (byte)(id + i % 10);
+		}
+		return data;
+	}
+
+	private static SerializedPage page(int id) {
+		return new SerializedPage(id, PAGE_TYPE, data(id));
+	}
+
+	private static void assertPage(int id, IManageablePage page) {
+		assertTrue(page instanceof SerializedPage);
+		SerializedPage sp = (SerializedPage)page;
+		assertEquals(id, sp.getPageId());
+		assertEquals(PAGE_TYPE, sp.getPageType());
+		assertArrayEquals(data(id), sp.getData());
+	}
+
+	@Test
+	void testCompress() throws Exception {
+		byte[] data = data(1);
+		byte[] compressed = TieredPageStore.compress(data);
+		assertTrue(compressed.length < data.length, "Data should be compressed");
+		assertArrayEquals(data, TieredPageStore.decompress(compressed));
+	}
+
+	@Test
+	void testReplicated() {
+		TieredPageStore store = new TieredPageStore(delegate, 10, 1_000_000, 1_000_000);
+		store.addPage(context, page(1));
+		assertEquals(1, remote.size());
+		assertTrue(((SerializedPage)remote.get(1)).getData().length < 1000, "Replicated page should be compressed");
+		assertPage(1, store.getPage(context, 1));
+
+		TieredPageStore other = new TieredPageStore(delegate, 10, 1_000_000, 1_000_000);
+		assertPage(1, other.getPage(context, 1));
+		assertEquals(1, other.getPageCount("session"), "Remote page should be cached locally");
+		remote.clear();
+		assertPage(1, other.getPage(context, 1));
+	}
+
+	@Test
+	void testUncompressed() {
+		remote.put(1, page(1));
+		assertPage(1, new TieredPageStore(delegate, 10, 1_000_000, 1_000_000).getPage(context, 1));
+	}
+
+	@Test
+	void testLimits() {
+		TieredPageStore store = new TieredPageStore(delegate, 3, 1_000_000, 1_000_000);
+		for (int i = 0; i < 5; ++i) {
+			store.addPage(context, page(i));
+		}
+		assertEquals(3, store.getPageCount("session"));
+		remote.clear();
+		assertNull(store.getPage(context, 0), "Eldest page should be evicted");
+		assertPage(4, store.getPage(context, 4));
+
+		store.removeAllPages(context);
+		assertEquals(0, store.getPageCount("session"));
+		assertEquals(0, store.getBytes());
+	}
+
+	@Test
+	void testUnbound() {
+		TieredPageStore store = new TieredPageStore(delegate, 10, 1_000_000, 1_000_000);
+		store.addPage(context, page(1));
+		store.addPage(context, page(2));
+		assertEquals(2, store.getPageCount("session"));
+		store.sessionUnbound("other");
+		assertEquals(2, store.getPageCount("session"), "Pages of other sessions should be kept");
+		store.sessionUnbound("session");
+		assertEquals(0, store.getPageCount("session"), "Pages of expired session should be removed");
+		assertEquals(0, store.getBytes());
+	}
+
+	@Test
+	void testTotalLimit() {
+		long size = TieredPageStore.compress(data(1)).length;
+		TieredPageStore store = new TieredPageStore(delegate, 10, 1_000_000, 2 * size);
+		IPageContext other = mock(IPageContext.class);
+		when(other.getSessionId(anyBoolean())).thenReturn("other");
+		when(other.getRequestData(any(), any())).thenReturn(new AtomicLong());
+		store.addPage(other, page(1));
+		store.addPage(context, page(1));
+		store.addPage(context, page(2));
+		assertEquals(0, store.getPageCount("other"), "Least recently used session should be evicted");
+		assertEquals(2, store.getPageCount("session"));
+		assertTrue(store.getBytes() <= 2 * size);
+	}
+
+	@Test
+	void testFailover() {
+		TieredPageStore a = new TieredPageStore(delegate, 10, 1_000_000, 1_000_000);
+		TieredPageStore b = new TieredPageStore(delegate, 10, 1_000_000, 1_000_000);
+		a.addPage(context, page(1));
+		assertPage(1, b.getPage(context, 1));
+		b.addPage(context, new SerializedPage(1, PAGE_TYPE, data(2)));
+		assertEquals(1, a.getPageCount("session"));
+
+		IManageablePage page = a.getPage(context, 1);
+		assertArrayEquals(data(2), ((SerializedPage)page).getData(), "Page changed by other node should be served");
+		assertEquals(1, a.getPageCount("session"));
+		assertArrayEquals(data(2), ((SerializedPage)a.getPage(context, 1)).getData());
+	}
+}
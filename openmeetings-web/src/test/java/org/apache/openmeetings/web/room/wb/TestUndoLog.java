@@ -0,0 +1,77 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License") +  you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.openmeetings.web.room.wb;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.util.AbstractMap.SimpleEntry;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+import com.github.openjson.JSONArray;
+import com.github.openjson.JSONObject;
+import com.hazelcast.internal.serialization.InternalSerializationService;
+import com.hazelcast.internal.serialization.impl.DefaultSerializationServiceBuilder;
+
+class TestUndoLog {
+	private static UndoObject undo(int idx, int chars) {
+		return new UndoObject(UndoObject.Type.add, new JSONArray().put(String.format("%0" + chars + "d", idx)));
+	}
+
+	@Test
+	void testLimits() {
+		Map.Entry<Object, UndoLog> entry = new SimpleEntry<>("key", null);
+		for (int i = 0; i < 5; ++i) {
+			new UndoLog.Add(undo(i, 10), 3, 1000).process(entry);
+		}
+		assertEquals(3, entry.getValue().size(), "Eldest entries should be removed");
+		assertEquals(3 * undo(0, 10).size(), entry.getValue().getChars());
+
+		new UndoLog.Add(undo(5, 1000), 3, 1000).process(entry);
+		assertEquals(1, entry.getValue().size(), "Newest entry should be kept even if it is too big");
+
+		UndoObject u = new UndoLog.Pop().process(entry);
+		assertEquals(undo(5, 1000).getObject(), u.getObject());
+		assertNull(entry.getValue(), "Empty log should be removed");
+		assertNull(new UndoLog.Pop().process(entry));
+	}
+
+	@Test
+	void testSerialization() {
+		InternalSerializationService ss = new DefaultSerializationServiceBuilder()
+				.addDataSerializableFactory(WbSerializableFactory.FACTORY_ID, new WbSerializableFactory())
+				.build();
+		Map.Entry<Object, UndoLog> entry = new SimpleEntry<>("key", null);
+		UndoLog.Add add = ss.toObject(ss.toData(new UndoLog.Add(undo(1, 10), 20, 1000)));
+		add.process(entry);
+		new UndoLog.Add(new UndoObject(UndoObject.Type.modify, new JSONObject().put("uid", "a")), 20, 1000).process(entry);
+
+		UndoLog log = ss.toObject(ss.toData(entry.getValue()));
+		assertEquals(2, log.size());
+		assertEquals(entry.getValue().getChars(), log.getChars());
+		UndoObject u = log.pop();
+		assertEquals(UndoObject.Type.modify, u.getType());
+		assertEquals("a", new JSONObject(u.getObject()).getString("uid"));
+		u = log.pop();
+		assertEquals(UndoObject.Type.add, u.getType());
+		assertEquals(undo(1, 10).getObject(), u.getObject());
+	}
+}
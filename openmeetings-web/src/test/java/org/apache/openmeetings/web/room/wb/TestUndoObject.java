@@ -0,0 +1,47 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License") +  you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.openmeetings.web.room.wb;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+import com.github.openjson.JSONObject;
+
+class TestUndoObject {
+	@Test
+	void testDelta() {
+		JSONObject prev = new JSONObject("{\"uid\":\"a\",\"left\":10,\"top\":20,\"fill\":\"red\",\"path\":[[1,2],[3,4]]}");
+		JSONObject cur = new JSONObject("{\"uid\":\"a\",\"left\":15,\"top\":20,\"path\":[[1,2],[3,4]],\"angle\":90}");
+		JSONObject delta = UndoObject.delta(prev, cur);
+		assertEquals("a", delta.getString("uid"));
+		assertFalse(delta.getJSONObject("set").has("path"), "Unchanged properties should not be stored");
+		assertFalse(delta.getJSONObject("set").has("top"), "Unchanged properties should not be stored");
+
+		JSONObject reverted = UndoObject.revert(cur, delta);
+		assertEquals(10, reverted.getInt("left"));
+		assertEquals(20, reverted.getInt("top"));
+		assertEquals("red", reverted.getString("fill"));
+		assertFalse(reverted.has("angle"));
+		assertTrue(reverted.has("path"));
+		assertEquals(15, cur.getInt("left"), "Current item should not be modified");
+	}
+}
@@ -0,0 +1,81 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License") +  you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.openmeetings.web.room.wb;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.AbstractMap.SimpleEntry;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.openmeetings.db.dto.room.Whiteboard;
+import org.junit.jupiter.api.Test;
+
+import com.github.openjson.JSONObject;
+
+class TestWbItem {
+	private static JSONObject item(String uid, String fill) {
+		return new JSONObject().put("uid", uid).put("type", "rect").put("fill", fill);
+	}
+
+	@Test
+	void testPut() {
+		Map.Entry<Object, WbItem> entry = new SimpleEntry<>("key", null);
+		new WbItem.Put(10, "a").process(entry);
+		assertEquals(10, entry.getValue().getSeq());
+
+		new WbItem.Put(20, "b").process(entry);
+		assertEquals(10, entry.getValue().getSeq(), "Z-order should be kept on update");
+		assertEquals(20, entry.getValue().getVersion());
+
+		new WbItem.Put(15, "c").process(entry);
+		assertEquals("b", entry.getValue().getObject(), "Older version should not replace newer one");
+	}
+
+	@Test
+	void testOrder() {
+		List<WbItem> items = new ArrayList<>(List.of(new WbItem(30, 30, "c"), new WbItem(10, 40, "a"), new WbItem(20, 20, "b")));
+		items.sort(WbItem.BY_SEQ);
+		assertEquals("a", items.get(0).getObject());
+		assertEquals("c", items.get(2).getObject());
+	}
+
+	@Test
+	void testCopyItems() {
+		Whiteboard local = new Whiteboard();
+		local.put("a", item("a", "red"), 10);
+		local.put("b", item("b", "red"), 30);
+
+		Whiteboard remote = new Whiteboard();
+		remote.put("a", item("a", "blue"), 20);
+		remote.put("b", item("b", "blue"), 25);
+		remote.put("c", item("c", "blue"), 5);
+
+		remote.copyItems(local);
+		assertEquals("blue", remote.get("a").getString("fill"), "Newer remote item should be kept");
+		assertEquals("red", remote.get("b").getString("fill"), "Older remote item should be replaced");
+		assertEquals("blue", remote.get("c").getString("fill"));
+
+		assertFalse(remote.putIfNewer("a", item("a", "green"), 20));
+		assertTrue(remote.putIfNewer("a", item("a", "green"), 21));
+	}
+}